@@ -0,0 +1,54 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startet die JMH-Messungen ({@link DbmsBenchmarks}, {@link SelectBenchmark}) wie
+ * {@link org.openjdk.jmh.Main}, misst aber stets auch die Allokationen je Aufruf (Profiler
+ * {@code gc}, siehe {@code gc.alloc.rate.norm} in der Ausgabe).
+ * <p>
+ * Aufruf im Verzeichnis java/dbms: {@code mvn -f bench package}, dann
+ * {@code java -jar bench/target/benchmarks.jar [Muster] [JMH-Optionen]}. Alle Optionen von JMH
+ * sind erlaubt, etwa {@code -l} zum Auflisten der Messungen oder {@code -p name=wert,...} für
+ * Parameter.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class BenchmarkMain {
+
+    /**
+     * Keine Instanzen.
+     */
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Startet JMH mit den Argumenten args und dem Profiler gc, falls er nicht schon angegeben ist.
+     *
+     * @param args Argumente für JMH
+     * @throws Exception bei Fehlern von JMH
+     */
+    public static void main(final String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(withGcProfiler(args));
+    }
+
+    /**
+     * Liefert args, ergänzt um {@code -prof gc}, falls dieser Profiler nicht angegeben ist.
+     *
+     * @param args Argumente für JMH
+     * @return Argumente mit dem Profiler gc
+     */
+    static String[] withGcProfiler(final String[] args) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("-prof") && args[i + 1].startsWith("gc")) {
+                return args;
+            }
+        }
+        List<String> result = new ArrayList<>(Arrays.asList("-prof", "gc"));
+        result.addAll(Arrays.asList(args));
+        return result.toArray(new String[0]);
+    }
+
+}
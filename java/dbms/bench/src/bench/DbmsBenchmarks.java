@@ -0,0 +1,948 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import db.ColumnType;
+import db.DB;
+import db.DBTable;
+import db.Partitioning;
+import db.Query;
+import db.SortDirection;
+import db.StorageLayout;
+
+/**
+ * JMH-Messungen der zentralen Operationen von {@link DBTable} und {@link DB}: select, project,
+ * equijoin, sortedJoin, filteredJoin, sort, removeRows, getTable, viewAppend, rangeSelect,
+ * stringSelect, topN und load.
+ * <p>
+ * Aufruf siehe {@link BenchmarkMain}:
+ * {@code java -jar bench/target/benchmarks.jar [Muster] [-p name=wert,...]}. Mit
+ * {@code -p name=wert,...} werden die Werte eines Parameters vorgegeben, gemessen wird jede
+ * Kombination. Gemessen werden Durchsatz und mittlere Dauer je Aufruf, dazu die Allokationen je
+ * Aufruf ({@code gc.alloc.rate.norm}). Parameter sind:
+ * <ul>
+ * <li>{@code rows}: Zeilenanzahl der Tabellen</li>
+ * <li>{@code cols}: Spaltenanzahl der Tabellen</li>
+ * <li>{@code selectivity}: Anteil der von select und removeRows getroffenen Zeilen bzw. der Zeilen
+ * mit Join-Partner bei filteredJoin und viewAppend</li>
+ * <li>{@code fanout}: Anzahl der Partner jeder Zeile beim equijoin</li>
+ * <li>{@code bloom}: ob filteredJoin mit Bloom-Filter arbeitet</li>
+ * <li>{@code layout}: Speicherlayout der Tabellen</li>
+ * <li>{@code tables}: Anzahl der Tabellen der Datenbank bei getTable</li>
+ * <li>{@code partitions}: Anzahl der Bereichs-Partitionen bei rangeSelect, 1 für keine
+ * Partitionierung</li>
+ * <li>{@code zoneMaps}: ob rangeSelect mit Blockstatistiken arbeitet</li>
+ * <li>{@code distinct}: Anzahl verschiedener Werte je STRING-Spalte bei load</li>
+ * </ul>
+ * Alle Tabellen arbeiten sequentiell, damit die Messung nicht von der Anzahl der Kerne abhängt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class DbmsBenchmarks {
+
+    /**
+     * Keine Instanzen.
+     */
+    private DbmsBenchmarks() {
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit rowCnt Zeilen und colCnt Spalten c0, c1, ... Die Spalte c0 vom Typ
+     * INT enthält den Wert i % keyCnt bzw., falls random != null, einen zufälligen Wert aus
+     * [0, keyCnt). Die übrigen Spalten sind abwechselnd vom Typ STRING und LONG.
+     *
+     * @param id     Bezeichner der Tabelle
+     * @param rowCnt Anzahl der Zeilen
+     * @param colCnt Anzahl der Spalten
+     * @param keyCnt Anzahl verschiedener Werte in c0
+     * @param layout Speicherlayout
+     * @param random Zufallszahlen für c0, null für fortlaufende Werte
+     * @return Tabelle
+     */
+    static DBTable createTable(String id, int rowCnt, int colCnt, int keyCnt,
+                               StorageLayout layout, Random random) {
+        List<String> colIds = new ArrayList<>();
+        List<ColumnType> types = new ArrayList<>();
+        for (int i = 0; i < colCnt; i++) {
+            colIds.add("c" + i);
+            types.add(i == 0 ? ColumnType.INT : i % 2 == 1 ? ColumnType.STRING : ColumnType.LONG);
+        }
+        DBTable result = new DBTable(id, colIds, types, layout);
+        result.setParallelThreshold(Integer.MAX_VALUE);
+        Random values = new Random(42);
+        List<String> row = new ArrayList<>(colCnt);
+        for (int i = 0; i < rowCnt; i++) {
+            row.clear();
+            row.add(Integer.toString(random == null ? i % keyCnt : random.nextInt(keyCnt)));
+            for (int j = 1; j < colCnt; j++) {
+                row.add(j % 2 == 1 ? "v" + values.nextInt(1000)
+                        : Long.toString(values.nextLong() >> 16));
+            }
+            result.appendRow(row);
+        }
+        return result;
+    }
+
+    /**
+     * Liefert den Test auf Werte von c0 kleiner als bound.
+     *
+     * @param bound Grenze, exklusive
+     * @return Test
+     */
+    static Predicate<String> lessThan(final int bound) {
+        return new Predicate<String>() {
+            @Override
+            public boolean test(String s) {
+                return Integer.parseInt(s) < bound;
+            }
+        };
+    }
+
+    /**
+     * {@link DBTable#select(String, Predicate, String)} mit einem Test je Zeile.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Select {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Anteil der getroffenen Zeilen
+         */
+        @Param({"0.01", "0.5"})
+        public double selectivity;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+        /**
+         * Test der Werte von c0
+         */
+        private Predicate<String> p;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.table = createTable("t", this.rows, this.cols, this.rows, this.layout,
+                    new Random(1));
+            this.p = lessThan((int) (this.rows * this.selectivity));
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object select() {
+            return this.table.select("c0", this.p, "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#project} auf die erste Hälfte der Spalten.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Project {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+        /**
+         * Bezeichner der projizierten Spalten
+         */
+        private List<String> colIds;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.table = createTable("t", this.rows, this.cols, this.rows, this.layout,
+                    new Random(1));
+            List<String> all = this.table.getColIds();
+            this.colIds = new ArrayList<>(all.subList(0, Math.max(1, all.size() / 2)));
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object project() {
+            return this.table.project(this.colIds, "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#equijoin} einer Tabelle mit eindeutigen Schlüsseln mit einer Tabelle, in
+     * der jeder Schlüssel fanout-mal vorkommt. Das Ergebnis hat rows * fanout Zeilen.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Equijoin {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Anzahl der Partner jeder Zeile
+         */
+        @Param({"1", "4"})
+        public int fanout;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle mit eindeutigen Schlüsseln
+         */
+        private DBTable left;
+        /**
+         * Tabelle mit fanout Zeilen je Schlüssel
+         */
+        private DBTable right;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.left = createTable("l", this.rows, this.cols, this.rows, this.layout, null);
+            this.right = createTable("r", this.rows * this.fanout, this.cols, this.rows,
+                    this.layout, null);
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object equijoin() {
+            return this.left.equijoin(this.right, "c0", "c0", "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#equijoin} wie bei {@link Equijoin}, jedoch über Tabellen, die nach c0
+     * sortiert vorliegen und daher ohne Hashing gemischt werden.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class SortedJoin {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Anzahl der Partner jeder Zeile
+         */
+        @Param({"1", "4"})
+        public int fanout;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Nach c0 sortierte Tabelle mit eindeutigen Schlüsseln
+         */
+        private DBTable left;
+        /**
+         * Nach c0 sortierte Tabelle mit fanout Zeilen je Schlüssel
+         */
+        private DBTable right;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.left = createTable("l", this.rows, this.cols, this.rows, this.layout, null);
+            this.right = createTable("r", this.rows * this.fanout, this.cols, this.rows,
+                    this.layout, null);
+            this.left.sort("c0", SortDirection.ASC);
+            this.right.sort("c0", SortDirection.ASC);
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object sortedJoin() {
+            return this.left.equijoin(this.right, "c0", "c0", "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#equijoin(DBTable, String, String, String, boolean)} einer großen Tabelle mit
+     * einer kleinen, deren Schlüssel nur den Anteil selectivity der Zeilen der großen treffen.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class FilteredJoin {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Anteil der Zeilen der großen Tabelle mit Join-Partner
+         */
+        @Param({"0.01", "0.5"})
+        public double selectivity;
+        /**
+         * Gibt an, ob per Bloom-Filter vorgefiltert wird
+         */
+        @Param({"false", "true"})
+        public boolean bloom;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Große Tabelle mit zufälligen Schlüsseln aus [0, rows)
+         */
+        private DBTable fact;
+        /**
+         * Kleine Tabelle mit den Schlüsseln [0, rows * selectivity)
+         */
+        private DBTable dimension;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            int keys = Math.max(1, (int) (this.rows * this.selectivity));
+            this.fact = createTable("f", this.rows, 4, this.rows, this.layout, new Random(1));
+            this.dimension = createTable("d", keys, 4, keys, this.layout, null);
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object filteredJoin() {
+            return this.fact.equijoin(this.dimension, "c0", "c0", "result", this.bloom);
+        }
+    }
+
+    /**
+     * {@link DBTable#sort(String, SortDirection)} einer unsortierten Tabelle nach c0.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Sort {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Ausgangstabelle, bleibt unverändert
+         */
+        private DBTable base;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.base = createTable("t", this.rows, this.cols, this.rows, this.layout,
+                    new Random(1));
+        }
+
+        /**
+         * Kopiert vor jedem Aufruf die Ausgangstabelle, da die Operation die Tabelle verändert.
+         */
+        @Setup(Level.Invocation)
+        public void prepare() {
+            // project kopiert alle Zeilen in einen neuen Speicher
+            this.table = this.base.project(this.base.getColIds(), "copy");
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object sort() {
+            this.table.sort("c0", SortDirection.ASC);
+            return this.table;
+        }
+    }
+
+    /**
+     * {@link DBTable#removeRows} mit einem Test je Zeile.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class RemoveRows {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Spaltenanzahl der Tabellen
+         */
+        @Param({"4", "16"})
+        public int cols;
+        /**
+         * Anteil der getroffenen Zeilen
+         */
+        @Param({"0.01", "0.5"})
+        public double selectivity;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Ausgangstabelle, bleibt unverändert
+         */
+        private DBTable base;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+        /**
+         * Test der Werte von c0
+         */
+        private Predicate<String> p;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.base = createTable("t", this.rows, this.cols, this.rows, this.layout,
+                    new Random(1));
+            this.p = lessThan((int) (this.rows * this.selectivity));
+        }
+
+        /**
+         * Kopiert vor jedem Aufruf die Ausgangstabelle, da die Operation die Tabelle verändert.
+         */
+        @Setup(Level.Invocation)
+        public void prepare() {
+            this.table = this.base.project(this.base.getColIds(), "copy");
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object removeRows() {
+            this.table.removeRows("c0", this.p);
+            return this.table;
+        }
+    }
+
+    /**
+     * {@link DB#getTable} für wechselnde vorhandene Tabellen.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class GetTable {
+
+        /**
+         * Anzahl der Tabellen der Datenbank
+         */
+        @Param({"16", "1024"})
+        public int tables;
+        /**
+         * Datenbank der Messung
+         */
+        private DB db;
+        /**
+         * Bezeichner der Tabellen
+         */
+        private String[] ids;
+        /**
+         * Position des nächsten gelieferten Bezeichners
+         */
+        private int next;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.db = new DB("bench");
+            this.ids = new String[this.tables];
+            for (int i = 0; i < this.ids.length; i++) {
+                this.ids[i] = "t" + i;
+                this.db.addTable(createTable(this.ids[i], 1, 1, 1, StorageLayout.ROW, null));
+            }
+            this.next = 0;
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object getTable() {
+            this.next = this.next + 1 == this.ids.length ? 0 : this.next + 1;
+            return this.db.getTable(this.ids[this.next]);
+        }
+    }
+
+    /**
+     * {@link DBTable#appendRow} an eine Tabelle, über der eine materialisierte Sicht mit Join
+     * liegt (siehe {@link DB#createView}). Gemessen wird das Anhängen samt Einarbeiten des Deltas.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class ViewAppend {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Anteil der Zeilen mit Join-Partner
+         */
+        @Param({"0.01", "0.5"})
+        public double selectivity;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Große Tabelle, an die angehängt wird
+         */
+        private DBTable fact;
+        /**
+         * Zufallszahlen für die Schlüssel der angehängten Zeilen
+         */
+        private Random random;
+        /**
+         * Angehängte Zeile ohne Schlüssel
+         */
+        private List<String> row;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            int keys = Math.max(1, (int) (this.rows * this.selectivity));
+            DB db = new DB("bench");
+            this.fact = createTable("f", this.rows, 4, this.rows, this.layout, new Random(1));
+            db.addTable(this.fact);
+            db.addTable(createTable("d", keys, 4, keys, this.layout, null));
+            Query query = db.query("f").join(db.query("d"), "c0", "c0", "fd");
+            db.createView("v", query);
+            this.random = new Random(2);
+            this.row = new ArrayList<>(Arrays.asList("0", "v0", "0", "v0"));
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object viewAppend() {
+            this.row.set(0, Integer.toString(this.random.nextInt(this.rows)));
+            this.fact.appendRow(this.row);
+            return this.fact;
+        }
+    }
+
+    /**
+     * {@link DBTable#selectRange} über c0, wobei c0 in aufsteigender Reihenfolge angehängt ist und
+     * die Tabelle nach c0 in gleich große Bereiche partitioniert ist (siehe
+     * {@link DBTable#partition}) bzw. Blockstatistiken führt (siehe {@link DBTable#setZoneMaps}).
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class RangeSelect {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Anteil der getroffenen Zeilen
+         */
+        @Param({"0.01", "0.5"})
+        public double selectivity;
+        /**
+         * Anzahl der Bereichs-Partitionen, 1 für keine Partitionierung
+         */
+        @Param({"1", "64"})
+        public int partitions;
+        /**
+         * Gibt an, ob mit Blockstatistiken gearbeitet wird
+         */
+        @Param({"false", "true"})
+        public boolean zoneMaps;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+        /**
+         * Obere Grenze des Bereiches, exklusive
+         */
+        private String to;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.table = createTable("t", this.rows, 4, this.rows, this.layout, null);
+            if (this.partitions > 1) {
+                List<String> bounds = new ArrayList<>();
+                for (int i = 1; i < this.partitions; i++) {
+                    bounds.add(Integer.toString((int) ((long) this.rows * i / this.partitions)));
+                }
+                this.table.partition(Partitioning.range("c0", bounds));
+            }
+            this.table.setZoneMaps(this.zoneMaps);
+            this.to = Integer.toString((int) (this.rows * this.selectivity));
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object rangeSelect() {
+            return this.table.selectRange("c0", "0", this.to, "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#selectEquals} über die STRING-Spalte c1 mit 1000 verschiedenen Werten, deren
+     * Werte im spaltenorientierten Speicher als Codes eines Wörterbuches verglichen werden.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class StringSelect {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.table = createTable("t", this.rows, 4, this.rows, this.layout, null);
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object stringSelect() {
+            return this.table.selectEquals("c1", "v7", "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#topN(String, SortDirection, int, String)}: die 100 Zeilen mit den größten
+     * Werten in c0, ohne die Tabelle zu sortieren.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class TopN {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+
+        /**
+         * Baut die Tabellen der Messung auf.
+         */
+        @Setup
+        public void setUp() {
+            this.table = createTable("t", this.rows, 4, this.rows, this.layout, new Random(1));
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         */
+        @Benchmark
+        public Object topN() {
+            return this.table.topN("c0", SortDirection.DESC, 100, "result");
+        }
+    }
+
+    /**
+     * {@link DBTable#load} einer CSV-Datei mit rows Datensätzen in eine leere Tabelle. Die beiden
+     * STRING-Spalten haben je distinct verschiedene Werte; gleiche Werte werden beim Anhängen über
+     * Wörterbücher zusammengeführt, bis eine Spalte zu viele verschiedene Werte hat.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Load {
+
+        /**
+         * Zeilenanzahl der Tabellen
+         */
+        @Param({"10000", "100000"})
+        public int rows;
+        /**
+         * Anzahl verschiedener Werte je STRING-Spalte
+         */
+        @Param({"100", "100000"})
+        public int distinct;
+        /**
+         * Speicherlayout der Tabellen
+         */
+        @Param({"ROW", "COLUMN"})
+        public StorageLayout layout;
+        /**
+         * Geladene Datei
+         */
+        private Path file;
+        /**
+         * Tabelle der Messung
+         */
+        private DBTable table;
+
+        /**
+         * Schreibt die Datei der Messung.
+         *
+         * @throws IOException bei Fehlern beim Schreiben
+         */
+        @Setup
+        public void setUp() throws IOException {
+            this.file = Files.createTempFile("load", ".csv");
+            Random random = new Random(1);
+            List<String> lines = new ArrayList<>(this.rows);
+            for (int i = 0; i < this.rows; i++) {
+                lines.add(i + ",v" + random.nextInt(this.distinct) + "," + random.nextLong()
+                        + ",w" + random.nextInt(this.distinct));
+            }
+            Files.write(this.file, lines, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Legt vor jedem Aufruf eine leere Tabelle an, da die Operation die Tabelle verändert.
+         */
+        @Setup(Level.Invocation)
+        public void prepare() {
+            this.table = new DBTable("t", Arrays.asList("c0", "c1", "c2", "c3"),
+                    Arrays.asList(ColumnType.INT, ColumnType.STRING, ColumnType.LONG,
+                            ColumnType.STRING), this.layout);
+            this.table.setParallelThreshold(Integer.MAX_VALUE);
+        }
+
+        /**
+         * Löscht die Datei der Messung.
+         *
+         * @throws IOException bei Fehlern beim Löschen
+         */
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(this.file);
+        }
+
+        /**
+         * Führt die gemessene Operation aus.
+         *
+         * @return Ergebnis
+         * @throws IOException bei Fehlern beim Lesen
+         */
+        @Benchmark
+        public Object load() throws IOException {
+            this.table.load(this.file, ',', false);
+            return this.table;
+        }
+    }
+
+}
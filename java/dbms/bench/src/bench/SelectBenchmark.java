@@ -0,0 +1,192 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import db.BatchPredicate;
+import db.ColumnType;
+import db.DBTable;
+import db.StorageLayout;
+
+/**
+ * Vergleicht die Auswahl von Zeilen per {@link DBTable#select(String, Predicate, String)}, also mit
+ * einem Test je Zeile ({@link #perRow}), mit der blockweisen Auswertung per
+ * {@link DBTable#select(String, BatchPredicate, String)} ({@link #batch}) für Gleichheit, Präfix,
+ * Bereich und IN-Liste. Gemessen wird je Speicherlayout auf einer Tabelle mit einer Spalte vom Typ
+ * INT und einer vom Typ STRING.
+ * <p>
+ * Aufruf siehe {@link BenchmarkMain}:
+ * {@code java -jar bench/target/benchmarks.jar SelectBenchmark [-p rows=...]}; voreingestellt
+ * sind 1.000.000 Zeilen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+
+    /**
+     * Zeilenanzahl der Tabelle
+     */
+    @Param({"1000000"})
+    public int rows;
+    /**
+     * Speicherlayout der Tabelle
+     */
+    @Param({"ROW", "COLUMN"})
+    public StorageLayout layout;
+    /**
+     * Gemessener Fall: num = 4711, num in [10, 20), num in [3, 300, 3000, 30000],
+     * name = name_42 bzw. name startsWith name_1
+     */
+    @Param({"numEquals", "numRange", "numIn", "nameEquals", "nameStartsWith"})
+    public String selection;
+    /**
+     * Tabelle der Messung
+     */
+    private DBTable table;
+    /**
+     * Getestete Spalte
+     */
+    private String colId;
+    /**
+     * Test je Zeile
+     */
+    private Predicate<String> perRow;
+    /**
+     * Blockweiser Test
+     */
+    private BatchPredicate batch;
+
+    /**
+     * Baut die Tabelle und die Tests des Falles auf und prüft, dass beide Arten der Auswahl
+     * dieselben Zeilen liefern.
+     *
+     * @throws IllegalStateException falls sich die Ergebnisse unterscheiden
+     */
+    @Setup
+    public void setUp() {
+        this.table = createTable(this.layout, this.rows);
+        switch (this.selection) {
+            case "numEquals":
+                this.colId = "num";
+                this.perRow = new Predicate<String>() {
+                    @Override
+                    public boolean test(String s) {
+                        return "4711".equals(s);
+                    }
+                };
+                this.batch = BatchPredicate.equalTo("4711");
+                break;
+            case "numRange":
+                this.colId = "num";
+                this.perRow = new Predicate<String>() {
+                    @Override
+                    public boolean test(String s) {
+                        int value = Integer.parseInt(s);
+                        return value >= 10 && value < 20;
+                    }
+                };
+                this.batch = BatchPredicate.range("10", "20");
+                break;
+            case "numIn":
+                final List<String> wanted = Arrays.asList("3", "300", "3000", "30000");
+                this.colId = "num";
+                this.perRow = new Predicate<String>() {
+                    @Override
+                    public boolean test(String s) {
+                        return wanted.contains(s);
+                    }
+                };
+                this.batch = BatchPredicate.in(wanted);
+                break;
+            case "nameEquals":
+                this.colId = "name";
+                this.perRow = new Predicate<String>() {
+                    @Override
+                    public boolean test(String s) {
+                        return "name_42".equals(s);
+                    }
+                };
+                this.batch = BatchPredicate.equalTo("name_42");
+                break;
+            case "nameStartsWith":
+                this.colId = "name";
+                this.perRow = new Predicate<String>() {
+                    @Override
+                    public boolean test(String s) {
+                        return s.startsWith("name_1");
+                    }
+                };
+                this.batch = BatchPredicate.startsWith("name_1");
+                break;
+            default:
+                throw new IllegalArgumentException("Unbekannter Fall: " + this.selection);
+        }
+        if (perRow().getRowCnt() != batch().getRowCnt()) {
+            throw new IllegalStateException("Ergebnisse unterscheiden sich: " + this.selection);
+        }
+    }
+
+    /**
+     * Wählt die Zeilen mit einem Test je Zeile aus.
+     *
+     * @return Ergebnistabelle
+     */
+    @Benchmark
+    public DBTable perRow() {
+        return this.table.select(this.colId, this.perRow, "result");
+    }
+
+    /**
+     * Wählt die Zeilen blockweise aus.
+     *
+     * @return Ergebnistabelle
+     */
+    @Benchmark
+    public DBTable batch() {
+        return this.table.select(this.colId, this.batch, "result");
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit rowCnt zufälligen Zeilen.
+     *
+     * @param layout Speicherlayout
+     * @param rowCnt Anzahl der Zeilen
+     * @return Tabelle
+     */
+    private static DBTable createTable(StorageLayout layout, int rowCnt) {
+        DBTable result = new DBTable("bench", Arrays.asList("num", "name"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), layout);
+        Random random = new Random(42);
+        List<String> row = new ArrayList<>(2);
+        for (int i = 0; i < rowCnt; i++) {
+            row.clear();
+            row.add(Integer.toString(random.nextInt(100_000)));
+            row.add("name_" + random.nextInt(1_000));
+            result.appendRow(row);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,165 @@
+package bench;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kurzer Lauf der JMH-Messungen auf kleinen Tabellen im selben Prozess: Jede Messung lässt sich
+ * aufsetzen und ausführen und liefert Durchsatz, mittlere Dauer und Allokationen je Aufruf.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class BenchmarkSmokeTest {
+
+    /**
+     * Muster der Messungen von select, project, equijoin, sort, removeRows und getTable
+     */
+    private static final String CORE =
+            "bench\\.DbmsBenchmarks\\.(Select|Project|Equijoin|Sort|RemoveRows|GetTable)\\.";
+
+    /**
+     * Führt die Messungen zum Muster include je einmal kurz im selben Prozess aus, mit den
+     * Parametern params als abwechselnde Namen und Werte, und prüft, dass jede einen Durchsatz
+     * bzw. eine Dauer größer 0 liefert.
+     */
+    static Collection<RunResult> run(String include, boolean gc, String... params)
+            throws RunnerException {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(include)
+                .forks(0)
+                .warmupIterations(0)
+                .measurementIterations(1)
+                .measurementTime(TimeValue.milliseconds(20));
+        for (int i = 0; i < params.length; i += 2) {
+            builder.param(params[i], params[i + 1]);
+        }
+        if (gc) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        Collection<RunResult> results = new Runner(builder.build()).run();
+        for (RunResult result : results) {
+            assertTrue(result.getParams().getBenchmark(),
+                    result.getPrimaryResult().getScore() > 0);
+        }
+        return results;
+    }
+
+    @Test
+    public void coreBenchmarks_reportThroughputAndAllocations() throws RunnerException {
+        Collection<RunResult> results = run(CORE, true, "rows", "1000", "cols", "4",
+                "selectivity", "0.5", "fanout", "2", "layout", "ROW", "tables", "16");
+        // 6 Messungen, je in zwei Modi
+        assertEquals(12, results.size());
+        for (RunResult result : results) {
+            assertTrue(result.getParams().getBenchmark(),
+                    result.getSecondaryResults().containsKey("gc.alloc.rate.norm"));
+        }
+    }
+
+    @Test
+    public void coreBenchmarks_boundaryParams() throws RunnerException {
+        // eine Zeile und eine Spalte, keine bzw. alle Zeilen getroffen, eine Tabelle
+        for (String selectivity : new String[]{"0", "1"}) {
+            assertEquals(12, run(CORE, false, "rows", "1", "cols", "1",
+                    "selectivity", selectivity, "fanout", "1", "layout", "COLUMN",
+                    "tables", "1").size());
+        }
+    }
+
+    @Test
+    public void selectBenchmark_allSelections() throws RunnerException {
+        // jede Auswahl je Zeile und blockweise, auf einer Zeile und über mehrere Blöcke
+        for (String rows : new String[]{"1", "10000"}) {
+            assertEquals(20, run("bench\\.SelectBenchmark\\.", false, "rows", rows,
+                    "layout", "COLUMN").size());
+        }
+    }
+
+    @Test
+    public void filteredJoin_withAndWithoutBloomFilter() throws RunnerException {
+        // keine bzw. jede Zeile mit Partner
+        for (String selectivity : new String[]{"0", "1"}) {
+            assertEquals(4, run("bench\\.DbmsBenchmarks\\.FilteredJoin\\.", false,
+                    "rows", "1000", "selectivity", selectivity, "layout", "ROW").size());
+        }
+    }
+
+    @Test
+    public void sortedJoin_run() throws RunnerException {
+        // jeder Schlüssel einmal bzw. mehrfach in der zweiten Tabelle
+        for (String fanout : new String[]{"1", "4"}) {
+            assertEquals(2, run("bench\\.DbmsBenchmarks\\.SortedJoin\\.", false,
+                    "rows", "1000", "cols", "4", "fanout", fanout, "layout", "ROW").size());
+        }
+    }
+
+    @Test
+    public void viewAppend_run() throws RunnerException {
+        // keine bzw. jede angehängte Zeile mit Join-Partner
+        for (String selectivity : new String[]{"0", "1"}) {
+            assertEquals(2, run("bench\\.DbmsBenchmarks\\.ViewAppend\\.", false,
+                    "rows", "1000", "selectivity", selectivity, "layout", "ROW").size());
+        }
+    }
+
+    @Test
+    public void stringSelectAndLoad_run() throws RunnerException {
+        assertEquals(2, run("bench\\.DbmsBenchmarks\\.StringSelect\\.", false,
+                "rows", "1000", "layout", "COLUMN").size());
+        // ein Wert je Spalte bzw. mehr verschiedene Werte als Zeilen
+        for (String distinct : new String[]{"1", "100000"}) {
+            assertEquals(2, run("bench\\.DbmsBenchmarks\\.Load\\.", false,
+                    "rows", "1000", "distinct", distinct, "layout", "COLUMN").size());
+        }
+    }
+
+    @Test
+    public void topN_run() throws RunnerException {
+        // weniger bzw. mehr Zeilen als die 100 des Ergebnisses
+        for (String rows : new String[]{"10", "1000"}) {
+            assertEquals(2, run("bench\\.DbmsBenchmarks\\.TopN\\.", false,
+                    "rows", rows, "layout", "ROW").size());
+        }
+    }
+
+    @Test
+    public void rangeSelect_run() throws RunnerException {
+        // mit und ohne Blockstatistiken, ohne bzw. mit Partitionierung
+        for (String partitions : new String[]{"1", "4"}) {
+            assertEquals(4, run("bench\\.DbmsBenchmarks\\.RangeSelect\\.", false,
+                    "rows", "1000", "selectivity", "0.5", "partitions", partitions,
+                    "layout", "ROW").size());
+        }
+    }
+
+    @Test
+    public void gcProfiler_addedOnce() {
+        assertArrayEquals(new String[]{"-prof", "gc", "Select"},
+                BenchmarkMain.withGcProfiler(new String[]{"Select"}));
+        // ein anderer Profiler oder -prof ohne Namen ersetzt gc nicht
+        assertArrayEquals(new String[]{"-prof", "gc", "-prof", "stack"},
+                BenchmarkMain.withGcProfiler(new String[]{"-prof", "stack"}));
+        assertArrayEquals(new String[]{"-prof", "gc", "Select", "-prof"},
+                BenchmarkMain.withGcProfiler(new String[]{"Select", "-prof"}));
+        String[] withOptions = {"-prof", "gc:churn=true"};
+        assertArrayEquals(withOptions, BenchmarkMain.withGcProfiler(withOptions));
+        String[] explicit = {"-prof", "gc", "-f", "2"};
+        assertArrayEquals(explicit, BenchmarkMain.withGcProfiler(explicit));
+        assertEquals(Arrays.asList("-prof", "gc"),
+                Arrays.asList(BenchmarkMain.withGcProfiler(new String[0])));
+    }
+
+}
@@ -0,0 +1,80 @@
+package db;
+
+/**
+ * Eine Ergebnisspalte einer Aggregation (siehe {@link Grouping}): eine Aggregatfunktion, die
+ * Spalte, auf die sie angewendet wird, und der Bezeichner der Ergebnisspalte.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class Aggregate {
+
+    /**
+     * Aggregatfunktion
+     */
+    private final AggregateFunction function;
+    /**
+     * Bezeichner der aggregierten Spalte oder null für COUNT über alle Zeilen
+     */
+    private final String colId;
+    /**
+     * Bezeichner der Ergebnisspalte
+     */
+    private final String resultColId;
+
+    /**
+     * Erzeugt eine Ergebnisspalte resultColId, die die Funktion f auf die Spalte aColId anwendet.
+     *
+     * @param f           Aggregatfunktion
+     * @param aColId      Bezeichner der aggregierten Spalte; null zählt bei COUNT alle Zeilen
+     * @param resultColId Bezeichner der Ergebnisspalte
+     * @pre f != null
+     * @pre resultColId != null
+     * @pre aColId != null || f == AggregateFunction.COUNT
+     * @pre die Bezeichner aColId und resultColId müssen gültig sein
+     */
+    public Aggregate(final AggregateFunction f, final String aColId, final String resultColId) {
+        assert f != null;
+        assert resultColId != null;
+        assert aColId != null || f == AggregateFunction.COUNT;
+        assert aColId == null || DBTable.isValidIdentifier(aColId);
+        assert DBTable.isValidIdentifier(resultColId);
+
+        this.function = f;
+        this.colId = aColId;
+        this.resultColId = resultColId;
+    }
+
+    /**
+     * Liefert die Aggregatfunktion.
+     *
+     * @return Aggregatfunktion
+     */
+    public AggregateFunction getFunction() {
+        return this.function;
+    }
+
+    /**
+     * Liefert den Bezeichner der aggregierten Spalte.
+     *
+     * @return Bezeichner der Spalte oder null für COUNT über alle Zeilen
+     */
+    public String getColId() {
+        return this.colId;
+    }
+
+    /**
+     * Liefert den Bezeichner der Ergebnisspalte.
+     *
+     * @return Bezeichner der Ergebnisspalte
+     */
+    public String getResultColId() {
+        return this.resultColId;
+    }
+
+    @Override
+    public String toString() {
+        return this.function + "(" + (this.colId == null ? "*" : this.colId) + ") "
+                + this.resultColId;
+    }
+
+}
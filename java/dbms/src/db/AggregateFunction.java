@@ -0,0 +1,61 @@
+package db;
+
+/**
+ * Aggregatfunktionen, die die Werte einer Spalte über alle Zeilen einer Gruppe zusammenfassen
+ * (siehe {@link Grouping}). null-Werte werden dabei übergangen; enthält eine Gruppe nur null-Werte,
+ * ist das Ergebnis null, bei {@link #COUNT} dagegen 0.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public enum AggregateFunction {
+
+    /** Anzahl der Werte bzw. ohne Spalte Anzahl der Zeilen, Ergebnistyp LONG. */
+    COUNT,
+    /**
+     * Summe der Werte, Ergebnistyp LONG für INT und LONG, sonst DOUBLE. Überschreitet eine
+     * ganzzahlige Summe den Wertebereich von long, wird eine ArithmeticException ausgelöst.
+     */
+    SUM,
+    /** Kleinster Wert, Ergebnistyp ist der Typ der Spalte. */
+    MIN,
+    /** Größter Wert, Ergebnistyp ist der Typ der Spalte. */
+    MAX,
+    /** Mittelwert der Werte, Ergebnistyp DOUBLE. */
+    AVG;
+
+    /**
+     * Gibt an, ob diese Funktion auf Spalten des Typs type angewendet werden kann. SUM und AVG
+     * setzen Zahlen voraus.
+     *
+     * @param type Typ der Spalte
+     * @return true, falls die Funktion anwendbar ist
+     */
+    public boolean accepts(final ColumnType type) {
+        if (this == SUM || this == AVG) {
+            return type == ColumnType.INT || type == ColumnType.LONG
+                    || type == ColumnType.DOUBLE;
+        }
+        return true;
+    }
+
+    /**
+     * Liefert den Typ der Ergebnisse dieser Funktion über einer Spalte des Typs type.
+     *
+     * @param type Typ der Spalte oder null für {@link #COUNT} ohne Spalte
+     * @return Ergebnistyp
+     * @pre type == null || accepts(type)
+     */
+    ColumnType resultType(final ColumnType type) {
+        switch (this) {
+            case COUNT:
+                return ColumnType.LONG;
+            case SUM:
+                return type == ColumnType.DOUBLE ? ColumnType.DOUBLE : ColumnType.LONG;
+            case AVG:
+                return ColumnType.DOUBLE;
+            default:
+                return type;
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Ein Test über den Werten einer Spalte, der nicht Zeile für Zeile, sondern blockweise ausgewertet
+ * wird (siehe {@link DBTable#selection} und
+ * {@link DBTable#select(String, BatchPredicate, String)}). Die Werte eines Blocks von
+ * {@link #CHUNK_ROWS} Zeilen werden gemeinsam ausgelesen und in einer engen Schleife ohne Aufrufe
+ * über Schnittstellen geprüft; das Ergebnis ist eine Bitmenge der zutreffenden Zeilen. Für Spalten
+ * eines Typs mit Schlüsseln (siehe {@link ColumnType#hasKeys()}) werden dabei nur Zahlen
+ * verglichen, ebenso bei {@link #in} für Spalten, deren Werte als Codes eines Wörterbuches
+ * gespeichert sind.
+ * <p>
+ * Verglichen wird wie bei {@link DBTable#selectEquals} und {@link DBTable#selectRange} gemäß dem
+ * Typ der Spalte. null erfüllt keinen der vorgegebenen Tests.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public abstract class BatchPredicate {
+
+    /**
+     * Anzahl der Zeilen eines Blocks, ein Vielfaches von 64
+     */
+    static final int CHUNK_ROWS = 4096;
+
+    /**
+     * Nur die vorgegebenen Tests.
+     */
+    BatchPredicate() {
+    }
+
+    /**
+     * Liefert den Test auf Gleichheit mit value.
+     *
+     * @param value gesuchter Wert
+     * @return Test
+     * @pre value != null
+     */
+    public static BatchPredicate equalTo(final String value) {
+        assert value != null;
+
+        return in(Arrays.asList(value));
+    }
+
+    /**
+     * Liefert den Test, ob ein Wert mit prefix beginnt. Geprüft wird die Zeichenkette, bei Spalten
+     * eines Typs mit Schlüsseln also der Wert in Normalform.
+     *
+     * @param prefix gesuchter Anfang
+     * @return Test
+     * @pre prefix != null
+     */
+    public static BatchPredicate startsWith(final String prefix) {
+        assert prefix != null;
+
+        return new BatchPredicate() {
+            @Override
+            void evaluate(TableStore store, int col, ColumnType type, int from, int to,
+                          long[] words) {
+                String[] values = new String[to - from];
+                store.values(col, from, to, values);
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null && values[i].startsWith(prefix)) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "startsWith " + prefix;
+            }
+        };
+    }
+
+    /**
+     * Liefert den Test, ob ein Wert im Bereich [from, to) liegt.
+     *
+     * @param from untere Grenze, inklusive
+     * @param to   obere Grenze, exklusive
+     * @return Test
+     * @pre from != null
+     * @pre to != null
+     * @pre from und to müssen zum Typ der getesteten Spalte passen
+     */
+    public static BatchPredicate range(final String from, final String to) {
+        assert from != null;
+        assert to != null;
+
+        return new BatchPredicate() {
+            @Override
+            void evaluate(TableStore store, int col, ColumnType type, int first, int last,
+                          long[] words) {
+                if (type.hasKeys()) {
+                    long fromKey = type.toKey(from);
+                    long toKey = type.toKey(to);
+                    long[] keys = new long[last - first];
+                    boolean[] nulls = new boolean[keys.length];
+                    store.keys(col, first, last, keys, nulls);
+                    for (int i = 0; i < keys.length; i++) {
+                        boolean hit = !nulls[i] & keys[i] >= fromKey & keys[i] < toKey;
+                        words[i >>> 6] |= (hit ? 1L : 0L) << i;
+                    }
+                    return;
+                }
+                String[] values = new String[last - first];
+                store.values(col, first, last, values);
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null && values[i].compareTo(from) >= 0
+                            && values[i].compareTo(to) < 0) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "range [" + from + ", " + to + ")";
+            }
+        };
+    }
+
+    /**
+     * Liefert den Test, ob ein Wert in values enthalten ist. Werte, die nicht zum Typ der
+     * getesteten Spalte passen, werden übergangen.
+     *
+     * @param values gesuchte Werte
+     * @return Test
+     * @pre values != null
+     * @pre values enthält nicht null
+     */
+    public static BatchPredicate in(final Collection<String> values) {
+        assert values != null;
+        assert !values.contains(null);
+
+        final Set<String> strs = new HashSet<>(values);
+        // aufsteigend sortierte Schlüssel der gültigen gesuchten Werte je Typ
+        final Map<ColumnType, long[]> wantedKeys = new EnumMap<>(ColumnType.class);
+        for (ColumnType type : ColumnType.values()) {
+            if (type.hasKeys()) {
+                long[] result = new long[strs.size()];
+                int cnt = 0;
+                for (String value : strs) {
+                    if (type.isValid(value)) {
+                        result[cnt++] = type.toKey(value);
+                    }
+                }
+                result = Arrays.copyOf(result, cnt);
+                Arrays.sort(result);
+                wantedKeys.put(type, result);
+            }
+        }
+        return new BatchPredicate() {
+            @Override
+            void evaluate(TableStore store, int col, ColumnType type, int from, int to,
+                          long[] words) {
+                if (type.hasKeys()) {
+                    long[] wanted = wantedKeys.get(type);
+                    long[] keys = new long[to - from];
+                    boolean[] nulls = new boolean[keys.length];
+                    store.keys(col, from, to, keys, nulls);
+                    if (wanted.length <= 1) {
+                        long key = wanted.length == 1 ? wanted[0] : 0;
+                        boolean any = wanted.length == 1;
+                        for (int i = 0; i < keys.length; i++) {
+                            boolean hit = any & !nulls[i] & keys[i] == key;
+                            words[i >>> 6] |= (hit ? 1L : 0L) << i;
+                        }
+                    } else {
+                        for (int i = 0; i < keys.length; i++) {
+                            if (!nulls[i] && Arrays.binarySearch(wanted, keys[i]) >= 0) {
+                                words[i >>> 6] |= 1L << i;
+                            }
+                        }
+                    }
+                    return;
+                }
+                StringDictionary dictionary = store.dictionary(col);
+                if (dictionary != null) {
+                    // nur die Codes der gesuchten Werte vergleichen
+                    BitSet wanted = new BitSet();
+                    for (String value : strs) {
+                        int code = dictionary.code(value);
+                        if (code >= 0) {
+                            wanted.set(code);
+                        }
+                    }
+                    if (wanted.isEmpty()) {
+                        return;
+                    }
+                    int[] codes = new int[to - from];
+                    store.codes(col, from, to, codes);
+                    if (wanted.cardinality() == 1) {
+                        int code = wanted.nextSetBit(0);
+                        for (int i = 0; i < codes.length; i++) {
+                            words[i >>> 6] |= (codes[i] == code ? 1L : 0L) << i;
+                        }
+                    } else {
+                        for (int i = 0; i < codes.length; i++) {
+                            words[i >>> 6] |= (wanted.get(codes[i]) ? 1L : 0L) << i;
+                        }
+                    }
+                    return;
+                }
+                String[] chunk = new String[to - from];
+                store.values(col, from, to, chunk);
+                for (int i = 0; i < chunk.length; i++) {
+                    if (chunk[i] != null && strs.contains(chunk[i])) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "in " + strs;
+            }
+        };
+    }
+
+    /**
+     * Liefert einen Test, der p für jeden Wert einzeln aufruft, für Tests ohne eigene blockweise
+     * Auswertung.
+     *
+     * @param p Test eines Wertes, auch null
+     * @return Test
+     * @pre p != null
+     */
+    public static BatchPredicate of(final Predicate<String> p) {
+        assert p != null;
+
+        return new BatchPredicate() {
+            @Override
+            void evaluate(TableStore store, int col, ColumnType type, int from, int to,
+                          long[] words) {
+                String[] values = new String[to - from];
+                store.values(col, from, to, values);
+                for (int i = 0; i < values.length; i++) {
+                    if (p.test(values[i])) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Wertet den Test für die Zeilen [from, to) der Spalte col aus und setzt für jede zutreffende
+     * Zeile i das Bit i - from in words.
+     *
+     * @param store Speicher der Zeilen
+     * @param col   Spaltenposition
+     * @param type  Typ der Spalte
+     * @param from  erste Zeilennummer, inklusive
+     * @param to    letzte Zeilennummer, exklusive
+     * @param words Bitmenge des Blocks, zu Beginn leer
+     * @pre to - from <= CHUNK_ROWS
+     */
+    abstract void evaluate(TableStore store, int col, ColumnType type, int from, int to,
+                           long[] words);
+
+}
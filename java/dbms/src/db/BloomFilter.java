@@ -0,0 +1,119 @@
+package db;
+
+/**
+ * Ein Bloom-Filter über 64-Bit-Hashwerte. Für jeden aufgenommenen Wert werden einige Bits gesetzt,
+ * die aus seinem Hashwert abgeleitet sind. {@link #mightContain} liefert für jeden aufgenommenen
+ * Wert true, für andere Werte nur mit geringer Wahrscheinlichkeit (falsch positiv).
+ * <p>
+ * Der Filter dient als billige Vorprüfung vor einem Hash-Index, etwa beim Semi-Join (siehe
+ * {@link DBTable#semiJoin}): Er belegt bei {@link #BITS_PER_KEY} Bits je Wert nur einen Bruchteil
+ * des Speichers einer Hash-Tabelle, passt daher eher in den Prozessor-Cache, und weist Werte ohne
+ * Partner ab, ohne Zeichenketten zu vergleichen. Bei zehn Bits je Wert liegt die Rate falsch
+ * positiver Antworten unter einem Prozent.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class BloomFilter {
+
+    /**
+     * Voreingestellte Anzahl der Bits je erwartetem Wert
+     */
+    static final int BITS_PER_KEY = 10;
+    /**
+     * Höchste Anzahl der Bits des Filters
+     */
+    private static final int MAX_BITS = 1 << 30;
+
+    /**
+     * Bits des Filters, die Anzahl ist eine Zweierpotenz
+     */
+    private final long[] bits;
+    /**
+     * Anzahl der Bits minus eins
+     */
+    private final int mask;
+    /**
+     * Anzahl der je Wert gesetzten Bits
+     */
+    private final int hashCnt;
+
+    /**
+     * Erzeugt einen leeren Filter für etwa expected Werte mit bitsPerKey Bits je Wert.
+     *
+     * @param expected   erwartete Anzahl der Werte
+     * @param bitsPerKey Bits je Wert
+     * @pre expected >= 0
+     * @pre bitsPerKey > 0
+     */
+    BloomFilter(final int expected, final int bitsPerKey) {
+        assert expected >= 0;
+        assert bitsPerKey > 0;
+
+        long wanted = Math.max(64L, (long) expected * bitsPerKey);
+        int bitCnt = wanted >= MAX_BITS ? MAX_BITS : Integer.highestOneBit((int) wanted - 1) << 1;
+        this.bits = new long[bitCnt >>> 6];
+        this.mask = bitCnt - 1;
+        // optimale Anzahl: Bits je Wert * ln(2)
+        this.hashCnt = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+    }
+
+    /**
+     * Nimmt den Wert mit dem Hashwert hash auf.
+     *
+     * @param hash Hashwert (siehe {@link #hash(long)} und {@link #hash(String)})
+     */
+    void add(final long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < this.hashCnt; i++) {
+            int bit = (h1 + i * h2) & this.mask;
+            this.bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Prüft, ob ein Wert mit dem Hashwert hash aufgenommen sein kann.
+     *
+     * @param hash Hashwert
+     * @return false, falls kein solcher Wert aufgenommen wurde
+     */
+    boolean mightContain(final long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < this.hashCnt; i++) {
+            int bit = (h1 + i * h2) & this.mask;
+            if ((this.bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert den Hashwert des Schlüssels key.
+     *
+     * @param key Schlüssel
+     * @return Hashwert
+     */
+    static long hash(final long key) {
+        // Finalisierung von MurmurHash3, verteilt jedes Eingabebit auf alle Ausgabebits
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Liefert den Hashwert der Zeichenkette value.
+     *
+     * @param value Zeichenkette, auch null
+     * @return Hashwert
+     */
+    static long hash(final String value) {
+        return hash(value == null ? 0L : value.hashCode());
+    }
+
+}
@@ -0,0 +1,73 @@
+package db;
+
+import java.util.BitSet;
+
+/**
+ * Eine Spalte in spaltenorientierter Speicherung (siehe {@link ColumnStore}). Werte werden über
+ * ihre Zeilennummer angesprochen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+interface Column {
+
+    /**
+     * Erzeugt eine leere Spalte für Werte des Typs type.
+     *
+     * @param type Typ der Spalte
+     * @return leere Spalte
+     * @pre type != null
+     */
+    static Column create(final ColumnType type) {
+        assert type != null;
+
+        if (type.hasKeys()) {
+            return new KeyColumn(type);
+        }
+        return new StringColumn();
+    }
+
+    /**
+     * Liefert den Wert in Zeile row.
+     *
+     * @param row Zeilennummer
+     * @return Wert
+     * @pre 0 <= row < Anzahl der Werte
+     */
+    String get(int row);
+
+    /**
+     * Hängt den Wert value an die Spalte an.
+     *
+     * @param value Wert
+     */
+    void add(String value);
+
+    /**
+     * Vergrößert die Spalte bei Bedarf, sodass sie capacity Werte ohne weitere Vergrößerung
+     * aufnehmen kann.
+     *
+     * @param capacity benötigte Anzahl der Werte
+     */
+    void reserve(int capacity);
+
+    /**
+     * Entfernt alle Werte, deren Zeilennummer in rows gesetzt ist.
+     *
+     * @param rows Zeilennummern der zu entfernenden Werte
+     */
+    void remove(BitSet rows);
+
+    /**
+     * Entfernt alle Werte.
+     */
+    void clear();
+
+    /**
+     * Ordnet die Werte neu an, sodass der neue Wert i dem bisherigen Wert order[i] entspricht.
+     *
+     * @param order Permutation der Zeilennummern
+     * @pre order.length == Anzahl der Werte
+     */
+    void permute(int[] order);
+
+}
@@ -0,0 +1,326 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Ein Sekundärindex über eine Spalte einer Datenbanktabelle. Der Index bildet jeden in der Spalte
+ * vorkommenden Wert auf die Zeilennummern ab, in denen der Wert steht. Die Zeilennummern zu einem
+ * Wert sind stets aufsteigend sortiert.
+ * <p>
+ * Ein Index vom Typ {@link IndexType#HASH} beantwortet Gleichheitsanfragen in O(1), ein Index vom
+ * Typ {@link IndexType#SORTED} zusätzlich Bereichsanfragen in O(Log(N) + K). Ein sortierter Index
+ * ordnet die Werte gemäß dem Typ der Spalte (siehe {@link ColumnType#comparator()}).
+ * <p>
+ * Der Index einer partitionierten Tabelle führt die Zeilennummern je Partition relativ zu deren
+ * Anfang (siehe {@link DBTable#partition}). Eine Zeile, die als letzte Zeile ihrer Partition
+ * eingefügt wird, verschiebt so keine Einträge der Zeilen dahinter; die Zeilennummern der Tabelle
+ * werden erst beim Nachschlagen berechnet.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class ColumnIndex {
+
+    /**
+     * Art des Index
+     */
+    private final IndexType type;
+    /**
+     * Position der indizierten Spalte in ihrer Tabelle
+     */
+    private final int col;
+    /**
+     * Abbildung von Spaltenwert auf die Zeilennummern je Partition, relativ zum Anfang der
+     * Partition; ohne Partitionierung genau eine Abbildung
+     */
+    private final List<Map<String, List<Integer>>> parts;
+    /**
+     * Speicher der partitionierten Tabelle, der die Anfänge der Partitionen kennt, null falls die
+     * Tabelle nicht partitioniert ist
+     */
+    private final PartitionedStore partitions;
+    /**
+     * Reihenfolge der Werte
+     */
+    private final Comparator<String> order;
+
+    /**
+     * Erzeugt einen leeren Index der Art type über die Spalte an der Position col vom Typ colType.
+     *
+     * @param type    Art des Index
+     * @param col     Position der Spalte
+     * @param colType Typ der Spalte
+     * @pre type != null
+     * @pre col >= 0
+     * @pre colType != null
+     */
+    ColumnIndex(final IndexType type, final int col, final ColumnType colType) {
+        this(type, col, colType, null);
+    }
+
+    /**
+     * Erzeugt einen leeren Index der Art type über die Spalte an der Position col vom Typ colType
+     * einer Tabelle, deren Zeilen in partitions gespeichert sind.
+     *
+     * @param type       Art des Index
+     * @param col        Position der Spalte
+     * @param colType    Typ der Spalte
+     * @param partitions Speicher der partitionierten Tabelle, null falls sie nicht partitioniert
+     *                   ist
+     * @pre type != null
+     * @pre col >= 0
+     * @pre colType != null
+     */
+    ColumnIndex(final IndexType type, final int col, final ColumnType colType,
+                final PartitionedStore partitions) {
+        assert type != null;
+        assert col >= 0;
+        assert colType != null;
+
+        this.type = type;
+        this.col = col;
+        this.order = colType.comparator();
+        this.partitions = partitions;
+        int partCnt = partitions != null ? partitions.getPartitioning().getPartitionCnt() : 1;
+        this.parts = new ArrayList<>(partCnt);
+        for (int p = 0; p < partCnt; p++) {
+            if (type == IndexType.HASH) {
+                this.parts.add(new HashMap<String, List<Integer>>());
+            } else {
+                this.parts.add(new TreeMap<String, List<Integer>>(this.order));
+            }
+        }
+    }
+
+    /**
+     * Liefert die Art des Index.
+     *
+     * @return Art des Index
+     */
+    IndexType getType() {
+        return this.type;
+    }
+
+    /**
+     * Liefert die Position der indizierten Spalte, die beim Erzeugen einmal bestimmt wird.
+     *
+     * @return Position der Spalte
+     */
+    int getCol() {
+        return this.col;
+    }
+
+    /**
+     * Nimmt den Wert value der Zeile row in den Index auf.
+     * <p>
+     * Diese Methode arbeitet für HASH in O(1) und für SORTED in O(Log(N)), dabei ist N = Anzahl der
+     * verschiedenen Werte im Index (bei Partitionierung zusätzlich O(Log(P)), P = Anzahl der
+     * Partitionen).
+     *
+     * @param value Spaltenwert
+     * @param row   Zeilennummer
+     * @pre row muss größer als alle bisher zu value aufgenommenen Zeilennummern (derselben
+     * Partition) sein
+     */
+    void add(final String value, final int row) {
+        int partition = 0;
+        int local = row;
+        if (this.partitions != null) {
+            partition = this.partitions.partitionOfRow(row);
+            local = row - this.partitions.start(partition);
+        }
+        Map<String, List<Integer>> entries = this.parts.get(partition);
+        List<Integer> rows = entries.get(value);
+        if (rows == null) {
+            rows = new ArrayList<>(1);
+            entries.put(value, rows);
+        }
+        assert rows.isEmpty() || rows.get(rows.size() - 1) < local;
+        rows.add(local);
+    }
+
+    /**
+     * Entfernt alle Einträge aus dem Index.
+     */
+    void clear() {
+        for (Map<String, List<Integer>> entries : this.parts) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Entfernt die Einträge der Zeilen mit den in rows gesetzten Zeilennummern aus dem Index und
+     * verschiebt die Zeilennummern dahinter um die Anzahl der davor entfernten Zeilen. Werte ohne
+     * verbleibende Zeilen werden verworfen. Muss aufgerufen werden, bevor die Zeilen aus dem
+     * Speicher entfernt werden, da die Anfänge der Partitionen noch die bisherigen sein müssen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen in den Partitionen, aus
+     * denen Zeilen entfernt werden, und f(N) = N. Partitionen ohne entfernte Zeilen bleiben
+     * unberührt.
+     *
+     * @param rows Zeilennummern der zu entfernenden Zeilen
+     * @pre rows != null
+     */
+    void remove(final BitSet rows) {
+        assert rows != null;
+
+        for (int p = 0; p < this.parts.size(); p++) {
+            int from = this.partitions != null ? this.partitions.start(p) : 0;
+            int to = this.partitions != null ? this.partitions.start(p + 1) : rows.length();
+            int first = rows.nextSetBit(from);
+            if (first < 0 || first >= to) {
+                continue;
+            }
+            // removedBefore[i] = Anzahl der entfernten Zeilen vor der Zeile from + i
+            int[] removedBefore = new int[to - from + 1];
+            for (int i = 0; i < to - from; i++) {
+                removedBefore[i + 1] = removedBefore[i] + (rows.get(from + i) ? 1 : 0);
+            }
+            int removedCnt = removedBefore[to - from];
+            Iterator<List<Integer>> it = this.parts.get(p).values().iterator();
+            //O(N)
+            while (it.hasNext()) {
+                List<Integer> entry = it.next();
+                int kept = 0;
+                for (int local : entry) {
+                    if (local >= to - from) {
+                        // hinter der letzten entfernten Zeile einer ungeteilten Tabelle
+                        entry.set(kept++, local - removedCnt);
+                    } else if (!rows.get(from + local)) {
+                        entry.set(kept++, local - removedBefore[local]);
+                    }
+                }
+                if (kept == 0) {
+                    it.remove();
+                } else {
+                    entry.subList(kept, entry.size()).clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Entfernt die Einträge der Partition partition aus dem Index, etwa nachdem sie verworfen
+     * wurde. Die Einträge der übrigen Partitionen bleiben gültig.
+     *
+     * @param partition Nummer der Partition
+     * @pre der Index gehört zu einer partitionierten Tabelle
+     */
+    void clear(final int partition) {
+        assert this.partitions != null;
+
+        this.parts.get(partition).clear();
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Zeilennummern aller Zeilen mit dem Wert value. Die
+     * gelieferte Liste darf nicht verändert werden.
+     * <p>
+     * Diese Methode arbeitet ohne Partitionierung in O(1), sonst in O(P + K), dabei ist
+     * P = Anzahl der Partitionen und K = Anzahl der gefundenen Zeilen.
+     *
+     * @param value gesuchter Wert
+     * @return Zeilennummern (leere Liste, falls der Wert nicht vorkommt)
+     */
+    List<Integer> lookup(final String value) {
+        if (this.partitions == null) {
+            List<Integer> rows = this.parts.get(0).get(value);
+            return rows == null ? Collections.<Integer>emptyList() : rows;
+        }
+        List<Integer> result = new ArrayList<>();
+        //O(P + K), die Partitionen liegen hintereinander
+        for (int p = 0; p < this.parts.size(); p++) {
+            List<Integer> rows = this.parts.get(p).get(value);
+            if (rows != null) {
+                int start = this.partitions.start(p);
+                for (int row : rows) {
+                    result.add(start + row);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Zeilennummern aller Zeilen, deren Wert (gemäß dem Typ der
+     * Spalte) im Bereich [from, to) liegt.
+     * <p>
+     * Diese Methode arbeitet in O(P * Log(N) + K * Log(K)), dabei ist N = Anzahl der verschiedenen
+     * Werte im Index, K = Anzahl der gefundenen Zeilen und P = Anzahl der Partitionen (1 ohne
+     * Partitionierung).
+     *
+     * @param from untere Grenze, inklusive
+     * @param to   obere Grenze, exklusive
+     * @return Zeilennummern
+     * @pre getType() == IndexType.SORTED
+     * @pre from != null
+     * @pre to != null
+     */
+    List<Integer> range(final String from, final String to) {
+        assert this.type == IndexType.SORTED;
+        assert from != null;
+        assert to != null;
+
+        List<Integer> result = new ArrayList<>();
+        if (this.order.compare(from, to) >= 0) {
+            return result;
+        }
+        for (int p = 0; p < this.parts.size(); p++) {
+            NavigableMap<String, List<Integer>> sorted =
+                    (NavigableMap<String, List<Integer>>) this.parts.get(p);
+            int first = result.size();
+            for (List<Integer> rows : sorted.subMap(from, true, to, false).values()) {
+                result.addAll(rows);
+            }
+            // je Partition sortieren, die Partitionen liegen hintereinander
+            List<Integer> found = result.subList(first, result.size());
+            Collections.sort(found);
+            int start = this.partitions != null ? this.partitions.start(p) : 0;
+            if (start > 0) {
+                for (int i = 0; i < found.size(); i++) {
+                    found.set(i, start + found.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die Abbildung von Spaltenwert auf Zeilennummern. Die Abbildung darf nicht verändert
+     * werden.
+     * <p>
+     * Diese Methode arbeitet ohne Partitionierung in O(1), sonst wird die Abbildung in O(N)
+     * zusammengesetzt, dabei ist N = Anzahl der Zeilen.
+     *
+     * @return Abbildung von Spaltenwert auf Zeilennummern
+     */
+    Map<String, List<Integer>> entries() {
+        if (this.partitions == null) {
+            return this.parts.get(0);
+        }
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (int p = 0; p < this.parts.size(); p++) {
+            int start = this.partitions.start(p);
+            for (Map.Entry<String, List<Integer>> entry : this.parts.get(p).entrySet()) {
+                List<Integer> rows = result.get(entry.getKey());
+                if (rows == null) {
+                    rows = new ArrayList<>(entry.getValue().size());
+                    result.put(entry.getKey(), rows);
+                }
+                for (int row : entry.getValue()) {
+                    rows.add(start + row);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,163 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spaltenorientierter Speicher einer Datenbanktabelle. Die Werte jeder Spalte liegen in einer
+ * eigenen {@link Column}, sodass Zugriffe auf einzelne Spalten nur deren Daten berühren. Spalten
+ * eines Typs mit Schlüsseln werden als Arrays primitiver Zahlen abgelegt (siehe
+ * {@link KeyColumn}), alle anderen als {@link StringColumn}, deren Codes über {@link #dictionary}
+ * zugänglich sind.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class ColumnStore implements TableStore {
+
+    /**
+     * Spalten der Datenbanktabelle
+     */
+    private final Column[] columns;
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Anzahl der Zeilen
+     */
+    private int size;
+
+    /**
+     * Erzeugt einen leeren Speicher für Spalten der Typen types.
+     *
+     * @param types Typen der Spalten
+     * @pre types.length > 0
+     */
+    ColumnStore(final ColumnType[] types) {
+        assert types.length > 0;
+
+        this.types = types.clone();
+        this.columns = new Column[types.length];
+        for (int i = 0; i < types.length; i++) {
+            this.columns[i] = Column.create(types[i]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public String get(int row, int col) {
+        assert row >= 0 && row < this.size;
+
+        return this.columns[col].get(row);
+    }
+
+    @Override
+    public List<String> getRow(int row) {
+        assert row >= 0 && row < this.size;
+
+        List<String> result = new ArrayList<>(this.columns.length);
+        for (Column column : this.columns) {
+            result.add(column.get(row));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isNull(int row, int col) {
+        if (this.columns[col] instanceof KeyColumn) {
+            return ((KeyColumn) this.columns[col]).isNull(row);
+        }
+        return this.columns[col].get(row) == null;
+    }
+
+    @Override
+    public long key(int row, int col) {
+        return ((KeyColumn) this.columns[col]).key(row);
+    }
+
+    @Override
+    public void keys(int col, int from, int to, long[] keys, boolean[] nulls) {
+        ((KeyColumn) this.columns[col]).keys(from, to, keys, nulls);
+    }
+
+    @Override
+    public StringDictionary dictionary(int col) {
+        if (this.columns[col] instanceof StringColumn) {
+            return ((StringColumn) this.columns[col]).dictionary();
+        }
+        return null;
+    }
+
+    @Override
+    public int code(int row, int col) {
+        return ((StringColumn) this.columns[col]).code(row);
+    }
+
+    @Override
+    public void codes(int col, int from, int to, int[] out) {
+        ((StringColumn) this.columns[col]).codes(from, to, out);
+    }
+
+    @Override
+    public void append(Collection<String> row) {
+        assert row.size() == this.columns.length;
+
+        int i = 0;
+        for (String value : row) {
+            this.columns[i++].add(value);
+        }
+        this.size++;
+    }
+
+    @Override
+    public void appendAll(List<List<String>> rows) {
+        reserve(this.size + rows.size());
+        for (List<String> row : rows) {
+            append(row);
+        }
+    }
+
+    @Override
+    public void reserve(int rowCnt) {
+        for (Column column : this.columns) {
+            column.reserve(rowCnt);
+        }
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        for (Column column : this.columns) {
+            column.remove(rows);
+        }
+        this.size -= rows.cardinality();
+    }
+
+    @Override
+    public void clear() {
+        for (Column column : this.columns) {
+            column.clear();
+        }
+        this.size = 0;
+    }
+
+    @Override
+    public void permute(int[] order) {
+        assert order.length == this.size;
+
+        for (Column column : this.columns) {
+            column.permute(order);
+        }
+    }
+
+    @Override
+    public TableStore snapshot() {
+        return VersionedStore.copyOf(this, this.types);
+    }
+
+}
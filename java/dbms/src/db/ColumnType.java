@@ -0,0 +1,260 @@
+package db;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Datentypen der Spalten einer Datenbanktabelle.
+ * <p>
+ * Werte werden stets als Zeichenketten übergeben und geliefert. Werte einer Spalte mit einem
+ * anderen Typ als {@link #STRING} werden beim Einfügen geprüft und in ihre Normalform gebracht
+ * (etwa "007" zu "7" oder "1.50" zu "1.5"); sortiert und verglichen wird nach ihrem Zahlenwert
+ * bzw. Datum. Intern wird jeder solche Wert durch einen Schlüssel vom Typ long dargestellt, dessen
+ * Reihenfolge der Reihenfolge der Werte entspricht. null ist in jeder Spalte erlaubt und wird vor
+ * allen anderen Werten einsortiert.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public enum ColumnType {
+
+    /** Zeichenketten, verglichen gemäß compareTo. */
+    STRING,
+    /** Ganze Zahlen im Wertebereich von int. */
+    INT,
+    /** Ganze Zahlen im Wertebereich von long. */
+    LONG,
+    /**
+     * Endliche Gleitkommazahlen (double) in Dezimalschreibweise: optionales Vorzeichen, Ziffern
+     * mit optionalem Dezimalpunkt und optionaler Exponent, etwa "-1.5", ".5" oder "2e-3".
+     */
+    DOUBLE,
+    /**
+     * Kalenderdaten im Format yyyy-MM-dd (ISO 8601), deren Anzahl der Tage seit dem 1970-01-01 im
+     * Wertebereich von int liegt (etwa die Jahre -5877641 bis 5881580).
+     */
+    DATE;
+
+    /**
+     * Gibt an, ob Werte dieses Typs durch Schlüssel vom Typ long dargestellt werden, also ob der
+     * Typ nicht {@link #STRING} ist.
+     *
+     * @return true, falls der Typ Schlüssel hat
+     */
+    public boolean hasKeys() {
+        return this != STRING;
+    }
+
+    /**
+     * Gibt an, ob die Schlüssel dieses Typs in den Wertebereich von int passen.
+     *
+     * @return true für INT und DATE
+     */
+    boolean isNarrow() {
+        return this == INT || this == DATE;
+    }
+
+    /**
+     * Gibt an, ob value ein gültiger Wert dieses Typs ist. null ist stets gültig.
+     *
+     * @param value Wert
+     * @return true, falls der Wert gültig ist
+     */
+    public boolean isValid(final String value) {
+        if (value == null || this == STRING) {
+            return true;
+        }
+        try {
+            toKey(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Liefert den Schlüssel des Wertes value. Für zwei Werte a, b dieses Typs gilt a &lt; b genau
+     * dann, wenn toKey(a) &lt; toKey(b).
+     *
+     * @param value Wert
+     * @return Schlüssel des Wertes
+     * @throws IllegalArgumentException wenn value kein gültiger Wert dieses Typs ist
+     * @pre hasKeys()
+     * @pre value != null
+     */
+    long toKey(final String value) {
+        assert hasKeys();
+        assert value != null;
+
+        switch (this) {
+            case INT:
+                return Integer.parseInt(value);
+            case LONG:
+                return Long.parseLong(value);
+            case DOUBLE:
+                return sortableBits(parseDecimal(value));
+            default:
+                long day;
+                try {
+                    day = LocalDate.parse(value).toEpochDay();
+                } catch (DateTimeException e) {
+                    throw new IllegalArgumentException("Kein Datum: " + value, e);
+                }
+                // Schlüssel von DATE werden als int gespeichert (siehe isNarrow)
+                if (day != (int) day) {
+                    throw new IllegalArgumentException("Datum außerhalb des Wertebereiches: "
+                            + value);
+                }
+                return day;
+        }
+    }
+
+    /**
+     * Liefert den Wert zum Schlüssel key in Normalform.
+     *
+     * @param key Schlüssel
+     * @return Wert
+     * @pre hasKeys()
+     */
+    String fromKey(final long key) {
+        assert hasKeys();
+
+        switch (this) {
+            case INT:
+            case LONG:
+                return Long.toString(key);
+            case DOUBLE:
+                return Double.toString(toDouble(key));
+            default:
+                return LocalDate.ofEpochDay(key).toString();
+        }
+    }
+
+    /**
+     * Liefert den Zahlenwert zum Schlüssel key. Für DATE ist das die Anzahl der Tage seit dem
+     * 1970-01-01.
+     *
+     * @param key Schlüssel
+     * @return Zahlenwert
+     * @pre hasKeys()
+     */
+    double toDouble(final long key) {
+        assert hasKeys();
+
+        if (this == DOUBLE) {
+            return Double.longBitsToDouble(sortableBits(key));
+        }
+        return key;
+    }
+
+    /**
+     * Bringt den Wert value in Normalform.
+     *
+     * @param value Wert, auch null
+     * @return Wert in Normalform
+     * @throws IllegalArgumentException wenn value kein gültiger Wert dieses Typs ist
+     */
+    String normalize(final String value) {
+        if (value == null || this == STRING) {
+            return value;
+        }
+        return fromKey(toKey(value));
+    }
+
+    /**
+     * Liefert die Reihenfolge der Werte dieses Typs, null vor allen anderen Werten.
+     *
+     * @return Vergleich zweier Werte
+     */
+    Comparator<String> comparator() {
+        final ColumnType type = this;
+        return new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                if (o1 == null || o2 == null) {
+                    return o1 == null ? (o2 == null ? 0 : -1) : 1;
+                }
+                if (type == STRING) {
+                    return o1.compareTo(o2);
+                }
+                return Long.compare(type.toKey(o1), type.toKey(o2));
+            }
+        };
+    }
+
+    /**
+     * Liest eine endliche Gleitkommazahl in Dezimalschreibweise. Anders als bei
+     * {@link Double#parseDouble} werden NaN, Infinity, hexadezimale Zahlen, Typsuffixe wie "d" oder
+     * "f" und Leerraum abgelehnt, ebenso Zahlen, deren Betrag außerhalb des Wertebereiches liegt.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Länge des Wertes und f(N) = N.
+     *
+     * @param value Wert
+     * @return Zahl
+     * @throws IllegalArgumentException wenn value keine solche Zahl ist
+     */
+    private static double parseDecimal(String value) {
+        int i = 0;
+        int len = value.length();
+        if (i < len && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < len && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < len && value.charAt(i) == '.') {
+            i++;
+            while (i < len && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        boolean valid = digits > 0;
+        if (valid && i < len && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (value.charAt(i) == '+' || value.charAt(i) == '-')) {
+                i++;
+            }
+            valid = i < len;
+            while (i < len && isDigit(value.charAt(i))) {
+                i++;
+            }
+        }
+        if (!valid || i != len) {
+            throw new IllegalArgumentException("Keine Dezimalzahl: " + value);
+        }
+        double result = Double.parseDouble(value);
+        if (Double.isInfinite(result)) {
+            throw new IllegalArgumentException("Zahl außerhalb des Wertebereiches: " + value);
+        }
+        return result;
+    }
+
+    /**
+     * Gibt an, ob c eine der Ziffern '0' bis '9' ist.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Bildet die Bits einer Gleitkommazahl so ab, dass die Reihenfolge der Ergebnisse als long der
+     * Reihenfolge der Zahlen entspricht. Die Abbildung ist zu sich selbst invers.
+     *
+     * @param d Gleitkommazahl bzw. Schlüssel
+     * @return Schlüssel bzw. Bits der Gleitkommazahl
+     */
+    private static long sortableBits(double d) {
+        return sortableBits(Double.doubleToLongBits(d));
+    }
+
+    /**
+     * Bei negativen Zahlen alle Bits außer dem Vorzeichen umkehren.
+     */
+    private static long sortableBits(long bits) {
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+}
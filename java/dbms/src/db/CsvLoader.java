@@ -0,0 +1,420 @@
+package db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Liest Zeilen einer Datenbanktabelle aus einer Textdatei mit durch ein Trennzeichen getrennten
+ * Werten (CSV, TSV).
+ * <p>
+ * Jede Zeile der Datei enthält einen Datensatz. Werte dürfen in doppelte Anführungszeichen
+ * eingeschlossen werden und enthalten dann Trennzeichen und Zeilenumbrüche unverändert; ein
+ * doppeltes Anführungszeichen innerhalb eines solchen Wertes wird verdoppelt. Datensätze enden
+ * mit '\n' oder '\r\n'; innerhalb von Anführungszeichen bleibt auch ein '\r' unverändert. Die
+ * Datei wird in UTF-8 erwartet.
+ * <p>
+ * Die Datei wird gepuffert in Stapeln von {@link #BATCH_ROWS} Datensätzen gelesen. Während ein
+ * Stapel zerlegt wird, wird bereits der nächste gelesen. Volle Stapel werden parallel zerlegt
+ * (siehe {@link ParallelScan}), es sei denn, die Parallelisierungsschwelle der Tabelle ist größer
+ * als ein Stapel. Zerlegte Stapel werden geprüft und gemeinsam an
+ * die Tabelle angehängt, deren Speicher anhand der Dateigröße vorab vergrößert wird.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class CsvLoader {
+
+    /**
+     * Anzahl der Datensätze, die gemeinsam zerlegt und angehängt werden
+     */
+    static final int BATCH_ROWS = 1 << 16;
+    /**
+     * Größe des Lesepuffers in Zeichen
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Keine Instanzen.
+     */
+    private CsvLoader() {
+    }
+
+    /**
+     * Hängt alle Datensätze der Datei file an die Tabelle table an.
+     *
+     * @param table      Tabelle
+     * @param file       Datei
+     * @param separator  Trennzeichen zwischen den Werten
+     * @param skipHeader gibt an, ob der erste Datensatz übersprungen wird
+     * @return Anzahl der angehängten Zeilen
+     * @throws IOException bei Fehlern beim Lesen oder wenn ein Datensatz nicht so viele Werte
+     *                     enthält, wie die Tabelle Spalten hat, oder ein Wert nicht zum Typ seiner
+     *                     Spalte passt
+     */
+    static int load(final DBTable table, final Path file, final char separator,
+                    final boolean skipHeader) throws IOException {
+        long fileSize = Files.size(file);
+        int loaded = 0;
+        try (LineReader in = new LineReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            Batch batch = readBatch(in, 1);
+            if (skipHeader && !batch.records.isEmpty()) {
+                batch.records.remove(0);
+                batch.lines.remove(0);
+            }
+            boolean reserved = false;
+            while (!batch.records.isEmpty()) {
+                ForkJoinTask<List<List<String>>> parsed =
+                        ForkJoinPool.commonPool().submit(parse(batch, table, separator));
+                if (!reserved) {
+                    // Anzahl der Zeilen anhand der Länge der Datensätze des ersten Stapels schätzen
+                    reserved = true;
+                    table.reserveRows(table.getRowCnt() + estimateRows(batch, fileSize));
+                }
+                Batch next = readBatch(in, batch.nextLine);
+
+                List<List<String>> rows;
+                try {
+                    rows = parsed.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Laden unterbrochen", e);
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+                if (batch.invalid >= 0) {
+                    throw new IOException(file + ", Zeile " + batch.lines.get(batch.invalid) + ": "
+                            + describeError(table, rows.get(batch.invalid)));
+                }
+                table.appendRows(rows);
+                loaded += rows.size();
+                batch = next;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Zerlegt einen Datensatz in seine Werte.
+     *
+     * @param record    Datensatz ohne abschließenden Zeilenumbruch
+     * @param separator Trennzeichen zwischen den Werten
+     * @param colCnt    erwartete Anzahl der Werte
+     * @return Werte des Datensatzes
+     */
+    static List<String> split(final String record, final char separator, final int colCnt) {
+        List<String> result = new ArrayList<>(colCnt);
+        if (record.indexOf('"') < 0) {
+            // ohne Anführungszeichen genügt das Suchen der Trennzeichen
+            int start = 0;
+            int end;
+            while ((end = record.indexOf(separator, start)) >= 0) {
+                result.add(record.substring(start, end));
+                start = end + 1;
+            }
+            result.add(record.substring(start));
+            return result;
+        }
+
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i <= record.length()) {
+            if (i == record.length()) {
+                result.add(value.toString());
+                break;
+            }
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    value.append(c);
+                }
+            } else if (c == separator) {
+                result.add(value.toString());
+                value.setLength(0);
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else {
+                value.append(c);
+            }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die Aufgabe, die alle Datensätze des Stapels batch zerlegt und prüft. Die Position
+     * des ersten ungültigen Datensatzes wird in batch vermerkt.
+     *
+     * @param batch     Stapel
+     * @param table     Tabelle, deren Spalten und Parallelisierungsschwelle gelten
+     * @param separator Trennzeichen zwischen den Werten
+     * @return Aufgabe, die die Werte der Datensätze in ihrer Reihenfolge liefert
+     */
+    private static ForkJoinTask<List<List<String>>> parse(final Batch batch, final DBTable table,
+                                                          final char separator) {
+        // volle Stapel werden parallel zerlegt, solange die Tabelle das nicht ausschließt
+        final int threshold = Math.min(table.getParallelThreshold(), BATCH_ROWS);
+        final int colCnt = table.getColCnt();
+        final ColumnType[] types = new ColumnType[colCnt];
+        for (int i = 0; i < colCnt; i++) {
+            types[i] = table.getColType(table.getColIds().get(i));
+        }
+        return ForkJoinTask.adapt(new Callable<List<List<String>>>() {
+            @Override
+            public List<List<String>> call() {
+                final List<List<String>> rows = ParallelScan.map(batch.records.size(), threshold,
+                        new IntFunction<List<String>>() {
+                            @Override
+                            public List<String> apply(int i) {
+                                return split(batch.records.get(i), separator, colCnt);
+                            }
+                        });
+                int[] invalid = ParallelScan.filter(rows.size(), threshold, new IntPredicate() {
+                    @Override
+                    public boolean test(int i) {
+                        return !fits(rows.get(i), types);
+                    }
+                });
+                batch.invalid = invalid.length > 0 ? invalid[0] : -1;
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * Gibt an, ob row so viele Werte enthält, wie es Spalten gibt, und alle Werte zum Typ ihrer
+     * Spalte passen.
+     *
+     * @param row   Werte eines Datensatzes
+     * @param types Typen der Spalten
+     * @return true, falls der Datensatz gültig ist
+     */
+    private static boolean fits(List<String> row, ColumnType[] types) {
+        if (row.size() != types.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].hasKeys() && !types[i].isValid(row.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Beschreibt, warum der Datensatz row nicht in die Tabelle table passt.
+     *
+     * @param table Tabelle
+     * @param row   ungültiger Datensatz
+     * @return Beschreibung des Fehlers
+     */
+    private static String describeError(DBTable table, List<String> row) {
+        if (row.size() != table.getColCnt()) {
+            return row.size() + " statt " + table.getColCnt() + " Werte";
+        }
+        for (int i = 0; i < row.size(); i++) {
+            String col = table.getColIds().get(i);
+            if (!table.getColType(col).isValid(row.get(i))) {
+                return "Wert \"" + row.get(i) + "\" passt nicht zum Typ "
+                        + table.getColType(col) + " der Spalte " + col;
+            }
+        }
+        return "ungültiger Datensatz";
+    }
+
+    /**
+     * Liest bis zu {@link #BATCH_ROWS} Datensätze aus in.
+     *
+     * @param in        Eingabe
+     * @param firstLine Zeilennummer des ersten Datensatzes in der Datei
+     * @return gelesene Datensätze, leer am Ende der Eingabe
+     * @throws IOException bei Fehlern beim Lesen oder einem nicht geschlossenen Anführungszeichen
+     */
+    private static Batch readBatch(LineReader in, int firstLine) throws IOException {
+        Batch result = new Batch(firstLine);
+        String line;
+        while (result.records.size() < BATCH_ROWS && (line = in.readLine()) != null) {
+            result.lines.add(result.nextLine);
+            result.nextLine++;
+            result.chars += line.length() + 1;
+            // Datensätze mit Zeilenumbruch in Anführungszeichen erstrecken sich über mehrere Zeilen
+            if (quoteCount(line) % 2 != 0) {
+                StringBuilder record = new StringBuilder(line);
+                long quotes = quoteCount(line);
+                while (quotes % 2 != 0) {
+                    String more = in.readLine();
+                    if (more == null) {
+                        throw new IOException("Zeile " + result.lines.get(result.lines.size() - 1)
+                                + ": Anführungszeichen nicht geschlossen");
+                    }
+                    result.nextLine++;
+                    result.chars += more.length() + 1;
+                    record.append('\n').append(more);
+                    quotes += quoteCount(more);
+                }
+                line = record.toString();
+            }
+            // ein '\r' vor dem Zeilenumbruch am Ende des Datensatzes gehört nicht zum letzten Wert
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            result.records.add(line);
+        }
+        return result;
+    }
+
+    /**
+     * Schätzt die Anzahl der Datensätze einer Datei der Größe fileSize anhand der Länge der
+     * Datensätze im Stapel batch.
+     *
+     * @param batch    erster Stapel der Datei
+     * @param fileSize Größe der Datei in Byte
+     * @return geschätzte Anzahl der Datensätze
+     */
+    private static int estimateRows(Batch batch, long fileSize) {
+        if (batch.records.size() < BATCH_ROWS) {
+            return batch.records.size();
+        }
+        long estimate = fileSize * batch.records.size() / Math.max(1, batch.chars);
+        return (int) Math.min(Integer.MAX_VALUE - 8, estimate);
+    }
+
+    /**
+     * Zählt die doppelten Anführungszeichen in line.
+     */
+    private static long quoteCount(String line) {
+        long result = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Liest die Zeilen einer Eingabe. Anders als {@link java.io.BufferedReader#readLine} trennt er
+     * nur an '\n' und lässt ein '\r' davor in der Zeile, sodass es innerhalb von Anführungszeichen
+     * erhalten bleibt.
+     */
+    private static final class LineReader implements Closeable {
+
+        /**
+         * Eingabe
+         */
+        private final Reader in;
+        /**
+         * Lesepuffer
+         */
+        private final char[] buffer = new char[BUFFER_SIZE];
+        /**
+         * Position des nächsten ungelesenen Zeichens im Puffer
+         */
+        private int pos;
+        /**
+         * Anzahl der gültigen Zeichen im Puffer
+         */
+        private int end;
+
+        /**
+         * Erzeugt einen Leser über die Eingabe in.
+         *
+         * @param in Eingabe
+         */
+        private LineReader(final Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Liest die nächste Zeile ohne den abschließenden Zeilenumbruch '\n'.
+         *
+         * @return Zeile, null am Ende der Eingabe
+         * @throws IOException bei Fehlern beim Lesen
+         */
+        private String readLine() throws IOException {
+            StringBuilder line = null;
+            while (true) {
+                if (this.pos == this.end) {
+                    this.pos = 0;
+                    this.end = Math.max(0, this.in.read(this.buffer, 0, this.buffer.length));
+                    if (this.end == 0) {
+                        return line == null ? null : line.toString();
+                    }
+                }
+                int start = this.pos;
+                while (this.pos < this.end && this.buffer[this.pos] != '\n') {
+                    this.pos++;
+                }
+                if (this.pos < this.end) {
+                    // Zeilenumbruch gefunden
+                    String result = line == null
+                            ? new String(this.buffer, start, this.pos - start)
+                            : line.append(this.buffer, start, this.pos - start).toString();
+                    this.pos++;
+                    return result;
+                }
+                if (line == null) {
+                    line = new StringBuilder();
+                }
+                line.append(this.buffer, start, this.pos - start);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    /**
+     * Ein Stapel gelesener Datensätze.
+     */
+    private static final class Batch {
+
+        /**
+         * Datensätze
+         */
+        private final List<String> records = new ArrayList<>(BATCH_ROWS);
+        /**
+         * Zeilennummer jedes Datensatzes in der Datei
+         */
+        private final List<Integer> lines = new ArrayList<>(BATCH_ROWS);
+        /**
+         * Zeilennummer des nächsten Datensatzes nach diesem Stapel
+         */
+        private int nextLine;
+        /**
+         * Anzahl der gelesenen Zeichen einschließlich Zeilenumbrüchen
+         */
+        private long chars;
+        /**
+         * Position des ersten ungültigen Datensatzes nach dem Zerlegen, sonst -1
+         */
+        private int invalid = -1;
+
+        Batch(int firstLine) {
+            this.nextLine = firstLine;
+        }
+    }
+
+}
@@ -1,10 +1,29 @@
 package db;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 
 /**
  * In einer Datenbank werden Datenbanktabellen verwaltet, die jeweils durch einen eindeutigen
@@ -13,19 +32,82 @@ import java.util.function.Predicate;
  * <p>
  * Ein valider Bezeichner besteht stets aus einem Zeichen aus der Menge [a-zA-Z] gefolgt von einer
  * beliebigen Anzahl von Zeichen aus der Menge [a-zA-Z0-9_].
+ * <p>
+ * Eine mit {@link #openLogged} geöffnete Datenbank protokolliert alle Änderungen an ihren Tabellen
+ * in einem Write-Ahead-Log und kann nach einem Absturz daraus wiederhergestellt werden.
  *
  * @author kar, mhe, tti, Konstantin Opora inf104952, Lennard Kirchner inf104888
  */
-public final class DB {
+public final class DB implements Closeable {
+
+    /**
+     * Name der Katalogdatei einer gespeicherten Datenbank
+     */
+    public static final String CATALOG_FILE = "catalog";
+    /**
+     * Voreingestellte Größe des Protokolls in Byte, ab der ein Checkpoint geschrieben wird
+     */
+    public static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+    /**
+     * Endung der Tabellendateien einer gespeicherten Datenbank
+     */
+    private static final String TABLE_FILE_SUFFIX = ".tbl";
+    /**
+     * Kennung am Anfang der Katalogdatei
+     */
+    private static final int CATALOG_MAGIC = 0x44424332;
+    /**
+     * Präfix der Protokolldateien einer protokollierten Datenbank
+     */
+    private static final String LOG_FILE_PREFIX = "wal.";
 
     /**
      * ID der Datenbank
      */
     private final String id;
     /**
-     * Liste von Tabellen der Datenbank
+     * Tabellen der Datenbank, zugeordnet über ihre Bezeichner. Geändert wird nur unter der Sperre
+     * der Datenbank, gelesen wird ohne Sperre.
+     */
+    private final Map<String, DBTable> tables;
+    /**
+     * Aufsteigend sortierte Bezeichner der Tabellen der Datenbank, wie tables ohne Sperre lesbar
+     */
+    private final NavigableSet<String> tableIds;
+    /**
+     * Materialisierte Sichten der Datenbank, zugeordnet über ihre Bezeichner
+     */
+    private final Map<String, MaterializedView> views = new HashMap<>();
+    /**
+     * Empfänger der Änderungen an den Tabellen, der sie in das Protokoll schreibt
+     */
+    private final TableListener logWriter = new LogWriter();
+    /**
+     * Verzeichnis einer protokollierten Datenbank, sonst null
+     */
+    private Path logDir;
+    /**
+     * Geöffnetes Protokoll, null, falls die Datenbank nicht protokolliert wird. Ersetzt wird es
+     * nur unter der Sperre der Datenbank, unter der auch geschrieben wird.
+     */
+    private volatile WriteAheadLog log;
+    /**
+     * Commit-Intervall des Protokolls in Millisekunden
+     */
+    private long commitInterval;
+    /**
+     * Nummer des letzten Checkpoints, bestimmt die Namen der Protokoll- und Tabellendateien
+     */
+    private long generation;
+    /**
+     * Größe des Protokolls in Byte, ab der ein Checkpoint geschrieben wird
+     */
+    private long checkpointBytes = DEFAULT_CHECKPOINT_BYTES;
+    /**
+     * Gibt an, ob das Protokoll die eingestellte Größe überschritten hat und nach der laufenden
+     * Operation ein Checkpoint geschrieben wird
      */
-    private final List<DBTable> tables;
+    private boolean checkpointDue;
 
     /**
      * Erzeugt eine leere Datenbank mit dem Bezeichner anId.
@@ -39,7 +121,8 @@ public final class DB {
         assert DBTable.isValidIdentifier(anId);
 
         this.id = anId;
-        this.tables = new ArrayList<>();
+        this.tables = new ConcurrentHashMap<>();
+        this.tableIds = new ConcurrentSkipListSet<>();
     }
 
     /**
@@ -64,25 +147,59 @@ public final class DB {
      * Fügt die Tabelle tab in die Datenbank ein.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) = 1.
+     * Datenbank und f(N) = Log( N ).
      *
      * @param tab Tabelle, die in die Datenbank eingefügt werden soll.
      * @pre tab != null
      * @pre es darf keine Tabelle mit demselben Bezeichner wie dem von tab in der Datenbank
      * existieren.
      */
-    public void addTable(final DBTable tab) {
+    public synchronized void addTable(final DBTable tab) {
         assert tab != null;
         assert !tableExists(tab.getId());
 
-        this.tables.add(tab);
+        this.tables.put(tab.getId(), tab);
+        // O( Log( N ) )
+        this.tableIds.add(tab.getId());
+        if (this.log != null) {
+            tab.addListener(this.logWriter);
+            writeLog(WalRecord.addTable(tab));
+            checkpointIfDue();
+        }
     }
 
     /**
-     * Liefert die Tabelle mit dem Bezeichner anId.
+     * Liefert einen unveränderlichen Schnappschuss der Datenbank: eine Datenbank mit dem
+     * Bezeichner dieser Datenbank und Schnappschüssen (siehe {@link DBTable#snapshot()}) aller
+     * Tabellen zum Zeitpunkt des Aufrufs.
+     * <p>
+     * Lesende Threads arbeiten auf eigenen Schnappschüssen und müssen dafür nicht auf schreibende
+     * Threads warten. Während des Aufrufs wird nur das Einfügen und Entfernen von Tabellen
+     * gesperrt; Zeilen von Tabellen im Speicherlayout {@link StorageLayout#VERSIONED} dürfen
+     * gleichzeitig geändert werden. Für Tabellen in allen anderen Speicherlayouts müssen
+     * schreibende Threads während des Aufrufs ruhen, da deren Zeilen dabei kopiert werden; danach
+     * sind auch diese Schnappschüsse unabhängig von der Tabelle.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) = N.
+     * Datenbank und f(N) = N * Log( N ).
+     *
+     * @return Schnappschuss der Datenbank
+     */
+    public synchronized DB snapshot() {
+        DB result = new DB(this.id);
+        for (String tableId : this.tableIds) {
+            result.tables.put(tableId, this.tables.get(tableId).snapshot());
+            result.tableIds.add(tableId);
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die Tabelle mit dem Bezeichner anId. Die Methode darf ohne Sperre parallel zu
+     * {@link #addTable} und {@link #removeTable} aufgerufen werden.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
+     * Datenbank und f(N) = 1.
      *
      * @param anId Bezeichner der Tabelle, die geliefert werden soll.
      * @return Tabelle mit dem Bezeichner anId (falls vorhanden, sonst NULL-Referenz).
@@ -93,39 +210,26 @@ public final class DB {
         assert anId != null;
         assert DBTable.isValidIdentifier(anId);
 
-        DBTable result = null;
-        for (int i = 0; result == null && i < this.getTableCnt(); i++) {
-            if (this.tables.get(i).getId().equals(anId)) {
-                result = this.tables.get(i);
-            }
-        }
-        return result;
+        return this.tables.get(anId);
     }
 
     /**
      * Liefert eine seiteneffektfreie aufsteigend sortierte Liste der Tabellenbezeichner.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) =  N * ( Log( N ) + 1 ) .
+     * Datenbank und f(N) = N.
      *
      * @return aufsteigend sortierte Liste der Tabellenbezeichner.
      */
     public List<String> getTableIds() {
-        List<String> result = new ArrayList<>();
-        for (DBTable dbt : this.tables) {
-            result.add(dbt.getId());
-        }
-        // O( N * Log( N ) )
-        Collections.sort(result);
-
-        return result;
+        return new ArrayList<>(this.tableIds);
     }
 
     /**
      * Gibt an, ob eine Tabelle mit dem Bezeichner anId in der Datenbank existiert.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) = N.
+     * Datenbank und f(N) = 1.
      *
      * @param anId Bezeichner der Tabelle, deren Existenz geprüft werden soll.
      * @return boolscher Wert, der angibt, ob eine Tabelle mit dem Bezeichner anId in der Datenbank
@@ -137,34 +241,31 @@ public final class DB {
         assert anId != null;
         assert DBTable.isValidIdentifier(anId);
 
-        boolean result = false;
-        for (int i = 0; !result && i < this.getTableCnt(); i++) {
-            result = this.tables.get(i).getId().equals(anId);
-        }
-        return result;
+        return this.tables.containsKey(anId);
     }
 
     /**
      * Entfernt die Tabelle mit dem Bezeichner anId aus der Datenbank.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) = N.
+     * Datenbank und f(N) = Log( N ).
      *
      * @param anId Bezeichner der Tabelle, die aus der Datenbank entfernt werden soll.
      * @pre anId != null
      * @pre der Bezeichner anId muss gültig sein.
      * @post in der Datenbank befindet sich keine Tabelle mit dem Bezeichner anId.
      */
-    public void removeTable(final String anId) {
+    public synchronized void removeTable(final String anId) {
         assert anId != null;
         assert DBTable.isValidIdentifier(anId);
-        //O(N)
-        this.tables.removeIf(new Predicate<DBTable>() {
-            @Override
-            public boolean test(DBTable dbTable) {
-                return dbTable.getId().equals(anId);
-            }
-        });
+        DBTable removed = this.tables.remove(anId);
+        // O( Log( N ) )
+        this.tableIds.remove(anId);
+        if (removed != null && this.log != null) {
+            removed.removeListener(this.logWriter);
+            writeLog(WalRecord.removeTable(anId));
+            checkpointIfDue();
+        }
         assert !tableExists(anId);
     }
 
@@ -173,8 +274,17 @@ public final class DB {
      *
      * @post die Datenbank enthält keine Tabellen.
      */
-    public void removeAllTables() {
+    public synchronized void removeAllTables() {
+        List<DBTable> removed = new ArrayList<>(this.tables.values());
         this.tables.clear();
+        this.tableIds.clear();
+        if (this.log != null) {
+            for (DBTable dbt : removed) {
+                dbt.removeListener(this.logWriter);
+            }
+            writeLog(WalRecord.removeAllTables());
+            checkpointIfDue();
+        }
 
         assert getTableCnt() == 0;
     }
@@ -189,7 +299,7 @@ public final class DB {
      * "Inseln" enthält, liefert die Anfrage mit from="H" to="I" die Namen "Haendler" und "Haeuser".
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
-     * Datenbank und f(N) =  N * ( 1 + Log( N ) ).
+     * Datenbank, K = Anzahl der gelieferten Bezeichner und f(N) = Log( N ) + K.
      *
      * @param from untere Grenze des Suchbereiches, inklusive
      * @param to   obere Grenze des Suchbereiches, exklusive
@@ -205,27 +315,482 @@ public final class DB {
         assert DBTable.isValidIdentifier(from);
         assert DBTable.isValidIdentifier(to);
 
-        Predicate<String> p = new Predicate<String>() {
-            @Override
-            public boolean test(String s) {
-                return (s.compareTo(from) >= 0) && (s.compareTo(to) < 0);
+        if (from.compareTo(to) >= 0) {
+            return new ArrayList<>();
+        }
+        // O( Log( N ) + K )
+        return new ArrayList<>(this.tableIds.subSet(from, true, to, false));
+    }
+
+    /**
+     * Liefert eine Anfrage über der Tabelle mit dem Bezeichner anId. Die Anfrage wird erst bei
+     * {@link Query#collect} ausgeführt und erzeugt dabei keine Zwischentabellen.
+     *
+     * @param anId Bezeichner der Tabelle, über der die Anfrage ausgeführt wird.
+     * @return Anfrage, die alle Zeilen und Spalten der Tabelle liefert.
+     * @pre anId != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre es muss eine Tabelle mit dem Bezeichner anId in der Datenbank existieren.
+     */
+    public Query query(final String anId) {
+        assert anId != null;
+        assert DBTable.isValidIdentifier(anId);
+        assert tableExists(anId);
+
+        return new Query(getTable(anId));
+    }
+
+    /**
+     * Legt die materialisierte Sicht mit dem Bezeichner viewId über der Anfrage query an. Das
+     * Ergebnis der Anfrage wird sofort berechnet und danach bei Änderungen der beteiligten
+     * Tabellen mitgeführt: angehängte Zeilen werden als Delta eingearbeitet, beim Entfernen oder
+     * Sortieren von Zeilen wird neu berechnet (siehe {@link MaterializedView}).
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Summe der Zeilenanzahlen aller beteiligten
+     * Tabellen, K = Anzahl der Zeilen im Ergebnis und f(N) = N + K.
+     *
+     * @param viewId Bezeichner der Sicht
+     * @param query  Anfrage der Sicht
+     * @return angelegte Sicht
+     * @pre viewId != null
+     * @pre der Bezeichner viewId muss gültig sein.
+     * @pre query != null
+     * @pre es darf keine Sicht mit dem Bezeichner viewId in der Datenbank existieren.
+     */
+    public synchronized MaterializedView createView(final String viewId, final Query query) {
+        assert viewId != null;
+        assert DBTable.isValidIdentifier(viewId);
+        assert query != null;
+        assert !this.views.containsKey(viewId);
+
+        MaterializedView result = new MaterializedView(viewId, query);
+        this.views.put(viewId, result);
+        return result;
+    }
+
+    /**
+     * Liefert die materialisierte Sicht mit dem Bezeichner viewId.
+     *
+     * @param viewId Bezeichner der Sicht
+     * @return Sicht mit dem Bezeichner viewId (falls vorhanden, sonst NULL-Referenz).
+     * @pre viewId != null
+     * @pre der Bezeichner viewId muss gültig sein.
+     */
+    public synchronized MaterializedView getView(final String viewId) {
+        assert viewId != null;
+        assert DBTable.isValidIdentifier(viewId);
+
+        return this.views.get(viewId);
+    }
+
+    /**
+     * Entfernt die materialisierte Sicht mit dem Bezeichner viewId. Ihre Ergebnistabelle wird
+     * danach nicht mehr mitgeführt.
+     *
+     * @param viewId Bezeichner der Sicht
+     * @pre viewId != null
+     * @pre der Bezeichner viewId muss gültig sein.
+     * @post in der Datenbank befindet sich keine Sicht mit dem Bezeichner viewId.
+     */
+    public synchronized void dropView(final String viewId) {
+        assert viewId != null;
+        assert DBTable.isValidIdentifier(viewId);
+
+        MaterializedView removed = this.views.remove(viewId);
+        if (removed != null) {
+            removed.close();
+        }
+    }
+
+    /**
+     * Erhebt Statistiken (Zeilenanzahl, geschätzte Anzahl verschiedener Werte je Spalte) über die
+     * Tabelle mit dem Bezeichner anId.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen der Tabelle und f(N) = N.
+     *
+     * @param anId Bezeichner der Tabelle
+     * @return Statistiken der Tabelle
+     * @pre anId != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre es muss eine Tabelle mit dem Bezeichner anId in der Datenbank existieren.
+     */
+    public TableStats getStatistics(final String anId) {
+        assert anId != null;
+        assert DBTable.isValidIdentifier(anId);
+        assert tableExists(anId);
+
+        return new TableStats(getTable(anId));
+    }
+
+    /**
+     * Liefert einen Join über die Tabellen mit den Bezeichnern someTableIds. Die Join-Bedingungen
+     * werden über {@link MultiJoin#on} angegeben; Reihenfolge und Verfahren der einzelnen Joins
+     * werden anhand der Statistiken der Tabellen gewählt.
+     *
+     * @param someTableIds Bezeichner der Tabellen in der Reihenfolge, in der ihre Spalten im
+     *                     Ergebnis stehen sollen.
+     * @return Join ohne Bedingungen
+     * @pre someTableIds != null
+     * @pre someTableIds muss mindestens zwei Bezeichner enthalten
+     * @pre die Bezeichner müssen eindeutig sein
+     * @pre zu allen Bezeichnern muss eine Tabelle in der Datenbank existieren
+     */
+    public MultiJoin multiJoin(final List<String> someTableIds) {
+        assert someTableIds != null;
+        assert someTableIds.size() >= 2;
+        assert DBTable.areOnlyUniqueValues(someTableIds);
+
+        List<DBTable> result = new ArrayList<>();
+        for (String anId : someTableIds) {
+            assert tableExists(anId);
+            result.add(getTable(anId));
+        }
+        return new MultiJoin(result);
+    }
+
+    /**
+     * Speichert die Datenbank im Verzeichnis dir. Das Verzeichnis enthält danach die Datei
+     * {@value #CATALOG_FILE} mit dem Bezeichner der Datenbank und ihren Tabellen sowie je Tabelle
+     * eine Tabellendatei in einem seitenbasierten Binärformat. Die Namen der Tabellendateien
+     * enthalten die Nummer des letzten Checkpoints, sodass ein Checkpoint die Dateien des
+     * vorherigen nicht überschreibt. Tabellendateien früherer Speicherungen, die nicht mehr
+     * benötigt werden, werden entfernt. Der Katalog enthält auch die Partitionierung jeder Tabelle
+     * (siehe {@link DBTable#partition}); Spaltenindizes und sonstige Einstellungen der Tabellen
+     * werden nicht gespeichert.
+     * <p>
+     * Alle Dateien werden vor dem Ersetzen dauerhaft geschrieben, das Verzeichnis nach dem Ersetzen
+     * des Katalogs. Kehrt die Methode zurück, übersteht der neue Stand also einen Absturz.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen aller Tabellen und
+     * f(N) = N.
+     *
+     * @param dir Verzeichnis, in dem die Datenbank gespeichert wird
+     * @throws IOException bei Fehlern beim Schreiben
+     * @pre dir != null
+     */
+    public void save(final Path dir) throws IOException {
+        assert dir != null;
+
+        Files.createDirectories(dir);
+        List<DBTable> saved = new ArrayList<>(copyTables().values());
+        Set<String> files = new HashSet<>();
+        Path tmp = dir.resolve(CATALOG_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(CATALOG_MAGIC);
+            out.writeUTF(this.id);
+            out.writeInt(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                String file = this.generation + "_" + i + TABLE_FILE_SUFFIX;
+                TableFile.write(saved.get(i), dir.resolve(file));
+                out.writeUTF(saved.get(i).getId());
+                out.writeUTF(file);
+                WalRecord.writePartitioning(out, saved.get(i).getPartitioning());
+                files.add(file);
             }
-        };
+            out.writeLong(this.generation);
+        }
+        TableFile.force(tmp);
+        Files.move(tmp, dir.resolve(CATALOG_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        // erst danach sind die neuen Tabellendateien und der Katalog dauerhaft eingetragen
+        TableFile.forceDirectory(dir);
 
-        List<String> result = new ArrayList<>();
-        for (DBTable dbt : this.tables) {
-            if (p.test(dbt.getId())) {
-                result.add(dbt.getId());
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, "*" + TABLE_FILE_SUFFIX)) {
+            for (Path file : stale) {
+                if (!files.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
             }
         }
+    }
 
-        // O( N * Log(N) )
-        // Sortieren der Ergebnisliste
-        Collections.sort(result);
+    /**
+     * Öffnet die im Verzeichnis dir mit {@link #save} gespeicherte Datenbank. Die Tabellendateien
+     * werden dabei nur eingeblendet, Zeilen werden erst beim Zugriff gelesen. Das Öffnen dauert
+     * daher unabhängig von der Größe der Tabellen nur wenige Millisekunden; nur partitionierte
+     * Tabellen werden beim Öffnen in den Hauptspeicher übernommen. Änderungen an einer
+     * Tabelle übernehmen deren Zeilen zunächst in den Hauptspeicher und werden erst mit dem
+     * nächsten {@link #save} in die Dateien geschrieben.
+     *
+     * @param dir Verzeichnis der gespeicherten Datenbank
+     * @return geöffnete Datenbank
+     * @throws IOException bei Fehlern beim Lesen oder einem ungültigen Dateiformat
+     * @pre dir != null
+     */
+    public static DB open(final Path dir) throws IOException {
+        assert dir != null;
 
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(dir.resolve(CATALOG_FILE))))) {
+            if (in.readInt() != CATALOG_MAGIC) {
+                throw new IOException("Ungültiger Katalog: " + dir.resolve(CATALOG_FILE));
+            }
+            DB result = new DB(in.readUTF());
+            int tableCnt = in.readInt();
+            for (int i = 0; i < tableCnt; i++) {
+                String tableId = in.readUTF();
+                DBTable table = TableFile.read(tableId, dir.resolve(in.readUTF()));
+                Partitioning partitioning = WalRecord.readPartitioning(in);
+                if (partitioning != null) {
+                    // die Zeilen liegen bereits nach Partitionen geordnet vor
+                    table.partition(partitioning);
+                }
+                result.addTable(table);
+            }
+            result.generation = in.readLong();
+            return result;
+        }
+    }
+
+    /**
+     * Öffnet die im Verzeichnis dir protokollierte Datenbank oder legt sie mit dem Bezeichner anId
+     * an, falls das Verzeichnis noch keine Datenbank enthält.
+     * <p>
+     * Beim Öffnen wird der Stand des letzten Checkpoints geladen (siehe {@link #open}) und alle
+     * danach protokollierten Änderungen werden erneut ausgeführt. Ein unvollständiger Datensatz am
+     * Ende des Protokolls, wie er bei einem Absturz entsteht, wird verworfen.
+     * <p>
+     * Danach wird jede Änderung an der Datenbank und ihren Tabellen protokolliert. Mehrere
+     * Änderungen werden gemeinsam mit einem einzigen fsync geschrieben (group commit), sodass
+     * höchstens die Änderungen der letzten commitInterval Millisekunden bei einem Absturz verloren
+     * gehen; {@link #sync} schreibt alle bisherigen Änderungen sofort dauerhaft. Überschreitet das
+     * Protokoll {@link #setCheckpointBytes die eingestellte Größe}, wird nach der laufenden
+     * Operation ein {@link #checkpoint Checkpoint} geschrieben und das Protokoll geleert.
+     *
+     * @param dir            Verzeichnis der Datenbank
+     * @param anId           Bezeichner, falls die Datenbank neu angelegt wird
+     * @param commitInterval längste Zeit in Millisekunden, die eine Änderung ungeschrieben bleibt
+     * @return geöffnete Datenbank
+     * @throws IOException bei Fehlern beim Lesen oder Schreiben oder einem ungültigen Protokoll
+     * @pre dir != null
+     * @pre anId != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre commitInterval > 0
+     */
+    public static DB openLogged(final Path dir, final String anId, final long commitInterval)
+            throws IOException {
+        assert dir != null;
+        assert anId != null;
+        assert DBTable.isValidIdentifier(anId);
+        assert commitInterval > 0;
+
+        final DB result;
+        if (Files.exists(dir.resolve(CATALOG_FILE))) {
+            result = open(dir);
+        } else {
+            result = new DB(anId);
+            result.save(dir);
+        }
+
+        Path file = dir.resolve(LOG_FILE_PREFIX + result.generation);
+        try {
+            WriteAheadLog.replay(file, new Consumer<byte[]>() {
+                @Override
+                public void accept(byte[] record) {
+                    try {
+                        WalRecord.apply(result, record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        deleteStaleLogs(dir, file);
+
+        result.logDir = dir;
+        result.commitInterval = commitInterval;
+        result.log = new WriteAheadLog(file, commitInterval);
+        for (DBTable dbt : result.tables.values()) {
+            dbt.addListener(result.logWriter);
+        }
         return result;
     }
 
+    /**
+     * Schreibt einen Checkpoint: Die Datenbank wird in ihrem Verzeichnis gespeichert (siehe
+     * {@link #save}) und das Protokoll wird durch ein leeres ersetzt. Ein Absturz während des
+     * Checkpoints hinterlässt entweder den alten Stand mit altem Protokoll oder den neuen Stand.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen aller Tabellen und
+     * f(N) = N.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     * @pre die Datenbank muss mit {@link #openLogged} geöffnet und nicht geschlossen sein.
+     * @pre keine Tabelle der Datenbank wird währenddessen geändert
+     */
+    public synchronized void checkpoint() throws IOException {
+        assert this.log != null;
+
+        this.checkpointDue = false;
+        // unter der Sperre schreibt niemand in das Protokoll, es wird erst am Ende ersetzt
+        this.log.close();
+        Path old = this.logDir.resolve(LOG_FILE_PREFIX + this.generation);
+        this.generation++;
+        try {
+            save(this.logDir);
+        } catch (IOException e) {
+            // der alte Stand bleibt mit dem alten Protokoll gültig
+            this.generation--;
+            this.log = new WriteAheadLog(old, this.commitInterval);
+            throw e;
+        }
+        // der neue Stand ist dauerhaft, erst jetzt darf das alte Protokoll fehlen
+        Files.deleteIfExists(old);
+        this.log = new WriteAheadLog(this.logDir.resolve(LOG_FILE_PREFIX + this.generation),
+                this.commitInterval);
+    }
+
+    /**
+     * Schreibt alle bisher protokollierten Änderungen dauerhaft. Für eine nicht protokollierte
+     * Datenbank passiert nichts.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    public synchronized void sync() throws IOException {
+        if (this.log != null) {
+            this.log.sync();
+        }
+    }
+
+    /**
+     * Setzt die Größe des Protokolls in Byte, ab der automatisch ein Checkpoint geschrieben wird.
+     * Voreingestellt sind {@value #DEFAULT_CHECKPOINT_BYTES} Byte.
+     *
+     * @param bytes Größe des Protokolls in Byte
+     * @pre bytes > 0
+     */
+    public void setCheckpointBytes(final long bytes) {
+        assert bytes > 0;
+
+        this.checkpointBytes = bytes;
+    }
+
+    /**
+     * Schreibt alle protokollierten Änderungen dauerhaft und schließt das Protokoll. Danach werden
+     * Änderungen nicht mehr protokolliert. Für eine nicht protokollierte Datenbank passiert nichts.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.log != null) {
+            for (DBTable dbt : this.tables.values()) {
+                dbt.removeListener(this.logWriter);
+            }
+            WriteAheadLog closing = this.log;
+            this.log = null;
+            closing.close();
+        }
+    }
+
+    /**
+     * Hängt den Datensatz record an das Protokoll an. Überschreitet das Protokoll die eingestellte
+     * Größe, wird der Checkpoint nur vorgemerkt: Während einer Änderung kann die Tabelle bereits
+     * mehr Zeilen enthalten, als protokolliert sind, geschrieben wird er daher erst mit
+     * {@link #checkpointIfDue} nach der Operation.
+     *
+     * @param record Datensatz
+     * @throws UncheckedIOException bei Fehlern beim Schreiben
+     */
+    private synchronized void writeLog(byte[] record) {
+        try {
+            this.log.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (this.log.size() > this.checkpointBytes) {
+            this.checkpointDue = true;
+        }
+    }
+
+    /**
+     * Schreibt einen vorgemerkten Checkpoint (siehe {@link #writeLog}). Wird aufgerufen, nachdem
+     * eine Operation vollständig ausgeführt und protokolliert ist.
+     *
+     * @throws UncheckedIOException bei Fehlern beim Schreiben
+     */
+    private synchronized void checkpointIfDue() {
+        if (!this.checkpointDue || this.log == null) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Liefert eine nach Bezeichnern sortierte Kopie der Tabellen. Die Kopie enthält jede Tabelle,
+     * die während des ganzen Aufrufs in der Datenbank war, und nur vorhandene Tabellen, auch wenn
+     * gleichzeitig ohne Sperre Tabellen eingefügt oder entfernt werden.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Tabellen in der
+     * Datenbank und f(N) = N * Log( N ).
+     *
+     * @return Tabellen, zugeordnet über ihre Bezeichner
+     */
+    private SortedMap<String, DBTable> copyTables() {
+        return new TreeMap<>(this.tables);
+    }
+
+    /**
+     * Entfernt alle Protokolldateien im Verzeichnis dir außer current.
+     *
+     * @param dir     Verzeichnis der Datenbank
+     * @param current aktuelle Protokolldatei
+     * @throws IOException bei Fehlern beim Löschen
+     */
+    private static void deleteStaleLogs(Path dir, Path current) throws IOException {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, LOG_FILE_PREFIX + "*")) {
+            for (Path file : stale) {
+                if (!file.equals(current)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Änderungen an den Tabellen der Datenbank in das Protokoll.
+     */
+    private final class LogWriter implements TableListener {
+
+        @Override
+        public void rowAppended(DBTable table, List<String> row) {
+            writeLog(WalRecord.appendRow(table, row));
+        }
+
+        @Override
+        public void rowsRemoved(DBTable table, BitSet rows) {
+            writeLog(WalRecord.removeRows(table, rows));
+        }
+
+        @Override
+        public void allRowsRemoved(DBTable table) {
+            writeLog(WalRecord.removeAllRows(table));
+        }
+
+        @Override
+        public void rowsPermuted(DBTable table, int[] order) {
+            writeLog(WalRecord.permuteRows(table, order));
+        }
+
+        @Override
+        public void partitioned(DBTable table, int[] order) {
+            // beim Wiederherstellen ordnet partition die Zeilen ebenso um
+            writeLog(WalRecord.partition(table));
+        }
+
+        @Override
+        public void changeCompleted(DBTable table) {
+            checkpointIfDue();
+        }
+    }
+
     /**
      * Liefert die Stringrepräsentation der Datenbank. Die Stringrepräsentation ist wie folgt
      * aufgebaut:
@@ -251,28 +816,50 @@ public final class DB {
         return toString();
     }
 
+    /**
+     * Schreibt die Stringrepräsentation der Datenbank (siehe {@link #printDB()}) Tabelle für
+     * Tabelle nach out, ohne sie als Ganzes im Speicher aufzubauen.
+     *
+     * @param out Ziel der Ausgabe
+     * @throws IOException bei Fehlern beim Schreiben nach out
+     * @pre out != null
+     */
+    public void writeTo(final Appendable out) throws IOException {
+        writeTo(out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Schreibt die Stringrepräsentation der Datenbank (siehe {@link #printDB()}) nach out, von
+     * jeder Tabelle aber höchstens die ersten limit Zeilen (siehe
+     * {@link DBTable#writeTo(Appendable, int, int)}).
+     *
+     * @param out   Ziel der Ausgabe
+     * @param limit Höchstzahl der geschriebenen Zeilen je Tabelle
+     * @throws IOException bei Fehlern beim Schreiben nach out
+     * @pre out != null
+     * @pre limit >= 0
+     */
+    public void writeTo(final Appendable out, final int limit) throws IOException {
+        assert out != null;
+        assert limit >= 0;
+
+        out.append("Datenbankname: ").append(getId()).append("\n\n");
+        for (Map.Entry<String, DBTable> entry : copyTables().entrySet()) {
+            out.append("Tabellenname: ").append(entry.getKey()).append("\n\n");
+            entry.getValue().writeTo(out, 0, limit);
+            out.append('\n');
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
-        result.append("Datenbankname: " + getId() + "\n\n");
-        List<DBTable> cloneTables = new ArrayList<>();
-        cloneTables.addAll(this.tables);
-
-        Collections.sort(cloneTables, new Comparator<DBTable>() {
-            @Override
-            public int compare(DBTable o1, DBTable o2) {
-                return o1.getId().compareTo(o2.getId());
-            }
-        });
-        for (int i = 0; i < cloneTables.size(); i++) {
-            result.append("Tabellenname: " + cloneTables.get(i).getId() + "\n\n");
-            result.append(cloneTables.get(i).toString());
-            result.append("\n");
+        try {
+            writeTo(result);
+        } catch (IOException e) {
+            throw new AssertionError(e);
         }
-
-
         return result.toString();
     }
 
-
 }
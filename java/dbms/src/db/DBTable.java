@@ -1,14 +1,25 @@
 package db;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Collections;
+import java.util.function.DoublePredicate;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 
+import util.Pair;
+
 /**
  * Eine Datenbanktabelle hat einen Namen bzw. Bezeichner und eine feste Spaltenanzahl, die ebenso
  * wie die Bezeichner der einzelnen Spalten und deren Reihenfolge bei der Erzeugung festgelegt
@@ -32,11 +43,45 @@ public final class DBTable {
      * Spaltenbezeichner
      */
     private final List<String> cols;
+    /**
+     * Typen der Spalten in der Reihenfolge der Spaltenbezeichner
+     */
+    private final List<ColumnType> types;
 
+    /**
+     * Speicherlayout der Datenbanktabelle
+     */
+    private final StorageLayout layout;
     /**
      * Werte der Datenbanktabelle
      */
-    private final List<List<String>> values;
+    private TableStore values;
+    /**
+     * Werte der Datenbanktabelle, falls sie partitioniert ist, sonst null
+     */
+    private PartitionedStore partitions;
+
+    /**
+     * Zeilenanzahl, ab der select, project und removeRows parallel ausgeführt werden
+     */
+    private int parallelThreshold = ParallelScan.DEFAULT_THRESHOLD;
+    /**
+     * Sekundärindizes der Datenbanktabelle, zugeordnet über Spaltenbezeichner und Indexart
+     */
+    private final Map<Pair<String, IndexType>, ColumnIndex> indexes;
+    /**
+     * Empfänger von Änderungen an den Zeilen der Datenbanktabelle
+     */
+    private final List<TableListener> listeners = new ArrayList<>();
+    /**
+     * Sortierschlüssel, nach denen die Zeilen sortiert vorliegen, leer falls nicht bekannt
+     */
+    private List<SortKey> sortOrder = Collections.emptyList();
+    /**
+     * Minima, Maxima und Anzahl null je Block und Spalte, eine Zone Map je Partition (ohne
+     * Partitionierung genau eine), null falls nicht eingeschaltet
+     */
+    private ZoneMap[] zoneMaps;
 
     /**
      * Erzeugt eine leere Datenbanktabelle mit dem Bezeichner anId und den Spaltenbezeichnern
@@ -53,18 +98,110 @@ public final class DBTable {
      * @pre Alle Spaltenbezeichner müssen eindeutig sein
      */
     public DBTable(final String anId, final Collection<String> someColIds) {
+        this(anId, someColIds, StorageLayout.ROW);
+    }
+
+    /**
+     * Erzeugt eine leere Datenbanktabelle mit dem Bezeichner anId und den Spaltenbezeichnern
+     * someColIds, deren Zeilen im Speicherlayout layout abgelegt werden. Das Speicherlayout hat
+     * keinen Einfluss auf das Verhalten der Tabelle, sondern nur auf Speicherbedarf und
+     * Zugriffszeiten: {@link StorageLayout#COLUMN} legt jede Spalte in einem eigenen Array ab und
+     * codiert Spalten mit wenigen verschiedenen Werten über ein Wörterbuch.
+     *
+     * @param anId       Bezeichner der Datenbanktabelle, die erzeugt werden soll.
+     * @param someColIds Spaltenbezeichner
+     * @param layout     Speicherlayout der Tabelle
+     * @pre anId != null
+     * @pre someColIds != null
+     * @pre layout != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre someColIds muss mindestens einen Wert enthalten
+     * @pre Alle Werte in someColIds müssen gültige Spaltenbezeichner sein
+     * @pre Alle Spaltenbezeichner müssen eindeutig sein
+     */
+    public DBTable(final String anId, final Collection<String> someColIds,
+                   final StorageLayout layout) {
+        this(anId, someColIds, Collections.nCopies(someColIds.size(), ColumnType.STRING),
+                layout);
+    }
+
+    /**
+     * Erzeugt eine leere Datenbanktabelle mit dem Bezeichner anId und den Spaltenbezeichnern
+     * someColIds, deren Spalten die Typen someColTypes haben und deren Zeilen im Speicherlayout
+     * layout abgelegt werden.
+     * <p>
+     * Werte werden weiterhin als Zeichenketten übergeben und geliefert, müssen aber zum Typ ihrer
+     * Spalte passen und werden in dessen Normalform abgelegt (siehe {@link ColumnType}). Spalten
+     * eines anderen Typs als {@link ColumnType#STRING} werden nach ihrem Zahlenwert bzw. Datum
+     * sortiert und verglichen und können mit {@link #selectLong} und {@link #selectDouble} ohne
+     * Umwandlung der Werte durchsucht werden. Im Speicherlayout {@link StorageLayout#COLUMN}
+     * werden solche Spalten als Arrays primitiver Zahlen abgelegt.
+     *
+     * @param anId         Bezeichner der Datenbanktabelle, die erzeugt werden soll.
+     * @param someColIds   Spaltenbezeichner
+     * @param someColTypes Typen der Spalten in der Reihenfolge von someColIds
+     * @param layout       Speicherlayout der Tabelle
+     * @pre anId != null
+     * @pre someColIds != null
+     * @pre someColTypes != null
+     * @pre layout != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre someColIds muss mindestens einen Wert enthalten
+     * @pre someColTypes muss so viele Typen enthalten wie someColIds Spaltenbezeichner
+     * @pre Alle Werte in someColIds müssen gültige Spaltenbezeichner sein
+     * @pre Alle Spaltenbezeichner müssen eindeutig sein
+     */
+    public DBTable(final String anId, final Collection<String> someColIds,
+                   final List<ColumnType> someColTypes, final StorageLayout layout) {
+        this(anId, someColIds, someColTypes, layout, null);
+    }
+
+    /**
+     * Erzeugt eine Datenbanktabelle mit dem Bezeichner anId und den Spaltenbezeichnern someColIds,
+     * deren Zeilen in store liegen.
+     *
+     * @param anId         Bezeichner der Datenbanktabelle, die erzeugt werden soll.
+     * @param someColIds   Spaltenbezeichner
+     * @param someColTypes Typen der Spalten in der Reihenfolge von someColIds
+     * @param layout       Speicherlayout der Tabelle
+     * @param store        Speicher mit den Zeilen der Tabelle oder null für einen leeren Speicher
+     *                     im Speicherlayout layout
+     * @pre anId != null
+     * @pre someColIds != null
+     * @pre someColTypes != null
+     * @pre layout != null
+     * @pre der Bezeichner anId muss gültig sein.
+     * @pre someColIds muss mindestens einen Wert enthalten
+     * @pre someColTypes muss so viele Typen enthalten wie someColIds Spaltenbezeichner
+     * @pre Alle Werte in someColIds müssen gültige Spaltenbezeichner sein
+     * @pre Alle Spaltenbezeichner müssen eindeutig sein
+     */
+    DBTable(final String anId, final Collection<String> someColIds,
+            final List<ColumnType> someColTypes, final StorageLayout layout,
+            final TableStore store) {
         assert anId != null;
         assert someColIds != null;
+        assert someColTypes != null;
+        assert layout != null;
         assert isValidIdentifier(anId);
         assert !someColIds.isEmpty();
         assert areValidIdentifiers(someColIds);
         assert areOnlyUniqueValues(someColIds);
+        assert someColTypes.size() == someColIds.size();
+        assert !someColTypes.contains(null);
 
 
         this.cols = new ArrayList<>();
         this.cols.addAll(someColIds);
+        this.types = new ArrayList<>(someColTypes);
         this.id = anId;
-        this.values = new ArrayList<>();
+        this.layout = layout;
+        this.values = store != null ? store
+                : TableStore.create(layout, this.types.toArray(new ColumnType[0]));
+        if (store instanceof PartitionedStore) {
+            this.partitions = (PartitionedStore) store;
+        }
+        this.indexes = new HashMap<>();
     }
 
     /**
@@ -76,6 +213,247 @@ public final class DBTable {
         return this.id;
     }
 
+    /**
+     * Liefert das Speicherlayout der Datenbanktabelle.
+     *
+     * @return Speicherlayout der Datenbanktabelle.
+     */
+    public StorageLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Liefert die Sortierschlüssel, nach denen die Zeilen dieser Tabelle sortiert vorliegen. Die
+     * Angabe wird von {@link #sort} gesetzt und bleibt beim Entfernen von Zeilen sowie beim
+     * Anhängen von Zeilen, die die Sortierung fortsetzen, erhalten. Jede andere Umordnung und jede
+     * Zeile, die die Sortierung verletzt, löscht sie. {@link #mergeJoin} und {@link #equijoin}
+     * nutzen die Angabe, um ein erneutes Sortieren bzw. Hashing zu vermeiden.
+     *
+     * @return Sortierschlüssel, der erste entscheidet zuerst; leer, falls keine Sortierung bekannt
+     * ist
+     */
+    public List<SortKey> getSortOrder() {
+        return this.sortOrder;
+    }
+
+    /**
+     * Teilt die Zeilen dieser Tabelle gemäß partitioning in Partitionen auf, die getrennt
+     * gespeichert werden. Die Zeilen werden dabei nach Partitionen geordnet: zuerst alle Zeilen
+     * der Partition 0, dann die der Partition 1 usw., innerhalb einer Partition in ihrer bisherigen
+     * Reihenfolge. Eine bereits partitionierte Tabelle wird neu aufgeteilt.
+     * <p>
+     * Danach gilt:
+     * <ul>
+     * <li>{@link #appendRow} hängt eine Zeile als letzte Zeile ihrer Partition an, also nur bei der
+     * letzten Partition als letzte Zeile der Tabelle. Sekundärindizes und Blockstatistiken werden
+     * je Partition geführt, sodass die Zeilen dahinter dabei nicht neu eingetragen werden.</li>
+     * <li>{@link #selectEquals} und {@link #selectRange} über die Partitionsspalte durchlaufen ohne
+     * Index nur die Partitionen, die passende Werte enthalten können; ebenso
+     * {@link #removeRange}.</li>
+     * <li>Partitionen, deren Zeilen alle entfernt werden, werden als Ganzes verworfen, ohne ihre
+     * Zeilen anzufassen, siehe auch {@link #dropPartition}.</li>
+     * <li>{@link #sort} sortiert innerhalb jeder Partition.</li>
+     * </ul>
+     * Anders als Indizes wird die Partitionierung gespeichert (siehe {@link DB#save}) und
+     * protokolliert, sodass eine protokollierte Datenbank angehängte Zeilen beim Wiederherstellen
+     * an dieselbe Stelle setzt.
+     * <p>
+     * Sekundärindizes und Blockstatistiken werden dabei neu aufgebaut.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der
+     * Tabelle, P = Anzahl der Partitionen, I = Anzahl der Indizes (mit Blockstatistiken
+     * I + Anzahl der Spalten) und f(N) = N * (P + I).
+     *
+     * @param partitioning Aufteilung der Zeilen
+     * @pre partitioning != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner partitioning.getColId() haben
+     * @pre die Grenzen einer Bereichs-Partitionierung müssen gültige, streng aufsteigende Werte
+     * des Typs dieser Spalte sein
+     */
+    public void partition(final Partitioning partitioning) {
+        assert partitioning != null;
+        assert hasCol(partitioning.getColId());
+        assert partitioning.fits(getColType(partitioning.getColId()));
+
+        PartitionedStore store = new PartitionedStore(partitioning,
+                this.cols.indexOf(partitioning.getColId()), this.layout,
+                this.types.toArray(new ColumnType[0]));
+        int rowCnt = this.values.size();
+        int[] partitionOf = new int[rowCnt];
+        int[] starts = new int[partitioning.getPartitionCnt() + 1];
+        int col = this.cols.indexOf(partitioning.getColId());
+        //O(N)
+        for (int i = 0; i < rowCnt; i++) {
+            partitionOf[i] = store.partitionOfValue(this.values.get(i, col));
+            starts[partitionOf[i] + 1]++;
+        }
+        for (int p = 1; p < starts.length; p++) {
+            starts[p] += starts[p - 1];
+        }
+        // stabil nach Partitionen verteilen
+        int[] order = new int[rowCnt];
+        for (int i = 0; i < rowCnt; i++) {
+            order[starts[partitionOf[i]]++] = i;
+        }
+        //O(N * P)
+        for (int i = 0; i < rowCnt; i++) {
+            store.insert(this.values.getRow(i));
+        }
+        this.values = store;
+        this.partitions = store;
+        this.sortOrder = Collections.emptyList();
+        rebuildIndexes();
+        for (TableListener listener : this.listeners) {
+            listener.partitioned(this, order);
+        }
+        changeCompleted();
+    }
+
+    /**
+     * Liefert die Aufteilung der Zeilen dieser Tabelle in Partitionen.
+     *
+     * @return Partitionierung, null falls die Tabelle nicht partitioniert ist
+     */
+    public Partitioning getPartitioning() {
+        return this.partitions != null ? this.partitions.getPartitioning() : null;
+    }
+
+    /**
+     * Liefert die Anzahl der Zeilen in der Partition partition.
+     *
+     * @param partition Nummer der Partition
+     * @return Anzahl der Zeilen
+     * @pre die Tabelle muss partitioniert sein
+     * @pre 0 <= partition < getPartitioning().getPartitionCnt()
+     */
+    public int getPartitionRowCnt(final int partition) {
+        assert this.partitions != null;
+        assert partition >= 0 && partition < getPartitioning().getPartitionCnt();
+
+        return this.partitions.start(partition + 1) - this.partitions.start(partition);
+    }
+
+    /**
+     * Entfernt alle Zeilen der Partition partition. Die Partition wird als Ganzes verworfen, ohne
+     * ihre Zeilen einzeln anzufassen; die Reihenfolge der übrigen Zeilen bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet ohne Empfänger von Änderungen in O(f(P)), dabei ist P = Anzahl der
+     * Partitionen und f(P) = P. Aus Sekundärindizes und Blockstatistiken werden nur die Einträge
+     * der Partition verworfen.
+     *
+     * @param partition Nummer der Partition
+     * @pre die Tabelle muss partitioniert sein
+     * @pre 0 <= partition < getPartitioning().getPartitionCnt()
+     */
+    public void dropPartition(final int partition) {
+        assert this.partitions != null;
+        assert partition >= 0 && partition < getPartitioning().getPartitionCnt();
+
+        int from = this.partitions.start(partition);
+        int to = this.partitions.start(partition + 1);
+        if (from == to) {
+            return;
+        }
+        this.partitions.drop(partition);
+        for (ColumnIndex index : this.indexes.values()) {
+            index.clear(partition);
+        }
+        if (this.zoneMaps != null) {
+            this.zoneMaps[partition].clear();
+        }
+        if (!this.listeners.isEmpty()) {
+            BitSet rows = new BitSet(to);
+            rows.set(from, to);
+            for (TableListener listener : this.listeners) {
+                listener.rowsRemoved(this, rows);
+            }
+        }
+        changeCompleted();
+    }
+
+    /**
+     * Liefert einen unveränderlichen Schnappschuss dieser Tabelle: eine Tabelle mit Bezeichner,
+     * Spalten und Zeilen dieser Tabelle zum Zeitpunkt des Aufrufs, die spätere Änderungen an dieser
+     * Tabelle nicht betreffen. Änderungen am Schnappschuss werfen eine
+     * UnsupportedOperationException. Indizes werden nicht übernommen.
+     * <p>
+     * Im Speicherlayout {@link StorageLayout#VERSIONED} teilt sich der Schnappschuss die Zeilen mit
+     * dieser Tabelle und kostet O(1). Er darf dann ohne Sperren aus beliebig vielen Threads gelesen
+     * werden, während ein anderer Thread diese Tabelle ändert, und auch der Aufruf selbst ist
+     * während solcher Änderungen erlaubt. In den übrigen Speicherlayouts werden die Zeilen in
+     * O(N) kopiert, und die Tabelle darf währenddessen nicht geändert werden.
+     *
+     * @return Schnappschuss dieser Tabelle
+     */
+    public DBTable snapshot() {
+        DBTable result = new DBTable(this.id, this.cols, this.types, this.layout,
+                this.values.snapshot());
+        result.parallelThreshold = this.parallelThreshold;
+        result.sortOrder = this.sortOrder;
+        return result;
+    }
+
+    /**
+     * Liefert die Zeilenanzahl, ab der {@link #select}, {@link #project}, {@link #removeRows},
+     * {@link #sort} und {@link Grouping#aggregate} parallel ausgeführt werden.
+     *
+     * @return Zeilenanzahl, ab der parallel gearbeitet wird.
+     */
+    public int getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+
+    /**
+     * Legt die Zeilenanzahl fest, ab der {@link #select}, {@link #project}, {@link #removeRows},
+     * {@link #sort} und {@link Grouping#aggregate} den Zeilenbereich aufteilen und parallel auf
+     * allen Prozessorkernen bearbeiten. Das Ergebnis ist in Inhalt und Reihenfolge identisch zur
+     * sequentiellen Ausführung; die übergebenen Predicate-Objekte müssen dafür seiteneffektfrei
+     * sein. Von dieser Tabelle erzeugte Tabellen übernehmen den Wert.
+     *
+     * @param rows Zeilenanzahl, ab der parallel gearbeitet wird.
+     * @pre rows > 0
+     */
+    public void setParallelThreshold(final int rows) {
+        assert rows > 0;
+
+        this.parallelThreshold = rows;
+    }
+
+    /**
+     * Gibt an, ob für diese Tabelle Blockstatistiken (Zone Maps) geführt werden.
+     *
+     * @return true, falls Blockstatistiken geführt werden
+     */
+    public boolean hasZoneMaps() {
+        return this.zoneMaps != null;
+    }
+
+    /**
+     * Schaltet Blockstatistiken (Zone Maps) für diese Tabelle ein oder aus. Die Zeilen werden dazu
+     * in Blöcke fester Größe geteilt, und je Block und Spalte werden der kleinste und der größte
+     * Wert sowie die Anzahl der Werte null geführt: beim Anhängen von Zeilen fortgeschrieben und
+     * neu aufgebaut, sobald sich Zeilennummern verschieben (etwa bei {@link #sort} und
+     * {@link #removeRows}). Eine partitionierte Tabelle führt die Blöcke je Partition.
+     * <p>
+     * {@link #selectRange} und {@link #removeRange} überspringen ohne Index der Art SORTED dann
+     * Blöcke, deren Werte alle außerhalb des Bereiches liegen, und übernehmen Blöcke, deren Werte
+     * alle innerhalb liegen, ohne Vergleich. Das lohnt sich bei Spalten, deren Werte mit der
+     * Zeilennummer etwa steigen, wie Zeitstempel angehängter Zeilen. Das Anhängen einer Zeile
+     * kostet dafür zusätzlich O(M), M = Anzahl der Spalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N beim Einschalten, sonst f(N) = 1.
+     *
+     * @param enabled gibt an, ob Blockstatistiken geführt werden
+     */
+    public void setZoneMaps(final boolean enabled) {
+        if (!enabled) {
+            this.zoneMaps = null;
+        } else if (this.zoneMaps == null) {
+            this.zoneMaps = createZoneMaps();
+        }
+    }
+
     /**
      * Liefert die Spaltenanzahl der Datenbanktabelle.
      * <p>
@@ -159,6 +537,115 @@ public final class DBTable {
         return clone;
     }
 
+    /**
+     * Liefert den Typ der Spalte mit dem Bezeichner aColId.
+     *
+     * @param aColId Bezeichner der Spalte
+     * @return Typ der Spalte
+     * @pre aColId != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     */
+    public ColumnType getColType(final String aColId) {
+        assert aColId != null;
+        assert this.cols.contains(aColId);
+
+        return this.types.get(this.cols.indexOf(aColId));
+    }
+
+    /**
+     * Liefert die Position der Spalte mit dem Bezeichner aColId.
+     *
+     * @param aColId Bezeichner der Spalte
+     * @return Position der Spalte oder -1, falls es keine solche Spalte gibt
+     */
+    int colIndex(final String aColId) {
+        return this.cols.indexOf(aColId);
+    }
+
+    /**
+     * Liefert den Wert in der Zeile row und der Spalte an der Position col.
+     *
+     * @param row Zeilennummer
+     * @param col Position der Spalte
+     * @return Wert der Zelle
+     * @pre 0 <= row < getRowCnt()
+     * @pre 0 <= col < getColCnt()
+     */
+    String cell(final int row, final int col) {
+        return this.values.get(row, col);
+    }
+
+    /**
+     * Gibt an, ob der Wert in der Zeile row und der Spalte an der Position col null ist.
+     *
+     * @param row Zeilennummer
+     * @param col Position der Spalte
+     * @return true, falls der Wert null ist
+     * @pre 0 <= row < getRowCnt()
+     * @pre 0 <= col < getColCnt()
+     */
+    boolean isNull(final int row, final int col) {
+        return this.values.isNull(row, col);
+    }
+
+    /**
+     * Liefert den Schlüssel (siehe {@link ColumnType#hasKeys()}) des Wertes in der Zeile row und
+     * der Spalte an der Position col.
+     *
+     * @param row Zeilennummer
+     * @param col Position der Spalte
+     * @return Schlüssel des Wertes
+     * @pre 0 <= row < getRowCnt()
+     * @pre 0 <= col < getColCnt()
+     * @pre die Spalte hat Schlüssel und der Wert ist nicht null
+     */
+    long key(final int row, final int col) {
+        return this.values.key(row, col);
+    }
+
+    /**
+     * Meldet listener für alle künftigen Änderungen an den Zeilen dieser Tabelle an.
+     *
+     * @param listener Empfänger der Änderungen
+     * @pre listener != null
+     */
+    void addListener(final TableListener listener) {
+        assert listener != null;
+
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Meldet listener von den Änderungen an den Zeilen dieser Tabelle ab.
+     *
+     * @param listener Empfänger der Änderungen
+     */
+    void removeListener(final TableListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Liefert die Zeile mit der Zeilennummer row. Die gelieferte Liste darf nicht verändert werden.
+     *
+     * @param row Zeilennummer
+     * @return Werte der Zeile
+     * @pre 0 <= row < getRowCnt()
+     */
+    List<String> getRow(final int row) {
+        return this.values.getRow(row);
+    }
+
+    /**
+     * Liefert einen Sekundärindex über die Spalte an der Position col, bevorzugt einen Index der
+     * Art HASH.
+     *
+     * @param col Position der Spalte
+     * @return Index oder null, falls über die Spalte kein Index existiert
+     */
+    ColumnIndex columnIndex(final int col) {
+        return findIndex(this.cols.get(col), false);
+    }
+
     /**
      * Fügt die Werte von row in der angegebenen Reihenfolge als letzte Zeile in die Tabelle ein.
      * Ein Iterator der Collection someColIds muss die Inhalte der Zeile in der Reihenfolge liefern,
@@ -170,16 +657,121 @@ public final class DBTable {
      * @param row Werte, für die letzte Zeile
      * @pre row != null
      * @pre Die Anzahl der Werte in row muss der Spaltenanzahl der Tabelle entsprechen.
+     * @pre Alle Werte müssen zum Typ ihrer Spalte passen (siehe {@link ColumnType#isValid}).
      */
     public void appendRow(final Collection<String> row) {
         assert row != null;
         assert row.size() == getColCnt();
+        assert matchesTypes(row);
 
-        List<String> elem = new ArrayList<>(row.size());
         //O(M)
-        elem.addAll(row);
-        //O(1)
-        this.values.add(elem);
+        if (this.partitions != null) {
+            appended(this.partitions.insert(row));
+            changeCompleted();
+            return;
+        }
+        this.values.append(row);
+        indexRow(this.values.size() - 1);
+        checkSortOrder(this.values.size() - 1);
+        if (!this.listeners.isEmpty()) {
+            List<String> appended = this.values.getRow(this.values.size() - 1);
+            for (TableListener listener : this.listeners) {
+                listener.rowAppended(this, appended);
+            }
+        }
+        changeCompleted();
+    }
+
+    /**
+     * Führt Indizes, Sortierreihenfolge und Empfänger nach, nachdem eine Zeile in einer Partition
+     * an der Zeilennummer row eingefügt wurde.
+     *
+     * @param row Zeilennummer der eingefügten Zeile
+     */
+    private void appended(int row) {
+        checkSortOrder(row);
+        // Indizes und Blockstatistiken zählen je Partition, die Zeilen dahinter bleiben gültig
+        indexRow(row);
+        if (row < this.values.size() - 1) {
+            checkSortOrder(row + 1);
+        }
+        if (!this.listeners.isEmpty()) {
+            List<String> appended = this.values.getRow(row);
+            for (TableListener listener : this.listeners) {
+                listener.rowAppended(this, appended);
+            }
+        }
+    }
+
+    /**
+     * Hängt alle Datensätze der Textdatei file als Zeilen an diese Tabelle an. Die Datei enthält
+     * je Zeile einen Datensatz, dessen Werte durch separator getrennt sind, also etwa ',' für CSV-
+     * oder '\t' für TSV-Dateien. Werte dürfen in doppelte Anführungszeichen eingeschlossen werden
+     * und enthalten dann Trennzeichen, Zeilenumbrüche und verdoppelte Anführungszeichen. Die Datei
+     * wird in UTF-8 erwartet.
+     * <p>
+     * Die Datei wird gepuffert in Stapeln gelesen; jeder Stapel wird parallel zerlegt, während der
+     * nächste gelesen wird, und als Ganzes angehängt. Der Speicher der Tabelle wird anhand der
+     * Dateigröße vorab vergrößert. Enthält ein Datensatz nicht so viele Werte, wie die Tabelle
+     * Spalten hat, oder passt ein Wert nicht zum Typ seiner Spalte, wird abgebrochen; die Zeilen
+     * vorheriger Stapel bleiben dann angehängt.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Datensätze der Datei und
+     * f(N) = N.
+     *
+     * @param file       Datei, deren Datensätze angehängt werden
+     * @param separator  Trennzeichen zwischen den Werten
+     * @param skipHeader gibt an, ob der erste Datensatz (Spaltenüberschriften) übersprungen wird
+     * @return Anzahl der angehängten Zeilen
+     * @throws IOException bei Fehlern beim Lesen oder wenn ein Datensatz nicht so viele Werte
+     *                     enthält, wie die Tabelle Spalten hat, oder ein Wert nicht zum Typ seiner
+     *                     Spalte passt
+     * @pre file != null
+     * @pre separator darf weder '"' noch ein Zeilenumbruch sein
+     */
+    public int load(final Path file, final char separator, final boolean skipHeader)
+            throws IOException {
+        assert file != null;
+        assert separator != '"' && separator != '\n' && separator != '\r';
+
+        return CsvLoader.load(this, file, separator, skipHeader);
+    }
+
+    /**
+     * Hängt die Zeilen rows in ihrer Reihenfolge an diese Tabelle an. Die Listen werden dabei
+     * übernommen und dürfen danach nicht mehr verändert werden.
+     *
+     * @param rows Zeilen
+     * @pre jede Zeile muss so viele Werte enthalten, wie die Tabelle Spalten hat
+     */
+    void appendRows(final List<List<String>> rows) {
+        if (this.partitions != null) {
+            for (List<String> row : rows) {
+                appended(this.partitions.insert(row));
+            }
+            changeCompleted();
+            return;
+        }
+        int first = this.values.size();
+        this.values.appendAll(rows);
+        for (int i = first; i < this.values.size(); i++) {
+            indexRow(i);
+            checkSortOrder(i);
+            for (TableListener listener : this.listeners) {
+                listener.rowAppended(this, this.values.getRow(i));
+            }
+        }
+        // erst jetzt sind alle angehängten Zeilen gemeldet
+        changeCompleted();
+    }
+
+    /**
+     * Stellt Platz für insgesamt rowCnt Zeilen bereit.
+     *
+     * @param rowCnt erwartete Anzahl der Zeilen
+     */
+    void reserveRows(final int rowCnt) {
+        this.values.reserve(rowCnt);
     }
 
     /**
@@ -187,7 +779,7 @@ public final class DBTable {
      * mit aColId bezeichnet ist, erfolgreich ist.
      * <p>
      * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
-     * und f(N) = N^2.
+     * und f(N) = N.
      *
      * @param aColId Bezeichner der Spalte, deren Werte für den Test herangezogen werden sollen.
      * @param p      Ein Predicate-Objekt zum Testen des jeweiligen Spaltenwertes
@@ -202,62 +794,364 @@ public final class DBTable {
         assert isValidIdentifier(aColId);
         assert this.cols.contains(aColId);
 
-        List<List<String>> result = new ArrayList<>();
-        int colID = this.cols.indexOf(aColId);
-        for (List<String> l : this.values) {
-            if (!p.test(l.get(colID))) {
-                //O(1)
-                result.add(l);
-            }
-
+        BitSet removed = new BitSet(this.values.size());
+        //O(N)
+        for (int i : matchingRows(this.cols.indexOf(aColId), p)) {
+            removed.set(i);
         }
-        this.values.clear();
         //O(N)
-        this.values.addAll(result);
+        removeRows(removed);
     }
 
     /**
-     * Löscht alle Zeilen der Tabelle.
+     * Entfernt die Zeilen mit den in rows gesetzten Zeilennummern aus dieser Tabelle. Die Einträge
+     * der Sekundärindizes werden fortgeschrieben statt neu aufgebaut, die Blockstatistiken ab dem
+     * Block der ersten entfernten Zeile neu erfasst.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * (I + 1), I = Anzahl der Indizes. Bei Partitionierung zählen nur die
+     * Partitionen, aus denen Zeilen entfernt werden.
      *
-     * @post die Tabelle enthält keine Zeilen.
+     * @param rows Zeilennummern der zu entfernenden Zeilen
+     * @pre rows != null
      */
-    public void removeAllRows() {
-        this.values.clear();
+    void removeRows(final BitSet rows) {
+        assert rows != null;
 
-        assert this.values.isEmpty();
+        if (rows.isEmpty()) {
+            return;
+        }
+        //O(N * I)
+        for (ColumnIndex index : this.indexes.values()) {
+            index.remove(rows);
+        }
+        // erste entfernte Zeile je Partition, relativ zu deren Anfang
+        int[] firstRemoved = null;
+        if (this.zoneMaps != null) {
+            firstRemoved = new int[this.zoneMaps.length];
+            for (int p = 0; p < firstRemoved.length; p++) {
+                int from = this.partitions != null ? this.partitions.start(p) : 0;
+                int to = this.partitions != null ? this.partitions.start(p + 1)
+                        : this.values.size();
+                int first = rows.nextSetBit(from);
+                firstRemoved[p] = first >= 0 && first < to ? first - from : to - from;
+            }
+        }
+        this.values.remove(rows);
+        if (firstRemoved != null) {
+            for (int p = 0; p < firstRemoved.length; p++) {
+                this.zoneMaps[p].truncate(firstRemoved[p]);
+                this.zoneMaps[p].update(zoneStore(p));
+            }
+        }
+        for (TableListener listener : this.listeners) {
+            listener.rowsRemoved(this, rows);
+        }
+        changeCompleted();
     }
 
     /**
-     * Sortiert die Zeilen dieser Tabelle anhand der Werte in der Spalte mit dem Bezeichner aColId
-     * in der Sortierreihenfolge sortDir.
+     * Entfernt alle Zeilen aus dieser Tabelle, bei denen der Wert in der Spalte aColId im Bereich
+     * [from, to) liegt. Verglichen wird wie bei {@link #selectRange}. Ist die Tabelle nach aColId
+     * partitioniert (siehe {@link #partition}), werden nur die Partitionen durchlaufen, die den
+     * Bereich schneiden, und Partitionen, die ganz im Bereich liegen, als Ganzes verworfen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen in den durchlaufenen
+     * Partitionen bzw. in der Tabelle und f(N) = N.
      *
-     * @param aColId  Bezeichner der Spalte, nach der sortiert werden soll.
-     * @param sortDir Reihenfolge, nach der sortiert werden soll.
+     * @param aColId Bezeichner der Spalte, deren Werte verglichen werden
+     * @param from   untere Grenze des Bereiches, inklusive
+     * @param to     obere Grenze des Bereiches, exklusive
      * @pre aColId != null
-     * @pre sortDir != null
+     * @pre from != null
+     * @pre to != null
      * @pre der Bezeichner aColId muss gültig sein
      * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre from und to müssen zum Typ der Spalte passen
      */
-    public void sort(final String aColId, final SortDirection sortDir) {
+    public void removeRange(final String aColId, final String from, final String to) {
         assert aColId != null;
-        assert sortDir != null;
+        assert from != null;
+        assert to != null;
         assert isValidIdentifier(aColId);
-        assert this.cols.contains(aColId);
+        assert hasCol(aColId);
+        assert getColType(aColId).isValid(from) && getColType(aColId).isValid(to);
 
-        int colId = this.cols.indexOf(aColId);
-        Comparator<List<String>> comp = new Comparator<List<String>>() {
-            @Override
-            public int compare(List<String> o1, List<String> o2) {
-                return o1.get(colId).compareTo(o2.get(colId));
+        int col = this.cols.indexOf(aColId);
+        BitSet removed = new BitSet(this.values.size());
+        for (int i : rangeRows(col, from, to)) {
+            removed.set(i);
+        }
+        List<Integer> covered = new ArrayList<>();
+        if (isPartitionedBy(col)) {
+            ColumnType type = this.types.get(col);
+            String lo = type.normalize(from);
+            String hi = type.normalize(to);
+            //O(P)
+            for (int p = 0; p < getPartitioning().getPartitionCnt(); p++) {
+                int start = this.partitions.start(p);
+                int end = this.partitions.start(p + 1);
+                if (start < end && getPartitioning().covers(p, lo, hi, type)) {
+                    removed.clear(start, end);
+                    covered.add(p);
+                }
             }
-        };
+        }
+        // zuerst die angeschnittenen Partitionen, deren Nummern bleiben beim Verwerfen erhalten
+        removeRows(removed);
+        for (int p : covered) {
+            dropPartition(p);
+        }
+    }
+
+    /**
+     * Löscht alle Zeilen der Tabelle.
+     *
+     * @post die Tabelle enthält keine Zeilen.
+     */
+    public void removeAllRows() {
+        this.values.clear();
+        if (this.zoneMaps != null) {
+            for (ZoneMap zoneMap : this.zoneMaps) {
+                zoneMap.clear();
+            }
+        }
+        for (ColumnIndex index : this.indexes.values()) {
+            index.clear();
+        }
+        for (TableListener listener : this.listeners) {
+            listener.allRowsRemoved(this);
+        }
+        changeCompleted();
+
+        assert this.values.size() == 0;
+    }
+
+    /**
+     * Sortiert die Zeilen dieser Tabelle anhand der Werte in der Spalte mit dem Bezeichner aColId
+     * in der Sortierreihenfolge sortDir.
+     *
+     * @param aColId  Bezeichner der Spalte, nach der sortiert werden soll.
+     * @param sortDir Reihenfolge, nach der sortiert werden soll.
+     * @pre aColId != null
+     * @pre sortDir != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     */
+    public void sort(final String aColId, final SortDirection sortDir) {
+        assert aColId != null;
+        assert sortDir != null;
+        assert isValidIdentifier(aColId);
+        assert this.cols.contains(aColId);
+
+        sort(Collections.singletonList(new SortKey(aColId, sortDir)));
+    }
+
+    /**
+     * Sortiert die Zeilen dieser Tabelle anhand der Sortierschlüssel keys: zuerst nach dem ersten
+     * Schlüssel, Zeilen mit gleichem Wert darin nach dem zweiten usw. Jeder Schlüssel hat seine
+     * eigene Sortierreihenfolge. Zeilen, die in allen Schlüsseln gleich sind, behalten ihre
+     * Reihenfolge.
+     * <p>
+     * Sortiert werden die Zeilennummern, die Zeilen werden danach einmalig umgeordnet. Die Werte
+     * der Schlüsselspalten werden dazu einmalig ausgelesen. Ab der Parallelisierungsschwelle wird
+     * parallel sortiert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * Log(N).
+     *
+     * @param keys Sortierschlüssel, der erste entscheidet zuerst
+     * @pre keys != null
+     * @pre keys muss mindestens einen Sortierschlüssel enthalten
+     * @pre zu allen Sortierschlüsseln gibt es eine entsprechende Spalte in der Tabelle
+     */
+    public void sort(final List<SortKey> keys) {
+        assert keys != null;
+        assert !keys.isEmpty();
+
+        RowSort.RowComparator comp = rowComparator(keys);
+        if (this.partitions != null) {
+            // Zeilen bleiben in ihrer Partition
+            final int[] partitionOf = new int[this.values.size()];
+            for (int i = 0; i < partitionOf.length; i++) {
+                partitionOf[i] = this.partitions.partitionOfRow(i);
+            }
+            final RowSort.RowComparator inner = comp;
+            comp = new RowSort.RowComparator() {
+                @Override
+                public int compare(int a, int b) {
+                    int result = Integer.compare(partitionOf[a], partitionOf[b]);
+                    return result != 0 ? result : inner.compare(a, b);
+                }
+            };
+        }
+
+        //O(N log(N))
+        int[] permutation = RowSort.sort(this.values.size(), this.parallelThreshold, comp);
+        //O(N)
+        permuteRows(permutation);
+        Partitioning partitioning = getPartitioning();
+        if (partitioning == null || partitioning.isRange()
+                && keys.get(0).getColId().equals(partitioning.getColId())
+                && keys.get(0).getDirection() == SortDirection.ASC) {
+            // bei Bereichen über dem ersten Schlüssel sind die Partitionen aufsteigend geordnet
+            this.sortOrder = Collections.unmodifiableList(new ArrayList<>(keys));
+        }
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die die ersten n Zeilen dieser Tabelle
+     * sortiert nach der Spalte aColId in der Reihenfolge sortDir enthält, mit
+     * {@link SortDirection#DESC} etwa die n Zeilen mit den größten Werten. Siehe
+     * {@link #topN(List, int, int, String)}.
+     *
+     * @param aColId     Bezeichner der Spalte, nach der sortiert wird
+     * @param sortDir    Sortierreihenfolge
+     * @param n          höchste Anzahl der Zeilen
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre sortDir != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre n >= 0
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable topN(final String aColId, final SortDirection sortDir, final int n,
+                        final String newTableId) {
+        assert aColId != null;
+        assert sortDir != null;
+        assert this.cols.contains(aColId);
+
+        return topN(Collections.singletonList(new SortKey(aColId, sortDir)), 0, n, newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die die Zeilen dieser Tabelle sortiert
+     * nach den Sortierschlüsseln keys enthält, davon jedoch nur höchstens limit Zeilen ab der
+     * Position offset (OFFSET/LIMIT). Zeilen, die in allen Schlüsseln gleich sind, behalten ihre
+     * Reihenfolge. Diese Tabelle bleibt unverändert.
+     * <p>
+     * Statt alle Zeilen zu sortieren, werden die ersten offset + limit Zeilen in einem begrenzten
+     * Heap gesammelt (siehe {@link RowSort#top}). Liegt die Tabelle laut {@link #getSortOrder()}
+     * bereits nach keys sortiert vor, werden die Zeilen direkt übernommen. Die erzeugte Tabelle
+     * liegt nach keys sortiert vor.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der
+     * Tabelle, K = offset + limit und f(N) = N * Log(K) (bzw. f(N) = K, falls die Tabelle bereits
+     * passend sortiert vorliegt).
+     *
+     * @param keys       Sortierschlüssel, der erste entscheidet zuerst
+     * @param offset     Anzahl der übersprungenen ersten Zeilen
+     * @param limit      höchste Anzahl der Zeilen
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre keys != null
+     * @pre newTableId != null
+     * @pre keys muss mindestens einen Sortierschlüssel enthalten
+     * @pre zu allen Sortierschlüsseln gibt es eine entsprechende Spalte in der Tabelle
+     * @pre offset >= 0
+     * @pre limit >= 0
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable topN(final List<SortKey> keys, final int offset, final int limit,
+                        final String newTableId) {
+        assert keys != null;
+        assert newTableId != null;
+        assert !keys.isEmpty();
+        assert offset >= 0;
+        assert limit >= 0;
+        assert isValidIdentifier(newTableId);
 
-        if (sortDir.equals(SortDirection.ASC)) {
-            //O(N log(N))
-            Collections.sort(this.values, comp);
+        int end = (int) Math.min(this.values.size(), (long) offset + limit);
+        int[] rows;
+        if (isSortedBy(keys)) {
+            //O(K)
+            rows = new int[Math.max(0, end - offset)];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = offset + i;
+            }
         } else {
-            //O(N log(N))
-            Collections.sort(this.values, comp.reversed());
+            //O(N * Log(K))
+            int[] top = RowSort.top(this.values.size(), end, rowComparator(keys));
+            rows = Arrays.copyOfRange(top, Math.min(offset, top.length), top.length);
+        }
+        DBTable result = selectRows(rows, newTableId);
+        result.sortOrder = Collections.unmodifiableList(new ArrayList<>(keys));
+        return result;
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen dieser Tabelle sortiert
+     * nach den Sortierschlüsseln keys enthält. Die Zeilen werden im Format der Tabellendateien von
+     * {@link DB#save(Path)} in die Datei file geschrieben, die erzeugte Tabelle blendet sie ein.
+     * <p>
+     * Im Hauptspeicher werden dabei höchstens etwa memoryBudget Byte an Zeilen gehalten; was nicht
+     * hineinpasst, wird in sortierten Läufen neben file zwischengespeichert und anschließend
+     * zusammengeführt. So lassen sich auch Tabellen sortieren, die als Kopie nicht in den
+     * Hauptspeicher passen. Diese Tabelle bleibt unverändert. Die Sortierung ist stabil.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * Log(N).
+     *
+     * @param keys         Sortierschlüssel, der erste entscheidet zuerst
+     * @param file         Tabellendatei der erzeugten Tabelle
+     * @param memoryBudget Speicherbudget für Zeilen in Byte
+     * @param newTableId   Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @throws IOException bei Fehlern beim Schreiben oder Lesen der Dateien
+     * @pre keys != null
+     * @pre file != null
+     * @pre newTableId != null
+     * @pre keys muss mindestens einen Sortierschlüssel enthalten
+     * @pre zu allen Sortierschlüsseln gibt es eine entsprechende Spalte in der Tabelle
+     * @pre memoryBudget > 0
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable sortExternal(final List<SortKey> keys, final Path file, final long memoryBudget,
+                                final String newTableId) throws IOException {
+        assert keys != null;
+        assert file != null;
+        assert newTableId != null;
+        assert !keys.isEmpty();
+        assert memoryBudget > 0;
+        assert isValidIdentifier(newTableId);
+
+        ExternalSort.sort(this, keys, file, memoryBudget);
+        DBTable result = TableFile.read(newTableId, file);
+        result.parallelThreshold = this.parallelThreshold;
+        result.sortOrder = Collections.unmodifiableList(new ArrayList<>(keys));
+        return result;
+    }
+
+    /**
+     * Ordnet die Zeilen dieser Tabelle um, die neue Zeile i ist die bisherige Zeile order[i].
+     * Sekundärindizes und Blockstatistiken werden dabei neu aufgebaut.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * I, I = Anzahl der Indizes (mit Blockstatistiken I + Anzahl der Spalten).
+     *
+     * @param order Permutation der Zeilennummern
+     * @pre order.length == getRowCnt()
+     */
+    void permuteRows(final int[] order) {
+        assert order.length == this.values.size();
+
+        this.values.permute(order);
+        this.sortOrder = Collections.emptyList();
+        rebuildIndexes();
+        for (TableListener listener : this.listeners) {
+            listener.rowsPermuted(this, order);
+        }
+        changeCompleted();
+    }
+
+    /**
+     * Meldet allen Empfängern, dass die laufende Operation abgeschlossen ist (siehe
+     * {@link TableListener#changeCompleted}).
+     */
+    private void changeCompleted() {
+        for (TableListener listener : this.listeners) {
+            listener.changeCompleted(this);
         }
     }
 
@@ -288,17 +1182,106 @@ public final class DBTable {
         assert hasCol(aColId);
         assert isValidIdentifier(newTableId);
 
-        DBTable result = new DBTable(newTableId, this.cols);
-        int colID = this.cols.indexOf(aColId);
-        for (int i = 0; i < this.values.size(); i++) {
-            if (p.test(this.values.get(i).get(colID))) {
-                //O(1)
-                result.appendRow(this.values.get(i));
-            }
+        //O(N)
+        return selectRows(matchingRows(this.cols.indexOf(aColId), p), newTableId);
+
+    }
+
+    /**
+     * Gruppiert die Zeilen dieser Tabelle nach den Werten der Spalten someColIds. Die gelieferte
+     * Gruppierung wird erst durch {@link Grouping#aggregate} ausgewertet, und zwar über den dann
+     * aktuellen Zeilen dieser Tabelle.
+     *
+     * @param someColIds Bezeichner der Gruppierungsspalten in der Reihenfolge der Ergebnisspalten,
+     *                   leer für eine einzige Gruppe aus allen Zeilen
+     * @return Gruppierung
+     * @pre someColIds != null
+     * @pre zu allen Einträgen in someColIds gibt es eine entsprechende Spalte in der Tabelle
+     * @pre Alle Werte in someColIds müssen eindeutig sein
+     */
+    public Grouping groupBy(final Collection<String> someColIds) {
+        assert someColIds != null;
+        assert someColIds.isEmpty() || hasCols(someColIds);
+        assert areOnlyUniqueValues(someColIds);
+
+        return new Grouping(this, someColIds);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen enthält, deren Wert in
+     * der Spalte aColId den blockweise ausgewerteten Test p besteht (siehe {@link #selection}). Die
+     * Reihenfolge der Zeilen bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param aColId     Bezeichner der Spalte, deren Werte getestet werden
+     * @param p          Test über den Werten der Spalte
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre p != null
+     * @pre newTableId != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable select(final String aColId, final BatchPredicate p, final String newTableId) {
+        assert newTableId != null;
+        assert isValidIdentifier(newTableId);
+
+        BitSet selected = selection(aColId, p);
+        int[] rows = new int[selected.cardinality()];
+        int cnt = 0;
+        for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+            rows[cnt++] = row;
         }
+        return selectRows(rows, newTableId);
+    }
 
-        return result;
+    /**
+     * Liefert die Bitmenge der Nummern aller Zeilen, deren Wert in der Spalte aColId den Test p
+     * besteht. Der Test wird für Blöcke von Zeilen ausgewertet (siehe {@link BatchPredicate}), ab
+     * {@link #getParallelThreshold()} Zeilen parallel. Bitmengen mehrerer Tests lassen sich per
+     * and bzw. or verknüpfen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param aColId Bezeichner der Spalte, deren Werte getestet werden
+     * @param p      Test über den Werten der Spalte
+     * @return Zeilennummern, für die p zutrifft
+     * @pre aColId != null
+     * @pre p != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     */
+    public BitSet selection(final String aColId, final BatchPredicate p) {
+        assert aColId != null;
+        assert p != null;
+        assert hasCol(aColId);
 
+        final int col = this.cols.indexOf(aColId);
+        final ColumnType type = this.types.get(col);
+        final int rowCnt = this.values.size();
+        final int chunkCnt = (rowCnt + BatchPredicate.CHUNK_ROWS - 1) / BatchPredicate.CHUNK_ROWS;
+        final int wordsPerChunk = BatchPredicate.CHUNK_ROWS / Long.SIZE;
+        //O(N)
+        List<long[]> chunks = ParallelScan.map(chunkCnt,
+                Math.max(1, this.parallelThreshold / BatchPredicate.CHUNK_ROWS), 1,
+                new IntFunction<long[]>() {
+                    @Override
+                    public long[] apply(int chunk) {
+                        int from = chunk * BatchPredicate.CHUNK_ROWS;
+                        long[] words = new long[wordsPerChunk];
+                        p.evaluate(values, col, type, from,
+                                Math.min(rowCnt, from + BatchPredicate.CHUNK_ROWS), words);
+                        return words;
+                    }
+                });
+        long[] words = new long[chunkCnt * wordsPerChunk];
+        for (int i = 0; i < chunkCnt; i++) {
+            System.arraycopy(chunks.get(i), 0, words, i * wordsPerChunk, wordsPerChunk);
+        }
+        return BitSet.valueOf(words);
     }
 
     /**
@@ -328,19 +1311,29 @@ public final class DBTable {
         assert this.hasCols(someColIds);
         assert isValidIdentifier(newTableId);
 
-        DBTable result = new DBTable(newTableId, someColIds);
-        int[] connection = new int[someColIds.size()];
+        List<ColumnType> someColTypes = new ArrayList<>(someColIds.size());
+        for (String s : someColIds) {
+            someColTypes.add(this.types.get(this.cols.indexOf(s)));
+        }
+        DBTable result = derive(newTableId, someColIds, someColTypes);
+        final int[] connection = new int[someColIds.size()];
 
         for (int i = 0; i < connection.length; i++) {
             connection[i] = this.cols.indexOf(result.cols.get(i));
         }
-        for (int i = 0; i < this.values.size(); i++) {
-            List<String> newRow = new ArrayList<>();
-
-            for (int j = 0; j < connection.length; j++) {
-                //O(1)
-                newRow.add(this.values.get(i).get(connection[j]));
-            }
+        List<List<String>> newRows = ParallelScan.map(this.values.size(), this.parallelThreshold,
+                new IntFunction<List<String>>() {
+                    @Override
+                    public List<String> apply(int row) {
+                        List<String> newRow = new ArrayList<>(connection.length);
+                        for (int j = 0; j < connection.length; j++) {
+                            //O(1)
+                            newRow.add(values.get(row, connection[j]));
+                        }
+                        return newRow;
+                    }
+                });
+        for (List<String> newRow : newRows) {
             //O(1)
             result.appendRow(newRow);
         }
@@ -355,11 +1348,21 @@ public final class DBTable {
      * übergebenen Tabelle. In der neuen Tabelle befinden sich alle Zeilen, in denen die Werte an
      * den Positionen der übergebenen Spaltenbezeichner (thisColId für die aktuelle Tabelle und
      * otherColId für die übergebene Tabelle) übereinstimmen. Es bleibt die Reihenfolge der Zeilen
-     * aus der aktuellen Tabelle bzw. der Tabelle other erhalten.
+     * aus der aktuellen Tabelle bzw. der Tabelle other erhalten. Wie in SQL hat eine Zeile mit dem
+     * Wert null in der Join-Spalte keine Partner, null stimmt also auch nicht mit null überein.
      * <p>
      * Die Spaltenbezeichner der neuen Tabelle werden aus den Spaltenbezeichnern der beiden
      * vorhandenen Tabellen erzeugt und zwar nach dem Schema, dass vor jeden vorhandenen Bezeichner
      * der Name der entsprechenden Ursprungstabelle gefolgt von einem Unterstrich geschrieben wird.
+     * <p>
+     * Der Join wird als Hash-Join ausgeführt: Über die Join-Spalte der Tabelle mit weniger Zeilen
+     * wird ein Hash-Index aufgebaut, mit dem die Zeilen der größeren Tabelle sondiert werden.
+     * Liegen beide Tabellen laut {@link #getSortOrder()} in derselben Richtung nach ihren
+     * Join-Spalten sortiert vor und haben diese denselben Typ, werden sie stattdessen ohne Hashing
+     * gemischt (siehe {@link #mergeJoin}); das Ergebnis ist dasselbe.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in other, K = Anzahl der Zeilen im Ergebnis und f(N, M) = N + M + K.
      *
      * @param other      die Tabelle, mit der this gejoint werden soll
      * @param newTableId Bezeichner der Tabelle, die erzeugt wird.
@@ -379,6 +1382,31 @@ public final class DBTable {
      */
     public DBTable equijoin(final DBTable other, final String thisColId, final String otherColId,
                             final String newTableId) {
+        return equijoin(other, thisColId, otherColId, newTableId, false);
+    }
+
+    /**
+     * Führt wie {@link #equijoin(DBTable, String, String, String)} einen Hash-Join durch. Ist
+     * bloomFilter gesetzt, wird zusätzlich ein Bloom-Filter über die Join-Spalte der kleineren
+     * Tabelle aufgebaut. Zeilen der größeren Tabelle, deren Wert der Filter abweist, werden vor dem
+     * eigentlichen Join verworfen, ohne den Hash-Index zu sondieren (Semi-Join-Reduktion, siehe
+     * {@link #semiJoin}). Das lohnt sich, wenn die meisten Zeilen der größeren Tabelle keinen
+     * Partner haben, etwa bei einer großen Faktentabelle und einer gefilterten kleinen Tabelle. Das
+     * Ergebnis ist dasselbe wie ohne Filter.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in other, K = Anzahl der Zeilen im Ergebnis und f(N, M) = N + M + K.
+     *
+     * @param other       die Tabelle, mit der this gejoint werden soll
+     * @param thisColId   Spaltenbezeichner der Spalte deren Werte in this verglichen werden.
+     * @param otherColId  Spaltenbezeichner der Spalte deren Werte in other verglichen werden.
+     * @param newTableId  Bezeichner der Tabelle, die erzeugt wird.
+     * @param bloomFilter gibt an, ob die größere Tabelle per Bloom-Filter vorgefiltert wird
+     * @return die erzeugte Tabelle
+     * @pre wie bei {@link #equijoin(DBTable, String, String, String)}
+     */
+    public DBTable equijoin(final DBTable other, final String thisColId, final String otherColId,
+                            final String newTableId, final boolean bloomFilter) {
         assert other != null;
         assert thisColId != null;
         assert otherColId != null;
@@ -390,25 +1418,77 @@ public final class DBTable {
         assert areValidIdentifiers(other.cols);
         assert areOnlyUniqueValues(other.cols);
 
-        List<String> allCols = new ArrayList<>();
-        for (String s : this.cols) {
-            allCols.add(this.id + "_" + s);
-        }
-        for (String s : other.cols) {
-            allCols.add(other.id + "_" + s);
-        }
-
-        DBTable result = new DBTable(newTableId, allCols);
-
+        DBTable result = joinTable(other, newTableId);
         int colThis = this.cols.indexOf(thisColId);
         int colOther = other.cols.indexOf(otherColId);
-        for (int i = 0; i < this.values.size(); i++) {
-            for (int j = 0; j < other.values.size(); j++) {
-                if (this.values.get(i).get(colThis).equals(other.values.get(j).get(colOther))) {
-                    List<String> row = new ArrayList<>();
-                    row.addAll(this.values.get(i));
-                    row.addAll(other.values.get(j));
-                    result.appendRow(row);
+        SortDirection sorted = sortedBy(colThis);
+        if (!bloomFilter && sorted != null && sorted == other.sortedBy(colOther)
+                && this.types.get(colThis) == other.types.get(colOther)) {
+            // beide Seiten liegen nach den Join-Spalten sortiert vor: Merge-Join ohne Hashing,
+            // die Paare erscheinen in derselben Reihenfolge wie beim Hash-Join
+            MergeJoin.equi(this, colThis, null, other, colOther, null, sorted, result);
+            return result;
+        }
+        //O(N + M + K), K = Anzahl der Ergebniszeilen
+        if (this.values.size() <= other.values.size()) {
+            // this ist kleiner: Index über this aufbauen und mit other sondieren. Die Treffer
+            // werden als Paare gesammelt und dann nach der Zeile von this geordnet, damit deren
+            // Reihenfolge erhalten bleibt.
+            Map<String, List<Integer>> index = this.hashIndexOf(colThis);
+            int[] probe = bloomFilter ? other.bloomCandidates(colOther, this, colThis) : null;
+            int probeCnt = probe == null ? other.values.size() : probe.length;
+            List<Integer>[] byCode = other.hitsByCode(colOther, index);
+            int[] pairThis = new int[Math.max(16, probeCnt)];
+            int[] pairOther = new int[pairThis.length];
+            int pairCnt = 0;
+            for (int k = 0; k < probeCnt; k++) {
+                int j = probe == null ? k : probe[k];
+                List<Integer> hits = byCode != null ? byCode[other.values.code(j, colOther)]
+                        : probeIndex(index, other.values.get(j, colOther));
+                if (hits != null) {
+                    for (int i : hits) {
+                        if (pairCnt == pairThis.length) {
+                            pairThis = Arrays.copyOf(pairThis, pairCnt * 2);
+                            pairOther = Arrays.copyOf(pairOther, pairCnt * 2);
+                        }
+                        pairThis[pairCnt] = i;
+                        pairOther[pairCnt++] = j;
+                    }
+                }
+            }
+            // stabiles Zählsortieren nach der Zeile von this: die Partner der Zeile i liegen in
+            // partners[starts[i]] bis partners[starts[i + 1] - 1], in der Reihenfolge von other
+            int[] starts = new int[this.values.size() + 1];
+            for (int p = 0; p < pairCnt; p++) {
+                starts[pairThis[p] + 1]++;
+            }
+            for (int i = 0; i < this.values.size(); i++) {
+                starts[i + 1] += starts[i];
+            }
+            int[] next = Arrays.copyOf(starts, this.values.size());
+            int[] partners = new int[pairCnt];
+            for (int p = 0; p < pairCnt; p++) {
+                partners[next[pairThis[p]]++] = pairOther[p];
+            }
+            for (int i = 0; i < this.values.size(); i++) {
+                for (int p = starts[i]; p < starts[i + 1]; p++) {
+                    result.appendJoinedRow(this.values.getRow(i), other.values.getRow(partners[p]));
+                }
+            }
+        } else {
+            // other ist kleiner: Index über other aufbauen und mit this sondieren.
+            Map<String, List<Integer>> index = other.hashIndexOf(colOther);
+            int[] probe = bloomFilter ? this.bloomCandidates(colThis, other, colOther) : null;
+            int probeCnt = probe == null ? this.values.size() : probe.length;
+            List<Integer>[] byCode = this.hitsByCode(colThis, index);
+            for (int k = 0; k < probeCnt; k++) {
+                int i = probe == null ? k : probe[k];
+                List<Integer> hits = byCode != null ? byCode[this.values.code(i, colThis)]
+                        : probeIndex(index, this.values.get(i, colThis));
+                if (hits != null) {
+                    for (int j : hits) {
+                        result.appendJoinedRow(this.values.getRow(i), other.values.getRow(j));
+                    }
                 }
             }
         }
@@ -416,91 +1496,1286 @@ public final class DBTable {
     }
 
     /**
-     * Liefert die Stringrepräsentation der Datenbanktabelle. Die Stringrepräsentation erfolgt
-     * linksbündig blockweise in der Reihenfolge in der die Spalten in der Tabelle vorkommen. Sie
-     * ist wie folgt aufgebaut:
-     * <ul>
-     * <li>Ein Feld (Block) hat immer die Breite des längsten Eintrages, der in dessen Spalte
-     * vorkommt</li>
-     * <li>Felder sind durch " | " (Leerzeichen, Pipe, Leerzeichen) voneinander getrennt. Es
-     * befinden sich zudem eine Pipe und ein Leerzeichen am Anfang jeder Zeile. Auf die letzte Pipe
-     * in einer Zeile folgt kein Leerzeichen mehr.</li>
-     * <li>In der ersten Zeile stehen (entsprechend formatiert) die Spalten der
-     * Datenbanktabelle.</li>
-     * <li>Es folgt eine Zeile, die die Trennung von Kopfzeile und Daten symbolisiert. Die Felder
-     * dieser Zeile sind komplett mit Minuszeichen gefüllt (keine Leerzeichen an den Pipes)</li>
-     * <li>Es folgen die Zeilen der Datenbanktabelle in der Reihenfolge, in der sie in der
-     * Datenbanktabelle gespeichert sind (in entsprechender blockweiser Formatierung).</li>
-     * </ul>
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen dieser Tabelle enthält,
+     * zu deren Wert in der Spalte thisColId es in der Spalte otherColId der Tabelle other eine
+     * Zeile mit gleichem Wert gibt (Semi-Join). Die Tabelle hat die Spalten dieser Tabelle, die
+     * Reihenfolge der Zeilen bleibt erhalten; jede Zeile erscheint höchstens einmal, unabhängig
+     * von der Anzahl ihrer Partner. Wie bei {@link #equijoin(DBTable, String, String, String)} hat
+     * eine Zeile mit dem Wert null in der Join-Spalte keine Partner.
      * <p>
-     * Zeilenumbrüche (Unix, DOS, MacOs) innerhalb der Felder der Tabelle werden zugunsten der
-     * besseren Lesbarkeit hierbei entfernt und durch ein einzelnes Leerzeichen ersetzt.
+     * Über die Spalte otherColId wird ein Bloom-Filter aufgebaut, der Zeilen ohne Partner
+     * abweist, ohne Werte zu vergleichen. Nur die verbleibenden Zeilen werden gegen einen
+     * Hash-Index über otherColId geprüft. Ab {@link #getParallelThreshold()} Zeilen wird parallel
+     * gefiltert.
      * <p>
-     * Es werden stets Unix-Zeilenumbrüche (\n) verwendet.
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in other und f(N, M) = N + M.
      *
-     * @return Stringrepräsentation der Datenbanktabelle.
+     * @param other      die Tabelle, deren Werte gesucht werden
+     * @param thisColId  Spaltenbezeichner der Spalte deren Werte in this verglichen werden.
+     * @param otherColId Spaltenbezeichner der Spalte deren Werte in other verglichen werden.
+     * @param newTableId Bezeichner der Tabelle, die erzeugt wird.
+     * @return die erzeugte Tabelle
+     * @pre other != null
+     * @pre thisColId != null
+     * @pre otherColId != null
+     * @pre newTableId != null
+     * @pre der Bezeichner newTableId muss gültig sein.
+     * @pre der Bezeichner thisColId muss in der Tabelle this vorhanden sein
+     * @pre der Bezeichner otherColId muss in der Tabelle other vorhanden sein
      */
-    public String printTable() {
-        return toString();
-    }
+    public DBTable semiJoin(final DBTable other, final String thisColId, final String otherColId,
+                            final String newTableId) {
+        assert other != null;
+        assert thisColId != null;
+        assert otherColId != null;
+        assert newTableId != null;
+        assert isValidIdentifier(newTableId);
+        assert this.cols.contains(thisColId);
+        assert other.cols.contains(otherColId);
 
-    /**
-     * Gibt die Stringrepresentation einer Zeile zurück
-     *
-     * @param maxLengths maximale Länge der einzelnen Spalten
-     * @param line       Zeile mit String werten
-     * @return Stringbuilder
-     */
-    private String getRowString(List<Integer> maxLengths, List<String> line) {
-        StringBuilder sb = new StringBuilder();
-        String seperator = " |";
-        sb.append("|");
-        for (int i = 0; i < line.size(); i++) {
-            String elem = String.format(" %-" + maxLengths.get(i) + "s" + seperator,
-                    line.get(i).replaceAll("[\n\r\025]", " "));
-            sb.append(elem);
+        int col = this.cols.indexOf(thisColId);
+        int otherCol = other.cols.indexOf(otherColId);
+        Map<String, List<Integer>> index = other.hashIndexOf(otherCol);
+        int[] candidates = bloomCandidates(col, other, otherCol);
+        //O(K), K = Anzahl der Zeilen, die der Filter durchlässt
+        int[] rows = new int[candidates.length];
+        int cnt = 0;
+        List<Integer>[] byCode = hitsByCode(col, index);
+        for (int row : candidates) {
+            if (byCode != null ? byCode[this.values.code(row, col)] != null
+                    : probeIndex(index, this.values.get(row, col)) != null) {
+                rows[cnt++] = row;
+            }
         }
-        sb.append("\n");
-
-        return sb.toString();
+        return selectRows(Arrays.copyOf(rows, cnt), newTableId);
     }
 
     /**
-     * Gibt die maximale Länge der Strings der entsprechenden Spalte col an
+     * Führt wie {@link #equijoin(DBTable, String, String, String)} einen Join durch, jedoch als
+     * Sort-Merge-Join: Beide Tabellen werden in der Reihenfolge ihrer Join-Spalten gleichzeitig
+     * durchlaufen, ohne zu hashen. Liegt eine Tabelle laut {@link #getSortOrder()} bereits nach
+     * ihrer Join-Spalte sortiert vor, wird sie unverändert durchlaufen, ansonsten werden ihre
+     * Zeilennummern sortiert; beide Tabellen bleiben unverändert.
+     * <p>
+     * Die Zeilen der erzeugten Tabelle sind nach dem Wert der Join-Spalten sortiert, und zwar
+     * absteigend, falls this nach seiner Join-Spalte absteigend sortiert vorliegt, ansonsten
+     * aufsteigend. Zeilen mit gleichem Wert erscheinen in der Reihenfolge der
+     * Zeilen aus this und dann aus other. Wie beim Hash-Join hat null keine Partner.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in other, K = Anzahl der Zeilen im Ergebnis und f(N, M) = N * Log(N) + M * Log(M)
+     * + K (bzw. f(N, M) = N + M + K, falls beide Tabellen passend sortiert vorliegen).
      *
-     * @param col ausgewählte Spalte
-     * @return maximale Länge
+     * @param other      die Tabelle, mit der this gejoint werden soll
+     * @param thisColId  Spaltenbezeichner der Spalte deren Werte in this verglichen werden.
+     * @param otherColId Spaltenbezeichner der Spalte deren Werte in other verglichen werden.
+     * @param newTableId Bezeichner der Tabelle, die erzeugt wird.
+     * @return die erzeugte Tabelle
+     * @pre wie bei {@link #equijoin(DBTable, String, String, String)}
+     * @pre die Spalten thisColId und otherColId haben denselben Typ
      */
-    private int getMaxLength(int col) {
-        int max = this.cols.get(col).length();
-        for (List<String> line : this.values) {
-            max = line.get(col).length() > max ? line.get(col).length() : max;
-        }
-        return max;
-    }
-
-    @Override
-    public String toString() {
-        List<Integer> maxLengths = new ArrayList<>();
-        for (int i = 0; i < this.cols.size(); i++) {
-            maxLengths.add(getMaxLength(i));
-        }
-
-        StringBuilder sb = new StringBuilder();
+    public DBTable mergeJoin(final DBTable other, final String thisColId, final String otherColId,
+                             final String newTableId) {
+        assert other != null;
+        assert thisColId != null;
+        assert otherColId != null;
+        assert newTableId != null;
+        assert isValidIdentifier(newTableId);
+        assert !this.id.equals(other.id);
+        assert this.cols.contains(thisColId);
+        assert other.cols.contains(otherColId);
+        assert getColType(thisColId) == other.getColType(otherColId);
+
+        DBTable result = joinTable(other, newTableId);
+        int colThis = this.cols.indexOf(thisColId);
+        int colOther = other.cols.indexOf(otherColId);
+        SortDirection sortDir = sortedBy(colThis) == SortDirection.DESC
+                ? SortDirection.DESC : SortDirection.ASC;
+        //O(N * log(N) + M * log(M) + K)
+        MergeJoin.equi(this, colThis, sortedRows(colThis, sortDir), other, colOther,
+                other.sortedRows(colOther, sortDir), sortDir, result);
+        return result;
+    }
+
+    /**
+     * Führt einen Join mit einer Ungleichung als Bedingung durch (Band-Join): Die erzeugte Tabelle
+     * enthält alle Kombinationen aus einer Zeile von this mit dem Wert a in der Spalte thisColId
+     * und einer Zeile von other mit dem Wert b in der Spalte otherColId, für die
+     * a + lower &lt;= b &lt;= a + upper gilt. So liefert etwa lower = -5, upper = 5 alle Paare,
+     * deren Werte höchstens 5 auseinander liegen, und lower = 1, upper = Long.MAX_VALUE alle
+     * Paare mit a &lt; b. Gerechnet wird mit den Zahlen bzw. bei DATE mit Tagen; null hat keine
+     * Partner. Spalten und Spaltenbezeichner entsprechen denen von
+     * {@link #equijoin(DBTable, String, String, String)}.
+     * <p>
+     * Beide Tabellen werden wie bei {@link #mergeJoin} in aufsteigender Reihenfolge ihrer
+     * Join-Spalten durchlaufen, vorhandene Sortierungen werden genutzt. Die Zeilen der erzeugten
+     * Tabelle sind aufsteigend nach a sortiert, bei gleichem a in der Reihenfolge der Zeilen von
+     * this und für jede Zeile von this aufsteigend nach b.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in other, K = Anzahl der Zeilen im Ergebnis und f(N, M) = N * Log(N) + M * Log(M)
+     * + K.
+     *
+     * @param other      die Tabelle, mit der this gejoint werden soll
+     * @param thisColId  Spaltenbezeichner der Spalte deren Werte in this verglichen werden.
+     * @param otherColId Spaltenbezeichner der Spalte deren Werte in other verglichen werden.
+     * @param lower      kleinster Abstand b - a, inklusive
+     * @param upper      größter Abstand b - a, inklusive
+     * @param newTableId Bezeichner der Tabelle, die erzeugt wird.
+     * @return die erzeugte Tabelle
+     * @pre wie bei {@link #equijoin(DBTable, String, String, String)}
+     * @pre die Spalten thisColId und otherColId haben denselben Typ, und zwar INT, LONG oder DATE
+     * @pre lower &lt;= upper
+     */
+    public DBTable bandJoin(final DBTable other, final String thisColId, final String otherColId,
+                            final long lower, final long upper, final String newTableId) {
+        assert other != null;
+        assert thisColId != null;
+        assert otherColId != null;
+        assert newTableId != null;
+        assert isValidIdentifier(newTableId);
+        assert !this.id.equals(other.id);
+        assert this.cols.contains(thisColId);
+        assert other.cols.contains(otherColId);
+        assert getColType(thisColId) == other.getColType(otherColId);
+        assert getColType(thisColId).hasKeys() && getColType(thisColId) != ColumnType.DOUBLE;
+        assert lower <= upper;
+
+        DBTable result = joinTable(other, newTableId);
+        int colThis = this.cols.indexOf(thisColId);
+        int colOther = other.cols.indexOf(otherColId);
+        //O(N * log(N) + M * log(M) + K)
+        MergeJoin.band(this, colThis, sortedRows(colThis, SortDirection.ASC), other, colOther,
+                other.sortedRows(colOther, SortDirection.ASC), lower, upper, result);
+        return result;
+    }
+
+    /**
+     * Legt einen Sekundärindex der Art type über die Spalte mit dem Bezeichner aColId an. Der
+     * Index wird bei allen Änderungen der Tabelle mitgeführt und von {@link #selectEquals},
+     * {@link #selectRange} und {@link #equijoin} verwendet.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N (HASH) bzw. f(N) = N * Log(N) (SORTED).
+     *
+     * @param aColId Bezeichner der Spalte, über die der Index angelegt werden soll.
+     * @param type   Art des Index
+     * @pre aColId != null
+     * @pre type != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre über die Spalte aColId darf noch kein Index der Art type existieren
+     * @post hasIndex(aColId, type)
+     */
+    public void createIndex(final String aColId, final IndexType type) {
+        assert aColId != null;
+        assert type != null;
+        assert isValidIdentifier(aColId);
+        assert hasCol(aColId);
+        assert !hasIndex(aColId, type);
+
+        int colID = this.cols.indexOf(aColId);
+        ColumnIndex index = new ColumnIndex(type, colID, this.types.get(colID), this.partitions);
+        for (int i = 0; i < this.values.size(); i++) {
+            index.add(this.values.get(i, colID), i);
+        }
+        this.indexes.put(new Pair<>(aColId, type), index);
+
+        assert hasIndex(aColId, type);
+    }
+
+    /**
+     * Entfernt den Sekundärindex der Art type über die Spalte mit dem Bezeichner aColId. Existiert
+     * kein solcher Index, passiert nichts.
+     *
+     * @param aColId Bezeichner der Spalte, deren Index entfernt werden soll.
+     * @param type   Art des Index
+     * @pre aColId != null
+     * @pre type != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @post !hasIndex(aColId, type)
+     */
+    public void dropIndex(final String aColId, final IndexType type) {
+        assert aColId != null;
+        assert type != null;
+        assert isValidIdentifier(aColId);
 
-        sb.append(getRowString(maxLengths, this.cols));
+        this.indexes.remove(new Pair<>(aColId, type));
 
-        sb.append("|");
-        for (int i = 0; i < maxLengths.size(); i++) {
-            for (int j = 0; j < maxLengths.get(i) + 2; j++) {
-                sb.append("-");
+        assert !hasIndex(aColId, type);
+    }
+
+    /**
+     * Gibt an, ob über die Spalte mit dem Bezeichner aColId ein Index der Art type existiert.
+     *
+     * @param aColId Bezeichner der Spalte
+     * @param type   Art des Index
+     * @return true, wenn ein entsprechender Index existiert
+     * @pre aColId != null
+     * @pre type != null
+     * @pre der Bezeichner aColId muss gültig sein
+     */
+    public boolean hasIndex(final String aColId, final IndexType type) {
+        assert aColId != null;
+        assert type != null;
+        assert isValidIdentifier(aColId);
+
+        return this.indexes.containsKey(new Pair<>(aColId, type));
+    }
+
+    /**
+     * Liefert eine seiteneffektfreie, aufsteigend sortierte Liste der Bezeichner aller Spalten,
+     * über die ein Index der Art type existiert.
+     *
+     * @param type Art des Index
+     * @return aufsteigend sortierte Liste der Spaltenbezeichner
+     * @pre type != null
+     */
+    public List<String> getIndexedColIds(final IndexType type) {
+        assert type != null;
+
+        List<String> result = new ArrayList<>();
+        for (Pair<String, IndexType> key : this.indexes.keySet()) {
+            if (key.r() == type) {
+                result.add(key.l());
             }
-            sb.append("|");
         }
-        sb.append("\n");
+        Collections.sort(result);
+        return result;
+    }
 
-        for (int i = 0; i < this.values.size(); i++) {
-            sb.append(getRowString(maxLengths, this.values.get(i)));
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen enthält, bei denen der
+     * Wert in der Spalte aColId gleich value ist. Die Reihenfolge der Zeilen bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und K = Anzahl der gefundenen Zeilen. Mit einem Index ist f(N) = K (HASH) bzw.
+     * f(N) = Log(N) + K (SORTED), ohne Index f(N) = N.
+     *
+     * @param aColId     Bezeichner der Spalte, deren Werte verglichen werden
+     * @param value      gesuchter Wert
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre value != null
+     * @pre newTableId != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable selectEquals(final String aColId, final String value, final String newTableId) {
+        assert aColId != null;
+        assert value != null;
+        assert newTableId != null;
+        assert isValidIdentifier(aColId);
+        assert hasCol(aColId);
+        assert isValidIdentifier(newTableId);
+
+        ColumnType type = getColType(aColId);
+        if (!type.isValid(value)) {
+            // kein Wert der Spalte kann gleich sein
+            return derive(newTableId, this.cols, this.types);
+        }
+        final String normalized = type.normalize(value);
+        ColumnIndex index = findIndex(aColId, false);
+        if (index == null) {
+            int col = this.cols.indexOf(aColId);
+            int[] span = {0, this.values.size()};
+            if (isPartitionedBy(col)) {
+                // nur die Partition des Wertes kann passende Zeilen enthalten
+                int partition = this.partitions.partitionOfValue(normalized);
+                span = new int[]{this.partitions.start(partition),
+                        this.partitions.start(partition + 1)};
+            }
+            StringDictionary dictionary = this.values.dictionary(col);
+            if (dictionary != null) {
+                // Codes vergleichen; fehlt der Wert im Wörterbuch, passt keine Zeile
+                int code = dictionary.code(normalized);
+                return selectRows(code < 0 ? new int[0]
+                        : matchingCodes(col, code, span[0], span[1]), newTableId);
+            }
+            return selectRows(matchingRows(col, new Predicate<String>() {
+                @Override
+                public boolean test(String s) {
+                    return normalized.equals(s);
+                }
+            }, span[0], span[1]), newTableId);
+        }
+        return selectRows(index.lookup(normalized), newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen enthält, bei denen der
+     * Wert in der Spalte aColId im Bereich [from, to) liegt. Verglichen wird gemäß dem Typ der
+     * Spalte, für {@link ColumnType#STRING} also gemäß compareTo. Die Reihenfolge der Zeilen
+     * bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und K = Anzahl der gefundenen Zeilen. Mit einem Index der Art SORTED ist
+     * f(N) = Log(N) + K * Log(K), ohne f(N) = N.
+     *
+     * @param aColId     Bezeichner der Spalte, deren Werte verglichen werden
+     * @param from       untere Grenze des Suchbereiches, inklusive
+     * @param to         obere Grenze des Suchbereiches, exklusive
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre from != null
+     * @pre to != null
+     * @pre newTableId != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre from und to müssen zum Typ der Spalte passen
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable selectRange(final String aColId, final String from, final String to,
+                               final String newTableId) {
+        assert aColId != null;
+        assert from != null;
+        assert to != null;
+        assert newTableId != null;
+        assert isValidIdentifier(aColId);
+        assert hasCol(aColId);
+        assert isValidIdentifier(newTableId);
+
+        ColumnType type = getColType(aColId);
+        assert type.isValid(from) && type.isValid(to);
+
+        ColumnIndex index = findIndex(aColId, true);
+        if (index != null) {
+            return selectRows(index.range(from, to), newTableId);
+        }
+        return selectRows(rangeRows(this.cols.indexOf(aColId), from, to), newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen enthält, deren Wert in
+     * der Spalte aColId nicht null ist und den Test p besteht. Getestet wird der ganzzahlige Wert,
+     * für {@link ColumnType#DATE} die Anzahl der Tage seit dem 1970-01-01. Die Werte werden dabei
+     * weder umgewandelt noch in Objekte verpackt. Die Reihenfolge der Zeilen bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param aColId     Bezeichner der Spalte, deren Werte getestet werden
+     * @param p          Test des Spaltenwertes
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre p != null
+     * @pre newTableId != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre die Spalte muss vom Typ INT, LONG oder DATE sein
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable selectLong(final String aColId, final LongPredicate p,
+                              final String newTableId) {
+        assert aColId != null;
+        assert p != null;
+        assert newTableId != null;
+        assert hasCol(aColId);
+        assert getColType(aColId).hasKeys() && getColType(aColId) != ColumnType.DOUBLE;
+        assert isValidIdentifier(newTableId);
+
+        return selectRows(matchingKeys(this.cols.indexOf(aColId), p), newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die alle Zeilen enthält, deren Wert in
+     * der Spalte aColId nicht null ist und den Test p besteht. Getestet wird der Zahlenwert, für
+     * {@link ColumnType#DATE} die Anzahl der Tage seit dem 1970-01-01. Die Werte werden dabei
+     * weder umgewandelt noch in Objekte verpackt. Die Reihenfolge der Zeilen bleibt erhalten.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param aColId     Bezeichner der Spalte, deren Werte getestet werden
+     * @param p          Test des Spaltenwertes
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre aColId != null
+     * @pre p != null
+     * @pre newTableId != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     * @pre die Spalte darf nicht vom Typ STRING sein
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable selectDouble(final String aColId, final DoublePredicate p,
+                                final String newTableId) {
+        assert aColId != null;
+        assert p != null;
+        assert newTableId != null;
+        assert hasCol(aColId);
+        assert getColType(aColId).hasKeys();
+        assert isValidIdentifier(newTableId);
+
+        final ColumnType type = getColType(aColId);
+        return selectRows(matchingKeys(this.cols.indexOf(aColId), new LongPredicate() {
+            @Override
+            public boolean test(long key) {
+                return p.test(type.toDouble(key));
+            }
+        }), newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die die Zeilen mit den Zeilennummern rows
+     * in der gegebenen Reihenfolge enthält.
+     *
+     * @param rows       Zeilennummern
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     */
+    private DBTable selectRows(List<Integer> rows, String newTableId) {
+        int[] result = new int[rows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = rows.get(i);
+        }
+        return selectRows(result, newTableId);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die die Zeilen mit den Zeilennummern rows
+     * in der gegebenen Reihenfolge enthält.
+     *
+     * @param rows       Zeilennummern
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     */
+    private DBTable selectRows(int[] rows, String newTableId) {
+        DBTable result = derive(newTableId, this.cols, this.types);
+        for (int row : rows) {
+            result.appendRow(this.values.getRow(row));
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen, deren Wert in der Spalte an der
+     * Position col im Bereich [from, to) liegt. Ist die Tabelle nach dieser Spalte partitioniert,
+     * werden nur die Partitionen durchsucht, die den Bereich schneiden. Mit Blockstatistiken
+     * werden nur die Blöcke durchsucht, deren Werte teils im Bereich liegen können.
+     *
+     * @param col  Position der Spalte
+     * @param from untere Grenze, inklusive
+     * @param to   obere Grenze, exklusive
+     * @return Zeilennummern
+     */
+    private int[] rangeRows(final int col, final String from, final String to) {
+        ColumnType type = this.types.get(col);
+        int begin = 0;
+        int end = this.values.size();
+        if (isPartitionedBy(col)) {
+            int[] range = getPartitioning().partitionsOf(type.normalize(from),
+                    type.normalize(to), type);
+            if (range[0] > range[1]) {
+                return new int[0];
+            }
+            // die Partitionen range[0] bis range[1] liegen hintereinander
+            begin = this.partitions.start(range[0]);
+            end = this.partitions.start(range[1] + 1);
+        }
+        if (this.zoneMaps != null) {
+            return zonedRangeRows(col, from, to, begin, end);
+        }
+        return rangeRows(col, from, to, begin, end);
+    }
+
+    /**
+     * Liefert wie {@link #rangeRows(int, String, String)} die Zeilen mit Werten im Bereich
+     * [from, to), jedoch nur aus den Blöcken, die laut den Blockstatistiken teils im Bereich
+     * liegen; Blöcke ganz im Bereich werden ohne Vergleich übernommen. Aufeinanderfolgende
+     * teils passende Blöcke werden gemeinsam durchsucht.
+     *
+     * @param col   Position der Spalte
+     * @param from  untere Grenze, inklusive
+     * @param to    obere Grenze, exklusive
+     * @param begin erste Zeilennummer, inklusive
+     * @param end   letzte Zeilennummer, exklusive
+     * @return Zeilennummern
+     */
+    private int[] zonedRangeRows(int col, String from, String to, int begin, int end) {
+        ColumnType type = this.types.get(col);
+        long fromKey = type.hasKeys() ? type.toKey(from) : 0;
+        long toKey = type.hasKeys() ? type.toKey(to) : 0;
+        int[] result = new int[0];
+        int cnt = 0;
+        // Anfang der aktuellen Folge teils passender Blöcke, -1 falls keine
+        int run = -1;
+        for (int p = 0; p < this.zoneMaps.length; p++) {
+            // die Blöcke zählen je Partition ab deren erster Zeile
+            ZoneMap zones = this.zoneMaps[p];
+            int start = this.partitions != null ? this.partitions.start(p) : 0;
+            int partBegin = Math.max(begin, start);
+            int partEnd = Math.min(end, start + zoneStore(p).size());
+            if (partBegin >= partEnd) {
+                continue;
+            }
+            assert zones.blockCnt() * ZoneMap.BLOCK_ROWS >= partEnd - start;
+            for (int block = (partBegin - start) / ZoneMap.BLOCK_ROWS;
+                 start + block * ZoneMap.BLOCK_ROWS < partEnd; block++) {
+                int lo = Math.max(partBegin, start + block * ZoneMap.BLOCK_ROWS);
+                int hi = Math.min(partEnd, start + (block + 1) * ZoneMap.BLOCK_ROWS);
+                int zone = type.hasKeys() ? zones.classify(col, block, fromKey, toKey)
+                        : zones.classify(col, block, from, to);
+                if (zone == ZoneMap.SOME) {
+                    run = run < 0 ? lo : run;
+                    continue;
+                }
+                int[] rows = run < 0 ? new int[0] : rangeRows(col, from, to, run, lo);
+                run = -1;
+                int all = zone == ZoneMap.ALL ? hi - lo : 0;
+                if (cnt + rows.length + all > result.length) {
+                    result = Arrays.copyOf(result,
+                            Math.max(2 * result.length, cnt + rows.length + all));
+                }
+                System.arraycopy(rows, 0, result, cnt, rows.length);
+                cnt += rows.length;
+                for (int i = lo; i < lo + all; i++) {
+                    result[cnt++] = i;
+                }
+            }
+        }
+        if (run >= 0) {
+            int[] rows = rangeRows(col, from, to, run, end);
+            result = Arrays.copyOf(result, cnt + rows.length);
+            System.arraycopy(rows, 0, result, cnt, rows.length);
+            cnt += rows.length;
+        }
+        return cnt == result.length ? result : Arrays.copyOf(result, cnt);
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen in [begin, end), deren Wert in der
+     * Spalte an der Position col im Bereich [from, to) liegt.
+     *
+     * @param col   Position der Spalte
+     * @param from  untere Grenze, inklusive
+     * @param to    obere Grenze, exklusive
+     * @param begin erste Zeilennummer, inklusive
+     * @param end   letzte Zeilennummer, exklusive
+     * @return Zeilennummern
+     */
+    private int[] rangeRows(final int col, final String from, final String to, final int begin,
+                            final int end) {
+        ColumnType type = this.types.get(col);
+        if (type.hasKeys()) {
+            final long fromKey = type.toKey(from);
+            final long toKey = type.toKey(to);
+            return matchingKeys(col, new LongPredicate() {
+                @Override
+                public boolean test(long key) {
+                    return key >= fromKey && key < toKey;
+                }
+            }, begin, end);
+        }
+        return matchingRows(col, new Predicate<String>() {
+            @Override
+            public boolean test(String s) {
+                return s != null && (s.compareTo(from) >= 0) && (s.compareTo(to) < 0);
+            }
+        }, begin, end);
+    }
+
+    /**
+     * Gibt an, ob die Tabelle nach der Spalte an der Position col partitioniert ist.
+     *
+     * @param col Position der Spalte
+     * @return true, falls die Werte der Spalte die Partition bestimmen
+     */
+    private boolean isPartitionedBy(int col) {
+        return this.partitions != null
+                && this.cols.get(col).equals(this.partitions.getPartitioning().getColId());
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen, bei denen der Test p über dem Wert
+     * in der Spalte an der Position col erfolgreich ist. Ab {@link #getParallelThreshold()} Zeilen
+     * wird parallel gesucht.
+     *
+     * @param col Position der Spalte
+     * @param p   Test des Spaltenwertes
+     * @return Zeilennummern
+     */
+    private int[] matchingRows(final int col, final Predicate<String> p) {
+        return matchingRows(col, p, 0, this.values.size());
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen in [begin, end), bei denen der Test p
+     * über dem Wert in der Spalte an der Position col erfolgreich ist.
+     *
+     * @param col   Position der Spalte
+     * @param p     Test des Spaltenwertes
+     * @param begin erste Zeilennummer, inklusive
+     * @param end   letzte Zeilennummer, exklusive
+     * @return Zeilennummern
+     */
+    private int[] matchingRows(final int col, final Predicate<String> p, final int begin,
+                               final int end) {
+        int[] result = ParallelScan.filter(end - begin, this.parallelThreshold,
+                new IntPredicate() {
+                    @Override
+                    public boolean test(int row) {
+                        return p.test(values.get(begin + row, col));
+                    }
+                });
+        return shift(result, begin);
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen, deren Wert in der Spalte an der
+     * Position col nicht null ist und deren Schlüssel den Test p besteht. Ab
+     * {@link #getParallelThreshold()} Zeilen wird parallel gesucht.
+     *
+     * @param col Position der Spalte, deren Typ Schlüssel hat
+     * @param p   Test des Schlüssels
+     * @return Zeilennummern
+     */
+    private int[] matchingKeys(final int col, final LongPredicate p) {
+        return matchingKeys(col, p, 0, this.values.size());
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen in [begin, end), deren Wert in der
+     * Spalte an der Position col nicht null ist und deren Schlüssel den Test p besteht. Ab
+     * {@link #getParallelThreshold()} Zeilen wird parallel gesucht.
+     *
+     * @param col   Position der Spalte, deren Typ Schlüssel hat
+     * @param p     Test des Schlüssels
+     * @param begin erste Zeilennummer, inklusive
+     * @param end   letzte Zeilennummer, exklusive
+     * @return Zeilennummern
+     */
+    private int[] matchingKeys(final int col, final LongPredicate p, final int begin,
+                               final int end) {
+        int[] result = ParallelScan.filter(end - begin, this.parallelThreshold,
+                new IntPredicate() {
+                    @Override
+                    public boolean test(int row) {
+                        return !values.isNull(begin + row, col)
+                                && p.test(values.key(begin + row, col));
+                    }
+                });
+        return shift(result, begin);
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Nummern aller Zeilen in [begin, end), deren Wert in der
+     * Spalte an der Position col den Code code im Wörterbuch der Spalte hat. Ab
+     * {@link #getParallelThreshold()} Zeilen wird parallel gesucht.
+     *
+     * @param col   Position der Spalte, deren Werte als Codes gespeichert sind
+     * @param code  gesuchter Code
+     * @param begin erste Zeilennummer, inklusive
+     * @param end   letzte Zeilennummer, exklusive
+     * @return Zeilennummern
+     */
+    private int[] matchingCodes(final int col, final int code, final int begin, final int end) {
+        int[] result = ParallelScan.filter(end - begin, this.parallelThreshold,
+                new IntPredicate() {
+                    @Override
+                    public boolean test(int row) {
+                        return values.code(begin + row, col) == code;
+                    }
+                });
+        return shift(result, begin);
+    }
+
+    /**
+     * Addiert offset zu allen Zeilennummern in rows und liefert rows.
+     */
+    private static int[] shift(int[] rows, int offset) {
+        if (offset != 0) {
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] += offset;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gibt an, ob alle Werte von row zum Typ ihrer Spalte passen.
+     *
+     * @param row Werte einer Zeile
+     * @return true, falls alle Werte passen
+     */
+    private boolean matchesTypes(Collection<String> row) {
+        int i = 0;
+        for (String value : row) {
+            if (!this.types.get(i++).isValid(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert den Vergleich zweier Zeilen über ihre Zeilennummern gemäß den Sortierschlüsseln
+     * keys, der erste entscheidet zuerst (siehe {@link #rowComparator(SortKey)}).
+     *
+     * @param keys Sortierschlüssel
+     * @return Vergleich zweier Zeilen
+     * @pre keys muss mindestens einen Sortierschlüssel enthalten
+     */
+    private RowSort.RowComparator rowComparator(List<SortKey> keys) {
+        final RowSort.RowComparator[] comps = new RowSort.RowComparator[keys.size()];
+        for (int i = 0; i < comps.length; i++) {
+            assert hasCol(keys.get(i).getColId());
+            comps[i] = rowComparator(keys.get(i));
+        }
+        if (comps.length == 1) {
+            return comps[0];
+        }
+        return new RowSort.RowComparator() {
+            @Override
+            public int compare(int a, int b) {
+                for (RowSort.RowComparator c : comps) {
+                    int result = c.compare(a, b);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * Gibt an, ob die Zeilen laut {@link #getSortOrder()} nach den Sortierschlüsseln keys sortiert
+     * vorliegen, also keys ein Anfang der Sortierreihenfolge ist.
+     *
+     * @param keys Sortierschlüssel
+     * @return true, falls nach keys sortiert ist
+     */
+    private boolean isSortedBy(List<SortKey> keys) {
+        if (keys.size() > this.sortOrder.size()) {
+            return false;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!keys.get(i).getColId().equals(this.sortOrder.get(i).getColId())
+                    || keys.get(i).getDirection() != this.sortOrder.get(i).getDirection()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert den Vergleich zweier Zeilen über ihre Zeilennummern gemäß dem Sortierschlüssel key.
+     * Die Werte der Spalte werden dazu einmalig ausgelesen, bei Spalten mit Schlüsseln (siehe
+     * {@link ColumnType#hasKeys()}) als Zahlen. null wird vor allen anderen Werten einsortiert.
+     *
+     * @param key Sortierschlüssel
+     * @return Vergleich zweier Zeilen
+     */
+    private RowSort.RowComparator rowComparator(SortKey key) {
+        final int col = this.cols.indexOf(key.getColId());
+        final int sign = key.getDirection() == SortDirection.ASC ? 1 : -1;
+        final BitSet nulls = new BitSet();
+        if (this.types.get(col).hasKeys()) {
+            // verglichen werden dann nur noch Zahlen
+            final long[] keys = new long[this.values.size()];
+            for (int i = 0; i < keys.length; i++) {
+                if (this.values.isNull(i, col)) {
+                    nulls.set(i);
+                } else {
+                    keys[i] = this.values.key(i, col);
+                }
+            }
+            return new RowSort.RowComparator() {
+                @Override
+                public int compare(int a, int b) {
+                    if (nulls.get(a) || nulls.get(b)) {
+                        return sign * Boolean.compare(!nulls.get(a), !nulls.get(b));
+                    }
+                    return sign * Long.compare(keys[a], keys[b]);
+                }
+            };
+        }
+        final String[] strs = new String[this.values.size()];
+        for (int i = 0; i < strs.length; i++) {
+            strs[i] = this.values.get(i, col);
+            if (strs[i] == null) {
+                nulls.set(i);
+            }
+        }
+        return new RowSort.RowComparator() {
+            @Override
+            public int compare(int a, int b) {
+                if (nulls.get(a) || nulls.get(b)) {
+                    return sign * Boolean.compare(!nulls.get(a), !nulls.get(b));
+                }
+                return sign * strs[a].compareTo(strs[b]);
+            }
+        };
+    }
+
+    /**
+     * Erzeugt eine leere Tabelle mit dem Bezeichner newTableId, den Spaltenbezeichnern someColIds
+     * und den Spaltentypen someColTypes, die Speicherlayout und Einstellungen dieser Tabelle
+     * übernimmt.
+     *
+     * @param newTableId   Bezeichner der erzeugten Tabelle.
+     * @param someColIds   Spaltenbezeichner
+     * @param someColTypes Typen der Spalten
+     * @return erzeugte Tabelle.
+     */
+    DBTable derive(String newTableId, Collection<String> someColIds,
+                   List<ColumnType> someColTypes) {
+        DBTable result = new DBTable(newTableId, someColIds, someColTypes, this.layout);
+        result.parallelThreshold = this.parallelThreshold;
+        return result;
+    }
+
+    /**
+     * Sucht einen Index über die Spalte aColId. Ist sortedOnly gesetzt, wird nur ein Index der Art
+     * SORTED geliefert, ansonsten wird ein Index der Art HASH bevorzugt.
+     *
+     * @param aColId     Bezeichner der Spalte
+     * @param sortedOnly nur Indizes der Art SORTED berücksichtigen
+     * @return gefundener Index oder null
+     */
+    private ColumnIndex findIndex(String aColId, boolean sortedOnly) {
+        ColumnIndex index = null;
+        if (!sortedOnly) {
+            index = this.indexes.get(new Pair<>(aColId, IndexType.HASH));
+        }
+        if (index == null) {
+            index = this.indexes.get(new Pair<>(aColId, IndexType.SORTED));
+        }
+        return index;
+    }
+
+    /**
+     * Nimmt die Zeile mit der Zeilennummer row in alle Indizes der Tabelle auf und schreibt die
+     * Blockstatistiken ihrer Partition bis zur letzten Zeile fort.
+     *
+     * @param row Zeilennummer, bei Partitionierung die der letzten Zeile ihrer Partition
+     */
+    private void indexRow(int row) {
+        for (ColumnIndex index : this.indexes.values()) {
+            index.add(this.values.get(row, index.getCol()), row);
+        }
+        if (this.zoneMaps != null) {
+            int partition = this.partitions != null ? this.partitions.partitionOfRow(row) : 0;
+            this.zoneMaps[partition].update(zoneStore(partition));
+        }
+    }
+
+    /**
+     * Baut alle Indizes und die Blockstatistiken der Tabelle neu auf. Wird benötigt, wenn die
+     * Zeilen umgeordnet werden oder die Tabelle neu partitioniert wird.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * I, I = Anzahl der Indizes (mit Blockstatistiken I + Anzahl der Spalten).
+     */
+    private void rebuildIndexes() {
+        if (this.zoneMaps != null) {
+            this.zoneMaps = createZoneMaps();
+        }
+        if (this.indexes.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Pair<String, IndexType>, ColumnIndex> entry : this.indexes.entrySet()) {
+            int col = entry.getValue().getCol();
+            entry.setValue(new ColumnIndex(entry.getKey().r(), col, this.types.get(col),
+                    this.partitions));
+        }
+        for (ColumnIndex index : this.indexes.values()) {
+            for (int i = 0; i < this.values.size(); i++) {
+                index.add(this.values.get(i, index.getCol()), i);
+            }
+        }
+    }
+
+    /**
+     * Erzeugt die Blockstatistiken über alle Zeilen, eine je Partition.
+     *
+     * @return Blockstatistiken
+     */
+    private ZoneMap[] createZoneMaps() {
+        ZoneMap[] result = new ZoneMap[this.partitions != null
+                ? this.partitions.getPartitioning().getPartitionCnt() : 1];
+        for (int p = 0; p < result.length; p++) {
+            result[p] = new ZoneMap(this.types.toArray(new ColumnType[0]));
+            result[p].update(zoneStore(p));
+        }
+        return result;
+    }
+
+    /**
+     * Liefert den Speicher, über den die Blockstatistiken der Partition partition geführt werden.
+     *
+     * @param partition Nummer der Partition, 0 ohne Partitionierung
+     * @return Speicher der Partition bzw. der Tabelle
+     */
+    private TableStore zoneStore(int partition) {
+        return this.partitions != null ? this.partitions.part(partition) : this.values;
+    }
+
+    /**
+     * Liefert einen Hash-Index über die Spalte an der Position col. Existiert bereits ein
+     * Sekundärindex über diese Spalte, wird dieser verwendet, ansonsten wird ein temporärer Index
+     * aufgebaut. Zu jedem Wert werden die Zeilennummern in aufsteigender Reihenfolge geliefert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N (bzw. f(N) = 1, falls ein Index existiert und die Tabelle nicht partitioniert
+     * ist).
+     *
+     * @param col Position der Spalte, deren Werte als Schlüssel dienen
+     * @return Abbildung von Spaltenwert auf die Zeilennummern mit diesem Wert, die nicht verändert
+     * werden darf
+     */
+    private Map<String, List<Integer>> hashIndexOf(int col) {
+        ColumnIndex index = findIndex(this.cols.get(col), false);
+        if (index == null) {
+            index = new ColumnIndex(IndexType.HASH, col, this.types.get(col));
+            for (int i = 0; i < this.values.size(); i++) {
+                index.add(this.values.get(i, col), i);
+            }
+        }
+        return index.entries();
+    }
+
+    /**
+     * Liefert die Zeilennummern zum Wert value aus index. Wie in SQL hat null keine Partner.
+     *
+     * @param index Hash-Index (siehe {@link #hashIndexOf})
+     * @param value gesuchter Wert
+     * @return Zeilennummern oder null, falls value null ist oder nicht vorkommt
+     */
+    private static List<Integer> probeIndex(Map<String, List<Integer>> index, String value) {
+        return value == null ? null : index.get(value);
+    }
+
+    /**
+     * Sondiert index einmal je verschiedenem Wert der Spalte an der Position col, falls deren
+     * Werte als Codes gespeichert sind. Beim Sondieren genügt dann je Zeile der Zugriff über den
+     * Code statt Hashen und Vergleichen der Zeichenkette.
+     * <p>
+     * Diese Methode arbeitet in O(f(D)), dabei ist D = Anzahl verschiedener Werte der Spalte und
+     * f(D) = D.
+     *
+     * @param col   Position der Spalte dieser Tabelle
+     * @param index Hash-Index (siehe {@link #hashIndexOf})
+     * @return Treffer in index je Code, null für Codes ohne Treffer; null, falls die Spalte nicht
+     * als Codes gespeichert ist
+     */
+    private List<Integer>[] hitsByCode(int col, Map<String, List<Integer>> index) {
+        StringDictionary dictionary = this.values.dictionary(col);
+        if (dictionary == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<Integer>[] result = (List<Integer>[]) new List<?>[dictionary.size()];
+        for (int code = 0; code < result.length; code++) {
+            result[code] = probeIndex(index, dictionary.value(code));
+        }
+        return result;
+    }
+
+    /**
+     * Baut einen Bloom-Filter über die Werte der Spalte an der Position buildCol der Tabelle build
+     * auf und liefert die aufsteigend sortierten Nummern der Zeilen dieser Tabelle, deren Wert in
+     * der Spalte an der Position col der Filter nicht abweist. Liegen beide Spalten spaltenweise
+     * vor und haben denselben Typ mit Schlüsseln, werden die Schlüssel gestreut, ansonsten die
+     * Zeichenketten, deren Hashwert diese zwischenspeichern. Ab
+     * {@link #getParallelThreshold()} Zeilen wird parallel gefiltert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in this, M = Anzahl
+     * der Zeilen in build und f(N, M) = N + M.
+     *
+     * @param col      Position der Spalte dieser Tabelle
+     * @param build    Tabelle, über deren Werte der Filter aufgebaut wird
+     * @param buildCol Position der Spalte in build
+     * @return Nummern der Zeilen, die einen Partner haben können
+     */
+    private int[] bloomCandidates(final int col, DBTable build, int buildCol) {
+        final boolean byKey = this.layout == StorageLayout.COLUMN
+                && build.layout == StorageLayout.COLUMN && this.types.get(col).hasKeys()
+                && this.types.get(col) == build.types.get(buildCol);
+        final BloomFilter filter = new BloomFilter(build.values.size(), BloomFilter.BITS_PER_KEY);
+        for (int i = 0; i < build.values.size(); i++) {
+            filter.add(build.bloomHash(i, buildCol, byKey));
+        }
+        return ParallelScan.filter(this.values.size(), this.parallelThreshold, new IntPredicate() {
+            @Override
+            public boolean test(int row) {
+                return filter.mightContain(bloomHash(row, col, byKey));
+            }
+        });
+    }
+
+    /**
+     * Liefert den Hashwert des Wertes in der Zeile row und der Spalte an der Position col für
+     * einen Bloom-Filter, je nach byKey über den Schlüssel oder die Zeichenkette.
+     *
+     * @param row   Zeilennummer
+     * @param col   Position der Spalte
+     * @param byKey gibt an, ob der Schlüssel gestreut wird
+     * @return Hashwert
+     */
+    private long bloomHash(int row, int col, boolean byKey) {
+        if (byKey && !this.values.isNull(row, col)) {
+            return BloomFilter.hash(this.values.key(row, col));
+        }
+        return BloomFilter.hash(this.values.get(row, col));
+    }
+
+    /**
+     * Erzeugt die leere Ergebnistabelle eines Joins dieser Tabelle mit other: zunächst die Spalten
+     * dieser Tabelle, dann die von other, jeweils mit dem Bezeichner der Ursprungstabelle und
+     * einem Unterstrich vor dem Spaltenbezeichner.
+     *
+     * @param other      die Tabelle, mit der gejoint wird
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     */
+    private DBTable joinTable(DBTable other, String newTableId) {
+        List<String> allCols = new ArrayList<>();
+        for (String s : this.cols) {
+            allCols.add(this.id + "_" + s);
+        }
+        for (String s : other.cols) {
+            allCols.add(other.id + "_" + s);
+        }
+
+        List<ColumnType> allTypes = new ArrayList<>(this.types);
+        allTypes.addAll(other.types);
+
+        return derive(newTableId, allCols, allTypes);
+    }
+
+    /**
+     * Liefert die Richtung, in der die Zeilen laut {@link #getSortOrder()} zuerst nach der Spalte
+     * an der Position col sortiert vorliegen.
+     *
+     * @param col Position der Spalte
+     * @return Sortierreihenfolge oder null, falls nicht zuerst nach der Spalte sortiert ist
+     */
+    private SortDirection sortedBy(int col) {
+        if (this.sortOrder.isEmpty()
+                || !this.sortOrder.get(0).getColId().equals(this.cols.get(col))) {
+            return null;
+        }
+        return this.sortOrder.get(0).getDirection();
+    }
+
+    /**
+     * Liefert die Zeilennummern in der Reihenfolge der Werte der Spalte an der Position col gemäß
+     * sortDir, bei gleichen Werten aufsteigend.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * Log(N) (bzw. f(N) = 1, falls die Tabelle bereits passend sortiert vorliegt).
+     *
+     * @param col     Position der Spalte
+     * @param sortDir Sortierreihenfolge
+     * @return Zeilennummern oder null, falls die Zeilen bereits passend sortiert vorliegen
+     */
+    private int[] sortedRows(int col, SortDirection sortDir) {
+        if (sortedBy(col) == sortDir) {
+            return null;
+        }
+        return RowSort.sort(this.values.size(), this.parallelThreshold,
+                rowComparator(new SortKey(this.cols.get(col), sortDir)));
+    }
+
+    /**
+     * Löscht die Angabe der Sortierung (siehe {@link #getSortOrder()}), falls die Zeile mit der
+     * Zeilennummer row gemäß dieser vor ihrer Vorgängerin stehen müsste.
+     *
+     * @param row Zeilennummer einer angehängten Zeile
+     */
+    private void checkSortOrder(int row) {
+        if (row == 0 || this.sortOrder.isEmpty()) {
+            return;
+        }
+        for (SortKey key : this.sortOrder) {
+            int col = this.cols.indexOf(key.getColId());
+            int result = this.types.get(col).comparator().compare(this.values.get(row - 1, col),
+                    this.values.get(row, col));
+            if (key.getDirection() == SortDirection.DESC) {
+                result = -result;
+            }
+            if (result != 0) {
+                if (result > 0) {
+                    this.sortOrder = Collections.emptyList();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hängt die Verkettung der Zeilen left und right als letzte Zeile an die Tabelle an.
+     *
+     * @param left  vorderer Teil der Zeile
+     * @param right hinterer Teil der Zeile
+     * @pre left.size() + right.size() == getColCnt()
+     */
+    void appendJoinedRow(List<String> left, List<String> right) {
+        assert left.size() + right.size() == getColCnt();
+
+        List<String> row = new ArrayList<>(left.size() + right.size());
+        row.addAll(left);
+        row.addAll(right);
+        this.values.append(row);
+    }
+
+    /**
+     * Liefert die Stringrepräsentation der Datenbanktabelle. Die Stringrepräsentation erfolgt
+     * linksbündig blockweise in der Reihenfolge in der die Spalten in der Tabelle vorkommen. Sie
+     * ist wie folgt aufgebaut:
+     * <ul>
+     * <li>Ein Feld (Block) hat immer die Breite des längsten Eintrages, der in dessen Spalte
+     * vorkommt</li>
+     * <li>Felder sind durch " | " (Leerzeichen, Pipe, Leerzeichen) voneinander getrennt. Es
+     * befinden sich zudem eine Pipe und ein Leerzeichen am Anfang jeder Zeile. Auf die letzte Pipe
+     * in einer Zeile folgt kein Leerzeichen mehr.</li>
+     * <li>In der ersten Zeile stehen (entsprechend formatiert) die Spalten der
+     * Datenbanktabelle.</li>
+     * <li>Es folgt eine Zeile, die die Trennung von Kopfzeile und Daten symbolisiert. Die Felder
+     * dieser Zeile sind komplett mit Minuszeichen gefüllt (keine Leerzeichen an den Pipes)</li>
+     * <li>Es folgen die Zeilen der Datenbanktabelle in der Reihenfolge, in der sie in der
+     * Datenbanktabelle gespeichert sind (in entsprechender blockweiser Formatierung).</li>
+     * </ul>
+     * <p>
+     * Zeilenumbrüche (Unix, DOS, MacOs) innerhalb der Felder der Tabelle werden zugunsten der
+     * besseren Lesbarkeit hierbei entfernt und durch ein einzelnes Leerzeichen ersetzt.
+     * <p>
+     * Es werden stets Unix-Zeilenumbrüche (\n) verwendet.
+     *
+     * @return Stringrepräsentation der Datenbanktabelle.
+     */
+    public String printTable() {
+        return toString();
+    }
+
+    /**
+     * Schreibt die Stringrepräsentation dieser Tabelle (siehe {@link #printTable()}) nach out,
+     * ohne sie als Ganzes im Speicher aufzubauen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param out Ziel der Ausgabe
+     * @throws IOException bei Fehlern beim Schreiben nach out
+     * @pre out != null
+     */
+    public void writeTo(final Appendable out) throws IOException {
+        writeTo(out, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Schreibt die Stringrepräsentation eines Ausschnittes dieser Tabelle nach out: Kopfzeilen wie
+     * bei {@link #printTable()}, gefolgt von höchstens limit Zeilen ab der Zeile offset. Die Breite
+     * der Felder richtet sich nur nach den geschriebenen Zeilen, sodass sich eine große Tabelle
+     * seitenweise ausgeben lässt, ohne jedes Mal alle Zeilen zu durchlaufen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der geschriebenen Zeilen und
+     * f(N) = N.
+     *
+     * @param out    Ziel der Ausgabe
+     * @param offset Zeilennummer der ersten geschriebenen Zeile
+     * @param limit  Höchstzahl der geschriebenen Zeilen
+     * @throws IOException bei Fehlern beim Schreiben nach out
+     * @pre out != null
+     * @pre offset >= 0
+     * @pre limit >= 0
+     */
+    public void writeTo(final Appendable out, final int offset, final int limit)
+            throws IOException {
+        assert out != null;
+        assert offset >= 0;
+        assert limit >= 0;
+
+        int from = Math.min(offset, this.values.size());
+        int to = (int) Math.min(this.values.size(), (long) from + limit);
+        int[] widths = new int[this.cols.size()];
+        for (int col = 0; col < widths.length; col++) {
+            widths[col] = this.cols.get(col).length();
+        }
+        // Breiten aller Spalten in einem gemeinsamen Durchlauf über die Zeilen
+        //O(N)
+        for (int row = from; row < to; row++) {
+            for (int col = 0; col < widths.length; col++) {
+                widths[col] = Math.max(widths[col], display(this.values.get(row, col)).length());
+            }
+        }
+
+        out.append('|');
+        for (int col = 0; col < widths.length; col++) {
+            writeCell(out, this.cols.get(col), widths[col]);
+        }
+        out.append('\n');
+        out.append('|');
+        for (int width : widths) {
+            repeat(out, '-', width + 2);
+            out.append('|');
+        }
+        out.append('\n');
+        //O(N)
+        for (int row = from; row < to; row++) {
+            out.append('|');
+            for (int col = 0; col < widths.length; col++) {
+                writeCell(out, display(this.values.get(row, col)), widths[col]);
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Liefert die Darstellung des Wertes value in der Stringrepräsentation.
+     *
+     * @param value Wert, auch null
+     * @return Darstellung des Wertes
+     */
+    private static String display(String value) {
+        return value == null ? "null" : value;
+    }
+
+    /**
+     * Schreibt ein Feld der Breite width mit dem Inhalt value, gefolgt von einer Pipe, nach out.
+     * Zeilenumbrüche in value werden durch Leerzeichen ersetzt.
+     *
+     * @param out   Ziel der Ausgabe
+     * @param value Inhalt des Feldes
+     * @param width Breite des Feldes
+     * @throws IOException bei Fehlern beim Schreiben nach out
+     */
+    private static void writeCell(Appendable out, String value, int width) throws IOException {
+        out.append(' ');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\025') {
+                out.append(value, start, i).append(' ');
+                start = i + 1;
+            }
+        }
+        out.append(value, start, value.length());
+        repeat(out, ' ', width - value.length());
+        out.append(" |");
+    }
+
+    /**
+     * Schreibt das Zeichen c cnt-mal nach out.
+     */
+    private static void repeat(Appendable out, char c, int cnt) throws IOException {
+        for (int i = 0; i < cnt; i++) {
+            out.append(c);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
         }
         return sb.toString();
     }
@@ -0,0 +1,366 @@
+package db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sortiert die Zeilen einer Datenbanktabelle in eine Tabellendatei (siehe {@link TableFile}),
+ * ohne mehr als ein vorgegebenes Speicherbudget an Zeilen im Hauptspeicher zu halten.
+ * <p>
+ * Die Zeilen werden der Reihe nach gelesen und in Läufe aufgeteilt, die jeweils in das Budget
+ * passen. Jeder Lauf wird im Hauptspeicher sortiert und in eine temporäre Datei geschrieben.
+ * Anschließend werden je bis zu {@link #MAX_FAN_IN} Läufe über eine Vorrangwarteschlange
+ * zusammengeführt, bis nur noch ein Durchgang nötig ist, der direkt in die Tabellendatei schreibt.
+ * Passt die ganze Tabelle in das Budget, wird ohne temporäre Dateien sortiert.
+ * <p>
+ * Die Sortierung ist stabil: Läufe bestehen aus aufeinanderfolgenden Zeilen, werden stabil
+ * sortiert und bei gleichen Werten in der Reihenfolge ihrer Entstehung zusammengeführt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class ExternalSort {
+
+    /**
+     * Höchstzahl der Läufe, die in einem Durchgang zusammengeführt werden
+     */
+    static final int MAX_FAN_IN = 64;
+    /**
+     * Geschätzter Speicherbedarf einer Zeile ohne ihre Werte in Byte
+     */
+    private static final int ROW_OVERHEAD = 64;
+    /**
+     * Geschätzter Speicherbedarf eines Wertes ohne seine Zeichen in Byte
+     */
+    private static final int VALUE_OVERHEAD = 48;
+    /**
+     * Größe der Puffer beim Lesen und Schreiben von Läufen in Byte
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Keine Instanzen.
+     */
+    private ExternalSort() {
+    }
+
+    /**
+     * Schreibt die Zeilen der Tabelle table sortiert nach keys in die Tabellendatei file.
+     *
+     * @param table        Tabelle, deren Zeilen sortiert werden
+     * @param keys         Sortierschlüssel
+     * @param file         Zieldatei
+     * @param memoryBudget Speicherbudget für Zeilen in Byte
+     * @throws IOException bei Fehlern beim Lesen oder Schreiben
+     * @pre !keys.isEmpty()
+     * @pre memoryBudget > 0
+     */
+    static void sort(final DBTable table, final List<SortKey> keys, final Path file,
+                     final long memoryBudget) throws IOException {
+        assert !keys.isEmpty();
+        assert memoryBudget > 0;
+
+        Comparator<List<String>> comp = comparator(table, keys);
+        Path dir = file.toAbsolutePath().getParent();
+        List<Path> runs = new ArrayList<>();
+        try {
+            List<List<String>> run = new ArrayList<>();
+            long used = 0;
+            for (int row = 0; row < table.getRowCnt(); row++) {
+                List<String> values = table.getRow(row);
+                run.add(values);
+                used += estimate(values);
+                if (used >= memoryBudget && row + 1 < table.getRowCnt()) {
+                    runs.add(spill(run, comp, dir));
+                    run = new ArrayList<>();
+                    used = 0;
+                }
+            }
+            if (runs.isEmpty()) {
+                // alles passt in das Budget
+                run.sort(comp);
+                try (TableFile.Writer out = writer(table, file)) {
+                    for (List<String> values : run) {
+                        out.add(values);
+                    }
+                    out.finish();
+                }
+                return;
+            }
+            if (!run.isEmpty()) {
+                runs.add(spill(run, comp, dir));
+            }
+            run = null;
+
+            // Zwischendurchgänge, bis ein Durchgang genügt
+            while (runs.size() > MAX_FAN_IN) {
+                List<Path> merged = new ArrayList<>();
+                boolean complete = false;
+                try {
+                    for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+                        List<Path> group = runs.subList(i,
+                                Math.min(runs.size(), i + MAX_FAN_IN));
+                        Path target = Files.createTempFile(dir, "sort", ".run");
+                        merged.add(target);
+                        try (RunWriter out = new RunWriter(target)) {
+                            merge(group, comp, table.getColCnt(), out);
+                        }
+                        for (Path p : group) {
+                            Files.delete(p);
+                        }
+                    }
+                    complete = true;
+                } finally {
+                    // die Läufe eines abgebrochenen Durchgangs werden nicht mehr gebraucht
+                    if (!complete) {
+                        for (Path p : merged) {
+                            Files.deleteIfExists(p);
+                        }
+                    }
+                }
+                runs = merged;
+            }
+            try (final TableFile.Writer out = writer(table, file)) {
+                merge(runs, comp, table.getColCnt(), new RowSink() {
+                    @Override
+                    public void add(List<String> row) throws IOException {
+                        out.add(row);
+                    }
+                });
+                out.finish();
+            }
+        } finally {
+            for (Path p : runs) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * Liefert den Vergleich zweier Zeilen der Tabelle table gemäß keys. Werte werden gemäß dem Typ
+     * ihrer Spalte verglichen.
+     *
+     * @param table Tabelle
+     * @param keys  Sortierschlüssel
+     * @return Vergleich zweier Zeilen
+     * @pre zu allen Schlüsseln muss die Tabelle eine Spalte haben
+     */
+    static Comparator<List<String>> comparator(final DBTable table, final List<SortKey> keys) {
+        final int[] cols = new int[keys.size()];
+        final int[] signs = new int[keys.size()];
+        final List<Comparator<String>> orders = new ArrayList<>(keys.size());
+        for (int i = 0; i < cols.length; i++) {
+            SortKey key = keys.get(i);
+            assert table.hasCol(key.getColId());
+            cols[i] = table.colIndex(key.getColId());
+            signs[i] = key.getDirection() == SortDirection.ASC ? 1 : -1;
+            orders.add(table.getColType(key.getColId()).comparator());
+        }
+        return new Comparator<List<String>>() {
+            @Override
+            public int compare(List<String> o1, List<String> o2) {
+                for (int i = 0; i < cols.length; i++) {
+                    int result = orders.get(i).compare(o1.get(cols[i]), o2.get(cols[i]));
+                    if (result != 0) {
+                        return signs[i] * result;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * Sortiert run stabil und schreibt ihn in eine temporäre Datei im Verzeichnis dir.
+     *
+     * @param run  Zeilen des Laufes
+     * @param comp Vergleich zweier Zeilen
+     * @param dir  Verzeichnis für die temporäre Datei
+     * @return temporäre Datei mit dem sortierten Lauf
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    private static Path spill(List<List<String>> run, Comparator<List<String>> comp, Path dir)
+            throws IOException {
+        run.sort(comp);
+        Path result = Files.createTempFile(dir, "sort", ".run");
+        try (RunWriter out = new RunWriter(result)) {
+            for (List<String> values : run) {
+                out.add(values);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(result);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Führt die sortierten Läufe runs zusammen und übergibt die Zeilen der Reihe nach an out. Bei
+     * gleichen Werten kommt die Zeile des früheren Laufes zuerst.
+     *
+     * @param runs   Dateien der Läufe in der Reihenfolge ihrer Entstehung
+     * @param comp   Vergleich zweier Zeilen
+     * @param colCnt Anzahl der Spalten
+     * @param out    Empfänger der Zeilen
+     * @throws IOException bei Fehlern beim Lesen oder Schreiben
+     */
+    private static void merge(List<Path> runs, final Comparator<List<String>> comp, int colCnt,
+                              RowSink out) throws IOException {
+        List<RunReader> readers = new ArrayList<>(runs.size());
+        try {
+            PriorityQueue<RunReader> heads = new PriorityQueue<>(runs.size(),
+                    new Comparator<RunReader>() {
+                        @Override
+                        public int compare(RunReader o1, RunReader o2) {
+                            int result = comp.compare(o1.head, o2.head);
+                            return result != 0 ? result : Integer.compare(o1.index, o2.index);
+                        }
+                    });
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(runs.get(i), i, colCnt);
+                readers.add(reader);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunReader reader = heads.poll();
+                out.add(reader.head);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Beginnt eine Tabellendatei file mit Spalten und Speicherlayout der Tabelle table.
+     */
+    private static TableFile.Writer writer(DBTable table, Path file) throws IOException {
+        List<ColumnType> types = new ArrayList<>();
+        for (String col : table.getColIds()) {
+            types.add(table.getColType(col));
+        }
+        return new TableFile.Writer(file, table.getLayout(), table.getColIds(), types, false);
+    }
+
+    /**
+     * Schätzt den Speicherbedarf der Zeile values in Byte.
+     */
+    private static long estimate(List<String> values) {
+        long result = ROW_OVERHEAD;
+        for (String value : values) {
+            result += VALUE_OVERHEAD + (value == null ? 0 : 2L * value.length());
+        }
+        return result;
+    }
+
+    /**
+     * Empfänger zusammengeführter Zeilen.
+     */
+    private interface RowSink {
+
+        /**
+         * Nimmt die nächste Zeile entgegen.
+         *
+         * @param row Werte der Zeile
+         * @throws IOException bei Fehlern beim Schreiben
+         */
+        void add(List<String> row) throws IOException;
+    }
+
+    /**
+     * Schreibt einen Lauf: je Zeile ihre Werte wie in {@link TableFile#encode}.
+     */
+    private static final class RunWriter implements RowSink, Closeable {
+
+        private final DataOutputStream out;
+
+        RunWriter(Path file) throws IOException {
+            this.out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        }
+
+        @Override
+        public void add(List<String> row) throws IOException {
+            this.out.write(TableFile.encode(row));
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    /**
+     * Liest einen Lauf Zeile für Zeile.
+     */
+    private static final class RunReader implements Closeable {
+
+        private final DataInputStream in;
+        /**
+         * Position des Laufes in der Reihenfolge der Entstehung
+         */
+        private final int index;
+        private final int colCnt;
+        /**
+         * Zuletzt gelesene Zeile
+         */
+        private List<String> head;
+
+        RunReader(Path file, int index, int colCnt) throws IOException {
+            this.in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            this.index = index;
+            this.colCnt = colCnt;
+        }
+
+        /**
+         * Liest die nächste Zeile nach head.
+         *
+         * @return false am Ende des Laufes
+         * @throws IOException bei Fehlern beim Lesen
+         */
+        boolean advance() throws IOException {
+            this.in.mark(4);
+            if (this.in.read() < 0) {
+                this.head = null;
+                return false;
+            }
+            this.in.reset();
+            List<String> row = new ArrayList<>(this.colCnt);
+            for (int i = 0; i < this.colCnt; i++) {
+                int length = this.in.readInt();
+                if (length < 0) {
+                    row.add(null);
+                } else {
+                    byte[] bytes = new byte[length];
+                    this.in.readFully(bytes);
+                    row.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+            this.head = row;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+}
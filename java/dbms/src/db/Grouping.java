@@ -0,0 +1,314 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Gruppierung der Zeilen einer Datenbanktabelle nach den Werten einiger Spalten (siehe
+ * {@link DBTable#groupBy}). Zeilen mit gleichen Werten in allen Gruppierungsspalten bilden eine
+ * Gruppe; ohne Gruppierungsspalten bilden alle Zeilen zusammen eine Gruppe.
+ * <p>
+ * Aggregiert wird per Hashing in einem Durchlauf über die Zeilen, die Tabelle wird dafür weder
+ * sortiert noch kopiert. Ab der Parallelisierungsschwelle der Tabelle bildet jeder Teilbereich
+ * eigene Teilergebnisse, die anschließend zusammengeführt werden (siehe
+ * {@link ParallelScan#reduce}). Die Gruppen erscheinen in der Reihenfolge ihres ersten Auftretens
+ * in der Tabelle, unabhängig davon, ob parallel gearbeitet wurde. Summen von Gleitkommazahlen
+ * können sich dabei in der Rundung unterscheiden.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class Grouping {
+
+    /**
+     * Gruppierte Tabelle
+     */
+    private final DBTable table;
+    /**
+     * Bezeichner der Gruppierungsspalten
+     */
+    private final List<String> groupColIds;
+
+    /**
+     * Erzeugt eine Gruppierung der Tabelle table nach den Spalten someColIds.
+     *
+     * @param table      gruppierte Tabelle
+     * @param someColIds Bezeichner der Gruppierungsspalten, auch leer
+     */
+    Grouping(final DBTable table, final Collection<String> someColIds) {
+        this.table = table;
+        this.groupColIds = new ArrayList<>(someColIds);
+    }
+
+    /**
+     * Liefert die Bezeichner der Gruppierungsspalten.
+     *
+     * @return Bezeichner der Gruppierungsspalten
+     */
+    public List<String> getColIds() {
+        return new ArrayList<>(this.groupColIds);
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit dem Bezeichner newTableId, die je Gruppe eine Zeile enthält. Die
+     * Zeile besteht aus den Werten der Gruppierungsspalten, gefolgt von je einem Wert für jedes
+     * Element von aggregates in dessen Reihenfolge. Die Gruppierungsspalten behalten Bezeichner und
+     * Typ, die Typen der übrigen Spalten ergeben sich aus den Aggregatfunktionen (siehe
+     * {@link AggregateFunction}).
+     * <p>
+     * Gibt es keine Gruppierungsspalten, enthält die Tabelle genau eine Zeile, auch wenn die
+     * gruppierte Tabelle leer ist.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N.
+     *
+     * @param aggregates Ergebnisspalten
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @throws ArithmeticException wenn die Summe der Werte einer INT- oder LONG-Spalte für SUM oder
+     *                             AVG den Wertebereich von long überschreitet
+     * @pre aggregates != null
+     * @pre newTableId != null
+     * @pre die Gruppierungsspalten und aggregates müssen zusammen mindestens eine Spalte ergeben
+     * @pre zu allen aggregierten Spalten gibt es eine entsprechende Spalte in der Tabelle
+     * @pre jede Aggregatfunktion muss auf den Typ ihrer Spalte anwendbar sein
+     * @pre alle Spaltenbezeichner der erzeugten Tabelle müssen eindeutig sein
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable aggregate(final List<Aggregate> aggregates, final String newTableId) {
+        assert aggregates != null;
+        assert newTableId != null;
+        assert !this.groupColIds.isEmpty() || !aggregates.isEmpty();
+        assert DBTable.isValidIdentifier(newTableId);
+
+        List<String> colIds = new ArrayList<>(this.groupColIds);
+        List<ColumnType> colTypes = new ArrayList<>();
+        final int[] groupCols = new int[this.groupColIds.size()];
+        for (int i = 0; i < groupCols.length; i++) {
+            groupCols[i] = this.table.colIndex(this.groupColIds.get(i));
+            colTypes.add(this.table.getColType(this.groupColIds.get(i)));
+        }
+        final int[] cols = new int[aggregates.size()];
+        final ColumnType[] types = new ColumnType[cols.length];
+        final AggregateFunction[] functions = new AggregateFunction[cols.length];
+        for (int i = 0; i < cols.length; i++) {
+            Aggregate aggregate = aggregates.get(i);
+            functions[i] = aggregate.getFunction();
+            cols[i] = -1;
+            if (aggregate.getColId() != null) {
+                assert this.table.hasCol(aggregate.getColId());
+                cols[i] = this.table.colIndex(aggregate.getColId());
+                types[i] = this.table.getColType(aggregate.getColId());
+                assert functions[i].accepts(types[i]);
+            }
+            colIds.add(aggregate.getResultColId());
+            colTypes.add(functions[i].resultType(types[i]));
+        }
+        assert DBTable.areOnlyUniqueValues(colIds);
+
+        //O(N)
+        Map<List<String>, Group> groups = ParallelScan.reduce(this.table.getRowCnt(),
+                this.table.getParallelThreshold(),
+                new Supplier<Map<List<String>, Group>>() {
+                    @Override
+                    public Map<List<String>, Group> get() {
+                        return new LinkedHashMap<>();
+                    }
+                },
+                new ObjIntConsumer<Map<List<String>, Group>>() {
+                    @Override
+                    public void accept(Map<List<String>, Group> partial, int row) {
+                        String[] key = new String[groupCols.length];
+                        for (int i = 0; i < key.length; i++) {
+                            key[i] = table.cell(row, groupCols[i]);
+                        }
+                        List<String> groupKey = Arrays.asList(key);
+                        Group group = partial.get(groupKey);
+                        if (group == null) {
+                            group = new Group(cols.length);
+                            partial.put(groupKey, group);
+                        }
+                        group.add(table, row, cols, types, functions);
+                    }
+                },
+                new BinaryOperator<Map<List<String>, Group>>() {
+                    @Override
+                    public Map<List<String>, Group> apply(Map<List<String>, Group> left,
+                                                          Map<List<String>, Group> right) {
+                        // Gruppen des rechten Teilbereiches treten später erstmals auf
+                        for (Map.Entry<List<String>, Group> entry : right.entrySet()) {
+                            Group group = left.get(entry.getKey());
+                            if (group == null) {
+                                left.put(entry.getKey(), entry.getValue());
+                            } else {
+                                group.merge(entry.getValue(), types, functions);
+                            }
+                        }
+                        return left;
+                    }
+                });
+        if (groups.isEmpty() && groupCols.length == 0) {
+            groups.put(new ArrayList<String>(), new Group(cols.length));
+        }
+
+        //O(G)
+        List<List<String>> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<String>, Group> entry : groups.entrySet()) {
+            List<String> row = new ArrayList<>(colIds.size());
+            row.addAll(entry.getKey());
+            for (int i = 0; i < cols.length; i++) {
+                row.add(entry.getValue().result(i, types[i], functions[i]));
+            }
+            rows.add(row);
+        }
+        DBTable result = this.table.derive(newTableId, colIds, colTypes);
+        result.appendRows(rows);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.table.getId() + " GROUP BY " + this.groupColIds;
+    }
+
+    /**
+     * Zwischenstand der Aggregate einer Gruppe, je Aggregat an derselben Position.
+     */
+    private static final class Group {
+
+        /**
+         * Anzahl der berücksichtigten Werte bzw. Zeilen
+         */
+        private final long[] counts;
+        /**
+         * Ganzzahlige Summen bzw. Schlüssel von Minimum und Maximum
+         */
+        private final long[] longs;
+        /**
+         * Summen von Gleitkommazahlen
+         */
+        private final double[] doubles;
+        /**
+         * Minimum und Maximum von Zeichenketten
+         */
+        private final String[] strs;
+
+        Group(int aggregateCnt) {
+            this.counts = new long[aggregateCnt];
+            this.longs = new long[aggregateCnt];
+            this.doubles = new double[aggregateCnt];
+            this.strs = new String[aggregateCnt];
+        }
+
+        /**
+         * Nimmt die Zeile row der Tabelle table in alle Aggregate auf.
+         */
+        void add(DBTable table, int row, int[] cols, ColumnType[] types,
+                 AggregateFunction[] functions) {
+            for (int i = 0; i < cols.length; i++) {
+                if (cols[i] < 0) {
+                    this.counts[i]++;
+                    continue;
+                }
+                if (table.isNull(row, cols[i])) {
+                    continue;
+                }
+                switch (functions[i]) {
+                    case COUNT:
+                        break;
+                    case SUM:
+                    case AVG:
+                        if (types[i] == ColumnType.DOUBLE) {
+                            this.doubles[i] += types[i].toDouble(table.key(row, cols[i]));
+                        } else {
+                            this.longs[i] = Math.addExact(this.longs[i], table.key(row, cols[i]));
+                        }
+                        break;
+                    default:
+                        if (types[i].hasKeys()) {
+                            addKey(i, table.key(row, cols[i]), functions[i]);
+                        } else {
+                            addStr(i, table.cell(row, cols[i]), functions[i]);
+                        }
+                }
+                this.counts[i]++;
+            }
+        }
+
+        /**
+         * Nimmt die Zwischenstände von other in diese Gruppe auf.
+         */
+        void merge(Group other, ColumnType[] types, AggregateFunction[] functions) {
+            for (int i = 0; i < this.counts.length; i++) {
+                if (other.counts[i] == 0) {
+                    continue;
+                }
+                switch (functions[i]) {
+                    case COUNT:
+                        break;
+                    case SUM:
+                    case AVG:
+                        this.longs[i] = Math.addExact(this.longs[i], other.longs[i]);
+                        this.doubles[i] += other.doubles[i];
+                        break;
+                    default:
+                        if (types[i].hasKeys()) {
+                            addKey(i, other.longs[i], functions[i]);
+                        } else {
+                            addStr(i, other.strs[i], functions[i]);
+                        }
+                }
+                this.counts[i] += other.counts[i];
+            }
+        }
+
+        /**
+         * Liefert das Ergebnis des Aggregates an der Position i.
+         */
+        String result(int i, ColumnType type, AggregateFunction function) {
+            if (function == AggregateFunction.COUNT) {
+                return Long.toString(this.counts[i]);
+            }
+            if (this.counts[i] == 0) {
+                return null;
+            }
+            switch (function) {
+                case SUM:
+                    return type == ColumnType.DOUBLE ? Double.toString(this.doubles[i])
+                            : Long.toString(this.longs[i]);
+                case AVG:
+                    double sum = type == ColumnType.DOUBLE ? this.doubles[i] : this.longs[i];
+                    return Double.toString(sum / this.counts[i]);
+                default:
+                    return type.hasKeys() ? type.fromKey(this.longs[i]) : this.strs[i];
+            }
+        }
+
+        /**
+         * Nimmt den Schlüssel key in Minimum bzw. Maximum an der Position i auf.
+         */
+        private void addKey(int i, long key, AggregateFunction function) {
+            if (this.counts[i] == 0 || (function == AggregateFunction.MIN
+                    ? key < this.longs[i] : key > this.longs[i])) {
+                this.longs[i] = key;
+            }
+        }
+
+        /**
+         * Nimmt die Zeichenkette value in Minimum bzw. Maximum an der Position i auf.
+         */
+        private void addStr(int i, String value, AggregateFunction function) {
+            if (this.counts[i] == 0 || (function == AggregateFunction.MIN
+                    ? value.compareTo(this.strs[i]) < 0 : value.compareTo(this.strs[i]) > 0)) {
+                this.strs[i] = value;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,15 @@
+package db;
+
+/**
+ * Arten von Spaltenindizes einer Datenbanktabelle.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public enum IndexType {
+
+    /** Hash-Index für Gleichheitsanfragen. */
+    HASH,
+    /** Sortierter Index (Baum) für Gleichheits- und Bereichsanfragen. */
+    SORTED;
+
+}
@@ -0,0 +1,17 @@
+package db;
+
+/**
+ * Verfahren, mit denen zwei Teilergebnisse eines Joins verbunden werden.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public enum JoinAlgorithm {
+
+    /** Hash-Join, der Hash-Index wird über die kleinere Seite aufgebaut. */
+    HASH,
+    /** Sondieren eines vorhandenen Spaltenindex einer Tabelle. */
+    INDEX,
+    /** Vergleich aller Zeilenpaare, nur für sehr kleine Eingaben. */
+    NESTED_LOOP;
+
+}
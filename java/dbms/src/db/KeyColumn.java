@@ -0,0 +1,205 @@
+package db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Eine Spalte eines Typs mit Schlüsseln (siehe {@link ColumnType#hasKeys()}) in
+ * spaltenorientierter Speicherung. Jeder Wert wird als sein Schlüssel in einem Array primitiver
+ * Zahlen abgelegt, für INT und DATE als int, sonst als long. null-Werte werden in einer eigenen
+ * Bitmenge vermerkt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class KeyColumn implements Column {
+
+    /**
+     * Anfangskapazität der Arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Typ der Spalte
+     */
+    private final ColumnType type;
+    /**
+     * Anzahl der Werte
+     */
+    private int size;
+    /**
+     * Schlüssel der Werte für INT und DATE, sonst null
+     */
+    private int[] ints;
+    /**
+     * Schlüssel der Werte für LONG und DOUBLE, sonst null
+     */
+    private long[] longs;
+    /**
+     * Zeilennummern der null-Werte
+     */
+    private BitSet nulls = new BitSet();
+
+    /**
+     * Erzeugt eine leere Spalte des Typs type.
+     *
+     * @param type Typ der Spalte
+     * @pre type.hasKeys()
+     */
+    KeyColumn(final ColumnType type) {
+        assert type.hasKeys();
+
+        this.type = type;
+        clear();
+    }
+
+    @Override
+    public String get(int row) {
+        assert row >= 0 && row < this.size;
+
+        if (this.nulls.get(row)) {
+            return null;
+        }
+        return this.type.fromKey(key(row));
+    }
+
+    /**
+     * Liefert den Schlüssel des Wertes in Zeile row.
+     *
+     * @param row Zeilennummer
+     * @return Schlüssel
+     * @pre 0 <= row < Anzahl der Werte
+     * @pre der Wert in Zeile row darf nicht null sein
+     */
+    long key(final int row) {
+        return this.ints != null ? this.ints[row] : this.longs[row];
+    }
+
+    /**
+     * Gibt an, ob der Wert in Zeile row null ist.
+     *
+     * @param row Zeilennummer
+     * @return true, falls der Wert null ist
+     */
+    boolean isNull(final int row) {
+        return this.nulls.get(row);
+    }
+
+    /**
+     * Liest die Schlüssel der Zeilen [from, to) nach keys und vermerkt null-Werte in nulls (siehe
+     * {@link TableStore#keys}).
+     *
+     * @param from  erste Zeilennummer, inklusive
+     * @param to    letzte Zeilennummer, exklusive
+     * @param keys  Ziel der Schlüssel
+     * @param nulls Ziel der null-Vermerke
+     */
+    void keys(final int from, final int to, final long[] keys, final boolean[] nulls) {
+        assert from >= 0 && from <= to && to <= this.size;
+
+        if (this.ints != null) {
+            for (int i = from; i < to; i++) {
+                keys[i - from] = this.ints[i];
+            }
+        } else {
+            System.arraycopy(this.longs, from, keys, 0, to - from);
+        }
+        Arrays.fill(nulls, 0, to - from, false);
+        int i = this.nulls.nextSetBit(from);
+        while (i >= 0 && i < to) {
+            nulls[i - from] = true;
+            i = this.nulls.nextSetBit(i + 1);
+        }
+    }
+
+    @Override
+    public void add(String value) {
+        long key = 0;
+        if (value == null) {
+            this.nulls.set(this.size);
+        } else {
+            key = this.type.toKey(value);
+        }
+        if (this.ints != null) {
+            if (this.size == this.ints.length) {
+                this.ints = Arrays.copyOf(this.ints, this.size * 2);
+            }
+            assert key == (int) key;
+            this.ints[this.size++] = (int) key;
+        } else {
+            if (this.size == this.longs.length) {
+                this.longs = Arrays.copyOf(this.longs, this.size * 2);
+            }
+            this.longs[this.size++] = key;
+        }
+    }
+
+    @Override
+    public void reserve(int capacity) {
+        if (this.ints != null && capacity > this.ints.length) {
+            this.ints = Arrays.copyOf(this.ints, capacity);
+        } else if (this.longs != null && capacity > this.longs.length) {
+            this.longs = Arrays.copyOf(this.longs, capacity);
+        }
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        int target = 0;
+        BitSet result = new BitSet();
+        for (int i = 0; i < this.size; i++) {
+            if (!rows.get(i)) {
+                if (this.ints != null) {
+                    this.ints[target] = this.ints[i];
+                } else {
+                    this.longs[target] = this.longs[i];
+                }
+                if (this.nulls.get(i)) {
+                    result.set(target);
+                }
+                target++;
+            }
+        }
+        this.nulls = result;
+        this.size = target;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.nulls = new BitSet();
+        if (this.type.isNarrow()) {
+            this.ints = new int[INITIAL_CAPACITY];
+        } else {
+            this.longs = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    @Override
+    public void permute(int[] order) {
+        assert order.length == this.size;
+
+        BitSet result = new BitSet();
+        if (this.ints != null) {
+            int[] values = new int[this.ints.length];
+            for (int i = 0; i < order.length; i++) {
+                values[i] = this.ints[order[i]];
+            }
+            this.ints = values;
+        } else {
+            long[] values = new long[this.longs.length];
+            for (int i = 0; i < order.length; i++) {
+                values[i] = this.longs[order[i]];
+            }
+            this.longs = values;
+        }
+        if (!this.nulls.isEmpty()) {
+            for (int i = 0; i < order.length; i++) {
+                if (this.nulls.get(order[i])) {
+                    result.set(i);
+                }
+            }
+        }
+        this.nulls = result;
+    }
+
+}
@@ -0,0 +1,221 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Speicher einer Datenbanktabelle, deren Zeilen in eingeblendeten Seiten einer Tabellendatei
+ * liegen (siehe {@link TableFile}). Zeilen werden erst beim Zugriff decodiert, sodass das Öffnen
+ * unabhängig von der Größe der Tabelle ist.
+ * <p>
+ * Die Seiten werden nur gelesen. Bei der ersten Änderung werden alle Zeilen in einen gewöhnlichen
+ * Speicher des Speicherlayouts der Tabelle übernommen, über den danach alle Zugriffe laufen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class MappedStore implements TableStore {
+
+    /**
+     * Speicherlayout, in das bei der ersten Änderung übernommen wird
+     */
+    private final StorageLayout layout;
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Anzahl der Spalten
+     */
+    private final int colCnt;
+    /**
+     * Eingeblendete Seiten
+     */
+    private final ByteBuffer[] pages;
+    /**
+     * Nummer der ersten Zeile jeder Seite, aufsteigend
+     */
+    private final int[] firstRows;
+    /**
+     * Anzahl der Zeilen in den Seiten
+     */
+    private final int size;
+    /**
+     * Veränderbarer Speicher nach der ersten Änderung, sonst null
+     */
+    private TableStore writable;
+
+    /**
+     * Erzeugt einen Speicher über den Seiten pages.
+     *
+     * @param layout    Speicherlayout, in das bei der ersten Änderung übernommen wird
+     * @param types     Typen der Spalten
+     * @param pages     eingeblendete Seiten
+     * @param firstRows Nummer der ersten Zeile jeder Seite
+     * @param size      Anzahl der Zeilen
+     * @pre pages.length == firstRows.length
+     */
+    MappedStore(final StorageLayout layout, final ColumnType[] types, final ByteBuffer[] pages,
+                final int[] firstRows, final int size) {
+        assert pages.length == firstRows.length;
+
+        this.layout = layout;
+        this.types = types.clone();
+        this.colCnt = types.length;
+        this.pages = pages;
+        this.firstRows = firstRows;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return this.writable != null ? this.writable.size() : this.size;
+    }
+
+    @Override
+    public String get(int row, int col) {
+        if (this.writable != null) {
+            return this.writable.get(row, col);
+        }
+        assert row >= 0 && row < this.size;
+
+        int page = pageOf(row);
+        ByteBuffer buf = this.pages[page];
+        int offset = buf.getInt(4 + 4 * (row - this.firstRows[page]));
+        for (int i = 0; i < col; i++) {
+            int length = buf.getInt(offset);
+            offset += 4 + Math.max(0, length);
+        }
+        return decode(buf, offset);
+    }
+
+    @Override
+    public List<String> getRow(int row) {
+        if (this.writable != null) {
+            return this.writable.getRow(row);
+        }
+        assert row >= 0 && row < this.size;
+
+        int page = pageOf(row);
+        ByteBuffer buf = this.pages[page];
+        int offset = buf.getInt(4 + 4 * (row - this.firstRows[page]));
+        List<String> result = new ArrayList<>(this.colCnt);
+        for (int i = 0; i < this.colCnt; i++) {
+            result.add(decode(buf, offset));
+            offset += 4 + Math.max(0, buf.getInt(offset));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isNull(int row, int col) {
+        return get(row, col) == null;
+    }
+
+    @Override
+    public long key(int row, int col) {
+        if (this.writable != null) {
+            return this.writable.key(row, col);
+        }
+        return this.types[col].toKey(get(row, col));
+    }
+
+    @Override
+    public void append(Collection<String> row) {
+        writable().append(row);
+    }
+
+    @Override
+    public void appendAll(List<List<String>> rows) {
+        writable().appendAll(rows);
+    }
+
+    @Override
+    public void reserve(int rowCnt) {
+        writable().reserve(rowCnt);
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        writable().remove(rows);
+    }
+
+    @Override
+    public void clear() {
+        writable().clear();
+    }
+
+    @Override
+    public void permute(int[] order) {
+        writable().permute(order);
+    }
+
+    @Override
+    public StringDictionary dictionary(int col) {
+        return this.writable != null ? this.writable.dictionary(col) : null;
+    }
+
+    @Override
+    public int code(int row, int col) {
+        if (this.writable == null) {
+            throw new UnsupportedOperationException("Spalte ohne Wörterbuch");
+        }
+        return this.writable.code(row, col);
+    }
+
+    @Override
+    public TableStore snapshot() {
+        return VersionedStore.copyOf(this, this.types);
+    }
+
+    /**
+     * Liefert den veränderbaren Speicher und legt ihn bei Bedarf mit allen Zeilen an.
+     *
+     * @return veränderbarer Speicher
+     */
+    private TableStore writable() {
+        if (this.writable == null) {
+            TableStore result = TableStore.create(this.layout, this.types);
+            for (int i = 0; i < this.size; i++) {
+                result.append(getRow(i));
+            }
+            this.writable = result;
+        }
+        return this.writable;
+    }
+
+    /**
+     * Liefert die Seite, in der die Zeile row liegt.
+     *
+     * @param row Zeilennummer
+     * @return Nummer der Seite
+     */
+    private int pageOf(int row) {
+        int pos = Arrays.binarySearch(this.firstRows, row);
+        return pos >= 0 ? pos : -pos - 2;
+    }
+
+    /**
+     * Decodiert den Wert, der in buf an der Position offset beginnt.
+     *
+     * @param buf    Seite
+     * @param offset Position der Längenangabe des Wertes
+     * @return Wert
+     */
+    private static String decode(ByteBuffer buf, int offset) {
+        int length = buf.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buf.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
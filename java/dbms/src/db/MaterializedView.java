@@ -0,0 +1,219 @@
+package db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import util.Pair;
+
+/**
+ * Eine materialisierte Sicht: das gespeicherte Ergebnis einer Anfrage ({@link Query}), das bei
+ * Änderungen der beteiligten Tabellen mitgeführt wird (siehe {@link DB#createView}).
+ * <p>
+ * Wird an eine beteiligte Tabelle eine Zeile angehängt, wird nicht neu gerechnet, sondern nur das
+ * Delta bestimmt: Die neue Zeile durchläuft die Bedingungen und Projektionen der Anfrage, ihre
+ * Join-Partner in den übrigen Tabellen werden über Hash-Indizes der Join-Spalten gesucht, und die
+ * entstehenden Zeilen werden an das Ergebnis angehängt. Die Indizes werden beim ersten Bedarf
+ * aufgebaut und danach mitgeführt. Beim Entfernen von Zeilen ({@link DBTable#removeRows},
+ * {@link DBTable#removeAllRows}) und beim Umordnen ({@link DBTable#sort}) wird das Ergebnis
+ * dagegen vollständig neu berechnet, ebenso bei jeder Änderung, wenn eine Tabelle mehrfach in
+ * der Anfrage vorkommt.
+ * <p>
+ * Nach angehängten Zeilen enthält das Ergebnis dieselben Zeilen wie {@link Query#collect}, ihre
+ * Reihenfolge kann aber abweichen; {@link #refresh} stellt die Reihenfolge von collect wieder
+ * her. Die Tabelle des Ergebnisses darf nicht direkt verändert werden.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class MaterializedView {
+
+    /**
+     * Bezeichner der Sicht und ihrer Ergebnistabelle
+     */
+    private final String id;
+    /**
+     * Anfrage der Sicht
+     */
+    private final Query query;
+    /**
+     * Gibt an, ob angehängte Zeilen über Deltas eingearbeitet werden, sonst wird neu berechnet
+     */
+    private final boolean incremental;
+    /**
+     * Ergebnis der Anfrage, bleibt über Neuberechnungen dasselbe Objekt
+     */
+    private final DBTable result;
+    /**
+     * Hash-Indizes über Join-Spalten der Tabellen, nach Tabelle und Spaltenbezeichner
+     */
+    private final Map<Pair<DBTable, String>, ColumnIndex> indexes = new HashMap<>();
+    /**
+     * Tabellen der Anfrage mit der Anzahl ihrer Zeilen, die in den Indizes erfasst sind
+     */
+    private final Map<DBTable, Integer> indexedRows = new IdentityHashMap<>();
+    /**
+     * Empfänger der Änderungen an den Tabellen der Anfrage
+     */
+    private final TableListener listener = new Maintainer();
+
+    /**
+     * Erzeugt die Sicht anId über query, berechnet ihr Ergebnis und meldet sie bei den Tabellen
+     * der Anfrage an.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Summe der Zeilenanzahlen aller beteiligten
+     * Tabellen, K = Anzahl der Zeilen im Ergebnis und f(N) = N + K.
+     *
+     * @param anId  Bezeichner der Sicht
+     * @param query Anfrage der Sicht
+     * @pre anId != null
+     * @pre der Bezeichner anId muss gültig sein
+     * @pre query != null
+     */
+    MaterializedView(final String anId, final Query query) {
+        assert anId != null;
+        assert DBTable.isValidIdentifier(anId);
+        assert query != null;
+
+        this.id = anId;
+        this.query = query;
+        List<DBTable> tables = query.tables();
+        for (DBTable table : tables) {
+            this.indexedRows.put(table, table.getRowCnt());
+        }
+        this.incremental = this.indexedRows.size() == tables.size();
+        this.result = query.collect(anId);
+        for (DBTable table : this.indexedRows.keySet()) {
+            table.addListener(this.listener);
+        }
+    }
+
+    /**
+     * Liefert den Bezeichner der Sicht.
+     *
+     * @return Bezeichner der Sicht
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Liefert die Anfrage der Sicht.
+     *
+     * @return Anfrage der Sicht
+     */
+    public Query getQuery() {
+        return this.query;
+    }
+
+    /**
+     * Liefert das aktuelle Ergebnis der Sicht. Die Tabelle wird bei Änderungen der beteiligten
+     * Tabellen mitgeführt und darf nicht direkt verändert werden.
+     *
+     * @return Ergebnistabelle der Sicht
+     */
+    public DBTable getTable() {
+        return this.result;
+    }
+
+    /**
+     * Berechnet das Ergebnis der Sicht vollständig neu. Danach stimmt es auch in der Reihenfolge
+     * der Zeilen mit {@link Query#collect} überein.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Summe der Zeilenanzahlen aller beteiligten
+     * Tabellen, K = Anzahl der Zeilen im Ergebnis und f(N) = N + K.
+     */
+    public void refresh() {
+        this.indexes.clear();
+        for (DBTable table : this.indexedRows.keySet()) {
+            this.indexedRows.put(table, table.getRowCnt());
+        }
+        this.result.removeAllRows();
+        this.query.run(new Consumer<String[]>() {
+            @Override
+            public void accept(String[] row) {
+                result.appendRow(Arrays.asList(row));
+            }
+        });
+    }
+
+    /**
+     * Meldet die Sicht bei den Tabellen der Anfrage ab. Danach wird das Ergebnis nicht mehr
+     * mitgeführt.
+     */
+    void close() {
+        for (DBTable table : this.indexedRows.keySet()) {
+            table.removeListener(this.listener);
+        }
+        this.indexes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "View(" + this.id + ", " + this.query + ")";
+    }
+
+    /**
+     * Arbeitet die Änderungen an den Tabellen der Anfrage in das Ergebnis ein.
+     */
+    private final class Maintainer implements TableListener {
+
+        @Override
+        public void rowAppended(DBTable table, List<String> row) {
+            // bei appendRows werden alle Zeilen vor der ersten Meldung angehängt
+            int from = indexedRows.get(table);
+            if (!incremental) {
+                if (from < table.getRowCnt()) {
+                    refresh();
+                }
+                return;
+            }
+            if (table.getPartitioning() != null) {
+                // die Zeile steht in ihrer Partition, die Zeilennummern dahinter verschieben sich
+                Iterator<Pair<DBTable, String>> keys = indexes.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (keys.next().l() == table) {
+                        keys.remove();
+                    }
+                }
+                indexedRows.put(table, table.getRowCnt());
+            } else if (from < table.getRowCnt()) {
+                for (Map.Entry<Pair<DBTable, String>, ColumnIndex> entry : indexes.entrySet()) {
+                    if (entry.getKey().l() == table) {
+                        int col = table.colIndex(entry.getKey().r());
+                        for (int i = from; i < table.getRowCnt(); i++) {
+                            entry.getValue().add(table.cell(i, col), i);
+                        }
+                    }
+                }
+                indexedRows.put(table, table.getRowCnt());
+            }
+            query.delta(table, row, indexes, new Consumer<String[]>() {
+                @Override
+                public void accept(String[] out) {
+                    result.appendRow(Arrays.asList(out));
+                }
+            });
+        }
+
+        @Override
+        public void rowsRemoved(DBTable table, BitSet rows) {
+            refresh();
+        }
+
+        @Override
+        public void allRowsRemoved(DBTable table) {
+            refresh();
+        }
+
+        @Override
+        public void rowsPermuted(DBTable table, int[] order) {
+            refresh();
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package db;
+
+import java.util.List;
+
+/**
+ * Joins über sortierten Zeilenfolgen zweier Datenbanktabellen (siehe {@link DBTable#mergeJoin}
+ * und {@link DBTable#bandJoin}). Beide Seiten werden gleichzeitig in Sortierreihenfolge
+ * durchlaufen; es wird weder gehasht noch für jede Zeile ein Index sondiert. Die Werte der
+ * Join-Spalten werden vorab einmalig in Sortierreihenfolge ausgelesen, bei Spalten mit
+ * Schlüsseln (siehe {@link ColumnType#hasKeys()}) als Zahlen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class MergeJoin {
+
+    /**
+     * Keine Instanzen.
+     */
+    private MergeJoin() {
+    }
+
+    /**
+     * Hängt an result alle Paare aus Zeilen von left und right an, deren Werte in den
+     * Join-Spalten übereinstimmen; Zeilen mit null in der Join-Spalte haben keine Partner. Die
+     * Paare erscheinen in der Sortierreihenfolge der Werte, bei gleichen Werten geordnet nach der
+     * Position in leftRows und dann in rightRows.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in left, M = Anzahl
+     * der Zeilen in right, K = Anzahl der Paare und f(N, M) = N + M + K.
+     *
+     * @param left      linke Tabelle
+     * @param leftCol   Position der Join-Spalte in left
+     * @param leftRows  Zeilennummern von left in Sortierreihenfolge, null für 0, 1, 2, ...
+     * @param right     rechte Tabelle
+     * @param rightCol  Position der Join-Spalte in right
+     * @param rightRows Zeilennummern von right in Sortierreihenfolge, null für 0, 1, 2, ...
+     * @param sortDir   Sortierreihenfolge beider Seiten
+     * @param result    Tabelle, an die die Paare angehängt werden
+     * @pre beide Join-Spalten haben denselben Typ
+     * @pre beide Seiten sind gemäß sortDir sortiert, null vor allen anderen Werten bei ASC
+     */
+    static void equi(DBTable left, int leftCol, int[] leftRows, DBTable right, int rightCol,
+                     int[] rightRows, SortDirection sortDir, DBTable result) {
+        Side l = new Side(left, leftCol, leftRows);
+        Side r = new Side(right, rightCol, rightRows);
+        int sign = sortDir == SortDirection.ASC ? 1 : -1;
+        int i = 0;
+        int j = 0;
+        //O(N + M + K)
+        while (i < l.rows.length && j < r.rows.length) {
+            int c = sign * l.compare(i, r, j);
+            if (c < 0) {
+                i++;
+            } else if (c > 0) {
+                j++;
+            } else {
+                // Läufe gleicher Werte auf beiden Seiten bestimmen und kreuzen
+                int leftEnd = i + 1;
+                while (leftEnd < l.rows.length && l.compare(leftEnd, l, i) == 0) {
+                    leftEnd++;
+                }
+                int rightEnd = j + 1;
+                while (rightEnd < r.rows.length && r.compare(rightEnd, r, j) == 0) {
+                    rightEnd++;
+                }
+                // ein Lauf von null hat keine Partner
+                for (int a = i; a < leftEnd && !l.nulls[a]; a++) {
+                    List<String> leftRow = left.getRow(l.rows[a]);
+                    for (int b = j; b < rightEnd; b++) {
+                        result.appendJoinedRow(leftRow, right.getRow(r.rows[b]));
+                    }
+                }
+                i = leftEnd;
+                j = rightEnd;
+            }
+        }
+    }
+
+    /**
+     * Hängt an result alle Paare aus Zeilen von left und right an, für deren Schlüssel a in der
+     * Join-Spalte von left und b in der von right lower &lt;= b - a &lt;= upper gilt. Zeilen mit
+     * null in der Join-Spalte haben keine Partner. Die Paare erscheinen aufsteigend geordnet nach
+     * a, bei gleichem a nach der Position in leftRows und dann aufsteigend nach b.
+     * <p>
+     * Diese Methode arbeitet in O(f(N, M)), dabei ist N = Anzahl der Zeilen in left, M = Anzahl
+     * der Zeilen in right, K = Anzahl der Paare und f(N, M) = N + M + K.
+     *
+     * @param left      linke Tabelle
+     * @param leftCol   Position der Join-Spalte in left
+     * @param leftRows  Zeilennummern von left in aufsteigender Reihenfolge, null für 0, 1, 2, ...
+     * @param right     rechte Tabelle
+     * @param rightCol  Position der Join-Spalte in right
+     * @param rightRows Zeilennummern von right in aufsteigender Reihenfolge, null für 0, 1, 2, ...
+     * @param lower     kleinster Abstand, inklusive
+     * @param upper     größter Abstand, inklusive
+     * @param result    Tabelle, an die die Paare angehängt werden
+     * @pre beide Join-Spalten haben denselben Typ mit linear angeordneten Schlüsseln
+     * @pre lower &lt;= upper
+     */
+    static void band(DBTable left, int leftCol, int[] leftRows, DBTable right, int rightCol,
+                     int[] rightRows, long lower, long upper, DBTable result) {
+        assert lower <= upper;
+
+        Side l = new Side(left, leftCol, leftRows);
+        Side r = new Side(right, rightCol, rightRows);
+        // null steht in aufsteigender Reihenfolge vorne
+        int start = 0;
+        while (start < r.rows.length && r.nulls[start]) {
+            start++;
+        }
+        int i = 0;
+        while (i < l.rows.length && l.nulls[i]) {
+            i++;
+        }
+        //O(N + M + K)
+        for (; i < l.rows.length; i++) {
+            long from = add(l.keys[i], lower);
+            long to = add(l.keys[i], upper);
+            // die Untergrenzen steigen mit i, start muss daher nie zurück
+            while (start < r.rows.length && r.keys[start] < from) {
+                start++;
+            }
+            List<String> leftRow = null;
+            for (int j = start; j < r.rows.length && r.keys[j] <= to; j++) {
+                if (leftRow == null) {
+                    leftRow = left.getRow(l.rows[i]);
+                }
+                result.appendJoinedRow(leftRow, right.getRow(r.rows[j]));
+            }
+        }
+    }
+
+    /**
+     * Liefert a + b, bei Überlauf begrenzt auf den Wertebereich von long.
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    /**
+     * Die Werte der Join-Spalte einer Seite in Sortierreihenfolge.
+     */
+    private static final class Side {
+
+        /**
+         * Zeilennummern in Sortierreihenfolge
+         */
+        private final int[] rows;
+        /**
+         * Gibt je Position an, ob der Wert null ist
+         */
+        private final boolean[] nulls;
+        /**
+         * Schlüssel je Position, null falls die Spalte keine Schlüssel hat
+         */
+        private final long[] keys;
+        /**
+         * Werte je Position, null falls die Spalte Schlüssel hat
+         */
+        private final String[] strs;
+
+        Side(DBTable table, int col, int[] order) {
+            int rowCnt = table.getRowCnt();
+            this.rows = order != null ? order : new int[rowCnt];
+            if (order == null) {
+                for (int i = 0; i < rowCnt; i++) {
+                    this.rows[i] = i;
+                }
+            }
+            this.nulls = new boolean[rowCnt];
+            boolean hasKeys = table.getColType(table.getColIds().get(col)).hasKeys();
+            this.keys = hasKeys ? new long[rowCnt] : null;
+            this.strs = hasKeys ? null : new String[rowCnt];
+            for (int i = 0; i < rowCnt; i++) {
+                this.nulls[i] = table.isNull(this.rows[i], col);
+                if (this.nulls[i]) {
+                    continue;
+                }
+                if (hasKeys) {
+                    this.keys[i] = table.key(this.rows[i], col);
+                } else {
+                    this.strs[i] = table.cell(this.rows[i], col);
+                }
+            }
+        }
+
+        /**
+         * Vergleicht den Wert an der Position i mit dem Wert von other an der Position j, null
+         * vor allen anderen Werten.
+         */
+        int compare(int i, Side other, int j) {
+            if (this.nulls[i] || other.nulls[j]) {
+                return Boolean.compare(!this.nulls[i], !other.nulls[j]);
+            }
+            if (this.keys != null) {
+                return Long.compare(this.keys[i], other.keys[j]);
+            }
+            return this.strs[i].compareTo(other.strs[j]);
+        }
+    }
+
+}
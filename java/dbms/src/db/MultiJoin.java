@@ -0,0 +1,623 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ein Join über beliebig viele Tabellen einer Datenbank. Die beteiligten Tabellen werden bei der
+ * Erzeugung festgelegt, die Join-Bedingungen (Gleichheit zweier Spalten) über {@link #on}
+ * hinzugefügt.
+ * <p>
+ * Vor der Ausführung wird ein Plan bestimmt: Aus den Statistiken der Tabellen
+ * ({@link TableStats}) wird die Größe aller Zwischenergebnisse geschätzt und Reihenfolge sowie
+ * Verfahren ({@link JoinAlgorithm}) der einzelnen Joins so gewählt, dass die Summe aus
+ * Zwischenergebnisgrößen und Arbeitsaufwand der Verfahren minimal wird. Bis zu {@link #DP_LIMIT}
+ * Tabellen werden dazu alle Reihenfolgen per dynamischer Programmierung betrachtet, darüber wird
+ * gierig jeweils der günstigste nächste Join gewählt. {@link #explain()} liefert den gewählten
+ * Plan.
+ * <p>
+ * Das Ergebnis ist unabhängig vom gewählten Plan: Es enthält alle Spalten aller Tabellen in der
+ * Reihenfolge der Tabellen, benannt nach dem Schema Tabellenbezeichner, Unterstrich,
+ * Spaltenbezeichner. Die Zeilen stehen in der Reihenfolge, die eine Kette von
+ * {@link DBTable#equijoin} in der Reihenfolge der Tabellen liefern würde; wie dort hat null keine
+ * Partner.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class MultiJoin {
+
+    /**
+     * Höchstens so viele Zeilenpaare werden per {@link JoinAlgorithm#NESTED_LOOP} verglichen
+     */
+    static final int NESTED_LOOP_LIMIT = 64;
+    /**
+     * Bis zu dieser Tabellenanzahl werden alle Join-Reihenfolgen betrachtet
+     */
+    static final int DP_LIMIT = 12;
+
+    /**
+     * Beteiligte Tabellen in der Reihenfolge des Ergebnisses
+     */
+    private final List<DBTable> tables;
+    /**
+     * Statistiken der beteiligten Tabellen
+     */
+    private final List<TableStats> stats;
+    /**
+     * Join-Bedingungen
+     */
+    private final List<Edge> edges;
+    /**
+     * Zuletzt bestimmter Plan, null, wenn noch keiner bestimmt wurde
+     */
+    private Plan plan;
+
+    /**
+     * Erzeugt einen Join über den Tabellen someTables ohne Join-Bedingungen.
+     *
+     * @param someTables beteiligte Tabellen in der Reihenfolge des Ergebnisses
+     * @pre someTables != null
+     * @pre someTables muss mindestens zwei Tabellen enthalten
+     * @pre die Bezeichner der Tabellen müssen eindeutig sein
+     */
+    MultiJoin(final List<DBTable> someTables) {
+        assert someTables != null;
+        assert someTables.size() >= 2;
+
+        this.tables = new ArrayList<>(someTables);
+        this.stats = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (DBTable table : this.tables) {
+            this.stats.add(new TableStats(table));
+            ids.add(table.getId());
+        }
+        assert DBTable.areOnlyUniqueValues(ids);
+        this.edges = new ArrayList<>();
+    }
+
+    /**
+     * Fügt die Bedingung hinzu, dass der Wert in der Spalte colA der Tabelle tableA gleich dem
+     * Wert in der Spalte colB der Tabelle tableB ist.
+     *
+     * @param tableA Bezeichner der ersten Tabelle
+     * @param colA   Spaltenbezeichner in der ersten Tabelle
+     * @param tableB Bezeichner der zweiten Tabelle
+     * @param colB   Spaltenbezeichner in der zweiten Tabelle
+     * @return dieser Join
+     * @pre tableA, colA, tableB und colB != null
+     * @pre tableA und tableB müssen verschiedene beteiligte Tabellen bezeichnen
+     * @pre die Tabellen müssen die jeweiligen Spalten haben
+     */
+    public MultiJoin on(final String tableA, final String colA, final String tableB,
+                        final String colB) {
+        assert tableA != null;
+        assert colA != null;
+        assert tableB != null;
+        assert colB != null;
+
+        int a = tablePos(tableA);
+        int b = tablePos(tableB);
+        assert a >= 0 && b >= 0 && a != b;
+        assert this.tables.get(a).hasCol(colA);
+        assert this.tables.get(b).hasCol(colB);
+
+        this.edges.add(new Edge(a, this.tables.get(a).colIndex(colA), b,
+                this.tables.get(b).colIndex(colB)));
+        this.plan = null;
+        return this;
+    }
+
+    /**
+     * Liefert eine Beschreibung des gewählten Plans. Jede Zeile beschreibt einen Schritt mit
+     * Verfahren, Bedingungen und geschätzter Zeilenanzahl; die Eingaben eines Schrittes folgen
+     * eingerückt.
+     *
+     * @return Beschreibung des Plans
+     * @pre die Join-Bedingungen müssen alle Tabellen miteinander verbinden
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        plan().explain(sb, 0);
+        return sb.toString();
+    }
+
+    /**
+     * Liefert die geschätzte Zeilenanzahl des Ergebnisses.
+     *
+     * @return geschätzte Zeilenanzahl
+     * @pre die Join-Bedingungen müssen alle Tabellen miteinander verbinden
+     */
+    public double getEstimatedRowCnt() {
+        return plan().rows;
+    }
+
+    /**
+     * Führt den Join nach dem gewählten Plan aus und liefert das Ergebnis als neue Tabelle mit dem
+     * Bezeichner newTableId.
+     *
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre newTableId != null
+     * @pre der Bezeichner newTableId muss gültig sein
+     * @pre die Join-Bedingungen müssen alle Tabellen miteinander verbinden
+     * @post die Bezeichner der neuen Tabellenspalten müssen eindeutig sein
+     */
+    public DBTable execute(final String newTableId) {
+        assert newTableId != null;
+        assert DBTable.isValidIdentifier(newTableId);
+
+        List<int[]> tuples = plan().run();
+        // Reihenfolge einer equijoin-Kette in Reihenfolge der Tabellen herstellen
+        Collections.sort(tuples, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                for (int i = 0; i < o1.length; i++) {
+                    if (o1[i] != o2[i]) {
+                        return Integer.compare(o1[i], o2[i]);
+                    }
+                }
+                return 0;
+            }
+        });
+
+        List<String> allCols = new ArrayList<>();
+        List<ColumnType> allTypes = new ArrayList<>();
+        for (DBTable table : this.tables) {
+            for (String s : table.getColIds()) {
+                allCols.add(table.getId() + "_" + s);
+                allTypes.add(table.getColType(s));
+            }
+        }
+        assert DBTable.areOnlyUniqueValues(allCols);
+
+        DBTable result = new DBTable(newTableId, allCols, allTypes,
+                this.tables.get(0).getLayout());
+        for (int[] tuple : tuples) {
+            List<String> row = new ArrayList<>(allCols.size());
+            for (int t = 0; t < tuple.length; t++) {
+                row.addAll(this.tables.get(t).getRow(tuple[t]));
+            }
+            result.appendRow(row);
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die Position der Tabelle mit dem Bezeichner anId.
+     *
+     * @param anId Bezeichner der Tabelle
+     * @return Position der Tabelle oder -1
+     */
+    private int tablePos(String anId) {
+        for (int i = 0; i < this.tables.size(); i++) {
+            if (this.tables.get(i).getId().equals(anId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Liefert den günstigsten Plan und bestimmt ihn bei Bedarf.
+     *
+     * @return günstigster Plan
+     */
+    private Plan plan() {
+        if (this.plan == null) {
+            int n = this.tables.size();
+            List<Plan> leaves = new ArrayList<>();
+            for (int t = 0; t < n; t++) {
+                leaves.add(new Leaf(t));
+            }
+            this.plan = n <= DP_LIMIT ? planExhaustive(leaves) : planGreedy(leaves);
+            assert this.plan != null : "Die Join-Bedingungen verbinden nicht alle Tabellen";
+        }
+        return this.plan;
+    }
+
+    /**
+     * Bestimmt per dynamischer Programmierung über alle Tabellenmengen den günstigsten Plan.
+     * <p>
+     * Diese Methode arbeitet in O(3^T), dabei ist T = Anzahl der Tabellen.
+     *
+     * @param leaves Pläne der einzelnen Tabellen
+     * @return günstigster Plan oder null, falls die Tabellen nicht verbunden sind
+     */
+    private Plan planExhaustive(List<Plan> leaves) {
+        int n = leaves.size();
+        Plan[] best = new Plan[1 << n];
+        for (int t = 0; t < n; t++) {
+            best[1 << t] = leaves.get(t);
+        }
+        for (int mask = 1; mask < best.length; mask++) {
+            if (Integer.bitCount(mask) < 2) {
+                continue;
+            }
+            // Zerlegungen, bei denen die linke Teilmenge das niedrigste Bit enthält
+            int low = Integer.lowestOneBit(mask);
+            for (int left = (mask - 1) & mask; left > 0; left = (left - 1) & mask) {
+                int right = mask & ~left;
+                if ((left & low) == 0 || best[left] == null || best[right] == null) {
+                    continue;
+                }
+                Plan candidate = cheapestJoin(best[left], best[right]);
+                if (candidate != null && (best[mask] == null || candidate.cost < best[mask].cost)) {
+                    best[mask] = candidate;
+                }
+            }
+        }
+        return best[best.length - 1];
+    }
+
+    /**
+     * Bestimmt gierig einen Plan, indem jeweils die beiden Teilpläne mit dem günstigsten Join
+     * verbunden werden.
+     * <p>
+     * Diese Methode arbeitet in O(T^3), dabei ist T = Anzahl der Tabellen.
+     *
+     * @param leaves Pläne der einzelnen Tabellen
+     * @return Plan oder null, falls die Tabellen nicht verbunden sind
+     */
+    private Plan planGreedy(List<Plan> leaves) {
+        List<Plan> parts = new ArrayList<>(leaves);
+        while (parts.size() > 1) {
+            Plan best = null;
+            for (int i = 0; i < parts.size(); i++) {
+                for (int j = i + 1; j < parts.size(); j++) {
+                    Plan candidate = cheapestJoin(parts.get(i), parts.get(j));
+                    if (candidate != null && (best == null || candidate.cost < best.cost)) {
+                        best = candidate;
+                    }
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            Join join = (Join) best;
+            parts.remove(join.left);
+            parts.remove(join.right);
+            parts.add(best);
+        }
+        return parts.get(0);
+    }
+
+    /**
+     * Bestimmt das günstigste Verfahren, um die Teilpläne left und right zu verbinden.
+     *
+     * @param left  linker Teilplan
+     * @param right rechter Teilplan
+     * @return günstigster Join oder null, falls keine Bedingung die Teilpläne verbindet
+     */
+    private Plan cheapestJoin(Plan left, Plan right) {
+        List<Edge> conds = new ArrayList<>();
+        double rows = left.rows * right.rows;
+        for (Edge e : this.edges) {
+            Edge oriented = e.orient(left.mask, right.mask);
+            if (oriented != null) {
+                conds.add(oriented);
+                double dl = Math.min(left.rows, distinct(oriented.ta, oriented.ca));
+                double dr = Math.min(right.rows, distinct(oriented.tb, oriented.cb));
+                rows /= Math.max(1, Math.max(dl, dr));
+            }
+        }
+        if (conds.isEmpty()) {
+            return null;
+        }
+
+        double inputCost = left.cost + right.cost + rows;
+        Join best = new Join(left, right, conds, JoinAlgorithm.HASH, rows,
+                inputCost + left.rows + right.rows);
+        if (left.rows * right.rows <= NESTED_LOOP_LIMIT
+                && inputCost + left.rows * right.rows < best.cost) {
+            best = new Join(left, right, conds, JoinAlgorithm.NESTED_LOOP, rows,
+                    inputCost + left.rows * right.rows);
+        }
+        // Vorhandenen Index einer einzelnen Tabelle sondieren: kein Aufbau eines Hash-Index
+        for (int i = 0; i < conds.size(); i++) {
+            Edge e = conds.get(i);
+            if (right instanceof Leaf && inputCost + left.rows < best.cost
+                    && this.tables.get(e.tb).columnIndex(e.cb) != null) {
+                best = new Join(left, right, moveToFront(conds, i), JoinAlgorithm.INDEX, rows,
+                        inputCost + left.rows);
+            }
+            if (left instanceof Leaf && inputCost + right.rows < best.cost
+                    && this.tables.get(e.ta).columnIndex(e.ca) != null) {
+                best = new Join(right, left, flip(moveToFront(conds, i)), JoinAlgorithm.INDEX,
+                        rows, inputCost + right.rows);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Liefert die geschätzte Anzahl verschiedener Werte in Spalte col der Tabelle t.
+     *
+     * @param t   Position der Tabelle
+     * @param col Position der Spalte
+     * @return geschätzte Anzahl verschiedener Werte
+     */
+    private double distinct(int t, int col) {
+        return this.stats.get(t).getDistinctCnt(this.tables.get(t).getColIds().get(col));
+    }
+
+    /**
+     * Liefert eine Kopie von conds, in der die Bedingung an Position i vorne steht.
+     *
+     * @param conds Bedingungen
+     * @param i     Position der Bedingung
+     * @return umsortierte Bedingungen
+     */
+    private static List<Edge> moveToFront(List<Edge> conds, int i) {
+        List<Edge> result = new ArrayList<>(conds);
+        result.add(0, result.remove(i));
+        return result;
+    }
+
+    /**
+     * Liefert die Bedingungen conds mit vertauschten Seiten.
+     *
+     * @param conds Bedingungen
+     * @return Bedingungen mit vertauschten Seiten
+     */
+    private static List<Edge> flip(List<Edge> conds) {
+        List<Edge> result = new ArrayList<>(conds.size());
+        for (Edge e : conds) {
+            result.add(new Edge(e.tb, e.cb, e.ta, e.ca));
+        }
+        return result;
+    }
+
+    /**
+     * Gleichheitsbedingung zwischen Spalte ca der Tabelle ta und Spalte cb der Tabelle tb.
+     */
+    private static final class Edge {
+
+        private final int ta;
+        private final int ca;
+        private final int tb;
+        private final int cb;
+
+        Edge(int ta, int ca, int tb, int cb) {
+            this.ta = ta;
+            this.ca = ca;
+            this.tb = tb;
+            this.cb = cb;
+        }
+
+        /**
+         * Liefert die Bedingung so ausgerichtet, dass die Seite a in left und die Seite b in right
+         * liegt, oder null, wenn die Bedingung left und right nicht verbindet.
+         */
+        Edge orient(int left, int right) {
+            if ((left & (1 << this.ta)) != 0 && (right & (1 << this.tb)) != 0) {
+                return this;
+            }
+            if ((left & (1 << this.tb)) != 0 && (right & (1 << this.ta)) != 0) {
+                return new Edge(this.tb, this.cb, this.ta, this.ca);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Knoten eines Plans.
+     */
+    private abstract class Plan {
+
+        /**
+         * Menge der enthaltenen Tabellen als Bitmaske
+         */
+        final int mask;
+        /**
+         * Geschätzte Zeilenanzahl
+         */
+        final double rows;
+        /**
+         * Geschätzte Kosten
+         */
+        final double cost;
+
+        Plan(int mask, double rows, double cost) {
+            this.mask = mask;
+            this.rows = rows;
+            this.cost = cost;
+        }
+
+        /**
+         * Liefert die Ergebniszeilen als Zeilennummern je Tabelle (Position der Tabelle), nicht
+         * enthaltene Tabellen haben den Wert -1.
+         */
+        abstract List<int[]> run();
+
+        abstract void explain(StringBuilder sb, int depth);
+
+        /**
+         * Liefert den Wert der Spalte col der Tabelle t in der Ergebniszeile tuple.
+         */
+        String value(int[] tuple, int t, int col) {
+            return tables.get(t).cell(tuple[t], col);
+        }
+
+        void indent(StringBuilder sb, int depth) {
+            for (int i = 0; i < depth; i++) {
+                sb.append("  ");
+            }
+        }
+    }
+
+    /**
+     * Lesen einer einzelnen Tabelle.
+     */
+    private final class Leaf extends Plan {
+
+        private final int t;
+
+        Leaf(int t) {
+            super(1 << t, tables.get(t).getRowCnt(), 0);
+            this.t = t;
+        }
+
+        @Override
+        List<int[]> run() {
+            List<int[]> result = new ArrayList<>(tables.get(this.t).getRowCnt());
+            for (int row = 0; row < tables.get(this.t).getRowCnt(); row++) {
+                int[] tuple = new int[tables.size()];
+                Arrays.fill(tuple, -1);
+                tuple[this.t] = row;
+                result.add(tuple);
+            }
+            return result;
+        }
+
+        @Override
+        void explain(StringBuilder sb, int depth) {
+            indent(sb, depth);
+            sb.append("SCAN ").append(tables.get(this.t).getId())
+                    .append(" (").append((long) this.rows).append(" Zeilen)\n");
+        }
+    }
+
+    /**
+     * Verbinden zweier Teilpläne. Die erste Bedingung dient als Schlüssel, die übrigen werden für
+     * jedes gefundene Paar geprüft. Bei {@link JoinAlgorithm#INDEX} ist right eine einzelne
+     * Tabelle, deren Index über die Schlüsselspalte sondiert wird.
+     */
+    private final class Join extends Plan {
+
+        private final Plan left;
+        private final Plan right;
+        private final List<Edge> conds;
+        private final JoinAlgorithm algorithm;
+
+        Join(Plan left, Plan right, List<Edge> conds, JoinAlgorithm algorithm, double rows,
+             double cost) {
+            super(left.mask | right.mask, rows, cost);
+            this.left = left;
+            this.right = right;
+            this.conds = conds;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        List<int[]> run() {
+            List<int[]> l = this.left.run();
+            List<int[]> result = new ArrayList<>();
+            if (this.algorithm == JoinAlgorithm.INDEX) {
+                Edge key = this.conds.get(0);
+                ColumnIndex index = tables.get(key.tb).columnIndex(key.cb);
+                for (int[] a : l) {
+                    String k = value(a, key.ta, key.ca);
+                    if (k == null) {
+                        continue;
+                    }
+                    for (int row : index.lookup(k)) {
+                        int[] tuple = a.clone();
+                        tuple[key.tb] = row;
+                        if (matches(tuple)) {
+                            result.add(tuple);
+                        }
+                    }
+                }
+            } else if (this.algorithm == JoinAlgorithm.NESTED_LOOP) {
+                List<int[]> r = this.right.run();
+                for (int[] a : l) {
+                    for (int[] b : r) {
+                        int[] tuple = merge(a, b);
+                        if (matches(tuple)) {
+                            result.add(tuple);
+                        }
+                    }
+                }
+            } else {
+                List<int[]> r = this.right.run();
+                boolean buildLeft = l.size() < r.size();
+                List<int[]> build = buildLeft ? l : r;
+                List<int[]> probe = buildLeft ? r : l;
+                Edge key = this.conds.get(0);
+                int bt = buildLeft ? key.ta : key.tb;
+                int bc = buildLeft ? key.ca : key.cb;
+                int pt = buildLeft ? key.tb : key.ta;
+                int pc = buildLeft ? key.cb : key.ca;
+
+                Map<String, List<int[]>> index = new HashMap<>();
+                for (int[] b : build) {
+                    String k = value(b, bt, bc);
+                    if (k == null) {
+                        continue;
+                    }
+                    List<int[]> hits = index.get(k);
+                    if (hits == null) {
+                        hits = new ArrayList<>(1);
+                        index.put(k, hits);
+                    }
+                    hits.add(b);
+                }
+                for (int[] p : probe) {
+                    // ohne null im Index findet null keine Partner
+                    List<int[]> hits = index.get(value(p, pt, pc));
+                    if (hits != null) {
+                        for (int[] b : hits) {
+                            int[] tuple = merge(p, b);
+                            if (matches(tuple)) {
+                                result.add(tuple);
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Verbindet zwei Ergebniszeilen disjunkter Tabellenmengen.
+         */
+        private int[] merge(int[] a, int[] b) {
+            int[] tuple = a.clone();
+            for (int t = 0; t < tuple.length; t++) {
+                if (b[t] >= 0) {
+                    tuple[t] = b[t];
+                }
+            }
+            return tuple;
+        }
+
+        /**
+         * Prüft alle Bedingungen dieses Joins; null stimmt mit keinem Wert überein.
+         */
+        private boolean matches(int[] tuple) {
+            for (Edge e : this.conds) {
+                String a = value(tuple, e.ta, e.ca);
+                String b = value(tuple, e.tb, e.cb);
+                if (a == null || !a.equals(b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void explain(StringBuilder sb, int depth) {
+            indent(sb, depth);
+            sb.append(this.algorithm).append(" JOIN");
+            String sep = " ON ";
+            for (Edge e : this.conds) {
+                sb.append(sep).append(name(e.ta, e.ca)).append(" = ").append(name(e.tb, e.cb));
+                sep = " AND ";
+            }
+            sb.append(" (geschätzt ").append(Math.round(this.rows)).append(" Zeilen, Kosten ")
+                    .append(Math.round(this.cost)).append(")\n");
+            this.left.explain(sb, depth + 1);
+            this.right.explain(sb, depth + 1);
+        }
+
+        private String name(int t, int col) {
+            return tables.get(t).getId() + "." + tables.get(t).getColIds().get(col);
+        }
+    }
+
+}
@@ -0,0 +1,269 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Führt Durchläufe über die Zeilen einer Datenbanktabelle aus. Ab einer gegebenen Zeilenanzahl
+ * wird der Zeilenbereich per Fork/Join in Teilbereiche zerlegt, die parallel bearbeitet und
+ * anschließend in der ursprünglichen Reihenfolge zusammengefügt werden. Das Ergebnis ist daher
+ * unabhängig davon, ob parallel gearbeitet wurde.
+ * <p>
+ * Die übergebenen Funktionen werden bei paralleler Ausführung gleichzeitig aus mehreren Threads
+ * aufgerufen und müssen daher seiteneffektfrei sein.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class ParallelScan {
+
+    /**
+     * Voreingestellte Zeilenanzahl, ab der parallel gearbeitet wird
+     */
+    static final int DEFAULT_THRESHOLD = 100000;
+    /**
+     * Minimale Größe eines Teilbereiches
+     */
+    private static final int MIN_CHUNK = 4096;
+
+    /**
+     * Keine Instanzen.
+     */
+    private ParallelScan() {
+    }
+
+    /**
+     * Liefert die aufsteigend sortierten Zeilennummern aus [0, rowCnt), für die filter zutrifft.
+     *
+     * @param rowCnt    Anzahl der Zeilen
+     * @param threshold Zeilenanzahl, ab der parallel gearbeitet wird
+     * @param filter    Test einer Zeilennummer
+     * @return Zeilennummern, für die filter zutrifft
+     */
+    static int[] filter(final int rowCnt, final int threshold, final IntPredicate filter) {
+        FilterTask task = new FilterTask(0, rowCnt, chunkSize(rowCnt), filter);
+        if (rowCnt < threshold) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * Wendet mapper auf alle Zeilennummern aus [0, rowCnt) an und liefert die Ergebnisse in der
+     * Reihenfolge der Zeilen.
+     *
+     * @param rowCnt    Anzahl der Zeilen
+     * @param threshold Zeilenanzahl, ab der parallel gearbeitet wird
+     * @param mapper    Abbildung einer Zeilennummer
+     * @param <T>       Ergebnistyp
+     * @return Ergebnisse in der Reihenfolge der Zeilen
+     */
+    static <T> List<T> map(final int rowCnt, final int threshold, final IntFunction<T> mapper) {
+        return map(rowCnt, threshold, MIN_CHUNK, mapper);
+    }
+
+    /**
+     * Wendet mapper auf alle Nummern aus [0, cnt) an und liefert die Ergebnisse in der
+     * Reihenfolge der Nummern. Anders als bei {@link #map(int, int, IntFunction)} stehen die
+     * Nummern für größere Einheiten, etwa Blöcke von Zeilen, sodass Teilbereiche schon ab minChunk
+     * Nummern gebildet werden.
+     *
+     * @param cnt       Anzahl der Nummern
+     * @param threshold Anzahl der Nummern, ab der parallel gearbeitet wird
+     * @param minChunk  minimale Größe eines Teilbereiches
+     * @param mapper    Abbildung einer Nummer
+     * @param <T>       Ergebnistyp
+     * @return Ergebnisse in der Reihenfolge der Nummern
+     */
+    static <T> List<T> map(final int cnt, final int threshold, final int minChunk,
+                           final IntFunction<T> mapper) {
+        MapTask<T> task = new MapTask<>(0, cnt, chunkSize(cnt, minChunk), mapper);
+        if (cnt < threshold) {
+            return task.compute();
+        }
+        return ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * Fasst alle Zeilennummern aus [0, rowCnt) zu einem Ergebnis zusammen. Jeder Teilbereich
+     * beginnt mit einem eigenen Teilergebnis aus create, nimmt seine Zeilen der Reihe nach per
+     * accumulate auf, und benachbarte Teilergebnisse werden per combine zusammengeführt, das
+     * linke als erstes Argument. Ohne Parallelität gibt es nur ein Teilergebnis.
+     *
+     * @param rowCnt     Anzahl der Zeilen
+     * @param threshold  Zeilenanzahl, ab der parallel gearbeitet wird
+     * @param create     Erzeugung eines leeren Teilergebnisses
+     * @param accumulate Aufnahme einer Zeilennummer in ein Teilergebnis
+     * @param combine    Zusammenführung zweier Teilergebnisse
+     * @param <T>        Ergebnistyp
+     * @return Ergebnis über alle Zeilen
+     */
+    static <T> T reduce(final int rowCnt, final int threshold, final Supplier<T> create,
+                        final ObjIntConsumer<T> accumulate, final BinaryOperator<T> combine) {
+        if (rowCnt < threshold) {
+            return new ReduceTask<>(0, rowCnt, rowCnt, create, accumulate, combine).compute();
+        }
+        return ForkJoinPool.commonPool().invoke(
+                new ReduceTask<>(0, rowCnt, chunkSize(rowCnt), create, accumulate, combine));
+    }
+
+    /**
+     * Bestimmt die Größe der Teilbereiche, sodass jeder Thread einige Teilbereiche erhält.
+     *
+     * @param rowCnt Anzahl der Zeilen
+     * @return Größe eines Teilbereiches
+     */
+    private static int chunkSize(int rowCnt) {
+        return chunkSize(rowCnt, MIN_CHUNK);
+    }
+
+    /**
+     * Bestimmt die Größe der Teilbereiche, sodass jeder Thread einige Teilbereiche erhält, jedoch
+     * mindestens minChunk.
+     *
+     * @param cnt      Anzahl der Nummern
+     * @param minChunk minimale Größe eines Teilbereiches
+     * @return Größe eines Teilbereiches
+     */
+    private static int chunkSize(int cnt, int minChunk) {
+        return Math.max(minChunk, cnt / (ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    /**
+     * Teilaufgabe, die die zutreffenden Zeilennummern eines Bereiches bestimmt.
+     */
+    private static final class FilterTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final IntPredicate filter;
+
+        FilterTask(int from, int to, int chunk, IntPredicate filter) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.filter = filter;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (this.to - this.from <= this.chunk) {
+                int[] result = new int[this.to - this.from];
+                int cnt = 0;
+                for (int i = this.from; i < this.to; i++) {
+                    if (this.filter.test(i)) {
+                        result[cnt++] = i;
+                    }
+                }
+                return Arrays.copyOf(result, cnt);
+            }
+            int mid = (this.from + this.to) >>> 1;
+            FilterTask left = new FilterTask(this.from, mid, this.chunk, this.filter);
+            FilterTask right = new FilterTask(mid, this.to, this.chunk, this.filter);
+            left.fork();
+            int[] r = right.compute();
+            int[] l = left.join();
+            int[] result = Arrays.copyOf(l, l.length + r.length);
+            System.arraycopy(r, 0, result, l.length, r.length);
+            return result;
+        }
+    }
+
+    /**
+     * Teilaufgabe, die die Zeilen eines Bereiches abbildet.
+     *
+     * @param <T> Ergebnistyp
+     */
+    private static final class MapTask<T> extends RecursiveTask<List<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final IntFunction<T> mapper;
+
+        MapTask(int from, int to, int chunk, IntFunction<T> mapper) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (this.to - this.from <= this.chunk) {
+                List<T> result = new ArrayList<>(this.to - this.from);
+                for (int i = this.from; i < this.to; i++) {
+                    result.add(this.mapper.apply(i));
+                }
+                return result;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            MapTask<T> left = new MapTask<>(this.from, mid, this.chunk, this.mapper);
+            MapTask<T> right = new MapTask<>(mid, this.to, this.chunk, this.mapper);
+            left.fork();
+            List<T> r = right.compute();
+            List<T> result = left.join();
+            result.addAll(r);
+            return result;
+        }
+    }
+
+    /**
+     * Teilaufgabe, die die Zeilen eines Bereiches zusammenfasst.
+     *
+     * @param <T> Ergebnistyp
+     */
+    private static final class ReduceTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final Supplier<T> create;
+        private final ObjIntConsumer<T> accumulate;
+        private final BinaryOperator<T> combine;
+
+        ReduceTask(int from, int to, int chunk, Supplier<T> create, ObjIntConsumer<T> accumulate,
+                   BinaryOperator<T> combine) {
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.create = create;
+            this.accumulate = accumulate;
+            this.combine = combine;
+        }
+
+        @Override
+        protected T compute() {
+            if (this.to - this.from <= this.chunk) {
+                T result = this.create.get();
+                for (int i = this.from; i < this.to; i++) {
+                    this.accumulate.accept(result, i);
+                }
+                return result;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            ReduceTask<T> left = new ReduceTask<>(this.from, mid, this.chunk, this.create,
+                    this.accumulate, this.combine);
+            ReduceTask<T> right = new ReduceTask<>(mid, this.to, this.chunk, this.create,
+                    this.accumulate, this.combine);
+            left.fork();
+            T r = right.compute();
+            return this.combine.apply(left.join(), r);
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Partitionierter Speicher einer Datenbanktabelle (siehe {@link DBTable#partition}). Jede
+ * Partition liegt in einem eigenen Speicher des Speicherlayouts der Tabelle. Die Zeilennummern
+ * zählen die Partitionen der Reihe nach durch: zuerst alle Zeilen der Partition 0 in der
+ * Reihenfolge ihres Anhängens, dann die der Partition 1 usw. Eine angehängte Zeile wird daher die
+ * letzte Zeile ihrer Partition, nicht unbedingt die letzte Zeile des Speichers.
+ * <p>
+ * Ein Zugriff auf eine Zeile sucht ihre Partition binär in den Anfangszeilen der Partitionen.
+ * Eine Partition, deren Zeilen alle entfernt werden, wird durch einen leeren Speicher ersetzt,
+ * ohne ihre Zeilen anzufassen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class PartitionedStore implements TableStore {
+
+    /**
+     * Aufteilung der Zeilen
+     */
+    private final Partitioning partitioning;
+    /**
+     * Position der Spalte, deren Werte die Partition bestimmen
+     */
+    private final int col;
+    /**
+     * Speicherlayout der Partitionen
+     */
+    private final StorageLayout layout;
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Speicher der Partitionen
+     */
+    private final TableStore[] parts;
+    /**
+     * Erste Zeilennummer je Partition, an letzter Stelle die Zeilenanzahl
+     */
+    private final int[] offsets;
+
+    /**
+     * Erzeugt einen leeren Speicher, dessen Zeilen gemäß partitioning nach der Spalte an der
+     * Position col aufgeteilt werden.
+     *
+     * @param partitioning Aufteilung der Zeilen
+     * @param col          Position der Spalte, deren Werte die Partition bestimmen
+     * @param layout       Speicherlayout der Partitionen
+     * @param types        Typen der Spalten
+     * @pre partitioning.fits(types[col])
+     */
+    PartitionedStore(final Partitioning partitioning, final int col, final StorageLayout layout,
+                     final ColumnType[] types) {
+        assert partitioning.fits(types[col]);
+
+        this.partitioning = partitioning;
+        this.col = col;
+        this.layout = layout;
+        this.types = types.clone();
+        this.parts = new TableStore[partitioning.getPartitionCnt()];
+        for (int p = 0; p < this.parts.length; p++) {
+            this.parts[p] = TableStore.create(layout, this.types);
+        }
+        this.offsets = new int[this.parts.length + 1];
+    }
+
+    /**
+     * Erzeugt einen Speicher mit den Partitionen parts von other.
+     *
+     * @param other Speicher, dessen Aufteilung übernommen wird
+     * @param parts Speicher der Partitionen
+     */
+    private PartitionedStore(PartitionedStore other, TableStore[] parts) {
+        this.partitioning = other.partitioning;
+        this.col = other.col;
+        this.layout = other.layout;
+        this.types = other.types;
+        this.parts = parts;
+        this.offsets = new int[parts.length + 1];
+        updateOffsets(0);
+    }
+
+    /**
+     * Liefert die Aufteilung der Zeilen.
+     *
+     * @return Partitionierung
+     */
+    Partitioning getPartitioning() {
+        return this.partitioning;
+    }
+
+    /**
+     * Liefert die erste Zeilennummer der Partition partition.
+     *
+     * @param partition Nummer der Partition, getPartitioning().getPartitionCnt() für das Ende
+     * @return Zeilennummer
+     */
+    int start(final int partition) {
+        return this.offsets[partition];
+    }
+
+    /**
+     * Liefert den Speicher der Partition partition. Seine Zeilennummern zählen ab
+     * {@link #start start(partition)}.
+     *
+     * @param partition Nummer der Partition
+     * @return Speicher der Partition
+     */
+    TableStore part(final int partition) {
+        return this.parts[partition];
+    }
+
+    /**
+     * Liefert die Partition, in die eine Zeile mit dem Wert value in der Partitionsspalte gehört.
+     *
+     * @param value Wert in Normalform, auch null
+     * @return Nummer der Partition
+     */
+    int partitionOfValue(final String value) {
+        return this.partitioning.partitionOf(value, this.types[this.col]);
+    }
+
+    /**
+     * Liefert die Partition der Zeile mit der Zeilennummer row.
+     *
+     * @param row Zeilennummer
+     * @return Nummer der Partition
+     * @pre 0 <= row < size()
+     */
+    int partitionOfRow(final int row) {
+        int lo = 0;
+        int hi = this.parts.length - 1;
+        //O(Log(P)), gesucht ist die letzte Partition mit offsets[p] <= row
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (this.offsets[mid] <= row) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Hängt die Werte von row als letzte Zeile ihrer Partition an.
+     *
+     * @param row Werte der Zeile
+     * @return Zeilennummer der angehängten Zeile
+     * @pre row.size() entspricht der Spaltenanzahl
+     * @pre alle Werte müssen zum Typ ihrer Spalte passen
+     */
+    int insert(final Collection<String> row) {
+        String value = row instanceof List ? ((List<String>) row).get(this.col)
+                : new ArrayList<>(row).get(this.col);
+        int p = partitionOfValue(this.types[this.col].normalize(value));
+        this.parts[p].append(row);
+        for (int q = p + 1; q < this.offsets.length; q++) {
+            this.offsets[q]++;
+        }
+        return this.offsets[p + 1] - 1;
+    }
+
+    /**
+     * Entfernt alle Zeilen der Partition partition, ohne sie einzeln anzufassen.
+     * <p>
+     * Diese Methode arbeitet in O(f(P)), dabei ist P = Anzahl der Partitionen und f(P) = P.
+     *
+     * @param partition Nummer der Partition
+     */
+    void drop(final int partition) {
+        this.parts[partition] = TableStore.create(this.layout, this.types);
+        updateOffsets(partition);
+    }
+
+    @Override
+    public int size() {
+        return this.offsets[this.parts.length];
+    }
+
+    @Override
+    public String get(int row, int aCol) {
+        int p = partitionOfRow(row);
+        return this.parts[p].get(row - this.offsets[p], aCol);
+    }
+
+    @Override
+    public List<String> getRow(int row) {
+        int p = partitionOfRow(row);
+        return this.parts[p].getRow(row - this.offsets[p]);
+    }
+
+    @Override
+    public boolean isNull(int row, int aCol) {
+        int p = partitionOfRow(row);
+        return this.parts[p].isNull(row - this.offsets[p], aCol);
+    }
+
+    @Override
+    public long key(int row, int aCol) {
+        int p = partitionOfRow(row);
+        return this.parts[p].key(row - this.offsets[p], aCol);
+    }
+
+    @Override
+    public void values(int aCol, int from, int to, String[] out) {
+        int p = from < to ? partitionOfRow(from) : 0;
+        for (int i = from; i < to; p++) {
+            int end = Math.min(to, this.offsets[p + 1]);
+            if (i == from && end == to) {
+                this.parts[p].values(aCol, i - this.offsets[p], end - this.offsets[p], out);
+                return;
+            }
+            String[] chunk = new String[end - i];
+            this.parts[p].values(aCol, i - this.offsets[p], end - this.offsets[p], chunk);
+            System.arraycopy(chunk, 0, out, i - from, chunk.length);
+            i = end;
+        }
+    }
+
+    @Override
+    public void keys(int aCol, int from, int to, long[] keys, boolean[] nulls) {
+        int p = from < to ? partitionOfRow(from) : 0;
+        for (int i = from; i < to; p++) {
+            int end = Math.min(to, this.offsets[p + 1]);
+            if (i == from && end == to) {
+                this.parts[p].keys(aCol, i - this.offsets[p], end - this.offsets[p], keys, nulls);
+                return;
+            }
+            long[] chunkKeys = new long[end - i];
+            boolean[] chunkNulls = new boolean[end - i];
+            this.parts[p].keys(aCol, i - this.offsets[p], end - this.offsets[p], chunkKeys,
+                    chunkNulls);
+            System.arraycopy(chunkKeys, 0, keys, i - from, chunkKeys.length);
+            System.arraycopy(chunkNulls, 0, nulls, i - from, chunkNulls.length);
+            i = end;
+        }
+    }
+
+    @Override
+    public void append(Collection<String> row) {
+        insert(row);
+    }
+
+    @Override
+    public void appendAll(List<List<String>> rows) {
+        for (List<String> row : rows) {
+            insert(row);
+        }
+    }
+
+    @Override
+    public void reserve(int rowCnt) {
+        // die Verteilung auf die Partitionen ist vorab nicht bekannt
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        for (int p = 0; p < this.parts.length; p++) {
+            int from = this.offsets[p];
+            int to = this.offsets[p + 1];
+            int first = rows.nextSetBit(from);
+            if (first < 0 || first >= to) {
+                continue;
+            }
+            if (rows.nextClearBit(first) >= to && first == from) {
+                // ganze Partition
+                this.parts[p] = TableStore.create(this.layout, this.types);
+            } else {
+                this.parts[p].remove(rows.get(from, to));
+            }
+        }
+        updateOffsets(0);
+    }
+
+    @Override
+    public void clear() {
+        for (TableStore part : this.parts) {
+            part.clear();
+        }
+        updateOffsets(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @pre jede Zeile bleibt in ihrer Partition
+     */
+    @Override
+    public void permute(int[] order) {
+        for (int p = 0; p < this.parts.length; p++) {
+            int from = this.offsets[p];
+            int[] local = new int[this.offsets[p + 1] - from];
+            for (int i = 0; i < local.length; i++) {
+                local[i] = order[from + i] - from;
+                assert local[i] >= 0 && local[i] < local.length;
+            }
+            this.parts[p].permute(local);
+        }
+    }
+
+    @Override
+    public int code(int row, int col) {
+        // jede Partition codiert mit ihrem eigenen Wörterbuch
+        throw new UnsupportedOperationException("Spalte ohne Wörterbuch");
+    }
+
+    @Override
+    public TableStore snapshot() {
+        TableStore[] copies = new TableStore[this.parts.length];
+        for (int p = 0; p < copies.length; p++) {
+            copies[p] = this.parts[p].snapshot();
+        }
+        return new PartitionedStore(this, copies);
+    }
+
+    /**
+     * Berechnet die ersten Zeilennummern der Partitionen ab partition neu.
+     */
+    private void updateOffsets(int partition) {
+        for (int p = partition; p < this.parts.length; p++) {
+            this.offsets[p + 1] = this.offsets[p] + this.parts[p].size();
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Die Aufteilung der Zeilen einer Datenbanktabelle in Partitionen anhand der Werte einer Spalte
+ * (siehe {@link DBTable#partition}).
+ * <ul>
+ * <li>Bei Hash-Partitionierung ({@link #hash}) bestimmt der Hashwert eines Wertes seine
+ * Partition. Zeilen mit gleichem Wert liegen stets in derselben Partition, sodass eine Suche nach
+ * einem Wert nur eine Partition durchläuft.</li>
+ * <li>Bei Bereichs-Partitionierung ({@link #range}) teilen aufsteigende Grenzen b0 &lt; b1 &lt;
+ * ... den Wertebereich: Partition 0 enthält null und alle Werte kleiner b0, Partition i die Werte
+ * in [b(i-1), bi) und die letzte Partition alle Werte ab der letzten Grenze. Eine Suche nach einem
+ * Bereich durchläuft nur die Partitionen, die ihn schneiden.</li>
+ * </ul>
+ * Partitionierungen sind unveränderlich.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class Partitioning {
+
+    /**
+     * Bezeichner der Spalte, deren Werte die Partition bestimmen
+     */
+    private final String colId;
+    /**
+     * Anzahl der Partitionen
+     */
+    private final int partitionCnt;
+    /**
+     * Aufsteigende Grenzen der Bereiche, null bei Hash-Partitionierung
+     */
+    private final List<String> bounds;
+
+    /**
+     * Erzeugt eine Partitionierung.
+     *
+     * @param colId        Bezeichner der Spalte
+     * @param partitionCnt Anzahl der Partitionen
+     * @param bounds       Grenzen der Bereiche oder null
+     */
+    private Partitioning(String colId, int partitionCnt, List<String> bounds) {
+        this.colId = colId;
+        this.partitionCnt = partitionCnt;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Liefert die Hash-Partitionierung über die Spalte aColId mit partitionCnt Partitionen.
+     *
+     * @param aColId       Bezeichner der Spalte
+     * @param partitionCnt Anzahl der Partitionen
+     * @return Partitionierung
+     * @pre aColId != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre partitionCnt > 0
+     */
+    public static Partitioning hash(final String aColId, final int partitionCnt) {
+        assert aColId != null;
+        assert DBTable.isValidIdentifier(aColId);
+        assert partitionCnt > 0;
+
+        return new Partitioning(aColId, partitionCnt, null);
+    }
+
+    /**
+     * Liefert die Bereichs-Partitionierung über die Spalte aColId mit den Grenzen bounds, also mit
+     * bounds.size() + 1 Partitionen.
+     *
+     * @param aColId Bezeichner der Spalte
+     * @param bounds Grenzen der Bereiche, aufsteigend gemäß dem Typ der Spalte
+     * @return Partitionierung
+     * @pre aColId != null
+     * @pre bounds != null
+     * @pre der Bezeichner aColId muss gültig sein
+     * @pre bounds enthält kein null
+     */
+    public static Partitioning range(final String aColId, final List<String> bounds) {
+        assert aColId != null;
+        assert bounds != null;
+        assert DBTable.isValidIdentifier(aColId);
+        assert !bounds.contains(null);
+
+        return new Partitioning(aColId, bounds.size() + 1,
+                Collections.unmodifiableList(new ArrayList<>(bounds)));
+    }
+
+    /**
+     * Liefert den Bezeichner der Spalte, deren Werte die Partition bestimmen.
+     *
+     * @return Bezeichner der Spalte
+     */
+    public String getColId() {
+        return this.colId;
+    }
+
+    /**
+     * Liefert die Anzahl der Partitionen.
+     *
+     * @return Anzahl der Partitionen
+     */
+    public int getPartitionCnt() {
+        return this.partitionCnt;
+    }
+
+    /**
+     * Gibt an, ob nach Bereichen partitioniert wird.
+     *
+     * @return true bei Bereichs-, false bei Hash-Partitionierung
+     */
+    public boolean isRange() {
+        return this.bounds != null;
+    }
+
+    /**
+     * Liefert die Grenzen der Bereiche.
+     *
+     * @return unveränderliche Liste der Grenzen, leer bei Hash-Partitionierung
+     */
+    public List<String> getBounds() {
+        return this.bounds != null ? this.bounds : Collections.<String>emptyList();
+    }
+
+    /**
+     * Gibt an, ob die Grenzen gültige, streng aufsteigende Werte des Typs type sind.
+     *
+     * @param type Typ der Spalte
+     * @return true, falls die Grenzen zum Typ passen
+     */
+    boolean fits(final ColumnType type) {
+        for (int i = 0; i < getBounds().size(); i++) {
+            if (!type.isValid(this.bounds.get(i)) || i > 0
+                    && type.comparator().compare(this.bounds.get(i - 1), this.bounds.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert die Partition der Werte value einer Spalte vom Typ type.
+     *
+     * @param value Wert in Normalform, auch null
+     * @param type  Typ der Spalte
+     * @return Nummer der Partition
+     * @pre fits(type)
+     */
+    int partitionOf(final String value, final ColumnType type) {
+        if (value == null) {
+            return 0;
+        }
+        if (this.bounds == null) {
+            long hash = type.hasKeys() ? BloomFilter.hash(type.toKey(value))
+                    : BloomFilter.hash(value);
+            return (int) Math.floorMod(hash, (long) this.partitionCnt);
+        }
+        return boundsBelow(value, type, true);
+    }
+
+    /**
+     * Liefert die Nummern der ersten und der letzten Partition, die Werte im Bereich [from, to)
+     * enthalten können. Bei Hash-Partitionierung sind das alle Partitionen.
+     *
+     * @param from untere Grenze, inklusive, in Normalform
+     * @param to   obere Grenze, exklusive, in Normalform
+     * @param type Typ der Spalte
+     * @return erste und letzte Partition, jeweils inklusive
+     * @pre from != null
+     * @pre to != null
+     */
+    int[] partitionsOf(final String from, final String to, final ColumnType type) {
+        if (this.bounds == null) {
+            return new int[]{0, this.partitionCnt - 1};
+        }
+        return new int[]{boundsBelow(from, type, true), boundsBelow(to, type, false)};
+    }
+
+    /**
+     * Gibt an, ob alle Werte der Partition partition im Bereich [from, to) liegen. Das gilt nur
+     * bei Bereichs-Partitionierung und nur für Partitionen mit zwei Grenzen.
+     *
+     * @param partition Nummer der Partition
+     * @param from      untere Grenze, inklusive, in Normalform
+     * @param to        obere Grenze, exklusive, in Normalform
+     * @param type      Typ der Spalte
+     * @return true, falls die Partition ganz im Bereich liegt
+     */
+    boolean covers(final int partition, final String from, final String to,
+                   final ColumnType type) {
+        if (this.bounds == null || partition == 0 || partition == this.bounds.size()) {
+            return false;
+        }
+        return type.comparator().compare(from, this.bounds.get(partition - 1)) <= 0
+                && type.comparator().compare(this.bounds.get(partition), to) <= 0;
+    }
+
+    /**
+     * Liefert die Anzahl der Grenzen kleiner oder gleich (inclusive) bzw. kleiner als value.
+     */
+    private int boundsBelow(String value, ColumnType type, boolean inclusive) {
+        Comparator<String> order = type.comparator();
+        int lo = 0;
+        int hi = this.bounds.size();
+        //O(Log(P))
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = order.compare(this.bounds.get(mid), value);
+            if (c < 0 || inclusive && c == 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @Override
+    public String toString() {
+        if (this.bounds == null) {
+            return "HASH(" + this.colId + ", " + this.partitionCnt + ")";
+        }
+        return "RANGE(" + this.colId + ", " + this.bounds + ")";
+    }
+
+}
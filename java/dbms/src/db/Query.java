@@ -0,0 +1,790 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import util.Pair;
+
+/**
+ * Eine verzögert ausgewertete Anfrage über Datenbanktabellen. Eine Anfrage wird schrittweise aus
+ * den Operationen {@link #where}, {@link #project} und {@link #join} aufgebaut; Zwischenergebnisse
+ * werden dabei nicht erzeugt. Erst {@link #collect} führt die Anfrage aus und erzeugt als einziges
+ * Ergebnis eine neue Datenbanktabelle.
+ * <p>
+ * Bei der Ausführung werden alle Operationen über einer Tabelle in einem einzigen Durchlauf über
+ * deren Zeilen erledigt. Bedingungen aus {@link #where} werden bis zu der Tabelle verschoben, aus
+ * der ihre Spalte stammt, und dort vor einem Join ausgewertet. Von jeder Tabelle werden nur die
+ * Spalten gelesen, die für Bedingungen, Join-Schlüssel oder das Ergebnis benötigt werden.
+ * <p>
+ * Das Ergebnis entspricht in Spalten, Zeilen und Reihenfolge der Zeilen dem Ergebnis der
+ * entsprechenden Folge von {@link DBTable#select}, {@link DBTable#project} und
+ * {@link DBTable#equijoin}. Dabei trägt eine Anfrage stets den Bezeichner ihrer Tabelle bzw. den
+ * bei {@link #join} angegebenen Bezeichner, der wie bei equijoin den Spalten vorangestellt wird.
+ * <p>
+ * Anfragen sind unveränderlich, jede Operation liefert eine neue Anfrage.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class Query {
+
+    /**
+     * Wurzel des Operatorbaumes
+     */
+    private final Node root;
+
+    /**
+     * Erzeugt eine Anfrage, die alle Zeilen und Spalten der Tabelle table liefert.
+     *
+     * @param table Tabelle, über der die Anfrage ausgeführt wird
+     * @pre table != null
+     */
+    Query(final DBTable table) {
+        assert table != null;
+
+        this.root = new Scan(table, table.getColIds(), new ArrayList<Condition>());
+    }
+
+    /**
+     * Erzeugt eine Anfrage mit dem Operatorbaum root.
+     *
+     * @param root Wurzel des Operatorbaumes
+     */
+    private Query(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Liefert den Bezeichner der Anfrage, der bei einem Join den Spalten vorangestellt wird.
+     *
+     * @return Bezeichner der Anfrage
+     */
+    public String getId() {
+        return this.root.name();
+    }
+
+    /**
+     * Liefert eine seiteneffektfreie Liste der Spaltenbezeichner des Ergebnisses.
+     *
+     * @return Liste der Spaltenbezeichner.
+     */
+    public List<String> getColIds() {
+        return new ArrayList<>(this.root.cols());
+    }
+
+    /**
+     * Schränkt die Anfrage auf alle Zeilen ein, bei denen ein Test über dem Wert in der Spalte
+     * aColId erfolgreich ist (entspricht {@link DBTable#select}).
+     *
+     * @param aColId Bezeichner der Spalte, deren Werte getestet werden
+     * @param p      Ein Predicate-Objekt zum Testen des jeweiligen Spaltenwertes
+     * @return eingeschränkte Anfrage
+     * @pre aColId != null
+     * @pre p != null
+     * @pre das Ergebnis der Anfrage muss eine Spalte mit dem Bezeichner aColId haben
+     */
+    public Query where(final String aColId, final Predicate<String> p) {
+        assert aColId != null;
+        assert p != null;
+        assert this.root.cols().contains(aColId);
+
+        return new Query(this.root.where(aColId, p));
+    }
+
+    /**
+     * Schränkt die Anfrage auf die Spalten someColIds in der gegebenen Reihenfolge ein (entspricht
+     * {@link DBTable#project}).
+     *
+     * @param someColIds Bezeichner der Spalten, die übernommen werden
+     * @return eingeschränkte Anfrage
+     * @pre someColIds != null
+     * @pre someColIds muss mindestens einen Spaltenbezeichner enthalten
+     * @pre das Ergebnis der Anfrage muss alle Spalten aus someColIds haben
+     * @pre alle Spaltenbezeichner müssen eindeutig sein
+     */
+    public Query project(final Collection<String> someColIds) {
+        assert someColIds != null;
+        assert !someColIds.isEmpty();
+        assert this.root.cols().containsAll(someColIds);
+        assert DBTable.areOnlyUniqueValues(someColIds);
+
+        return new Query(this.root.project(new ArrayList<>(someColIds)));
+    }
+
+    /**
+     * Verbindet diese Anfrage mit der Anfrage other über die Gleichheit der Werte in den Spalten
+     * thisColId und otherColId (entspricht {@link DBTable#equijoin}); null hat dabei keine
+     * Partner. Die Spalten des Ergebnisses werden nach dem Schema Bezeichner der Anfrage,
+     * Unterstrich, Spaltenbezeichner benannt; die entstehende Anfrage erhält den Bezeichner anId.
+     * <p>
+     * Bei der Ausführung wird über das Ergebnis von other ein Hash-Index aufgebaut, mit dem die
+     * Zeilen dieser Anfrage sondiert werden.
+     *
+     * @param other      Anfrage, mit der diese Anfrage verbunden wird
+     * @param thisColId  Spaltenbezeichner der Spalte deren Werte in this verglichen werden.
+     * @param otherColId Spaltenbezeichner der Spalte deren Werte in other verglichen werden.
+     * @param anId       Bezeichner der entstehenden Anfrage
+     * @return verbundene Anfrage
+     * @pre other != null
+     * @pre thisColId != null
+     * @pre otherColId != null
+     * @pre anId != null
+     * @pre der Bezeichner anId muss gültig sein
+     * @pre die Bezeichner beider Anfragen müssen verschieden sein
+     * @pre das Ergebnis dieser Anfrage muss eine Spalte mit dem Bezeichner thisColId haben
+     * @pre das Ergebnis von other muss eine Spalte mit dem Bezeichner otherColId haben
+     * @post die Bezeichner der neuen Spalten müssen eindeutig sein
+     */
+    public Query join(final Query other, final String thisColId, final String otherColId,
+                      final String anId) {
+        assert other != null;
+        assert thisColId != null;
+        assert otherColId != null;
+        assert anId != null;
+        assert DBTable.isValidIdentifier(anId);
+        assert !this.getId().equals(other.getId());
+        assert this.root.cols().contains(thisColId);
+        assert other.root.cols().contains(otherColId);
+
+        Join result = new Join(this.root, other.root, thisColId, otherColId, anId);
+        assert DBTable.areOnlyUniqueValues(result.cols());
+        return new Query(result);
+    }
+
+    /**
+     * Führt die Anfrage aus und liefert das Ergebnis als neue Tabelle mit dem Bezeichner
+     * newTableId.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Summe der Zeilenanzahlen aller beteiligten
+     * Tabellen, K = Anzahl der Zeilen im Ergebnis und f(N) = N + K.
+     *
+     * @param newTableId Bezeichner der erzeugten Tabelle.
+     * @return erzeugte Tabelle.
+     * @pre newTableId != null
+     * @pre der Bezeichner newTableId muss gültig sein
+     */
+    public DBTable collect(final String newTableId) {
+        assert newTableId != null;
+        assert DBTable.isValidIdentifier(newTableId);
+
+        List<ColumnType> types = new ArrayList<>();
+        for (String col : this.root.cols()) {
+            types.add(this.root.type(col));
+        }
+        final DBTable result = new DBTable(newTableId, this.root.cols(), types,
+                this.root.layout());
+        this.root.run(this.root.cols(), new Consumer<String[]>() {
+            @Override
+            public void accept(String[] row) {
+                result.appendRow(Arrays.asList(row));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Führt die Anfrage aus und übergibt alle Zeilen des Ergebnisses an sink.
+     *
+     * @param sink Empfänger der Zeilen, je Zeile die Werte aller Spalten des Ergebnisses
+     */
+    void run(final Consumer<String[]> sink) {
+        this.root.run(this.root.cols(), sink);
+    }
+
+    /**
+     * Liefert die Tabellen, über denen die Anfrage ausgeführt wird, mit jedem Vorkommen in der
+     * Anfrage einmal.
+     *
+     * @return Tabellen der Anfrage
+     */
+    List<DBTable> tables() {
+        List<DBTable> result = new ArrayList<>();
+        this.root.tables(result);
+        return result;
+    }
+
+    /**
+     * Übergibt an sink die Zeilen, um die das Ergebnis der Anfrage wächst, weil row als letzte
+     * Zeile an table angehängt wurde (Delta). Die übrigen Tabellen werden dabei nicht
+     * durchlaufen, sondern über Hash-Indizes ihrer Join-Spalten sondiert. Fehlende Indizes werden
+     * in indexes angelegt; der Aufrufer muss sie bei späteren Änderungen der Tabellen mitführen.
+     * <p>
+     * Diese Methode arbeitet in O(f(K)), dabei ist K = Anzahl der Zeilen im Delta und f(K) = K,
+     * zuzüglich des einmaligen Aufbaus fehlender Indizes.
+     *
+     * @param table   geänderte Tabelle
+     * @param row     angehängte Zeile von table
+     * @param indexes Hash-Indizes nach Tabelle und Spaltenbezeichner
+     * @param sink    Empfänger der Zeilen, je Zeile die Werte aller Spalten des Ergebnisses
+     * @pre table kommt in der Anfrage genau einmal vor
+     */
+    void delta(final DBTable table, final List<String> row,
+               final Map<Pair<DBTable, String>, ColumnIndex> indexes,
+               final Consumer<String[]> sink) {
+        this.root.delta(table, row, this.root.cols(), indexes, sink);
+    }
+
+    @Override
+    public String toString() {
+        return this.root.toString();
+    }
+
+    /**
+     * Eine Bedingung über einer Spalte einer Tabelle.
+     */
+    private static final class Condition {
+
+        private final String col;
+        private final Predicate<String> p;
+
+        Condition(String col, Predicate<String> p) {
+            this.col = col;
+            this.p = p;
+        }
+    }
+
+    /**
+     * Knoten des Operatorbaumes.
+     */
+    private abstract static class Node {
+
+        /**
+         * @return Bezeichner des Knotens, der bei einem Join den Spalten vorangestellt wird
+         */
+        abstract String name();
+
+        /**
+         * @return Spaltenbezeichner des Ergebnisses in ihrer Reihenfolge
+         */
+        abstract List<String> cols();
+
+        /**
+         * @param col Spaltenbezeichner aus cols()
+         * @return Typ der Spalte
+         */
+        abstract ColumnType type(String col);
+
+        /**
+         * @return Speicherlayout der Tabelle ganz links im Operatorbaum
+         */
+        abstract StorageLayout layout();
+
+        /**
+         * Liefert einen Knoten, der zusätzlich die Bedingung p über der Spalte col prüft. Die
+         * Bedingung wird dabei so weit wie möglich zu den Tabellen verschoben.
+         *
+         * @param col Spaltenbezeichner
+         * @param p   Bedingung
+         * @return eingeschränkter Knoten
+         */
+        abstract Node where(String col, Predicate<String> p);
+
+        /**
+         * Liefert einen Knoten, der nur die Spalten someCols liefert.
+         *
+         * @param someCols Spaltenbezeichner in der gewünschten Reihenfolge
+         * @return eingeschränkter Knoten
+         */
+        abstract Node project(List<String> someCols);
+
+        /**
+         * Erzeugt alle Ergebniszeilen und übergibt sie an sink. Jede Zeile enthält nur die Werte
+         * der Spalten needed in deren Reihenfolge.
+         *
+         * @param needed benötigte Spalten, Teilmenge von cols()
+         * @param sink   Empfänger der Zeilen
+         */
+        abstract void run(List<String> needed, Consumer<String[]> sink);
+
+        /**
+         * Fügt die Tabellen aller Durchläufe unterhalb dieses Knotens an result an.
+         *
+         * @param result Tabellen
+         */
+        abstract void tables(List<DBTable> result);
+
+        /**
+         * Übergibt an sink die Ergebniszeilen, die durch das Anhängen von row an table
+         * hinzukommen. Jede Zeile enthält nur die Werte der Spalten needed in deren Reihenfolge.
+         *
+         * @param table   geänderte Tabelle
+         * @param row     angehängte Zeile von table
+         * @param needed  benötigte Spalten, Teilmenge von cols()
+         * @param indexes Hash-Indizes nach Tabelle und Spaltenbezeichner
+         * @param sink    Empfänger der Zeilen
+         */
+        abstract void delta(DBTable table, List<String> row, List<String> needed,
+                            Map<Pair<DBTable, String>, ColumnIndex> indexes,
+                            Consumer<String[]> sink);
+
+        /**
+         * Übergibt an sink alle Ergebniszeilen, deren Wert in der Spalte col gleich key ist.
+         * Jede Zeile enthält nur die Werte der Spalten needed in deren Reihenfolge.
+         *
+         * @param col     Spaltenbezeichner aus cols()
+         * @param key     gesuchter Wert, auch null
+         * @param needed  benötigte Spalten, Teilmenge von cols()
+         * @param indexes Hash-Indizes nach Tabelle und Spaltenbezeichner
+         * @param sink    Empfänger der Zeilen
+         */
+        abstract void probe(String col, String key, List<String> needed,
+                            Map<Pair<DBTable, String>, ColumnIndex> indexes,
+                            Consumer<String[]> sink);
+    }
+
+    /**
+     * Durchlauf über eine Tabelle, der Bedingungen prüft und Spalten auswählt.
+     */
+    private static final class Scan extends Node {
+
+        private final DBTable table;
+        private final List<String> cols;
+        private final List<Condition> conditions;
+
+        Scan(DBTable table, List<String> cols, List<Condition> conditions) {
+            this.table = table;
+            this.cols = cols;
+            this.conditions = conditions;
+        }
+
+        @Override
+        String name() {
+            return this.table.getId();
+        }
+
+        @Override
+        List<String> cols() {
+            return this.cols;
+        }
+
+        @Override
+        ColumnType type(String col) {
+            return this.table.getColType(col);
+        }
+
+        @Override
+        StorageLayout layout() {
+            return this.table.getLayout();
+        }
+
+        @Override
+        Node where(String col, Predicate<String> p) {
+            List<Condition> result = new ArrayList<>(this.conditions);
+            result.add(new Condition(col, p));
+            return new Scan(this.table, this.cols, result);
+        }
+
+        @Override
+        Node project(List<String> someCols) {
+            return new Scan(this.table, someCols, this.conditions);
+        }
+
+        @Override
+        void run(List<String> needed, Consumer<String[]> sink) {
+            int[] testCols = new int[this.conditions.size()];
+            for (int i = 0; i < testCols.length; i++) {
+                testCols[i] = this.table.colIndex(this.conditions.get(i).col);
+            }
+            int[] outCols = new int[needed.size()];
+            for (int i = 0; i < outCols.length; i++) {
+                outCols[i] = this.table.colIndex(needed.get(i));
+            }
+
+            for (int row = 0; row < this.table.getRowCnt(); row++) {
+                boolean match = true;
+                for (int i = 0; match && i < testCols.length; i++) {
+                    match = this.conditions.get(i).p.test(this.table.cell(row, testCols[i]));
+                }
+                if (match) {
+                    String[] out = new String[outCols.length];
+                    for (int i = 0; i < outCols.length; i++) {
+                        out[i] = this.table.cell(row, outCols[i]);
+                    }
+                    sink.accept(out);
+                }
+            }
+        }
+
+        @Override
+        void tables(List<DBTable> result) {
+            result.add(this.table);
+        }
+
+        @Override
+        void delta(DBTable changed, List<String> row, List<String> needed,
+                   Map<Pair<DBTable, String>, ColumnIndex> indexes, Consumer<String[]> sink) {
+            if (changed != this.table) {
+                return;
+            }
+            for (Condition c : this.conditions) {
+                if (!c.p.test(row.get(this.table.colIndex(c.col)))) {
+                    return;
+                }
+            }
+            String[] out = new String[needed.size()];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = row.get(this.table.colIndex(needed.get(i)));
+            }
+            sink.accept(out);
+        }
+
+        @Override
+        void probe(String col, String key, List<String> needed,
+                   Map<Pair<DBTable, String>, ColumnIndex> indexes, Consumer<String[]> sink) {
+            Pair<DBTable, String> indexKey = new Pair<>(this.table, col);
+            ColumnIndex index = indexes.get(indexKey);
+            if (index == null) {
+                int pos = this.table.colIndex(col);
+                index = new ColumnIndex(IndexType.HASH, pos, this.table.getColType(col));
+                for (int row = 0; row < this.table.getRowCnt(); row++) {
+                    index.add(this.table.cell(row, pos), row);
+                }
+                indexes.put(indexKey, index);
+            }
+            for (int row : index.lookup(key)) {
+                delta(this.table, this.table.getRow(row), needed, indexes, sink);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Scan(" + name() + ", " + this.cols);
+            for (Condition c : this.conditions) {
+                sb.append(", where ").append(c.col);
+            }
+            return sb.append(")").toString();
+        }
+    }
+
+    /**
+     * Auswahl von Spalten über einem Join.
+     */
+    private static final class Project extends Node {
+
+        private final Node child;
+        private final List<String> cols;
+
+        Project(Node child, List<String> cols) {
+            this.child = child;
+            this.cols = cols;
+        }
+
+        @Override
+        String name() {
+            return this.child.name();
+        }
+
+        @Override
+        List<String> cols() {
+            return this.cols;
+        }
+
+        @Override
+        ColumnType type(String col) {
+            return this.child.type(col);
+        }
+
+        @Override
+        StorageLayout layout() {
+            return this.child.layout();
+        }
+
+        @Override
+        Node where(String col, Predicate<String> p) {
+            // Bedingung unter die Projektion verschieben
+            return new Project(this.child.where(col, p), this.cols);
+        }
+
+        @Override
+        Node project(List<String> someCols) {
+            return new Project(this.child, someCols);
+        }
+
+        @Override
+        void run(List<String> needed, Consumer<String[]> sink) {
+            // needed ist Teilmenge von cols und damit von child.cols()
+            this.child.run(needed, sink);
+        }
+
+        @Override
+        void tables(List<DBTable> result) {
+            this.child.tables(result);
+        }
+
+        @Override
+        void delta(DBTable table, List<String> row, List<String> needed,
+                   Map<Pair<DBTable, String>, ColumnIndex> indexes, Consumer<String[]> sink) {
+            this.child.delta(table, row, needed, indexes, sink);
+        }
+
+        @Override
+        void probe(String col, String key, List<String> needed,
+                   Map<Pair<DBTable, String>, ColumnIndex> indexes, Consumer<String[]> sink) {
+            this.child.probe(col, key, needed, indexes, sink);
+        }
+
+        @Override
+        public String toString() {
+            return "Project(" + this.cols + ", " + this.child + ")";
+        }
+    }
+
+    /**
+     * Hash-Join zweier Knoten.
+     */
+    private static final class Join extends Node {
+
+        private final Node left;
+        private final Node right;
+        private final String leftKey;
+        private final String rightKey;
+        private final String name;
+        private final List<String> cols;
+
+        Join(Node left, Node right, String leftKey, String rightKey, String name) {
+            this.left = left;
+            this.right = right;
+            this.leftKey = leftKey;
+            this.rightKey = rightKey;
+            this.name = name;
+            this.cols = new ArrayList<>();
+            for (String s : left.cols()) {
+                this.cols.add(left.name() + "_" + s);
+            }
+            for (String s : right.cols()) {
+                this.cols.add(right.name() + "_" + s);
+            }
+        }
+
+        @Override
+        String name() {
+            return this.name;
+        }
+
+        @Override
+        List<String> cols() {
+            return this.cols;
+        }
+
+        @Override
+        ColumnType type(String col) {
+            int pos = this.cols.indexOf(col);
+            int leftCnt = this.left.cols().size();
+            if (pos < leftCnt) {
+                return this.left.type(this.left.cols().get(pos));
+            }
+            return this.right.type(this.right.cols().get(pos - leftCnt));
+        }
+
+        @Override
+        StorageLayout layout() {
+            return this.left.layout();
+        }
+
+        @Override
+        Node where(String col, Predicate<String> p) {
+            // Bedingung auf die Seite verschieben, aus der die Spalte stammt
+            int pos = this.cols.indexOf(col);
+            int leftCnt = this.left.cols().size();
+            if (pos < leftCnt) {
+                return new Join(this.left.where(this.left.cols().get(pos), p), this.right,
+                        this.leftKey, this.rightKey, this.name);
+            }
+            return new Join(this.left, this.right.where(this.right.cols().get(pos - leftCnt), p),
+                    this.leftKey, this.rightKey, this.name);
+        }
+
+        @Override
+        Node project(List<String> someCols) {
+            return new Project(this, someCols);
+        }
+
+        @Override
+        void run(List<String> needed, final Consumer<String[]> sink) {
+            final List<String> leftCols = new ArrayList<>();
+            final List<String> rightCols = new ArrayList<>();
+            final int[] out = split(needed, leftCols, rightCols);
+
+            final Map<String, List<String[]>> index = new HashMap<>();
+            this.right.run(rightCols, new Consumer<String[]>() {
+                @Override
+                public void accept(String[] row) {
+                    if (row[0] == null) {
+                        return;
+                    }
+                    List<String[]> hits = index.get(row[0]);
+                    if (hits == null) {
+                        hits = new ArrayList<>(1);
+                        index.put(row[0], hits);
+                    }
+                    hits.add(row);
+                }
+            });
+            this.left.run(leftCols, new Consumer<String[]>() {
+                @Override
+                public void accept(String[] row) {
+                    // ohne null im Index findet null keine Partner
+                    List<String[]> hits = index.get(row[0]);
+                    if (hits != null) {
+                        for (String[] hit : hits) {
+                            sink.accept(combine(out, row, hit));
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        void tables(List<DBTable> result) {
+            this.left.tables(result);
+            this.right.tables(result);
+        }
+
+        @Override
+        void delta(DBTable table, List<String> row, List<String> needed,
+                   final Map<Pair<DBTable, String>, ColumnIndex> indexes,
+                   final Consumer<String[]> sink) {
+            final List<String> leftCols = new ArrayList<>();
+            final List<String> rightCols = new ArrayList<>();
+            final int[] out = split(needed, leftCols, rightCols);
+            List<DBTable> leftTables = new ArrayList<>();
+            this.left.tables(leftTables);
+            if (leftTables.contains(table)) {
+                // neue Zeilen links, Partner rechts über den Index suchen
+                this.left.delta(table, row, leftCols, indexes, probeRight(out, rightCols,
+                        indexes, sink));
+            } else {
+                this.right.delta(table, row, rightCols, indexes, probeLeft(out, leftCols,
+                        indexes, sink));
+            }
+        }
+
+        @Override
+        void probe(String col, String key, List<String> needed,
+                   Map<Pair<DBTable, String>, ColumnIndex> indexes, Consumer<String[]> sink) {
+            List<String> leftCols = new ArrayList<>();
+            List<String> rightCols = new ArrayList<>();
+            int[] out = split(needed, leftCols, rightCols);
+            int pos = this.cols.indexOf(col);
+            int leftCnt = this.left.cols().size();
+            if (pos < leftCnt) {
+                this.left.probe(this.left.cols().get(pos), key, leftCols, indexes,
+                        probeRight(out, rightCols, indexes, sink));
+            } else {
+                this.right.probe(this.right.cols().get(pos - leftCnt), key, rightCols, indexes,
+                        probeLeft(out, leftCols, indexes, sink));
+            }
+        }
+
+        /**
+         * Liefert einen Empfänger für Zeilen der linken Seite, der zu jeder Zeile die Partner
+         * der rechten Seite sucht und die verbundenen Zeilen an sink übergibt.
+         */
+        private Consumer<String[]> probeRight(final int[] out, final List<String> rightCols,
+                                              final Map<Pair<DBTable, String>, ColumnIndex> indexes,
+                                              final Consumer<String[]> sink) {
+            return new Consumer<String[]>() {
+                @Override
+                public void accept(final String[] leftRow) {
+                    if (leftRow[0] == null) {
+                        return;
+                    }
+                    right.probe(rightKey, leftRow[0], rightCols, indexes,
+                            new Consumer<String[]>() {
+                                @Override
+                                public void accept(String[] rightRow) {
+                                    sink.accept(combine(out, leftRow, rightRow));
+                                }
+                            });
+                }
+            };
+        }
+
+        /**
+         * Liefert einen Empfänger für Zeilen der rechten Seite, der zu jeder Zeile die Partner
+         * der linken Seite sucht und die verbundenen Zeilen an sink übergibt.
+         */
+        private Consumer<String[]> probeLeft(final int[] out, final List<String> leftCols,
+                                             final Map<Pair<DBTable, String>, ColumnIndex> indexes,
+                                             final Consumer<String[]> sink) {
+            return new Consumer<String[]>() {
+                @Override
+                public void accept(final String[] rightRow) {
+                    if (rightRow[0] == null) {
+                        return;
+                    }
+                    left.probe(leftKey, rightRow[0], leftCols, indexes,
+                            new Consumer<String[]>() {
+                                @Override
+                                public void accept(String[] leftRow) {
+                                    sink.accept(combine(out, leftRow, rightRow));
+                                }
+                            });
+                }
+            };
+        }
+
+        /**
+         * Verteilt die benötigten Spalten needed auf die beiden Seiten. Von jeder Seite wird
+         * zuerst ihr Join-Schlüssel angefordert, danach ihre übrigen benötigten Spalten.
+         *
+         * @param needed    benötigte Spalten, Teilmenge von cols()
+         * @param leftCols  wird mit den Spalten der linken Seite gefüllt
+         * @param rightCols wird mit den Spalten der rechten Seite gefüllt
+         * @return Position jeder Ergebnisspalte: &gt;= 0 links, &lt; 0 rechts (als -pos - 1)
+         */
+        private int[] split(List<String> needed, List<String> leftCols, List<String> rightCols) {
+            int leftCnt = this.left.cols().size();
+            Set<String> leftNeeded = new LinkedHashSet<>();
+            Set<String> rightNeeded = new LinkedHashSet<>();
+            leftNeeded.add(this.leftKey);
+            rightNeeded.add(this.rightKey);
+            for (String col : needed) {
+                int pos = this.cols.indexOf(col);
+                if (pos < leftCnt) {
+                    leftNeeded.add(this.left.cols().get(pos));
+                } else {
+                    rightNeeded.add(this.right.cols().get(pos - leftCnt));
+                }
+            }
+            leftCols.addAll(leftNeeded);
+            rightCols.addAll(rightNeeded);
+
+            int[] out = new int[needed.size()];
+            for (int i = 0; i < out.length; i++) {
+                int pos = this.cols.indexOf(needed.get(i));
+                if (pos < leftCnt) {
+                    out[i] = leftCols.indexOf(this.left.cols().get(pos));
+                } else {
+                    out[i] = -rightCols.indexOf(this.right.cols().get(pos - leftCnt)) - 1;
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Setzt eine Ergebniszeile aus leftRow und rightRow gemäß out zusammen.
+         */
+        private static String[] combine(int[] out, String[] leftRow, String[] rightRow) {
+            String[] result = new String[out.length];
+            for (int i = 0; i < out.length; i++) {
+                result[i] = out[i] >= 0 ? leftRow[out[i]] : rightRow[-out[i] - 1];
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Join(" + this.name + ", " + this.left + " [" + this.leftKey + "] = "
+                    + this.right + " [" + this.rightKey + "])";
+        }
+    }
+
+}
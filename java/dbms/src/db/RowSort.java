@@ -0,0 +1,261 @@
+package db;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sortiert Zeilennummern einer Datenbanktabelle, ohne sie in Objekte zu verpacken. Das Ergebnis
+ * ist eine Permutation der Zeilennummern, nach der die Zeilen anschließend einmalig umgeordnet
+ * werden. Sortiert wird stabil per Mergesort, Zeilen mit gleichen Werten behalten also ihre
+ * Reihenfolge.
+ * <p>
+ * Ab einer gegebenen Zeilenanzahl werden die Hälften per Fork/Join parallel sortiert, bis die
+ * Teilbereiche ähnlich klein sind wie bei {@link ParallelScan}. Das Ergebnis ist unabhängig davon,
+ * ob parallel gearbeitet wurde. Der Vergleich wird dann gleichzeitig aus mehreren Threads
+ * aufgerufen und darf nur lesend zugreifen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class RowSort {
+
+    /**
+     * Bereichsgröße, ab der statt per Mergesort per Einfügen sortiert wird
+     */
+    private static final int INSERTION_LIMIT = 32;
+    /**
+     * Minimale Größe eines parallel sortierten Teilbereiches
+     */
+    private static final int MIN_CHUNK = 8192;
+
+    /**
+     * Vergleich zweier Zeilen über ihre Zeilennummern.
+     */
+    interface RowComparator {
+
+        /**
+         * Vergleicht die Zeilen a und b.
+         *
+         * @param a Zeilennummer
+         * @param b Zeilennummer
+         * @return negativ, 0 oder positiv, wenn a vor, gleich oder nach b einsortiert wird
+         */
+        int compare(int a, int b);
+    }
+
+    /**
+     * Keine Instanzen.
+     */
+    private RowSort() {
+    }
+
+    /**
+     * Liefert die Zeilennummern 0 bis rowCnt - 1 stabil sortiert nach comp.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = rowCnt und f(N) = N * Log(N).
+     *
+     * @param rowCnt Anzahl der Zeilen
+     * @param comp   Vergleich zweier Zeilen
+     * @return sortierte Zeilennummern
+     */
+    static int[] sort(final int rowCnt, final RowComparator comp) {
+        return sort(rowCnt, Integer.MAX_VALUE, comp);
+    }
+
+    /**
+     * Liefert die Zeilennummern 0 bis rowCnt - 1 stabil sortiert nach comp. Ab threshold Zeilen
+     * wird parallel sortiert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = rowCnt und f(N) = N * Log(N).
+     *
+     * @param rowCnt    Anzahl der Zeilen
+     * @param threshold Zeilenanzahl, ab der parallel gearbeitet wird
+     * @param comp      Vergleich zweier Zeilen
+     * @return sortierte Zeilennummern
+     */
+    static int[] sort(final int rowCnt, final int threshold, final RowComparator comp) {
+        int[] order = new int[rowCnt];
+        for (int i = 0; i < rowCnt; i++) {
+            order[i] = i;
+        }
+        if (rowCnt < threshold) {
+            mergeSort(order, order.clone(), 0, rowCnt, comp);
+        } else {
+            int chunk = Math.max(MIN_CHUNK,
+                    rowCnt / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            ForkJoinPool.commonPool().invoke(
+                    new SortTask(order, order.clone(), 0, rowCnt, chunk, comp));
+        }
+        return order;
+    }
+
+    /**
+     * Liefert die ersten n Zeilennummern von 0 bis rowCnt - 1 in der Reihenfolge nach comp, also
+     * dieselben Zeilennummern in derselben Reihenfolge wie die ersten n von {@link #sort}, ohne
+     * alle Zeilen zu sortieren.
+     * <p>
+     * Die Zeilen werden der Reihe nach durchlaufen; ein Max-Heap hält die bisher besten n Zeilen,
+     * an seiner Wurzel die schlechteste. Eine Zeile wird nur aufgenommen, wenn sie vor der Wurzel
+     * einsortiert wird, und verdrängt diese. Bei gleichen Werten gilt die kleinere Zeilennummer
+     * als besser, sodass wie bei sort stabil sortiert wird.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = rowCnt und f(N) = N * Log(n).
+     *
+     * @param rowCnt Anzahl der Zeilen
+     * @param n      Anzahl der gelieferten Zeilen
+     * @param comp   Vergleich zweier Zeilen
+     * @return sortierte Zeilennummern, höchstens n
+     * @pre n >= 0
+     */
+    static int[] top(final int rowCnt, final int n, final RowComparator comp) {
+        assert n >= 0;
+
+        RowComparator stable = new RowComparator() {
+            @Override
+            public int compare(int a, int b) {
+                int result = comp.compare(a, b);
+                return result != 0 ? result : Integer.compare(a, b);
+            }
+        };
+        int[] heap = new int[Math.min(n, rowCnt)];
+        int size = 0;
+        //O(N * Log(n))
+        for (int row = 0; row < rowCnt; row++) {
+            if (size < heap.length) {
+                heap[size] = row;
+                siftUp(heap, size++, stable);
+            } else if (size > 0 && stable.compare(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(heap, size, stable);
+            }
+        }
+        //O(n * Log(n)), die schlechteste Zeile jeweils ans Ende
+        for (int end = size - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(heap, end, stable);
+        }
+        return heap;
+    }
+
+    /**
+     * Lässt das Element an der Stelle i des Max-Heaps heap nach oben steigen.
+     */
+    private static void siftUp(int[] heap, int i, RowComparator comp) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (comp.compare(heap[parent], row) >= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = row;
+    }
+
+    /**
+     * Lässt die Wurzel des Max-Heaps heap[0, size) nach unten sinken.
+     */
+    private static void siftDown(int[] heap, int size, RowComparator comp) {
+        int row = heap[0];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && comp.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comp.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+
+    /**
+     * Sortiert a im Bereich [from, to). src enthält zu Beginn im selben Bereich dieselben Werte
+     * wie a und dient als Zwischenspeicher.
+     */
+    private static void mergeSort(int[] a, int[] src, int from, int to, RowComparator comp) {
+        if (to - from <= INSERTION_LIMIT) {
+            for (int i = from + 1; i < to; i++) {
+                int row = a[i];
+                int j = i - 1;
+                while (j >= from && comp.compare(a[j], row) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // Hälften in src sortieren (Rollen vertauscht) und nach a zusammenführen
+        mergeSort(src, a, from, mid, comp);
+        mergeSort(src, a, mid, to, comp);
+        merge(src, a, from, mid, to, comp);
+    }
+
+    /**
+     * Führt die sortierten Bereiche [from, mid) und [mid, to) von src nach dst zusammen.
+     */
+    private static void merge(int[] src, int[] dst, int from, int mid, int to,
+                              RowComparator comp) {
+        if (comp.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dst, from, to - from);
+            return;
+        }
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && comp.compare(src[i], src[j]) <= 0)) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /**
+     * Teilaufgabe, die einen Bereich wie {@link #mergeSort} sortiert und dabei die Hälften
+     * parallel sortiert, solange der Bereich größer als ein Teilbereich ist.
+     */
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] src;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final RowComparator comp;
+
+        SortTask(int[] a, int[] src, int from, int to, int chunk, RowComparator comp) {
+            this.a = a;
+            this.src = src;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.comp = comp;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.chunk) {
+                mergeSort(this.a, this.src, this.from, this.to, this.comp);
+                return;
+            }
+            int mid = (this.from + this.to) >>> 1;
+            SortTask left = new SortTask(this.src, this.a, this.from, mid, this.chunk, this.comp);
+            SortTask right = new SortTask(this.src, this.a, mid, this.to, this.chunk, this.comp);
+            left.fork();
+            right.compute();
+            left.join();
+            merge(this.src, this.a, this.from, mid, this.to, this.comp);
+        }
+    }
+
+}
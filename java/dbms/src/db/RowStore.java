@@ -0,0 +1,199 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Zeilenorientierter Speicher einer Datenbanktabelle. Jede Zeile wird als eigene Liste abgelegt.
+ * Werte von Spalten eines Typs mit Schlüsseln werden in Normalform als Zeichenketten abgelegt und
+ * für {@link #key} bei jedem Zugriff umgewandelt.
+ * <p>
+ * Gleiche Werte einer Spalte werden beim Anhängen über ein {@link StringDictionary} je Spalte
+ * durch dasselbe Objekt ersetzt, sodass jeder verschiedene Wert nur einmal im Speicher liegt. Eine
+ * Spalte mit zu vielen verschiedenen Werten ({@link StringDictionary#isFull}) wird danach nicht
+ * mehr zusammengeführt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class RowStore implements TableStore {
+
+    /**
+     * Zeilen der Datenbanktabelle
+     */
+    private ArrayList<List<String>> rows = new ArrayList<>();
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Wörterbücher der Spalten zum Zusammenführen gleicher Werte, null für Spalten, bei denen es
+     * sich nicht lohnt. Werte entfernter Zeilen werden in {@link #remove} verworfen, sobald weniger
+     * als die Hälfte der aufgenommenen Zeilen übrig ist; permute ändert die Werte nicht.
+     */
+    private final StringDictionary[] dictionaries;
+    /**
+     * Anzahl der seit dem letzten Neuaufbau in die Wörterbücher aufgenommenen Zeilen
+     */
+    private int internedCnt;
+
+    /**
+     * Erzeugt einen leeren Speicher für Spalten der Typen types.
+     *
+     * @param types Typen der Spalten
+     * @pre types.length > 0
+     */
+    RowStore(final ColumnType[] types) {
+        assert types.length > 0;
+
+        this.types = types.clone();
+        this.dictionaries = new StringDictionary[types.length];
+        clearDictionaries();
+    }
+
+    @Override
+    public int size() {
+        return this.rows.size();
+    }
+
+    @Override
+    public String get(int row, int col) {
+        return this.rows.get(row).get(col);
+    }
+
+    @Override
+    public List<String> getRow(int row) {
+        return this.rows.get(row);
+    }
+
+    @Override
+    public boolean isNull(int row, int col) {
+        return this.rows.get(row).get(col) == null;
+    }
+
+    @Override
+    public long key(int row, int col) {
+        return this.types[col].toKey(this.rows.get(row).get(col));
+    }
+
+    @Override
+    public void append(Collection<String> row) {
+        List<String> copy = new ArrayList<>(row);
+        normalize(copy);
+        this.rows.add(copy);
+    }
+
+    @Override
+    public void appendAll(List<List<String>> rows) {
+        for (List<String> row : rows) {
+            normalize(row);
+        }
+        this.rows.addAll(rows);
+    }
+
+    @Override
+    public void reserve(int rowCnt) {
+        this.rows.ensureCapacity(rowCnt);
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        ArrayList<List<String>> result = new ArrayList<>(this.rows.size() - rows.cardinality());
+        for (int i = 0; i < this.rows.size(); i++) {
+            if (!rows.get(i)) {
+                result.add(this.rows.get(i));
+            }
+        }
+        this.rows = result;
+        if (this.rows.size() * 2 < this.internedCnt) {
+            rebuildDictionaries();
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.rows.clear();
+        clearDictionaries();
+    }
+
+    @Override
+    public void permute(int[] order) {
+        assert order.length == this.rows.size();
+
+        ArrayList<List<String>> result = new ArrayList<>(order.length);
+        for (int i : order) {
+            result.add(this.rows.get(i));
+        }
+        this.rows = result;
+    }
+
+    @Override
+    public int code(int row, int col) {
+        // die Wörterbücher dienen nur dem Zusammenführen gleicher Werte
+        throw new UnsupportedOperationException("Spalte ohne Wörterbuch");
+    }
+
+    @Override
+    public TableStore snapshot() {
+        return VersionedStore.copyOf(this, this.types);
+    }
+
+    /**
+     * Bringt die Werte der Zeile row in Normalform und ersetzt jeden Wert durch den gleichen Wert
+     * aus dem Wörterbuch seiner Spalte.
+     *
+     * @param row Werte der Zeile, werden ersetzt
+     */
+    private void normalize(List<String> row) {
+        this.internedCnt++;
+        for (int i = 0; i < this.types.length; i++) {
+            String value = row.get(i);
+            if (this.types[i].hasKeys()) {
+                value = this.types[i].normalize(value);
+            }
+            if (this.dictionaries[i] != null) {
+                value = this.dictionaries[i].intern(value);
+                if (this.dictionaries[i].isFull(this.internedCnt)) {
+                    this.dictionaries[i] = null;
+                }
+            }
+            if (value != row.get(i)) {
+                row.set(i, value);
+            }
+        }
+    }
+
+    /**
+     * Beginnt für alle Spalten mit leeren Wörterbüchern.
+     */
+    private void clearDictionaries() {
+        for (int i = 0; i < this.dictionaries.length; i++) {
+            this.dictionaries[i] = new StringDictionary();
+        }
+        this.internedCnt = 0;
+    }
+
+    /**
+     * Baut die Wörterbücher aus den Werten der vorhandenen Zeilen neu auf, sodass sie keine Werte
+     * entfernter Zeilen mehr festhalten. Die Werte der Zeilen bleiben unverändert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen, M = Anzahl der Spalten
+     * und f(N) = N * M.
+     */
+    private void rebuildDictionaries() {
+        clearDictionaries();
+        for (List<String> row : this.rows) {
+            this.internedCnt++;
+            for (int i = 0; i < this.types.length; i++) {
+                if (this.dictionaries[i] != null) {
+                    this.dictionaries[i].add(row.get(i));
+                    if (this.dictionaries[i].isFull(this.internedCnt)) {
+                        this.dictionaries[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+}
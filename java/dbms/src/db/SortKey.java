@@ -0,0 +1,62 @@
+package db;
+
+/**
+ * Ein Sortierschlüssel: eine Spalte, nach der sortiert wird, und die Sortierrichtung. Mehrere
+ * Sortierschlüssel werden der Reihe nach angewendet; ein späterer Schlüssel entscheidet nur
+ * zwischen Zeilen, die in allen vorherigen Schlüsseln gleich sind.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class SortKey {
+
+    /**
+     * Bezeichner der Spalte
+     */
+    private final String colId;
+    /**
+     * Sortierrichtung
+     */
+    private final SortDirection direction;
+
+    /**
+     * Erzeugt einen Sortierschlüssel über die Spalte aColId in der Richtung sortDir.
+     *
+     * @param aColId  Bezeichner der Spalte
+     * @param sortDir Sortierrichtung
+     * @pre aColId != null
+     * @pre sortDir != null
+     * @pre der Bezeichner aColId muss gültig sein
+     */
+    public SortKey(final String aColId, final SortDirection sortDir) {
+        assert aColId != null;
+        assert sortDir != null;
+        assert DBTable.isValidIdentifier(aColId);
+
+        this.colId = aColId;
+        this.direction = sortDir;
+    }
+
+    /**
+     * Liefert den Bezeichner der Spalte.
+     *
+     * @return Bezeichner der Spalte
+     */
+    public String getColId() {
+        return this.colId;
+    }
+
+    /**
+     * Liefert die Sortierrichtung.
+     *
+     * @return Sortierrichtung
+     */
+    public SortDirection getDirection() {
+        return this.direction;
+    }
+
+    @Override
+    public String toString() {
+        return this.colId + " " + this.direction;
+    }
+
+}
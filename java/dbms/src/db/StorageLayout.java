@@ -0,0 +1,20 @@
+package db;
+
+/**
+ * Speicherlayouts einer Datenbanktabelle.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public enum StorageLayout {
+
+    /** Zeilenorientierte Speicherung, jede Zeile ist eine eigene Liste. */
+    ROW,
+    /** Spaltenorientierte Speicherung, jede Spalte ist ein eigenes Array. */
+    COLUMN,
+    /**
+     * Zeilenorientierte Speicherung in unveränderlichen Blöcken, Schnappschüsse in O(1) auch
+     * während Änderungen.
+     */
+    VERSIONED;
+
+}
@@ -0,0 +1,240 @@
+package db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Eine Spalte von Zeichenketten in spaltenorientierter Speicherung.
+ * <p>
+ * Solange die Spalte wenige verschiedene Werte enthält, wird sie wörterbuchcodiert abgelegt: Jeder
+ * verschiedene Wert wird nur einmal gespeichert und die Zeilen verweisen über einen int-Code auf
+ * ihn (siehe {@link StringDictionary}). Lohnt sich das Wörterbuch nicht mehr
+ * ({@link StringDictionary#isFull}), wird die Spalte in ein einfaches String-Array umgewandelt.
+ * Werte entfernter Zeilen werden aus dem Wörterbuch verworfen, sobald weniger als die Hälfte der
+ * seit dem letzten Neuaufbau codierten Werte übrig ist.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class StringColumn implements Column {
+
+    /**
+     * Anfangskapazität der Arrays
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Anzahl der Werte
+     */
+    private int size;
+    /**
+     * Codes der Werte, solange die Spalte wörterbuchcodiert ist, sonst null
+     */
+    private int[] codes;
+    /**
+     * Wörterbuch der Werte, solange die Spalte wörterbuchcodiert ist, sonst null
+     */
+    private StringDictionary dictionary;
+    /**
+     * Werte, sobald die Spalte nicht mehr wörterbuchcodiert ist, sonst null
+     */
+    private String[] plain;
+    /**
+     * Anzahl der seit dem letzten Neuaufbau des Wörterbuches codierten Werte
+     */
+    private int codedCnt;
+
+    /**
+     * Erzeugt eine leere, wörterbuchcodierte Spalte.
+     */
+    StringColumn() {
+        clear();
+    }
+
+    /**
+     * Liefert den Wert in Zeile row.
+     *
+     * @param row Zeilennummer
+     * @return Wert
+     * @pre 0 <= row < Anzahl der Werte
+     */
+    @Override
+    public String get(final int row) {
+        if (this.plain != null) {
+            return this.plain[row];
+        }
+        return this.dictionary.value(this.codes[row]);
+    }
+
+    /**
+     * Hängt den Wert value an die Spalte an.
+     *
+     * @param value Wert
+     */
+    @Override
+    public void add(final String value) {
+        if (this.plain != null) {
+            if (this.size == this.plain.length) {
+                this.plain = Arrays.copyOf(this.plain, this.size * 2);
+            }
+            this.plain[this.size++] = value;
+            return;
+        }
+
+        int code = this.dictionary.add(value);
+        if (this.size == this.codes.length) {
+            this.codes = Arrays.copyOf(this.codes, this.size * 2);
+        }
+        this.codes[this.size++] = code;
+        this.codedCnt++;
+
+        if (this.dictionary.isFull(this.size)) {
+            toPlain();
+        }
+    }
+
+    /**
+     * Vergrößert die Spalte bei Bedarf, sodass sie capacity Werte ohne weitere Vergrößerung
+     * aufnehmen kann.
+     *
+     * @param capacity benötigte Anzahl der Werte
+     */
+    @Override
+    public void reserve(final int capacity) {
+        if (this.plain != null) {
+            if (capacity > this.plain.length) {
+                this.plain = Arrays.copyOf(this.plain, capacity);
+            }
+        } else if (capacity > this.codes.length) {
+            this.codes = Arrays.copyOf(this.codes, capacity);
+        }
+    }
+
+    /**
+     * Entfernt alle Werte, deren Zeilennummer in rows gesetzt ist. Ist danach weniger als die
+     * Hälfte der codierten Werte übrig, wird das Wörterbuch aus den verbliebenen Werten neu
+     * aufgebaut; über alle Aufrufe gerechnet kostet das O(1) je entferntem Wert.
+     *
+     * @param rows Zeilennummern der zu entfernenden Werte
+     */
+    @Override
+    public void remove(final BitSet rows) {
+        int target = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!rows.get(i)) {
+                if (this.plain != null) {
+                    this.plain[target] = this.plain[i];
+                } else {
+                    this.codes[target] = this.codes[i];
+                }
+                target++;
+            }
+        }
+        if (this.plain != null) {
+            Arrays.fill(this.plain, target, this.size, null);
+        }
+        this.size = target;
+        if (this.plain == null && this.size * 2 < this.codedCnt) {
+            rebuildDictionary();
+        }
+    }
+
+    /**
+     * Entfernt alle Werte und setzt die Spalte auf wörterbuchcodierte Speicherung zurück.
+     */
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.codes = new int[INITIAL_CAPACITY];
+        this.dictionary = new StringDictionary();
+        this.plain = null;
+        this.codedCnt = 0;
+    }
+
+    /**
+     * Ordnet die Werte neu an, sodass der neue Wert i dem bisherigen Wert order[i] entspricht.
+     *
+     * @param order Permutation der Zeilennummern
+     * @pre order.length == Anzahl der Werte
+     */
+    @Override
+    public void permute(final int[] order) {
+        assert order.length == this.size;
+
+        if (this.plain != null) {
+            String[] result = new String[this.plain.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = this.plain[order[i]];
+            }
+            this.plain = result;
+        } else {
+            int[] result = new int[this.codes.length];
+            for (int i = 0; i < order.length; i++) {
+                result[i] = this.codes[order[i]];
+            }
+            this.codes = result;
+        }
+    }
+
+    /**
+     * Liefert das Wörterbuch der Spalte.
+     *
+     * @return Wörterbuch oder null, falls die Spalte nicht mehr wörterbuchcodiert ist
+     */
+    StringDictionary dictionary() {
+        return this.dictionary;
+    }
+
+    /**
+     * Liefert den Code des Wertes in Zeile row.
+     *
+     * @param row Zeilennummer
+     * @return Code im Wörterbuch
+     * @pre dictionary() != null
+     * @pre 0 <= row < Anzahl der Werte
+     */
+    int code(final int row) {
+        return this.codes[row];
+    }
+
+    /**
+     * Kopiert die Codes der Zeilen [from, to) nach out.
+     *
+     * @param from erste Zeile, inklusive
+     * @param to   letzte Zeile, exklusive
+     * @param out  Ziel, ab Index 0
+     * @pre dictionary() != null
+     * @pre 0 <= from <= to <= Anzahl der Werte
+     */
+    void codes(final int from, final int to, final int[] out) {
+        System.arraycopy(this.codes, from, out, 0, to - from);
+    }
+
+    /**
+     * Baut das Wörterbuch aus den vorhandenen Werten neu auf, sodass es keine Werte entfernter
+     * Zeilen mehr festhält, und vergibt die Codes neu. Die Werte der Zeilen bleiben unverändert.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Werte und f(N) = N.
+     */
+    private void rebuildDictionary() {
+        StringDictionary result = new StringDictionary();
+        for (int i = 0; i < this.size; i++) {
+            this.codes[i] = result.add(this.dictionary.value(this.codes[i]));
+        }
+        this.dictionary = result;
+        this.codedCnt = this.size;
+    }
+
+    /**
+     * Wandelt die wörterbuchcodierte Spalte in ein einfaches String-Array um.
+     */
+    private void toPlain() {
+        String[] result = new String[Math.max(INITIAL_CAPACITY, this.codes.length)];
+        for (int i = 0; i < this.size; i++) {
+            result[i] = this.dictionary.value(this.codes[i]);
+        }
+        this.plain = result;
+        this.codes = null;
+        this.dictionary = null;
+    }
+
+}
@@ -0,0 +1,103 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ein Wörterbuch, das verschiedenen Zeichenketten fortlaufende int-Codes ab 0 zuordnet. Jeder
+ * Wert wird nur einmal gespeichert; gleiche Werte erhalten denselben Code, sodass Gleichheit über
+ * die Codes geprüft werden kann. Auch null ist ein Wert mit eigenem Code.
+ * <p>
+ * Lohnt sich ein Wörterbuch nur bei wenigen verschiedenen Werten: Übersteigt die Anzahl
+ * verschiedener Werte {@link #LIMIT} und die Hälfte der Anzahl der codierten Werte, wird es
+ * aufgegeben (siehe {@link #isFull}).
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class StringDictionary {
+
+    /**
+     * Anzahl verschiedener Werte, bis zu der ein Wörterbuch stets geführt wird
+     */
+    static final int LIMIT = 1024;
+
+    /**
+     * Werte nach Code
+     */
+    private final List<String> values = new ArrayList<>();
+    /**
+     * Codes nach Wert
+     */
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Liefert die Anzahl verschiedener Werte, also den ersten nicht vergebenen Code.
+     *
+     * @return Anzahl der Werte
+     */
+    int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Liefert den Wert zum Code code.
+     *
+     * @param code Code des Wertes
+     * @return Wert, auch null
+     * @pre 0 <= code < size()
+     */
+    String value(final int code) {
+        return this.values.get(code);
+    }
+
+    /**
+     * Liefert den Code des Wertes value.
+     *
+     * @param value Wert, auch null
+     * @return Code oder -1, falls der Wert nicht im Wörterbuch steht
+     */
+    int code(final String value) {
+        Integer code = this.codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Liefert den Code des Wertes value und nimmt den Wert dafür bei Bedarf auf.
+     *
+     * @param value Wert, auch null
+     * @return Code
+     */
+    int add(final String value) {
+        Integer code = this.codes.get(value);
+        if (code == null) {
+            code = this.values.size();
+            this.values.add(value);
+            this.codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Liefert den gespeicherten, gleichen Wert zu value und nimmt value dafür bei Bedarf auf.
+     * Gleiche Werte werden so durch dasselbe Objekt ersetzt.
+     *
+     * @param value Wert, auch null
+     * @return gleicher Wert aus dem Wörterbuch
+     */
+    String intern(final String value) {
+        return this.values.get(add(value));
+    }
+
+    /**
+     * Gibt an, ob sich das Wörterbuch für valueCnt codierte Werte nicht mehr lohnt.
+     *
+     * @param valueCnt Anzahl der codierten Werte
+     * @return true, falls es mehr als {@link #LIMIT} und mehr als valueCnt / 2 Werte enthält
+     */
+    boolean isFull(final int valueCnt) {
+        return this.values.size() > LIMIT && this.values.size() * 2 > valueCnt;
+    }
+
+}
@@ -0,0 +1,383 @@
+package db;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binäres Dateiformat einer Datenbanktabelle.
+ * <p>
+ * Eine Tabellendatei besteht aus Seiten mit Zeilen, gefolgt von einem Verzeichnis und einem
+ * Abschluss:
+ * <ul>
+ * <li>Seite: Zeilenanzahl (int), Position jeder Zeile innerhalb der Seite (je int), danach die
+ * Zeilen. Eine Zeile besteht aus ihren Werten, jeder Wert aus seiner Länge in Byte (int, -1 für
+ * null) und seinen Bytes in UTF-8. Eine Seite ist höchstens {@link #PAGE_SIZE} Byte groß, es sei
+ * denn, sie enthält nur eine einzige, größere Zeile.</li>
+ * <li>Verzeichnis: Speicherlayout (UTF), Spaltenanzahl (int), Spaltenbezeichner und Spaltentypen
+ * (je UTF), Zeilenanzahl (int), Seitenanzahl (int) und je Seite Position (long), Länge (int) und
+ * Nummer der ersten Zeile (int).</li>
+ * <li>Abschluss: Position des Verzeichnisses (long), Kennung {@link #MAGIC} (int).</li>
+ * </ul>
+ * Alle Zahlen werden wie bei {@link DataOutputStream} in Big-Endian abgelegt.
+ * <p>
+ * Beim Lesen werden nur Verzeichnis und Abschluss eingelesen, die Seiten werden eingeblendet und
+ * erst beim Zugriff auf einzelne Zeilen decodiert (siehe {@link MappedStore}).
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class TableFile {
+
+    /**
+     * Kennung am Ende jeder Tabellendatei
+     */
+    static final int MAGIC = 0x44425431;
+    /**
+     * Angestrebte Größe einer Seite in Byte
+     */
+    static final int PAGE_SIZE = 1 << 20;
+    /**
+     * Größe des Abschlusses in Byte
+     */
+    private static final int TRAILER_SIZE = 12;
+
+    /**
+     * Keine Instanzen.
+     */
+    private TableFile() {
+    }
+
+    /**
+     * Schreibt die Zeilen und Spalten der Tabelle table in die Datei file. Die Datei wird zunächst
+     * unter einem temporären Namen geschrieben, dauerhaft auf den Datenträger gebracht und dann
+     * ersetzt, sodass bereits eingeblendete frühere Fassungen der Datei gültig bleiben. Damit auch
+     * das Ersetzen dauerhaft ist, muss der Aufrufer danach {@link #forceDirectory} aufrufen.
+     *
+     * @param table Tabelle, die geschrieben wird
+     * @param file  Zieldatei
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    static void write(final DBTable table, final Path file) throws IOException {
+        List<ColumnType> types = new ArrayList<>();
+        for (String col : table.getColIds()) {
+            types.add(table.getColType(col));
+        }
+        try (Writer out = new Writer(file, table.getLayout(), table.getColIds(), types, true)) {
+            for (int row = 0; row < table.getRowCnt(); row++) {
+                out.add(table.getRow(row));
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Schreibt den Inhalt der geschlossenen Datei file dauerhaft auf den Datenträger.
+     *
+     * @param file Datei
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    static void force(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Schreibt die Einträge des Verzeichnisses dir dauerhaft auf den Datenträger, sodass zuvor
+     * angelegte, verschobene oder gelöschte Dateien einen Absturz überstehen. Auf Plattformen, die
+     * Verzeichnisse nicht öffnen können (etwa Windows), passiert nichts; dort ist das Verschieben
+     * selbst dauerhaft.
+     *
+     * @param dir Verzeichnis
+     */
+    static void forceDirectory(final Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Verzeichnis lässt sich auf dieser Plattform nicht öffnen
+        }
+    }
+
+    /**
+     * Öffnet die Tabellendatei file als Tabelle mit dem Bezeichner anId. Die Seiten werden
+     * eingeblendet und nicht eingelesen.
+     *
+     * @param anId Bezeichner der Tabelle
+     * @param file Tabellendatei
+     * @return Tabelle über der Datei
+     * @throws IOException bei Fehlern beim Lesen oder einem ungültigen Dateiformat
+     */
+    static DBTable read(final String anId, final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < TRAILER_SIZE) {
+                throw new IOException("Ungültige Tabellendatei: " + file);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, fileSize - TRAILER_SIZE);
+            long dirOffset = trailer.getLong(0);
+            if (trailer.getInt(8) != MAGIC || dirOffset < 0
+                    || dirOffset > fileSize - TRAILER_SIZE) {
+                throw new IOException("Ungültige Tabellendatei: " + file);
+            }
+
+            ByteBuffer dir = ByteBuffer.allocate((int) (fileSize - TRAILER_SIZE - dirOffset));
+            readFully(channel, dir, dirOffset);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(dir.array()));
+            StorageLayout layout = StorageLayout.valueOf(in.readUTF());
+            List<String> cols = new ArrayList<>();
+            ColumnType[] types = new ColumnType[in.readInt()];
+            for (int i = 0; i < types.length; i++) {
+                cols.add(in.readUTF());
+                types[i] = ColumnType.valueOf(in.readUTF());
+            }
+            int rowCnt = in.readInt();
+            int pageCnt = in.readInt();
+            ByteBuffer[] pages = new ByteBuffer[pageCnt];
+            int[] firstRows = new int[pageCnt];
+            for (int i = 0; i < pageCnt; i++) {
+                long offset = in.readLong();
+                int length = in.readInt();
+                firstRows[i] = in.readInt();
+                pages[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            return new DBTable(anId, cols, Arrays.asList(types), layout,
+                    new MappedStore(layout, types, pages, firstRows, rowCnt));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Ungültige Tabellendatei: " + file, e);
+        }
+    }
+
+    /**
+     * Codiert die Werte einer Zeile.
+     *
+     * @param row Werte der Zeile
+     * @return codierte Zeile
+     */
+    static byte[] encode(final List<String> row) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String value : row) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Liest ab Position position so viele Bytes aus channel, wie in buf passen.
+     *
+     * @param channel  Datei
+     * @param buf      Ziel
+     * @param position Position in der Datei
+     * @throws IOException bei Fehlern beim Lesen oder vorzeitigem Dateiende
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position)
+            throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, pos);
+            if (read < 0) {
+                throw new IOException("Unerwartetes Dateiende");
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * Schreibt eine Tabellendatei Zeile für Zeile, ohne die Tabelle im Hauptspeicher zu halten.
+     * Die Datei wird zunächst unter einem temporären Namen geschrieben und erst mit
+     * {@link #finish()} an ihren Platz verschoben; wird vorher geschlossen, wird die temporäre
+     * Datei entfernt.
+     */
+    static final class Writer implements Closeable {
+
+        /**
+         * Zieldatei
+         */
+        private final Path file;
+        /**
+         * Temporäre Datei, in die geschrieben wird
+         */
+        private final Path tmp;
+        /**
+         * Ausgabe in die temporäre Datei
+         */
+        private final DataOutputStream out;
+        /**
+         * Speicherlayout der Tabelle
+         */
+        private final StorageLayout layout;
+        /**
+         * Spaltenbezeichner
+         */
+        private final List<String> cols;
+        /**
+         * Spaltentypen
+         */
+        private final List<ColumnType> types;
+        /**
+         * Position, Länge und Nummer der ersten Zeile jeder geschriebenen Seite
+         */
+        private final List<Long> offsets = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private final List<Integer> firstRows = new ArrayList<>();
+        /**
+         * Zeilen der aktuellen Seite und ihre Positionen darin
+         */
+        private final ByteArrayOutputStream page = new ByteArrayOutputStream();
+        private final List<Integer> rowOffsets = new ArrayList<>();
+        /**
+         * Position der nächsten Seite in der Datei
+         */
+        private long position;
+        /**
+         * Anzahl der bisher hinzugefügten Zeilen
+         */
+        private int rowCnt;
+        /**
+         * Gibt an, ob die Datei vor dem Verschieben dauerhaft geschrieben wird
+         */
+        private final boolean durable;
+        /**
+         * Gibt an, ob die Datei fertiggestellt wurde
+         */
+        private boolean finished;
+
+        /**
+         * Beginnt eine Tabellendatei file für eine Tabelle mit den Spalten cols.
+         *
+         * @param file    Zieldatei
+         * @param layout  Speicherlayout der Tabelle
+         * @param cols    Spaltenbezeichner
+         * @param types   Spaltentypen in der Reihenfolge von cols
+         * @param durable ob die Datei vor dem Verschieben mit {@link #force} dauerhaft geschrieben
+         *                wird; bei temporären Dateien entfällt das
+         * @throws IOException bei Fehlern beim Anlegen der Datei
+         * @pre cols.size() == types.size()
+         */
+        Writer(final Path file, final StorageLayout layout, final List<String> cols,
+               final List<ColumnType> types, final boolean durable) throws IOException {
+            assert cols.size() == types.size();
+
+            this.file = file;
+            this.durable = durable;
+            this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.layout = layout;
+            this.cols = new ArrayList<>(cols);
+            this.types = new ArrayList<>(types);
+            this.out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(this.tmp)));
+        }
+
+        /**
+         * Hängt die Zeile row an.
+         *
+         * @param row Werte der Zeile
+         * @throws IOException bei Fehlern beim Schreiben
+         * @pre row.size() == Anzahl der Spalten
+         */
+        void add(final List<String> row) throws IOException {
+            assert row.size() == this.cols.size();
+
+            byte[] encoded = encode(row);
+            int pageHeader = 4 + 4 * (this.rowOffsets.size() + 1);
+            if (!this.rowOffsets.isEmpty()
+                    && pageHeader + this.page.size() + encoded.length > PAGE_SIZE) {
+                writePage();
+            }
+            this.rowOffsets.add(this.page.size());
+            this.page.write(encoded);
+            this.rowCnt++;
+        }
+
+        /**
+         * Schreibt die letzte Seite, Verzeichnis und Abschluss und verschiebt die Datei an ihren
+         * Platz. Ist die Datei dauerhaft zu schreiben, geschieht das vor dem Verschieben; das
+         * Verzeichnis schreibt der Aufrufer mit {@link #forceDirectory} dauerhaft.
+         *
+         * @throws IOException bei Fehlern beim Schreiben
+         */
+        void finish() throws IOException {
+            if (!this.rowOffsets.isEmpty()) {
+                writePage();
+            }
+            this.out.writeUTF(this.layout.name());
+            this.out.writeInt(this.cols.size());
+            for (int i = 0; i < this.cols.size(); i++) {
+                this.out.writeUTF(this.cols.get(i));
+                this.out.writeUTF(this.types.get(i).name());
+            }
+            this.out.writeInt(this.rowCnt);
+            this.out.writeInt(this.offsets.size());
+            for (int i = 0; i < this.offsets.size(); i++) {
+                this.out.writeLong(this.offsets.get(i));
+                this.out.writeInt(this.lengths.get(i));
+                this.out.writeInt(this.firstRows.get(i));
+            }
+            this.out.writeLong(this.position);
+            this.out.writeInt(MAGIC);
+            this.out.close();
+            if (this.durable) {
+                force(this.tmp);
+            }
+            Files.move(this.tmp, this.file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            this.finished = true;
+        }
+
+        /**
+         * Schließt die Datei. Wurde sie nicht fertiggestellt, wird die temporäre Datei entfernt.
+         *
+         * @throws IOException bei Fehlern beim Schließen
+         */
+        @Override
+        public void close() throws IOException {
+            if (!this.finished) {
+                this.out.close();
+                Files.deleteIfExists(this.tmp);
+            }
+        }
+
+        /**
+         * Schreibt die aktuelle Seite und beginnt eine neue.
+         *
+         * @throws IOException bei Fehlern beim Schreiben
+         */
+        private void writePage() throws IOException {
+            int header = 4 + 4 * this.rowOffsets.size();
+            this.out.writeInt(this.rowOffsets.size());
+            for (int offset : this.rowOffsets) {
+                this.out.writeInt(header + offset);
+            }
+            this.page.writeTo(this.out);
+
+            this.offsets.add(this.position);
+            this.lengths.add(header + this.page.size());
+            this.firstRows.add(this.rowCnt - this.rowOffsets.size());
+            this.position += header + this.page.size();
+            this.page.reset();
+            this.rowOffsets.clear();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package db;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Empfänger von Änderungen an den Zeilen einer Datenbanktabelle. Die Methoden werden aufgerufen,
+ * nachdem die jeweilige Änderung an der Tabelle ausgeführt wurde.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+interface TableListener {
+
+    /**
+     * Eine Zeile wurde als letzte Zeile angehängt, bei einer partitionierten Tabelle als letzte
+     * Zeile ihrer Partition (siehe {@link DBTable#partition}).
+     *
+     * @param table geänderte Tabelle
+     * @param row   Werte der Zeile, die nicht verändert werden dürfen
+     */
+    void rowAppended(DBTable table, List<String> row);
+
+    /**
+     * Zeilen wurden entfernt, die Reihenfolge der übrigen Zeilen ist unverändert.
+     *
+     * @param table geänderte Tabelle
+     * @param rows  Zeilennummern der entfernten Zeilen vor der Änderung
+     */
+    void rowsRemoved(DBTable table, BitSet rows);
+
+    /**
+     * Alle Zeilen wurden entfernt.
+     *
+     * @param table geänderte Tabelle
+     */
+    void allRowsRemoved(DBTable table);
+
+    /**
+     * Die Zeilen wurden umgeordnet, die neue Zeile i ist die bisherige Zeile order[i].
+     *
+     * @param table geänderte Tabelle
+     * @param order Permutation der Zeilennummern
+     */
+    void rowsPermuted(DBTable table, int[] order);
+
+    /**
+     * Die Tabelle wurde neu partitioniert (siehe {@link DBTable#partition}) und die Zeilen wurden
+     * dabei umgeordnet, die neue Zeile i ist die bisherige Zeile order[i]. Ohne eigene
+     * Behandlung gilt das als {@link #rowsPermuted}.
+     *
+     * @param table geänderte Tabelle, liefert die neue Partitionierung
+     * @param order Permutation der Zeilennummern
+     */
+    default void partitioned(DBTable table, int[] order) {
+        rowsPermuted(table, order);
+    }
+
+    /**
+     * Eine Operation auf der Tabelle ist abgeschlossen: alle ihre Änderungen sind ausgeführt und
+     * gemeldet. Während der übrigen Meldungen kann eine Operation erst teilweise gemeldet sein,
+     * etwa wenn mehrere Zeilen auf einmal angehängt werden. Ohne eigene Behandlung passiert
+     * nichts.
+     *
+     * @param table geänderte Tabelle
+     */
+    default void changeCompleted(DBTable table) {
+    }
+
+}
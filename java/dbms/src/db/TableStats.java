@@ -0,0 +1,137 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Statistiken über eine Datenbanktabelle: die Zeilenanzahl und je Spalte eine Schätzung der Anzahl
+ * verschiedener Werte. Die Statistiken beschreiben die Tabelle zum Zeitpunkt ihrer Erhebung.
+ * <p>
+ * Die Anzahl verschiedener Werte wird mit dem K-Minimum-Values-Verfahren geschätzt: Von den
+ * Hashwerten einer Spalte werden nur die {@link #SKETCH_SIZE} kleinsten gemerkt. Solange eine
+ * Spalte weniger verschiedene Werte hat, ist die Anzahl exakt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public final class TableStats {
+
+    /**
+     * Anzahl der kleinsten Hashwerte, die je Spalte gemerkt werden
+     */
+    static final int SKETCH_SIZE = 256;
+
+    /**
+     * Bezeichner der Tabelle
+     */
+    private final String tableId;
+    /**
+     * Spaltenbezeichner der Tabelle
+     */
+    private final List<String> cols;
+    /**
+     * Zeilenanzahl der Tabelle
+     */
+    private final int rowCnt;
+    /**
+     * Geschätzte Anzahl verschiedener Werte je Spalte
+     */
+    private final long[] distinct;
+
+    /**
+     * Erhebt die Statistiken der Tabelle table.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der vorhandenen Zeilen in der Tabelle
+     * und f(N) = N * M * Log(K), M = Anzahl der Spalten, K = {@link #SKETCH_SIZE}.
+     *
+     * @param table Tabelle, deren Statistiken erhoben werden
+     * @pre table != null
+     */
+    TableStats(final DBTable table) {
+        assert table != null;
+
+        this.tableId = table.getId();
+        this.cols = table.getColIds();
+        this.rowCnt = table.getRowCnt();
+        this.distinct = new long[this.cols.size()];
+        for (int col = 0; col < this.distinct.length; col++) {
+            TreeSet<Long> sketch = new TreeSet<>();
+            for (int row = 0; row < this.rowCnt; row++) {
+                String value = table.cell(row, col);
+                long hash = mix(value == null ? 0 : value.hashCode()) >>> 11;
+                if (sketch.size() < SKETCH_SIZE) {
+                    sketch.add(hash);
+                } else if (hash < sketch.last() && sketch.add(hash)) {
+                    sketch.pollLast();
+                }
+            }
+            if (sketch.size() < SKETCH_SIZE) {
+                this.distinct[col] = sketch.size();
+            } else {
+                // Die k kleinsten von D gleichverteilten Werten in [0, 1) reichen bis etwa k / D.
+                double kth = sketch.last() / (double) (1L << 53);
+                long estimate = Math.round((SKETCH_SIZE - 1) / kth);
+                this.distinct[col] = Math.max(SKETCH_SIZE, Math.min(this.rowCnt, estimate));
+            }
+        }
+    }
+
+    /**
+     * Liefert den Bezeichner der Tabelle.
+     *
+     * @return Bezeichner der Tabelle.
+     */
+    public String getTableId() {
+        return this.tableId;
+    }
+
+    /**
+     * Liefert die Zeilenanzahl der Tabelle.
+     *
+     * @return Zeilenanzahl der Tabelle.
+     */
+    public int getRowCnt() {
+        return this.rowCnt;
+    }
+
+    /**
+     * Liefert die geschätzte Anzahl verschiedener Werte in der Spalte mit dem Bezeichner aColId.
+     *
+     * @param aColId Bezeichner der Spalte
+     * @return geschätzte Anzahl verschiedener Werte
+     * @pre aColId != null
+     * @pre die Tabelle muss eine Spalte mit dem Bezeichner aColId haben
+     */
+    public long getDistinctCnt(final String aColId) {
+        assert aColId != null;
+        assert this.cols.contains(aColId);
+
+        return this.distinct[this.cols.indexOf(aColId)];
+    }
+
+    @Override
+    public String toString() {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < this.cols.size(); i++) {
+            entries.add(this.cols.get(i) + "=" + this.distinct[i]);
+        }
+        return this.tableId + ": " + this.rowCnt + " Zeilen, verschiedene Werte " + entries;
+    }
+
+    /**
+     * Verteilt die Bits eines Hashwertes gleichmäßig über 64 Bit.
+     *
+     * @param hash Hashwert
+     * @return durchmischter Hashwert
+     */
+    private static long mix(long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
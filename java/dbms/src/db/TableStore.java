@@ -0,0 +1,221 @@
+package db;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Speicher für die Zeilen einer Datenbanktabelle. Zeilen werden über ihre Zeilennummer
+ * angesprochen, die bei 0 beginnt und der Reihenfolge der Zeilen in der Tabelle entspricht.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+interface TableStore {
+
+    /**
+     * Erzeugt einen leeren Speicher im Speicherlayout layout.
+     *
+     * @param layout Speicherlayout
+     * @param types  Typen der Spalten
+     * @return leerer Speicher
+     * @pre layout != null
+     * @pre types.length > 0
+     */
+    static TableStore create(final StorageLayout layout, final ColumnType[] types) {
+        assert layout != null;
+        assert types.length > 0;
+
+        if (layout == StorageLayout.COLUMN) {
+            return new ColumnStore(types);
+        }
+        if (layout == StorageLayout.VERSIONED) {
+            return new VersionedStore(types);
+        }
+        return new RowStore(types);
+    }
+
+    /**
+     * Liefert die Anzahl der Zeilen.
+     *
+     * @return Anzahl der Zeilen
+     */
+    int size();
+
+    /**
+     * Liefert den Wert in Zeile row und Spalte col.
+     *
+     * @param row Zeilennummer
+     * @param col Spaltenposition
+     * @return Wert der Zelle
+     * @pre 0 <= row < size()
+     */
+    String get(int row, int col);
+
+    /**
+     * Liefert die Zeile mit der Zeilennummer row. Die gelieferte Liste darf nicht verändert werden.
+     *
+     * @param row Zeilennummer
+     * @return Werte der Zeile
+     * @pre 0 <= row < size()
+     */
+    List<String> getRow(int row);
+
+    /**
+     * Gibt an, ob der Wert in Zeile row und Spalte col null ist.
+     *
+     * @param row Zeilennummer
+     * @param col Spaltenposition
+     * @return true, falls der Wert null ist
+     * @pre 0 <= row < size()
+     */
+    boolean isNull(int row, int col);
+
+    /**
+     * Liefert den Schlüssel (siehe {@link ColumnType#toKey}) des Wertes in Zeile row und Spalte
+     * col.
+     *
+     * @param row Zeilennummer
+     * @param col Spaltenposition
+     * @return Schlüssel des Wertes
+     * @pre 0 <= row < size()
+     * @pre der Typ der Spalte col hat Schlüssel
+     * @pre der Wert darf nicht null sein
+     */
+    long key(int row, int col);
+
+    /**
+     * Liest die Werte der Zeilen [from, to) der Spalte col nach out, die Zeile from nach out[0].
+     *
+     * @param col  Spaltenposition
+     * @param from erste Zeilennummer, inklusive
+     * @param to   letzte Zeilennummer, exklusive
+     * @param out  Ziel der Werte
+     * @pre 0 <= from <= to <= size()
+     * @pre out.length >= to - from
+     */
+    default void values(int col, int from, int to, String[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = get(i, col);
+        }
+    }
+
+    /**
+     * Liest die Schlüssel der Zeilen [from, to) der Spalte col nach keys, die Zeile from nach
+     * keys[0]. An derselben Stelle in nulls wird vermerkt, ob der Wert null ist; der Schlüssel
+     * ist dann unbestimmt.
+     *
+     * @param col   Spaltenposition
+     * @param from  erste Zeilennummer, inklusive
+     * @param to    letzte Zeilennummer, exklusive
+     * @param keys  Ziel der Schlüssel
+     * @param nulls Ziel der null-Vermerke
+     * @pre 0 <= from <= to <= size()
+     * @pre der Typ der Spalte col hat Schlüssel
+     * @pre keys.length >= to - from und nulls.length >= to - from
+     */
+    default void keys(int col, int from, int to, long[] keys, boolean[] nulls) {
+        for (int i = from; i < to; i++) {
+            nulls[i - from] = isNull(i, col);
+            keys[i - from] = nulls[i - from] ? 0 : key(i, col);
+        }
+    }
+
+    /**
+     * Liefert das Wörterbuch der Spalte col, falls deren Werte als Codes gespeichert sind. Zwei
+     * Werte der Spalte sind dann genau gleich, wenn ihre Codes ({@link #code}) gleich sind. Das
+     * Wörterbuch gilt nur bis zur nächsten Änderung des Speichers.
+     *
+     * @param col Spaltenposition
+     * @return Wörterbuch oder null, falls die Spalte nicht als Codes gespeichert ist
+     */
+    default StringDictionary dictionary(int col) {
+        return null;
+    }
+
+    /**
+     * Liefert den Code des Wertes in Zeile row und Spalte col im Wörterbuch der Spalte.
+     *
+     * @param row Zeilennummer
+     * @param col Spaltenposition
+     * @return Code des Wertes
+     * @throws UnsupportedOperationException falls die Spalte nicht als Codes gespeichert ist
+     * @pre 0 <= row < size()
+     * @pre dictionary(col) != null
+     */
+    int code(int row, int col);
+
+    /**
+     * Liest die Codes der Zeilen [from, to) der Spalte col nach out, die Zeile from nach out[0].
+     *
+     * @param col  Spaltenposition
+     * @param from erste Zeilennummer, inklusive
+     * @param to   letzte Zeilennummer, exklusive
+     * @param out  Ziel der Codes
+     * @pre 0 <= from <= to <= size()
+     * @pre dictionary(col) != null
+     * @pre out.length >= to - from
+     */
+    default void codes(int col, int from, int to, int[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = code(i, col);
+        }
+    }
+
+    /**
+     * Hängt die Werte von row als letzte Zeile an. Werte von Spalten eines Typs mit Schlüsseln
+     * werden dabei in ihre Normalform gebracht.
+     *
+     * @param row Werte der Zeile
+     * @pre row.size() entspricht der Spaltenanzahl
+     * @pre alle Werte müssen zum Typ ihrer Spalte passen
+     */
+    void append(Collection<String> row);
+
+    /**
+     * Hängt die Zeilen rows in ihrer Reihenfolge an. Die Listen werden dabei übernommen und
+     * dürfen danach nicht mehr verändert werden.
+     *
+     * @param rows Zeilen
+     * @pre jede Zeile enthält so viele Werte, wie es Spalten gibt
+     */
+    void appendAll(List<List<String>> rows);
+
+    /**
+     * Stellt Platz für insgesamt rowCnt Zeilen bereit, sodass beim Anhängen bis zu dieser Anzahl
+     * nicht mehr vergrößert werden muss.
+     *
+     * @param rowCnt erwartete Anzahl der Zeilen
+     */
+    void reserve(int rowCnt);
+
+    /**
+     * Entfernt alle Zeilen, deren Zeilennummer in rows gesetzt ist. Die Reihenfolge der übrigen
+     * Zeilen bleibt erhalten.
+     *
+     * @param rows Zeilennummern der zu entfernenden Zeilen
+     */
+    void remove(BitSet rows);
+
+    /**
+     * Entfernt alle Zeilen.
+     */
+    void clear();
+
+    /**
+     * Ordnet die Zeilen neu an, sodass die neue Zeile i der bisherigen Zeile order[i] entspricht.
+     *
+     * @param order Permutation der Zeilennummern
+     * @pre order.length == size()
+     */
+    void permute(int[] order);
+
+    /**
+     * Liefert einen unveränderlichen Schnappschuss der aktuellen Zeilen, den spätere Änderungen an
+     * diesem Speicher nicht betreffen. Änderungen am Schnappschuss werfen eine
+     * UnsupportedOperationException.
+     *
+     * @return Schnappschuss
+     */
+    TableStore snapshot();
+
+}
@@ -0,0 +1,354 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Zeilenorientierter Speicher einer Datenbanktabelle, dessen Stände (Versionen) unveränderlich
+ * sind. Die Zeilen liegen in Blöcken zu je {@link #CHUNK_ROWS} Zeilen. Ein Stand besteht aus den
+ * Blöcken und der Anzahl der Zeilen und wird nach jeder Änderung als Ganzes neu veröffentlicht.
+ * <p>
+ * Angehängt wird an Stellen hinter dem Ende des aktuellen Standes, die kein veröffentlichter Stand
+ * sieht; Blöcke werden dazu nicht kopiert. Entfernen und Umordnen bauen die betroffenen Blöcke
+ * neu auf (copy-on-write), unveränderte Blöcke vor der ersten Änderung werden weiterverwendet.
+ * Ein Schnappschuss ({@link #snapshot()}) hält daher nur einen Verweis auf den aktuellen Stand und
+ * kostet O(1). Er darf von beliebig vielen Threads gelesen werden, auch während ein Thread diesen
+ * Speicher ändert. Änderungen selbst müssen nacheinander erfolgen.
+ * <p>
+ * Gleiche Werte einer Spalte werden wie im {@link RowStore} beim Anhängen durch dasselbe Objekt
+ * ersetzt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class VersionedStore implements TableStore {
+
+    /**
+     * Zweierlogarithmus der Anzahl der Zeilen je Block
+     */
+    private static final int CHUNK_SHIFT = 12;
+    /**
+     * Anzahl der Zeilen je Block
+     */
+    static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Gibt an, ob dieser Speicher ein unveränderlicher Schnappschuss ist
+     */
+    private final boolean frozen;
+    /**
+     * Wörterbücher der Spalten zum Zusammenführen gleicher Werte, null für Spalten, bei denen es
+     * sich nicht lohnt, und für Schnappschüsse. Werte entfernter Zeilen werden in {@link #remove}
+     * verworfen, sobald weniger als die Hälfte der aufgenommenen Zeilen übrig ist; permute ändert
+     * die Werte nicht.
+     */
+    private final StringDictionary[] dictionaries;
+    /**
+     * Anzahl der seit dem letzten Neuaufbau in die Wörterbücher aufgenommenen Zeilen
+     */
+    private int internedCnt;
+    /**
+     * Aktueller Stand, wird nach jeder Änderung ersetzt
+     */
+    private volatile Version version;
+
+    /**
+     * Erzeugt einen leeren Speicher für Spalten der Typen types.
+     *
+     * @param types Typen der Spalten
+     * @pre types.length > 0
+     */
+    VersionedStore(final ColumnType[] types) {
+        this(types, new Version(newChunks(0), 0), false);
+    }
+
+    /**
+     * Erzeugt einen Speicher mit dem Stand version.
+     *
+     * @param types   Typen der Spalten
+     * @param version Stand
+     * @param frozen  gibt an, ob der Speicher unveränderlich ist
+     */
+    private VersionedStore(ColumnType[] types, Version version, boolean frozen) {
+        assert types.length > 0;
+
+        this.types = types.clone();
+        this.version = version;
+        this.frozen = frozen;
+        this.dictionaries = new StringDictionary[types.length];
+        if (!frozen) {
+            clearDictionaries();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.version.size;
+    }
+
+    @Override
+    public String get(int row, int col) {
+        return getRow(row).get(col);
+    }
+
+    @Override
+    public List<String> getRow(int row) {
+        Version v = this.version;
+        assert row >= 0 && row < v.size;
+
+        return v.row(row);
+    }
+
+    @Override
+    public boolean isNull(int row, int col) {
+        return get(row, col) == null;
+    }
+
+    @Override
+    public long key(int row, int col) {
+        return this.types[col].toKey(get(row, col));
+    }
+
+    @Override
+    public void append(Collection<String> row) {
+        List<String> copy = new ArrayList<>(row);
+        Version v = this.version;
+        normalize(copy);
+        List<String>[][] chunks = put(v.chunks, v.size, copy);
+        this.version = new Version(chunks, v.size + 1);
+    }
+
+    @Override
+    public void appendAll(List<List<String>> rows) {
+        Version v = this.version;
+        List<String>[][] chunks = v.chunks;
+        int size = v.size;
+        for (List<String> row : rows) {
+            normalize(row);
+            chunks = put(chunks, size++, row);
+        }
+        // ein einziger neuer Stand für alle Zeilen
+        this.version = new Version(chunks, size);
+    }
+
+    @Override
+    public void reserve(int rowCnt) {
+        checkWritable();
+    }
+
+    @Override
+    public void remove(BitSet rows) {
+        checkWritable();
+        Version v = this.version;
+        int first = rows.nextSetBit(0);
+        if (first < 0 || first >= v.size) {
+            return;
+        }
+        // Blöcke vor dem Block der ersten entfernten Zeile bleiben unverändert
+        int start = first & ~(CHUNK_ROWS - 1);
+        List<String>[][] chunks = newChunks(v.chunks.length);
+        System.arraycopy(v.chunks, 0, chunks, 0, start >>> CHUNK_SHIFT);
+        int size = start;
+        for (int i = start; i < v.size; i++) {
+            if (!rows.get(i)) {
+                chunks = put(chunks, size++, v.row(i));
+            }
+        }
+        this.version = new Version(chunks, size);
+        if (size * 2 < this.internedCnt) {
+            rebuildDictionaries();
+        }
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        this.version = new Version(newChunks(0), 0);
+        clearDictionaries();
+    }
+
+    @Override
+    public void permute(int[] order) {
+        checkWritable();
+        Version v = this.version;
+        assert order.length == v.size;
+
+        List<String>[][] chunks = newChunks(v.chunks.length);
+        for (int i = 0; i < order.length; i++) {
+            chunks = put(chunks, i, v.row(order[i]));
+        }
+        this.version = new Version(chunks, v.size);
+    }
+
+    @Override
+    public int code(int row, int col) {
+        // die Wörterbücher dienen nur dem Zusammenführen gleicher Werte
+        throw new UnsupportedOperationException("Spalte ohne Wörterbuch");
+    }
+
+    @Override
+    public TableStore snapshot() {
+        return new VersionedStore(this.types, this.version, true);
+    }
+
+    /**
+     * Liefert einen unveränderlichen Schnappschuss mit den Zeilen von store. Die Zeilen werden
+     * dazu kopiert, store darf währenddessen nicht geändert werden.
+     *
+     * @param store Speicher
+     * @param types Typen der Spalten
+     * @return Schnappschuss
+     */
+    static TableStore copyOf(final TableStore store, final ColumnType[] types) {
+        VersionedStore result = new VersionedStore(types);
+        List<String>[][] chunks = result.version.chunks;
+        for (int i = 0; i < store.size(); i++) {
+            chunks = result.put(chunks, i, store.getRow(i));
+        }
+        return new VersionedStore(types, new Version(chunks, store.size()), true);
+    }
+
+    /**
+     * Legt row an der Stelle index ab, die hinter dem Ende aller veröffentlichten Stände liegt,
+     * und ergänzt dazu bei Bedarf einen Block.
+     *
+     * @param chunks Blöcke
+     * @param index  Zeilennummer
+     * @param row    Werte der Zeile
+     * @return Blöcke, bei Bedarf vergrößert
+     */
+    private List<String>[][] put(List<String>[][] chunks, int index, List<String> row) {
+        checkWritable();
+        int chunk = index >>> CHUNK_SHIFT;
+        List<String>[][] result = chunks;
+        if (chunk == result.length) {
+            result = Arrays.copyOf(result, Math.max(4, result.length * 2));
+        }
+        if (result[chunk] == null) {
+            result[chunk] = newChunk();
+        }
+        result[chunk][index & (CHUNK_ROWS - 1)] = row;
+        return result;
+    }
+
+    /**
+     * Stellt sicher, dass dieser Speicher kein Schnappschuss ist.
+     *
+     * @throws UnsupportedOperationException für einen Schnappschuss
+     */
+    private void checkWritable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Schnappschuss kann nicht geändert werden");
+        }
+    }
+
+    /**
+     * Bringt die Werte der Zeile row in Normalform und ersetzt jeden Wert durch den gleichen Wert
+     * aus dem Wörterbuch seiner Spalte.
+     *
+     * @param row Werte der Zeile, werden ersetzt
+     */
+    private void normalize(List<String> row) {
+        this.internedCnt++;
+        for (int i = 0; i < this.types.length; i++) {
+            String value = row.get(i);
+            if (this.types[i].hasKeys()) {
+                value = this.types[i].normalize(value);
+            }
+            if (this.dictionaries[i] != null) {
+                value = this.dictionaries[i].intern(value);
+                if (this.dictionaries[i].isFull(this.internedCnt)) {
+                    this.dictionaries[i] = null;
+                }
+            }
+            if (value != row.get(i)) {
+                row.set(i, value);
+            }
+        }
+    }
+
+    /**
+     * Beginnt für alle Spalten mit leeren Wörterbüchern.
+     */
+    private void clearDictionaries() {
+        for (int i = 0; i < this.dictionaries.length; i++) {
+            this.dictionaries[i] = new StringDictionary();
+        }
+        this.internedCnt = 0;
+    }
+
+    /**
+     * Baut die Wörterbücher aus den Werten der Zeilen des aktuellen Standes neu auf, sodass sie
+     * keine Werte entfernter Zeilen mehr festhalten. Die Zeilen selbst bleiben unverändert, da
+     * Schnappschüsse sie mitbenutzen.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der Zeilen, M = Anzahl der Spalten
+     * und f(N) = N * M.
+     */
+    private void rebuildDictionaries() {
+        clearDictionaries();
+        Version v = this.version;
+        for (int row = 0; row < v.size; row++) {
+            List<String> values = v.row(row);
+            this.internedCnt++;
+            for (int i = 0; i < this.types.length; i++) {
+                if (this.dictionaries[i] != null) {
+                    this.dictionaries[i].add(values.get(i));
+                    if (this.dictionaries[i].isFull(this.internedCnt)) {
+                        this.dictionaries[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Erzeugt ein Array für cnt Blöcke.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String>[][] newChunks(int cnt) {
+        return (List<String>[][]) new List<?>[Math.max(4, cnt)][];
+    }
+
+    /**
+     * Erzeugt einen leeren Block.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String>[] newChunk() {
+        return (List<String>[]) new List<?>[CHUNK_ROWS];
+    }
+
+    /**
+     * Ein unveränderlicher Stand: die ersten size Zeilen der Blöcke chunks.
+     */
+    private static final class Version {
+
+        /**
+         * Blöcke der Zeilen
+         */
+        private final List<String>[][] chunks;
+        /**
+         * Anzahl der Zeilen
+         */
+        private final int size;
+
+        Version(List<String>[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        /**
+         * Liefert die Zeile mit der Zeilennummer row.
+         */
+        List<String> row(int row) {
+            return this.chunks[row >>> CHUNK_SHIFT][row & (CHUNK_ROWS - 1)];
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package db;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Datensätze des Protokolls einer Datenbank (siehe {@link WriteAheadLog}). Jeder Datensatz
+ * beschreibt eine Änderung an der Datenbank oder an einer ihrer Tabellen so, dass sie beim
+ * Wiederherstellen erneut ausgeführt werden kann. Ein Datensatz beginnt mit seiner Art (byte),
+ * gefolgt von den Daten der Änderung. Bezeichner werden mit {@link DataOutputStream#writeUTF}
+ * abgelegt, Werte wie in {@link TableFile} als Länge in Byte (int, -1 für null) und UTF-8.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class WalRecord {
+
+    /** Einfügen einer Tabelle samt Zeilen. */
+    private static final byte ADD_TABLE = 1;
+    /** Entfernen einer Tabelle. */
+    private static final byte REMOVE_TABLE = 2;
+    /** Entfernen aller Tabellen. */
+    private static final byte REMOVE_ALL_TABLES = 3;
+    /** Anhängen einer Zeile. */
+    private static final byte APPEND_ROW = 4;
+    /** Entfernen von Zeilen. */
+    private static final byte REMOVE_ROWS = 5;
+    /** Entfernen aller Zeilen. */
+    private static final byte REMOVE_ALL_ROWS = 6;
+    /** Umordnen der Zeilen. */
+    private static final byte PERMUTE_ROWS = 7;
+    /** Partitionieren einer Tabelle. */
+    private static final byte PARTITION = 8;
+
+    /**
+     * Keine Instanzen.
+     */
+    private WalRecord() {
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Einfügen der Tabelle table samt ihrer Zeilen und ihrer
+     * Partitionierung.
+     *
+     * @param table eingefügte Tabelle
+     * @return Datensatz
+     */
+    static byte[] addTable(final DBTable table) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(ADD_TABLE);
+            out.writeUTF(table.getId());
+            out.writeUTF(table.getLayout().name());
+            writeValues(out, table.getColIds());
+            for (String col : table.getColIds()) {
+                out.writeUTF(table.getColType(col).name());
+            }
+            out.writeInt(table.getRowCnt());
+            for (int i = 0; i < table.getRowCnt(); i++) {
+                writeValues(out, table.getRow(i));
+            }
+            writePartitioning(out, table.getPartitioning());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Entfernen der Tabelle mit dem Bezeichner anId.
+     *
+     * @param anId Bezeichner der Tabelle
+     * @return Datensatz
+     */
+    static byte[] removeTable(final String anId) {
+        return tableRecord(REMOVE_TABLE, anId);
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Entfernen aller Tabellen.
+     *
+     * @return Datensatz
+     */
+    static byte[] removeAllTables() {
+        return new byte[]{REMOVE_ALL_TABLES};
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Anhängen der Zeile row an die Tabelle table.
+     *
+     * @param table geänderte Tabelle
+     * @param row   angehängte Zeile
+     * @return Datensatz
+     */
+    static byte[] appendRow(final DBTable table, final List<String> row) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(APPEND_ROW);
+            out.writeUTF(table.getId());
+            writeValues(out, row);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Entfernen der Zeilen rows aus der Tabelle table.
+     *
+     * @param table geänderte Tabelle
+     * @param rows  Zeilennummern der entfernten Zeilen
+     * @return Datensatz
+     */
+    static byte[] removeRows(final DBTable table, final BitSet rows) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(REMOVE_ROWS);
+            out.writeUTF(table.getId());
+            long[] words = rows.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Entfernen aller Zeilen der Tabelle table.
+     *
+     * @param table geänderte Tabelle
+     * @return Datensatz
+     */
+    static byte[] removeAllRows(final DBTable table) {
+        return tableRecord(REMOVE_ALL_ROWS, table.getId());
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Umordnen der Zeilen der Tabelle table.
+     *
+     * @param table geänderte Tabelle
+     * @param order Permutation der Zeilennummern
+     * @return Datensatz
+     */
+    static byte[] permuteRows(final DBTable table, final int[] order) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + 4 * order.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PERMUTE_ROWS);
+            out.writeUTF(table.getId());
+            out.writeInt(order.length);
+            for (int i : order) {
+                out.writeInt(i);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Erzeugt den Datensatz für das Partitionieren der Tabelle table gemäß ihrer aktuellen
+     * Partitionierung.
+     *
+     * @param table geänderte Tabelle
+     * @return Datensatz
+     * @pre table.getPartitioning() != null
+     */
+    static byte[] partition(final DBTable table) {
+        assert table.getPartitioning() != null;
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(PARTITION);
+            out.writeUTF(table.getId());
+            writePartitioning(out, table.getPartitioning());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Führt die im Datensatz record beschriebene Änderung an der Datenbank db erneut aus.
+     *
+     * @param db     Datenbank, an der die Änderung ausgeführt wird
+     * @param record Datensatz
+     * @throws IOException bei einem ungültigen Datensatz
+     */
+    static void apply(final DB db, final byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        if (type == REMOVE_ALL_TABLES) {
+            db.removeAllTables();
+            return;
+        }
+
+        String tableId = in.readUTF();
+        if (type == ADD_TABLE) {
+            StorageLayout layout = StorageLayout.valueOf(in.readUTF());
+            List<String> cols = readValues(in);
+            List<ColumnType> types = new ArrayList<>(cols.size());
+            for (int i = 0; i < cols.size(); i++) {
+                types.add(ColumnType.valueOf(in.readUTF()));
+            }
+            DBTable table = new DBTable(tableId, cols, types, layout);
+            int rowCnt = in.readInt();
+            for (int i = 0; i < rowCnt; i++) {
+                table.appendRow(readValues(in));
+            }
+            // die Zeilen liegen bereits nach Partitionen geordnet vor
+            Partitioning partitioning = readPartitioning(in);
+            if (partitioning != null) {
+                table.partition(partitioning);
+            }
+            db.addTable(table);
+            return;
+        }
+        if (type == REMOVE_TABLE) {
+            db.removeTable(tableId);
+            return;
+        }
+
+        DBTable table = db.getTable(tableId);
+        if (table == null) {
+            throw new IOException("Protokoll verweist auf unbekannte Tabelle " + tableId);
+        }
+        switch (type) {
+            case APPEND_ROW:
+                table.appendRow(readValues(in));
+                break;
+            case REMOVE_ROWS:
+                long[] words = new long[in.readInt()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = in.readLong();
+                }
+                table.removeRows(BitSet.valueOf(words));
+                break;
+            case REMOVE_ALL_ROWS:
+                table.removeAllRows();
+                break;
+            case PERMUTE_ROWS:
+                int[] order = new int[in.readInt()];
+                for (int i = 0; i < order.length; i++) {
+                    order[i] = in.readInt();
+                }
+                table.permuteRows(order);
+                break;
+            case PARTITION:
+                table.partition(readPartitioning(in));
+                break;
+            default:
+                throw new IOException("Unbekannte Art von Protokolldatensatz: " + type);
+        }
+    }
+
+    /**
+     * Schreibt die Partitionierung partitioning: ob es eine gibt (boolean), dann den Bezeichner
+     * der Spalte (UTF), ob nach Bereichen partitioniert wird (boolean) und die Grenzen bzw. die
+     * Anzahl der Partitionen (int).
+     *
+     * @param out          Ziel
+     * @param partitioning Partitionierung oder null
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    static void writePartitioning(final DataOutputStream out, final Partitioning partitioning)
+            throws IOException {
+        out.writeBoolean(partitioning != null);
+        if (partitioning == null) {
+            return;
+        }
+        out.writeUTF(partitioning.getColId());
+        out.writeBoolean(partitioning.isRange());
+        if (partitioning.isRange()) {
+            writeValues(out, partitioning.getBounds());
+        } else {
+            out.writeInt(partitioning.getPartitionCnt());
+        }
+    }
+
+    /**
+     * Liest eine mit {@link #writePartitioning} geschriebene Partitionierung.
+     *
+     * @param in Quelle
+     * @return Partitionierung oder null
+     * @throws IOException bei Fehlern beim Lesen
+     */
+    static Partitioning readPartitioning(final DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String colId = in.readUTF();
+        if (in.readBoolean()) {
+            return Partitioning.range(colId, readValues(in));
+        }
+        return Partitioning.hash(colId, in.readInt());
+    }
+
+    /**
+     * Erzeugt einen Datensatz, der nur aus Art und Tabellenbezeichner besteht.
+     */
+    private static byte[] tableRecord(byte type, String anId) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(anId);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Schreibt Anzahl und Werte von values.
+     */
+    private static void writeValues(DataOutputStream out, Collection<String> values)
+            throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        }
+    }
+
+    /**
+     * Liest mit {@link #writeValues} geschriebene Werte.
+     */
+    private static List<String> readValues(DataInputStream in) throws IOException {
+        int cnt = in.readInt();
+        List<String> result = new ArrayList<>(cnt);
+        for (int i = 0; i < cnt; i++) {
+            int length = in.readInt();
+            if (length < 0) {
+                result.add(null);
+            } else {
+                byte[] utf8 = new byte[length];
+                in.readFully(utf8);
+                result.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,295 @@
+package db;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Eine Protokolldatei, an die Änderungen als Datensätze angehängt werden (write-ahead log).
+ * <p>
+ * Datensätze werden zunächst gepuffert. Ein Hintergrund-Thread schreibt alle gepufferten
+ * Datensätze spätestens nach dem Commit-Intervall oder sobald {@link #GROUP_BYTES} Byte anstehen
+ * gemeinsam in die Datei und erzwingt sie mit einem einzigen fsync auf den Datenträger (group
+ * commit). Anhängende Threads warten dabei nie auf den Datenträger. {@link #sync()} schreibt alle
+ * bisher angehängten Datensätze sofort dauerhaft.
+ * <p>
+ * Jeder Datensatz besteht aus Länge (int), CRC32-Prüfsumme (int) und Inhalt. Ein unvollständiger
+ * oder beschädigter Datensatz am Dateiende, wie er bei einem Absturz während des Schreibens
+ * entsteht, beendet das Lesen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class WriteAheadLog implements Closeable {
+
+    /**
+     * Anzahl gepufferter Bytes, ab der sofort geschrieben wird
+     */
+    static final int GROUP_BYTES = 1 << 20;
+    /**
+     * Größe des Kopfes eines Datensatzes in Byte
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Geöffnete Protokolldatei
+     */
+    private final FileChannel channel;
+    /**
+     * Thread, der gepufferte Datensätze schreibt
+     */
+    private final Thread flusher;
+    /**
+     * Schützt pending, size, closed und failure
+     */
+    private final Object lock = new Object();
+    /**
+     * Schützt die Schreibzugriffe auf channel
+     */
+    private final Object ioLock = new Object();
+    /**
+     * Gepufferte, noch nicht geschriebene Datensätze
+     */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    /**
+     * Größe der Protokolldatei einschließlich gepufferter Datensätze
+     */
+    private long size;
+    /**
+     * Gibt an, ob das Protokoll geschlossen wurde
+     */
+    private boolean closed;
+    /**
+     * Fehler des Hintergrund-Threads, null, falls keiner aufgetreten ist
+     */
+    private IOException failure;
+
+    /**
+     * Öffnet die Protokolldatei file zum Anhängen und legt sie bei Bedarf dauerhaft an.
+     *
+     * @param file           Protokolldatei
+     * @param commitInterval längste Zeit in Millisekunden, die ein Datensatz gepuffert wird
+     * @throws IOException bei Fehlern beim Öffnen
+     * @pre commitInterval > 0
+     */
+    WriteAheadLog(final Path file, final long commitInterval) throws IOException {
+        assert commitInterval > 0;
+
+        boolean created = !Files.exists(file);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (created) {
+            // sonst gingen geschriebene Datensätze mit dem Verzeichniseintrag verloren
+            TableFile.forceDirectory(file.toAbsolutePath().getParent());
+        }
+        this.size = this.channel.size();
+        this.flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushPeriodically(commitInterval);
+            }
+        }, "wal-" + file.getFileName());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Hängt einen Datensatz mit dem Inhalt payload an. Der Datensatz ist spätestens nach dem
+     * Commit-Intervall oder nach {@link #sync()} dauerhaft gespeichert.
+     *
+     * @param payload Inhalt des Datensatzes
+     * @throws IOException wenn ein früheres Schreiben fehlgeschlagen ist
+     * @pre das Protokoll darf nicht geschlossen sein
+     */
+    void append(final byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(payload.length).putInt((int) crc.getValue());
+
+        synchronized (this.lock) {
+            assert !this.closed;
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            this.pending.write(header.array(), 0, HEADER_SIZE);
+            this.pending.write(payload, 0, payload.length);
+            this.size += HEADER_SIZE + payload.length;
+            if (this.pending.size() >= GROUP_BYTES) {
+                this.lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle bisher angehängten Datensätze dauerhaft in die Datei.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    void sync() throws IOException {
+        flush();
+    }
+
+    /**
+     * Liefert die Größe der Protokolldatei einschließlich gepufferter Datensätze in Byte.
+     *
+     * @return Größe in Byte
+     */
+    long size() {
+        synchronized (this.lock) {
+            return this.size;
+        }
+    }
+
+    /**
+     * Schreibt alle gepufferten Datensätze und schließt die Datei.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.lock.notifyAll();
+        }
+        try {
+            this.flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Liest alle vollständigen Datensätze der Protokolldatei file und übergibt ihren Inhalt der
+     * Reihe nach an handler. Existiert die Datei nicht, passiert nichts. Ein unvollständiger oder
+     * beschädigter Rest am Dateiende wird abgeschnitten, sodass danach wieder angehängt werden
+     * kann.
+     *
+     * @param file    Protokolldatei
+     * @param handler Empfänger der Inhalte
+     * @return Anzahl der gelesenen Datensätze
+     * @throws IOException bei Fehlern beim Lesen
+     */
+    static int replay(final Path file, final Consumer<byte[]> handler) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long fileSize = Files.size(file);
+        long valid = 0;
+        int cnt = 0;
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > fileSize - valid - HEADER_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.accept(payload);
+                valid += HEADER_SIZE + payload.length;
+                cnt++;
+            }
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (out.size() > valid) {
+                out.truncate(valid);
+                out.force(true);
+            }
+        }
+        return cnt;
+    }
+
+    /**
+     * Schreibt gepufferte Datensätze nach jedem Commit-Intervall, bis das Protokoll geschlossen
+     * wird.
+     *
+     * @param commitInterval Commit-Intervall in Millisekunden
+     */
+    private void flushPeriodically(long commitInterval) {
+        while (true) {
+            synchronized (this.lock) {
+                if (!this.closed && this.pending.size() < GROUP_BYTES) {
+                    try {
+                        this.lock.wait(commitInterval);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (this.closed) {
+                    return;
+                }
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                // in failure vermerkt, wird beim nächsten append geworfen
+                return;
+            }
+        }
+    }
+
+    /**
+     * Schreibt alle gepufferten Datensätze mit einem gemeinsamen fsync in die Datei.
+     *
+     * @throws IOException bei Fehlern beim Schreiben
+     */
+    private void flush() throws IOException {
+        synchronized (this.ioLock) {
+            byte[] batch;
+            synchronized (this.lock) {
+                if (this.failure != null) {
+                    throw this.failure;
+                }
+                if (this.pending.size() == 0) {
+                    return;
+                }
+                batch = this.pending.toByteArray();
+                this.pending = new ByteArrayOutputStream();
+            }
+            try {
+                ByteBuffer buf = ByteBuffer.wrap(batch);
+                while (buf.hasRemaining()) {
+                    this.channel.write(buf);
+                }
+                this.channel.force(false);
+            } catch (IOException e) {
+                synchronized (this.lock) {
+                    this.failure = e;
+                }
+                throw e;
+            }
+        }
+    }
+
+}
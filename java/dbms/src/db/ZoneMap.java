@@ -0,0 +1,268 @@
+package db;
+
+import java.util.Arrays;
+
+/**
+ * Statistiken über die Zeilen einer Datenbanktabelle in Blöcken zu je {@link #BLOCK_ROWS} Zeilen
+ * (Zone Map, siehe {@link DBTable#setZoneMaps}). Je Block und Spalte werden der kleinste und der
+ * größte Wert sowie die Anzahl der Werte null gemerkt, bei Spalten eines Typs mit Schlüsseln als
+ * Schlüssel, sonst als Zeichenketten gemäß compareTo.
+ * <p>
+ * Eine Bereichssuche kann damit ganze Blöcke überspringen, deren Werte alle außerhalb des
+ * Bereiches liegen, und Blöcke, deren Werte alle innerhalb liegen, ohne Vergleich übernehmen
+ * (siehe {@link #classify}). Das lohnt sich bei Spalten, deren Werte in der Reihenfolge der Zeilen
+ * etwa steigen, wie Zeitstempel angehängter Zeilen.
+ * <p>
+ * Angehängte Zeilen werden mit {@link #update} eingearbeitet; verschieben sich Zeilennummern, wird
+ * mit {@link #clear} und update neu aufgebaut. Eine partitionierte Tabelle führt je Partition
+ * eigene Statistiken über deren Speicher, sodass Zeilen, die in einer Partition eingefügt werden,
+ * die Blöcke der übrigen Partitionen nicht verschieben.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class ZoneMap {
+
+    /**
+     * Anzahl der Zeilen je Block
+     */
+    static final int BLOCK_ROWS = BatchPredicate.CHUNK_ROWS;
+    /**
+     * Ergebnis von {@link #classify}: keine Zeile des Blocks liegt im Bereich
+     */
+    static final int NONE = 0;
+    /**
+     * Ergebnis von {@link #classify}: jede Zeile des Blocks liegt im Bereich
+     */
+    static final int ALL = 1;
+    /**
+     * Ergebnis von {@link #classify}: die Zeilen des Blocks müssen einzeln geprüft werden
+     */
+    static final int SOME = 2;
+    /**
+     * Anfängliche Anzahl der Blöcke
+     */
+    private static final int INITIAL_BLOCKS = 4;
+
+    /**
+     * Typen der Spalten
+     */
+    private final ColumnType[] types;
+    /**
+     * Anzahl der erfassten Zeilen
+     */
+    private int rowCnt;
+    /**
+     * Kleinster Schlüssel je Spalte und Block, null für Spalten ohne Schlüssel
+     */
+    private final long[][] minKeys;
+    /**
+     * Größter Schlüssel je Spalte und Block, null für Spalten ohne Schlüssel
+     */
+    private final long[][] maxKeys;
+    /**
+     * Kleinster Wert je Spalte und Block, null für Spalten mit Schlüsseln
+     */
+    private final String[][] minValues;
+    /**
+     * Größter Wert je Spalte und Block, null für Spalten mit Schlüsseln
+     */
+    private final String[][] maxValues;
+    /**
+     * Anzahl der Werte null je Spalte und Block
+     */
+    private final int[][] nullCnts;
+
+    /**
+     * Erzeugt leere Statistiken für Spalten der Typen types.
+     *
+     * @param types Typen der Spalten
+     */
+    ZoneMap(final ColumnType[] types) {
+        this.types = types.clone();
+        this.minKeys = new long[types.length][];
+        this.maxKeys = new long[types.length][];
+        this.minValues = new String[types.length][];
+        this.maxValues = new String[types.length][];
+        this.nullCnts = new int[types.length][];
+        for (int col = 0; col < types.length; col++) {
+            if (types[col].hasKeys()) {
+                this.minKeys[col] = new long[INITIAL_BLOCKS];
+                this.maxKeys[col] = new long[INITIAL_BLOCKS];
+            } else {
+                this.minValues[col] = new String[INITIAL_BLOCKS];
+                this.maxValues[col] = new String[INITIAL_BLOCKS];
+            }
+            this.nullCnts[col] = new int[INITIAL_BLOCKS];
+        }
+    }
+
+    /**
+     * Liefert die Anzahl der erfassten Blöcke.
+     *
+     * @return Anzahl der Blöcke, der letzte ist eventuell nicht voll
+     */
+    int blockCnt() {
+        return (this.rowCnt + BLOCK_ROWS - 1) / BLOCK_ROWS;
+    }
+
+    /**
+     * Verwirft alle Statistiken. Das nächste {@link #update} erfasst alle Zeilen neu.
+     */
+    void clear() {
+        this.rowCnt = 0;
+    }
+
+    /**
+     * Verwirft die Statistiken ab dem Block, der die Zeile row enthält, etwa weil ab dieser Zeile
+     * Zeilen entfernt wurden. Das nächste {@link #update} erfasst die Zeilen ab diesem Block neu.
+     *
+     * @param row erste geänderte Zeile
+     * @pre row >= 0
+     */
+    void truncate(final int row) {
+        assert row >= 0;
+
+        this.rowCnt = Math.min(this.rowCnt, row / BLOCK_ROWS * BLOCK_ROWS);
+    }
+
+    /**
+     * Arbeitet die Zeilen von store ein, die seit dem letzten Aufruf angehängt wurden.
+     * <p>
+     * Diese Methode arbeitet in O(f(N)), dabei ist N = Anzahl der neuen Zeilen, M = Anzahl der
+     * Spalten und f(N) = N * M.
+     *
+     * @param store Speicher der Zeilen, dessen erste erfasste Zeilen unverändert sind
+     * @pre store.size() >= Anzahl der erfassten Zeilen
+     */
+    void update(final TableStore store) {
+        assert store.size() >= this.rowCnt;
+
+        int size = store.size();
+        if (size == this.rowCnt) {
+            return;
+        }
+        ensureBlocks((size + BLOCK_ROWS - 1) / BLOCK_ROWS);
+        int chunk = Math.min(BLOCK_ROWS, size - this.rowCnt);
+        long[] keys = new long[chunk];
+        boolean[] nulls = new boolean[chunk];
+        String[] strs = new String[chunk];
+        //O(N * M), blockweise bis zum Ende
+        for (int from = this.rowCnt; from < size; ) {
+            int block = from / BLOCK_ROWS;
+            int to = Math.min(Math.min(size, (block + 1) * BLOCK_ROWS), from + chunk);
+            boolean fresh = from == block * BLOCK_ROWS;
+            for (int col = 0; col < this.types.length; col++) {
+                int nullCnt = fresh ? 0 : this.nullCnts[col][block];
+                if (this.types[col].hasKeys()) {
+                    store.keys(col, from, to, keys, nulls);
+                    long min = fresh ? Long.MAX_VALUE : this.minKeys[col][block];
+                    long max = fresh ? Long.MIN_VALUE : this.maxKeys[col][block];
+                    for (int i = 0; i < to - from; i++) {
+                        if (nulls[i]) {
+                            nullCnt++;
+                        } else {
+                            min = Math.min(min, keys[i]);
+                            max = Math.max(max, keys[i]);
+                        }
+                    }
+                    this.minKeys[col][block] = min;
+                    this.maxKeys[col][block] = max;
+                } else {
+                    store.values(col, from, to, strs);
+                    String min = fresh ? null : this.minValues[col][block];
+                    String max = fresh ? null : this.maxValues[col][block];
+                    for (int i = 0; i < to - from; i++) {
+                        if (strs[i] == null) {
+                            nullCnt++;
+                        } else {
+                            if (min == null || strs[i].compareTo(min) < 0) {
+                                min = strs[i];
+                            }
+                            if (max == null || strs[i].compareTo(max) > 0) {
+                                max = strs[i];
+                            }
+                        }
+                    }
+                    this.minValues[col][block] = min;
+                    this.maxValues[col][block] = max;
+                }
+                this.nullCnts[col][block] = nullCnt;
+            }
+            from = to;
+        }
+        this.rowCnt = size;
+    }
+
+    /**
+     * Gibt an, ob die Werte der Spalte col im Block block im Bereich [fromKey, toKey) liegen.
+     *
+     * @param col     Position der Spalte, deren Typ Schlüssel hat
+     * @param block   Nummer des Blocks
+     * @param fromKey untere Grenze, inklusive
+     * @param toKey   obere Grenze, exklusive
+     * @return {@link #NONE}, {@link #ALL} oder {@link #SOME}
+     * @pre 0 <= block < blockCnt()
+     */
+    int classify(final int col, final int block, final long fromKey, final long toKey) {
+        if (this.nullCnts[col][block] == rowsOf(block)
+                || this.maxKeys[col][block] < fromKey || this.minKeys[col][block] >= toKey) {
+            return NONE;
+        }
+        if (this.nullCnts[col][block] == 0 && this.minKeys[col][block] >= fromKey
+                && this.maxKeys[col][block] < toKey) {
+            return ALL;
+        }
+        return SOME;
+    }
+
+    /**
+     * Gibt an, ob die Werte der Spalte col im Block block im Bereich [from, to) gemäß compareTo
+     * liegen.
+     *
+     * @param col   Position der Spalte, deren Typ keine Schlüssel hat
+     * @param block Nummer des Blocks
+     * @param from  untere Grenze, inklusive
+     * @param to    obere Grenze, exklusive
+     * @return {@link #NONE}, {@link #ALL} oder {@link #SOME}
+     * @pre 0 <= block < blockCnt()
+     */
+    int classify(final int col, final int block, final String from, final String to) {
+        String min = this.minValues[col][block];
+        String max = this.maxValues[col][block];
+        if (min == null || max.compareTo(from) < 0 || min.compareTo(to) >= 0) {
+            return NONE;
+        }
+        if (this.nullCnts[col][block] == 0 && min.compareTo(from) >= 0 && max.compareTo(to) < 0) {
+            return ALL;
+        }
+        return SOME;
+    }
+
+    /**
+     * Liefert die Anzahl der erfassten Zeilen im Block block.
+     */
+    private int rowsOf(int block) {
+        return Math.min(BLOCK_ROWS, this.rowCnt - block * BLOCK_ROWS);
+    }
+
+    /**
+     * Vergrößert die Arrays bei Bedarf auf mindestens blockCnt Blöcke.
+     */
+    private void ensureBlocks(int blockCnt) {
+        if (blockCnt <= this.nullCnts[0].length) {
+            return;
+        }
+        int capacity = Math.max(blockCnt, this.nullCnts[0].length * 2);
+        for (int col = 0; col < this.types.length; col++) {
+            if (this.minKeys[col] != null) {
+                this.minKeys[col] = Arrays.copyOf(this.minKeys[col], capacity);
+                this.maxKeys[col] = Arrays.copyOf(this.maxKeys[col], capacity);
+            } else {
+                this.minValues[col] = Arrays.copyOf(this.minValues[col], capacity);
+                this.maxValues[col] = Arrays.copyOf(this.maxValues[col], capacity);
+            }
+            this.nullCnts[col] = Arrays.copyOf(this.nullCnts[col], capacity);
+        }
+    }
+
+}
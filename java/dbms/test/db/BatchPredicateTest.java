@@ -0,0 +1,152 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests von {@link BatchPredicate}: Die blockweise Auswertung liefert dieselben Zeilen wie
+ * {@link DBTable#select(String, Predicate, String)} mit dem entsprechenden Test je Wert, in allen
+ * Speicherlayouts, über mehrere Blöcke und an deren Grenzen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class BatchPredicateTest {
+
+    /**
+     * Anzahl der Zeilen, kein Vielfaches der Blockgröße
+     */
+    private static final int ROWS = BatchPredicate.CHUNK_ROWS * 2 + 777;
+
+    /**
+     * Prüft, dass p in der Spalte colId von table dieselben Zeilen wie expected auswählt.
+     */
+    private static void assertSelects(DBTable table, String colId, Predicate<String> expected,
+                                      BatchPredicate p) {
+        List<List<String>> rows = rows(table);
+        int col = table.getColIds().indexOf(colId);
+        BitSet bits = new BitSet();
+        for (int i = 0; i < rows.size(); i++) {
+            if (expected.test(rows.get(i).get(col))) {
+                bits.set(i);
+            }
+        }
+        assertEquals(p.toString(), bits, table.selection(colId, p));
+        assertEquals(p.toString(), rows(table.select(colId, expected, "s")),
+                rows(table.select(colId, p, "s")));
+    }
+
+    /**
+     * Liefert den Test, ob ein Wert gemäß dem Typ der Spalte in [from, to) liegt.
+     */
+    private static Predicate<String> between(DBTable table, String colId, String from,
+                                             String to) {
+        Comparator<String> comp = table.getColType(colId).comparator();
+        return s -> s != null && comp.compare(s, from) >= 0 && comp.compare(s, to) < 0;
+    }
+
+    /**
+     * Prüft alle vorgegebenen Tests über den Spalten der Tabelle table.
+     */
+    private static void assertAllPredicates(DBTable table) {
+        Comparator<String> ints = ColumnType.INT.comparator();
+        assertSelects(table, "k", s -> ints.compare(s, "17") == 0, BatchPredicate.equalTo("017"));
+        assertSelects(table, "k", s -> s.equals("3") || s.equals("99"),
+                BatchPredicate.in(Arrays.asList("3", "99", "drei", "100000")));
+        assertSelects(table, "k", between(table, "k", "10", "20"),
+                BatchPredicate.range("10", "20"));
+        assertSelects(table, "name", s -> "n7".equals(s), BatchPredicate.equalTo("n7"));
+        assertSelects(table, "name", s -> "n1".equals(s) || "n39".equals(s) || "x".equals(s),
+                BatchPredicate.in(Arrays.asList("n1", "n39", "x")));
+        assertSelects(table, "name", s -> s != null && s.startsWith("n2"),
+                BatchPredicate.startsWith("n2"));
+        assertSelects(table, "name", between(table, "name", "n15", "n3"),
+                BatchPredicate.range("n15", "n3"));
+        assertSelects(table, "amount", between(table, "amount", "-100", "250"),
+                BatchPredicate.range("-100", "250"));
+        assertSelects(table, "day", s -> s != null && s.startsWith("2020-01-1"),
+                BatchPredicate.startsWith("2020-01-1"));
+        assertSelects(table, "day", between(table, "day", "2020-01-12", "2020-01-20"),
+                BatchPredicate.range("2020-01-12", "2020-01-20"));
+        assertSelects(table, "price", s -> "12.5".equals(s), BatchPredicate.equalTo("12.50"));
+        assertSelects(table, "price", between(table, "price", "-1", "33.25"),
+                BatchPredicate.range("-1", "33.25"));
+        assertSelects(table, "price", s -> s == null || s.endsWith("5"),
+                BatchPredicate.of(s -> s == null || s.endsWith("5")));
+        assertSelects(table, "name", s -> false, BatchPredicate.in(Arrays.<String>asList()));
+    }
+
+    @Test
+    public void allLayouts_matchPredicate() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            assertAllPredicates(randomTable("t", layout, ROWS, 100, layout.ordinal()));
+        }
+    }
+
+    @Test
+    public void afterChanges_matchPredicate() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = randomTable("t", layout, ROWS, 100, 10 + layout.ordinal());
+            table.removeRows("name", s -> s != null && s.endsWith("7"));
+            table.sort("price", SortDirection.DESC);
+            assertAllPredicates(table);
+        }
+    }
+
+    @Test
+    public void parallel_matchesSequential() {
+        DBTable table = randomTable("t", StorageLayout.COLUMN, 50_000, 1000, 30);
+        table.setParallelThreshold(1);
+        assertAllPredicates(table);
+    }
+
+    @Test
+    public void chunkBoundaries_matchPredicate() {
+        for (int rowCnt : new int[]{0, 1, BatchPredicate.CHUNK_ROWS - 1, BatchPredicate.CHUNK_ROWS,
+                BatchPredicate.CHUNK_ROWS + 1}) {
+            for (StorageLayout layout : StorageLayout.values()) {
+                DBTable table = new DBTable("t", Arrays.asList("v"),
+                        Arrays.asList(ColumnType.INT), layout);
+                for (int i = 0; i < rowCnt; i++) {
+                    table.appendRow(Arrays.asList(Integer.toString(i % 7)));
+                }
+                // Treffer genau in der ersten und der letzten Zeile eines Blocks
+                assertSelects(table, "v", s -> s.equals("0") || s.equals("6"),
+                        BatchPredicate.in(Arrays.asList("0", "6")));
+                assertSelects(table, "v", s -> true, BatchPredicate.range("0", "7"));
+            }
+        }
+    }
+
+    @Test
+    public void nullsEmptyValuesAndEmptyRanges() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = new DBTable("t", Arrays.asList("s", "i"),
+                    Arrays.asList(ColumnType.STRING, ColumnType.LONG), layout);
+            for (int i = 0; i < 10; i++) {
+                table.appendRow(Arrays.asList(i % 3 == 0 ? null : i % 3 == 1 ? "" : "a" + i,
+                        i % 2 == 0 ? null : Integer.toString(i)));
+            }
+            // das leere Präfix trifft jeden Wert außer null
+            assertSelects(table, "s", s -> s != null, BatchPredicate.startsWith(""));
+            assertSelects(table, "s", s -> "".equals(s), BatchPredicate.equalTo(""));
+            assertSelects(table, "s", s -> "".equals(s) || "a5".equals(s),
+                    BatchPredicate.in(Arrays.asList("", "a5")));
+            assertSelects(table, "s", s -> "".equals(s), BatchPredicate.range("", "a"));
+            assertSelects(table, "i", s -> false, BatchPredicate.range("5", "5"));
+            assertSelects(table, "i", s -> false, BatchPredicate.range("9", "1"));
+            assertSelects(table, "i", s -> s != null, BatchPredicate.range(
+                    Long.toString(Long.MIN_VALUE), Long.toString(Long.MAX_VALUE)));
+            assertSelects(table, "i", s -> s == null, BatchPredicate.of(s -> s == null));
+        }
+    }
+
+}
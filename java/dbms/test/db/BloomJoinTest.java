@@ -0,0 +1,159 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests der Semi-Join-Reduktion per Bloom-Filter: {@link DBTable#equijoin(DBTable, String,
+ * String, String, boolean)} liefert mit Filter dasselbe wie ein Vergleich aller Zeilenpaare, und
+ * {@link DBTable#semiJoin} genau die Zeilen mit mindestens einem Partner.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class BloomJoinTest {
+
+    /**
+     * Liefert die Zeilen von a, zu deren Wert in der Spalte colA es in der Spalte colB von b einen
+     * gleichen Wert gibt, durch Vergleich mit allen Werten von b. null hat keine Partner.
+     */
+    private static List<List<String>> semiJoin(DBTable a, String colA, DBTable b, String colB) {
+        int ca = a.getColIds().indexOf(colA);
+        int cb = b.getColIds().indexOf(colB);
+        Set<String> values = new HashSet<>();
+        for (List<String> row : rows(b)) {
+            values.add(row.get(cb));
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> row : rows(a)) {
+            if (row.get(ca) != null && values.contains(row.get(ca))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void bloomEquijoin_matchesNestedLoop() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable facts = randomTable("f", layout, 3000, 1000, 1);
+            // wenige Schlüssel der kleinen Tabelle, die meisten Fakten haben keinen Partner
+            DBTable dims = randomTable("d", StorageLayout.ROW, 40, 1000, 2);
+            assertEquals(nestedLoopJoin(facts, "k", dims, "k"),
+                    rows(facts.equijoin(dims, "k", "k", "j", true)));
+            assertEquals(nestedLoopJoin(dims, "k", facts, "k"),
+                    rows(dims.equijoin(facts, "k", "k", "j", true)));
+            assertEquals(rows(facts.equijoin(dims, "k", "k", "j", false)),
+                    rows(facts.equijoin(dims, "k", "k", "j", true)));
+        }
+    }
+
+    @Test
+    public void bloomEquijoin_nullsAndStrings() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable a = randomTable("a", layout, 500, 10, 3);
+            DBTable b = randomTable("b", layout, 30, 10, 4);
+            assertEquals(nestedLoopJoin(a, "name", b, "name"),
+                    rows(a.equijoin(b, "name", "name", "j", true)));
+            assertEquals(nestedLoopJoin(a, "price", b, "price"),
+                    rows(a.equijoin(b, "price", "price", "j", true)));
+        }
+    }
+
+    @Test
+    public void semiJoin_matchesRowsWithPartner() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable a = randomTable("a", layout, 3000, 1000, 5);
+            DBTable b = randomTable("b", layout, 200, 1000, 6);
+            DBTable result = a.semiJoin(b, "k", "k", "s");
+            assertEquals(a.getColIds(), result.getColIds());
+            assertEquals(semiJoin(a, "k", b, "k"), rows(result));
+            assertEquals(semiJoin(b, "k", a, "k"), rows(b.semiJoin(a, "k", "k", "s")));
+            assertEquals(semiJoin(a, "day", b, "day"), rows(a.semiJoin(b, "day", "day", "s")));
+            assertEquals(semiJoin(a, "name", b, "name"),
+                    rows(a.semiJoin(b, "name", "name", "s")));
+        }
+    }
+
+    @Test
+    public void semiJoin_parallelMatchesSequential() {
+        DBTable a = randomTable("a", StorageLayout.COLUMN, 50_000, 5000, 7);
+        DBTable b = randomTable("b", StorageLayout.ROW, 500, 5000, 8);
+        a.setParallelThreshold(1);
+        assertEquals(semiJoin(a, "k", b, "k"), rows(a.semiJoin(b, "k", "k", "s")));
+        assertEquals(rows(b.equijoin(a, "k", "k", "j", false)),
+                rows(b.equijoin(a, "k", "k", "j", true)));
+    }
+
+    @Test
+    public void emptyTablesAndNulls_haveNoPartners() {
+        DBTable empty = new DBTable("e", Arrays.asList("k", "v"));
+        DBTable nulls = new DBTable("n", Arrays.asList("k", "v"));
+        DBTable others = new DBTable("o", Arrays.asList("k", "v"));
+        for (DBTable table : Arrays.asList(nulls, others)) {
+            table.appendRow(Arrays.asList(null, "1"));
+            table.appendRow(Arrays.asList("", "2"));
+            table.appendRow(Arrays.asList(null, "3"));
+        }
+        for (DBTable[] pair : new DBTable[][]{{empty, nulls}, {nulls, empty},
+                {empty, new DBTable("f", Arrays.asList("k", "v"))}}) {
+            assertEquals(0, pair[0].semiJoin(pair[1], "k", "k", "s").getRowCnt());
+            assertEquals(0, pair[0].equijoin(pair[1], "k", "k", "j", true).getRowCnt());
+        }
+        // null hat auch in der anderen Tabelle keinen Partner, der leere Wert schon
+        assertEquals(Arrays.asList(Arrays.asList("", "2")),
+                rows(nulls.semiJoin(others, "k", "k", "s")));
+        assertEquals(Arrays.asList(Arrays.asList("", "2", "", "2")),
+                rows(nulls.equijoin(others, "k", "k", "j", true)));
+    }
+
+    @Test
+    public void semiJoin_allOrNoRowsWithPartner() {
+        DBTable a = new DBTable("a", Arrays.asList("k"));
+        DBTable same = new DBTable("b", Arrays.asList("k"));
+        DBTable other = new DBTable("c", Arrays.asList("k"));
+        for (int i = 0; i < 1000; i++) {
+            a.appendRow(Arrays.asList(Integer.toString(i % 100)));
+            same.appendRow(Arrays.asList(Integer.toString(i % 100)));
+            other.appendRow(Arrays.asList(Integer.toString(100 + i)));
+        }
+        assertEquals(rows(a), rows(a.semiJoin(same, "k", "k", "s")));
+        assertEquals(0, a.semiJoin(other, "k", "k", "s").getRowCnt());
+        assertEquals(0, a.equijoin(other, "k", "k", "j", true).getRowCnt());
+    }
+
+    @Test
+    public void bloomFilter_noFalseNegatives() {
+        BloomFilter empty = new BloomFilter(0, BloomFilter.BITS_PER_KEY);
+        assertFalse(empty.mightContain(BloomFilter.hash("x")));
+
+        int n = 10_000;
+        BloomFilter filter = new BloomFilter(n, BloomFilter.BITS_PER_KEY);
+        for (int i = 0; i < n; i++) {
+            filter.add(BloomFilter.hash(2L * i));
+        }
+        filter.add(BloomFilter.hash((String) null));
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(BloomFilter.hash(2L * i)));
+            if (filter.mightContain(BloomFilter.hash(2L * i + 1))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(filter.mightContain(BloomFilter.hash((String) null)));
+        // unter einem Prozent bei zehn Bits je Wert, mit Spielraum
+        assertTrue(Integer.toString(falsePositives), falsePositives < n / 50);
+    }
+
+}
@@ -0,0 +1,148 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests des Tabellenkatalogs von {@link DB}: Nach beliebigen Folgen von Einfügen und Entfernen
+ * liefern die Anfragen an den Katalog dasselbe wie eine sortierte Menge der Bezeichner.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class CatalogTest {
+
+    /**
+     * Erzeugt eine leere Tabelle mit dem Bezeichner id.
+     */
+    private static DBTable createTable(String id) {
+        return new DBTable(id, Arrays.asList("x"), StorageLayout.ROW);
+    }
+
+    /**
+     * Liefert einen zufälligen gültigen Bezeichner aus höchstens drei Zeichen.
+     */
+    private static String randomId(Random random) {
+        String chars = "abcAB_1";
+        StringBuilder result = new StringBuilder();
+        result.append(chars.charAt(random.nextInt(5)));
+        int len = random.nextInt(3);
+        for (int i = 0; i < len; i++) {
+            result.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void randomChanges_matchSortedSet() {
+        DB db = new DB("d");
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            String id = randomId(random);
+            int op = random.nextInt(10);
+            if (op < 6) {
+                if (!expected.contains(id)) {
+                    DBTable table = createTable(id);
+                    db.addTable(table);
+                    expected.add(id);
+                    assertSame(table, db.getTable(id));
+                }
+            } else if (op < 9) {
+                db.removeTable(id);
+                expected.remove(id);
+                assertNull(db.getTable(id));
+            } else if (random.nextInt(50) == 0) {
+                db.removeAllTables();
+                expected.clear();
+            }
+
+            assertEquals(expected.contains(id), db.tableExists(id));
+            assertEquals(expected.size(), db.getTableCnt());
+            String to = randomId(random);
+            List<String> between = between(expected, id, to);
+            assertEquals(between, db.getTableNamesBetween(id, to));
+        }
+        assertEquals(new ArrayList<>(expected), db.getTableIds());
+    }
+
+    /**
+     * Liefert die Bezeichner aus ids im Bereich [from, to) durch Vergleich aller Bezeichner.
+     */
+    private static List<String> between(TreeSet<String> ids, String from, String to) {
+        List<String> result = new ArrayList<>();
+        for (String id : ids) {
+            if (id.compareTo(from) >= 0 && id.compareTo(to) < 0) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void getTableNamesBetween_example() {
+        DB db = new DB("d");
+        for (String id : Arrays.asList("Inseln", "Haeuser", "Gaerten", "Haendler")) {
+            db.addTable(createTable(id));
+        }
+        assertEquals(Arrays.asList("Haendler", "Haeuser"), db.getTableNamesBetween("H", "I"));
+        assertEquals(Arrays.asList("Gaerten", "Haendler", "Haeuser", "Inseln"),
+                db.getTableIds());
+        assertTrue(db.getTableNamesBetween("I", "H").isEmpty());
+        assertTrue(db.getTableNamesBetween("H", "H").isEmpty());
+    }
+
+    @Test
+    public void emptyCatalog() {
+        DB db = new DB("d");
+        assertEquals(0, db.getTableCnt());
+        assertTrue(db.getTableIds().isEmpty());
+        assertTrue(db.getTableNamesBetween("a", "z").isEmpty());
+        assertNull(db.getTable("a"));
+        db.removeTable("a");
+        db.removeAllTables();
+        assertEquals(0, db.getTableCnt());
+    }
+
+    @Test
+    public void getTableNamesBetween_bounds() {
+        DB db = new DB("d");
+        for (String id : Arrays.asList("b", "B", "b_", "b1", "ba", "c")) {
+            db.addTable(createTable(id));
+        }
+        // untere Grenze inklusive, obere exklusive, verglichen nach Zeichencodes
+        assertEquals(Arrays.asList("b", "b1", "b_", "ba"), db.getTableNamesBetween("b", "c"));
+        assertEquals(Arrays.asList("B"), db.getTableNamesBetween("A", "b"));
+        assertEquals(Arrays.asList("b1", "b_"), db.getTableNamesBetween("b0", "ba"));
+        assertEquals(Arrays.asList("c"), db.getTableNamesBetween("c", "cc"));
+        assertTrue(db.getTableNamesBetween("d", "z").isEmpty());
+    }
+
+    @Test
+    public void removeAndAddAgain() {
+        DB db = new DB("d");
+        DBTable first = createTable("t");
+        db.addTable(first);
+        db.addTable(createTable("u"));
+        db.removeTable("t");
+        assertNull(db.getTable("t"));
+        assertEquals(Arrays.asList("u"), db.getTableNamesBetween("a", "z"));
+        DBTable second = createTable("t");
+        db.addTable(second);
+        assertSame(second, db.getTable("t"));
+        assertEquals(Arrays.asList("t", "u"), db.getTableIds());
+        db.removeAllTables();
+        db.addTable(first);
+        assertEquals(Arrays.asList("t"), db.getTableNamesBetween("t", "u"));
+    }
+
+}
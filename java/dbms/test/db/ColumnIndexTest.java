@@ -0,0 +1,158 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests der Sekundärindizes: selectEquals und selectRange mit Index liefern dieselben Zeilen in
+ * derselben Reihenfolge wie ein Durchlauf aller Zeilen, auch nachdem die Tabelle geändert wurde.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class ColumnIndexTest {
+
+    /**
+     * Prüft selectEquals und selectRange über die Spalte colId gegen select.
+     */
+    private static void assertMatchesScan(DBTable t, String colId, String value, String from,
+                                          String to) {
+        final ColumnType type = t.getColType(colId);
+        final Comparator<String> order = type.comparator();
+        final String normalized = type.normalize(value);
+        assertEquals(rows(t.select(colId, s -> normalized.equals(s), "s")),
+                rows(t.selectEquals(colId, value, "s")));
+        assertEquals(rows(t.select(colId, s -> s != null && order.compare(s, from) >= 0
+                        && order.compare(s, to) < 0, "s")),
+                rows(t.selectRange(colId, from, to, "s")));
+    }
+
+    @Test
+    public void selectWithIndex_matchesScan() {
+        for (IndexType type : IndexType.values()) {
+            DBTable t = randomTable("t", StorageLayout.ROW, 600, 50, 1);
+            t.createIndex("k", type);
+            t.createIndex("name", type);
+            for (int v = 0; v < 50; v += 7) {
+                assertMatchesScan(t, "k", Integer.toString(v), Integer.toString(v),
+                        Integer.toString(v + 9));
+            }
+            assertMatchesScan(t, "name", "n7", "n1", "n3");
+        }
+    }
+
+    @Test
+    public void index_followsAppendRemoveAndSort() {
+        DBTable t = randomTable("t", StorageLayout.ROW, 300, 20, 2);
+        t.createIndex("k", IndexType.HASH);
+        t.createIndex("amount", IndexType.SORTED);
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            t.appendRow(randomRow(random, 20));
+        }
+        assertMatchesScan(t, "k", "4", "4", "9");
+        assertMatchesScan(t, "amount", "-3", "-500", "200");
+        t.removeRows("k", s -> Integer.parseInt(s) % 3 == 0);
+        assertMatchesScan(t, "k", "4", "4", "9");
+        assertMatchesScan(t, "amount", "-3", "-500", "200");
+        t.sort("amount", SortDirection.DESC);
+        assertMatchesScan(t, "k", "5", "2", "11");
+        assertMatchesScan(t, "amount", "17", "-100", "100");
+        t.removeAllRows();
+        assertEquals(0, t.selectEquals("k", "5", "s").getRowCnt());
+        t.appendRow(Arrays.asList("5", null, "1", null, null));
+        assertEquals(1, t.selectEquals("k", "5", "s").getRowCnt());
+        assertEquals(1, t.selectRange("amount", "0", "2", "s").getRowCnt());
+    }
+
+    @Test
+    public void index_emptyTableNullsAndBounds() {
+        for (IndexType type : IndexType.values()) {
+            DBTable t = new DBTable("t", Arrays.asList("k", "v"));
+            t.createIndex("k", type);
+            assertEquals(0, t.selectEquals("k", "b", "s").getRowCnt());
+            assertEquals(0, t.selectRange("k", "a", "z", "s").getRowCnt());
+            for (String k : Arrays.asList("b", null, "a", "c", null, "b")) {
+                t.appendRow(Arrays.asList(k, Integer.toString(t.getRowCnt())));
+            }
+            assertEquals(Arrays.asList(Arrays.asList("b", "0"), Arrays.asList("b", "5")),
+                    rows(t.selectEquals("k", "b", "s")));
+            // untere Grenze inklusive, obere exklusive, null liegt in keinem Bereich
+            assertEquals(Arrays.asList(Arrays.asList("b", "0"), Arrays.asList("a", "2"),
+                    Arrays.asList("b", "5")), rows(t.selectRange("k", "a", "c", "s")));
+            assertEquals(0, t.selectRange("k", "b", "b", "s").getRowCnt());
+            assertEquals(0, t.selectRange("k", "c", "a", "s").getRowCnt());
+            assertEquals(0, t.selectRange("k", "", "a", "s").getRowCnt());
+            assertMatchesScan(t, "k", "c", "", "d");
+        }
+    }
+
+    @Test
+    public void equijoin_usesIndexOfEitherSide() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 100, 25, 9);
+        DBTable b = randomTable("b", StorageLayout.ROW, 400, 25, 10);
+        a.createIndex("k", IndexType.HASH);
+        b.createIndex("k", IndexType.SORTED);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+        assertEquals(nestedLoopJoin(b, "k", a, "k"), rows(b.equijoin(a, "k", "k", "j")));
+        // ein Index über eine andere Spalte wird nicht benutzt
+        a.createIndex("name", IndexType.HASH);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+    }
+
+    @Test
+    public void removeRows_shiftsRowNumbers() {
+        for (IndexType type : IndexType.values()) {
+            DBTable t = new DBTable("t", Arrays.asList("k", "v"));
+            for (String k : Arrays.asList("a", "b", "a", "c", "b", "a")) {
+                t.appendRow(Arrays.asList(k, Integer.toString(t.getRowCnt())));
+            }
+            t.createIndex("k", type);
+            t.createIndex("v", type);
+            // erste und letzte Zeile sowie die einzige Zeile mit c
+            t.removeRows("v", s -> s.equals("0") || s.equals("3") || s.equals("5"));
+            assertEquals(Arrays.asList(Arrays.asList("b", "1"), Arrays.asList("b", "4")),
+                    rows(t.selectEquals("k", "b", "s")));
+            assertEquals(0, t.selectEquals("k", "c", "s").getRowCnt());
+            assertMatchesScan(t, "k", "a", "a", "c");
+            assertMatchesScan(t, "v", "4", "1", "5");
+            t.removeRows("k", s -> false);
+            t.appendRow(Arrays.asList("c", "6"));
+            assertMatchesScan(t, "k", "c", "b", "d");
+            t.removeRows("k", s -> true);
+            assertEquals(0, t.selectEquals("k", "b", "s").getRowCnt());
+            t.appendRow(Arrays.asList("b", "7"));
+            assertEquals(Collections.singletonList(Arrays.asList("b", "7")),
+                    rows(t.selectEquals("k", "b", "s")));
+        }
+    }
+
+    @Test
+    public void createAndDropIndex() {
+        DBTable t = randomTable("t", StorageLayout.ROW, 10, 5, 5);
+        assertFalse(t.hasIndex("k", IndexType.HASH));
+        t.createIndex("k", IndexType.HASH);
+        t.createIndex("name", IndexType.SORTED);
+        t.createIndex("day", IndexType.SORTED);
+        assertTrue(t.hasIndex("k", IndexType.HASH));
+        assertFalse(t.hasIndex("k", IndexType.SORTED));
+        assertEquals(Collections.singletonList("k"), t.getIndexedColIds(IndexType.HASH));
+        assertEquals(Arrays.asList("day", "name"), t.getIndexedColIds(IndexType.SORTED));
+        t.dropIndex("k", IndexType.HASH);
+        t.dropIndex("k", IndexType.HASH);
+        assertFalse(t.hasIndex("k", IndexType.HASH));
+        assertEquals(Collections.<String>emptyList(), t.getIndexedColIds(IndexType.HASH));
+    }
+
+}
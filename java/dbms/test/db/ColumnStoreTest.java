@@ -0,0 +1,112 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests des spaltenweisen Speicherlayouts: Jede Operation liefert dasselbe wie im zeilenweisen
+ * Speicherlayout.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class ColumnStoreTest {
+
+    /**
+     * Prüft, dass beide Tabellen dieselben Zeilen und dieselbe Ausgabe haben.
+     */
+    private static void assertSame(DBTable expected, DBTable actual) {
+        assertEquals(expected.getColIds(), actual.getColIds());
+        assertEquals(rows(expected), rows(actual));
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void operations_matchRowLayout() {
+        DBTable row = randomTable("t", StorageLayout.ROW, 500, 30, 1);
+        DBTable col = randomTable("t", StorageLayout.COLUMN, 500, 30, 1);
+        assertSame(row, col);
+        assertEquals(StorageLayout.COLUMN, col.getLayout());
+
+        assertSame(row.select("name", s -> s != null && s.endsWith("3"), "s"),
+                col.select("name", s -> s != null && s.endsWith("3"), "s"));
+        assertSame(row.project(Arrays.asList("price", "k"), "p"),
+                col.project(Arrays.asList("price", "k"), "p"));
+        assertEquals(StorageLayout.COLUMN, col.project(Arrays.asList("k"), "p").getLayout());
+
+        row.sort("name", SortDirection.DESC);
+        col.sort("name", SortDirection.DESC);
+        assertSame(row, col);
+        row.removeRows("k", s -> s.startsWith("1"));
+        col.removeRows("k", s -> s.startsWith("1"));
+        assertSame(row, col);
+
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            List<String> values = randomRow(random, 30);
+            row.appendRow(values);
+            col.appendRow(values);
+        }
+        assertSame(row, col);
+        DBTable other = randomTable("o", StorageLayout.ROW, 40, 30, 3);
+        assertSame(row.equijoin(other, "k", "k", "j"), col.equijoin(other, "k", "k", "j"));
+    }
+
+    @Test
+    public void equijoin_bothColumnLayout_matchesNestedLoop() {
+        DBTable a = randomTable("a", StorageLayout.COLUMN, 300, 30, 4);
+        DBTable b = randomTable("b", StorageLayout.COLUMN, 80, 30, 5);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+        assertEquals(nestedLoopJoin(b, "name", a, "name"),
+                rows(b.equijoin(a, "name", "name", "j")));
+    }
+
+    @Test
+    public void emptyTable_matchesRowLayout() {
+        DBTable row = new DBTable("t", Arrays.asList("a", "b"), StorageLayout.ROW);
+        DBTable col = new DBTable("t", Arrays.asList("a", "b"), StorageLayout.COLUMN);
+        assertSame(row, col);
+        assertSame(row.select("a", s -> true, "s"), col.select("a", s -> true, "s"));
+        assertSame(row.project(Arrays.asList("b"), "p"), col.project(Arrays.asList("b"), "p"));
+        col.sort("a", SortDirection.ASC);
+        col.removeRows("a", s -> true);
+        assertSame(row, col);
+        assertEquals(0, col.equijoin(row.project(Arrays.asList("a"), "r"), "a", "a", "j")
+                .getRowCnt());
+    }
+
+    @Test
+    public void nullsAndRemoval_matchRowLayout() {
+        DBTable row = new DBTable("t", Arrays.asList("a", "b"), StorageLayout.ROW);
+        DBTable col = new DBTable("t", Arrays.asList("a", "b"), StorageLayout.COLUMN);
+        for (List<String> values : Arrays.<List<String>>asList(Arrays.asList(null, null),
+                Arrays.asList("x", null), Arrays.asList(null, "y"), Arrays.asList("", ""))) {
+            row.appendRow(values);
+            col.appendRow(values);
+        }
+        assertSame(row, col);
+        row.sort("a", SortDirection.ASC);
+        col.sort("a", SortDirection.ASC);
+        assertSame(row, col);
+        assertSame(row.select("b", s -> s == null, "s"), col.select("b", s -> s == null, "s"));
+
+        // alle Zeilen entfernen und danach wieder anhängen
+        col.removeRows("a", s -> true);
+        assertEquals(0, col.getRowCnt());
+        col.appendRow(Arrays.asList("z", null));
+        assertEquals(Collections.singletonList(Arrays.asList("z", null)), rows(col));
+        col.removeAllRows();
+        col.appendRow(Arrays.asList(null, "w"));
+        assertEquals(Collections.singletonList(Arrays.asList(null, "w")), rows(col));
+    }
+
+}
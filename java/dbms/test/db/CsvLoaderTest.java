@@ -0,0 +1,233 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests von {@link DBTable#load}: Das Laden einer Datei liefert dieselben Zeilen wie das Anhängen
+ * der Datensätze mit {@link DBTable#appendRow}, auch über mehrere Stapel und mit Werten in
+ * Anführungszeichen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class CsvLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Erzeugt eine leere Tabelle mit den Spalten id, text und day.
+     */
+    private static DBTable createTable() {
+        return new DBTable("t", Arrays.asList("id", "text", "day"));
+    }
+
+    /**
+     * Schreibt den Wert value in out und schließt ihn bei Bedarf in Anführungszeichen ein.
+     */
+    private static void appendValue(StringBuilder out, String value, char separator) {
+        if (value.indexOf('"') >= 0 || value.indexOf(separator) >= 0
+                || value.indexOf('\n') >= 0) {
+            out.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Schreibt die Zeilen rows mit dem Trennzeichen separator in eine neue Datei.
+     */
+    private Path write(List<List<String>> rows, char separator, String header) throws IOException {
+        StringBuilder out = new StringBuilder();
+        if (header != null) {
+            out.append(header).append('\n');
+        }
+        for (List<String> row : rows) {
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    out.append(separator);
+                }
+                appendValue(out, row.get(i), separator);
+            }
+            out.append('\n');
+        }
+        Path file = folder.newFile().toPath();
+        Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Erzeugt rowCnt zufällige Datensätze, deren Texte Trennzeichen, Anführungszeichen und
+     * Zeilenumbrüche enthalten.
+     */
+    private static List<List<String>> randomRows(int rowCnt, long seed) {
+        String[] parts = {"a", "bc", ",", "\t", "\"", "\"\"", "\n", " ", "ä€", ""};
+        Random random = new Random(seed);
+        List<List<String>> result = new ArrayList<>();
+        for (int i = 0; i < rowCnt; i++) {
+            StringBuilder text = new StringBuilder();
+            int len = random.nextInt(4);
+            for (int j = 0; j < len; j++) {
+                text.append(parts[random.nextInt(parts.length)]);
+            }
+            result.add(Arrays.asList(Integer.toString(random.nextInt(2001) - 1000),
+                    text.toString(), "2021-03-" + (10 + random.nextInt(20))));
+        }
+        return result;
+    }
+
+    @Test
+    public void load_matchesAppendRow() throws IOException {
+        List<List<String>> rows = randomRows(CsvLoader.BATCH_ROWS + 1000, 1);
+        for (char separator : new char[]{',', '\t', ';'}) {
+            DBTable expected = createTable();
+            for (List<String> row : rows) {
+                expected.appendRow(row);
+            }
+            DBTable actual = createTable();
+            assertEquals(rows.size(), actual.load(write(rows, separator, null), separator,
+                    false));
+            assertEquals(rows(expected), rows(actual));
+        }
+    }
+
+    @Test
+    public void load_sequentialMatchesParallel() throws IOException {
+        List<List<String>> rows = randomRows(CsvLoader.BATCH_ROWS * 2 + 10, 2);
+        Path file = write(rows, ',', null);
+        DBTable sequential = createTable();
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        sequential.load(file, ',', false);
+        DBTable parallel = createTable();
+        parallel.setParallelThreshold(1);
+        parallel.load(file, ',', false);
+        assertEquals(rows, rows(sequential));
+        assertEquals(rows(sequential), rows(parallel));
+    }
+
+    @Test
+    public void load_skipsHeader() throws IOException {
+        List<List<String>> rows = randomRows(10, 3);
+        DBTable table = createTable();
+        assertEquals(10, table.load(write(rows, ',', "id,\"te\nxt\",day"), ',', true));
+        assertEquals(rows, rows(table));
+    }
+
+    @Test
+    public void load_crlfOnlyEndsRecordsOutsideQuotes() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, ("1,\"a\r\nb\",2021-01-01\r\n2,\"c\r\",2021-01-02\r\n3,d\r,2021-01-03\r\n"
+                + "4,\"\",2021-01-04").getBytes(StandardCharsets.UTF_8));
+        DBTable table = createTable();
+        assertEquals(4, table.load(file, ',', false));
+        assertEquals(Arrays.asList(Arrays.asList("1", "a\r\nb", "2021-01-01"),
+                Arrays.asList("2", "c\r", "2021-01-02"), Arrays.asList("3", "d\r", "2021-01-03"),
+                Arrays.asList("4", "", "2021-01-04")), rows(table));
+    }
+
+    @Test
+    public void load_emptyFileAndHeaderOnly() throws IOException {
+        DBTable table = createTable();
+        assertEquals(0, table.load(folder.newFile().toPath(), ',', false));
+        assertEquals(0, table.load(folder.newFile().toPath(), ',', true));
+        assertEquals(0, table.load(write(new ArrayList<List<String>>(), ',', "id,text,day"), ',',
+                true));
+        assertEquals(0, table.getRowCnt());
+    }
+
+    @Test
+    public void load_emptyAndQuotedValues() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, ",,\n\"\",\"\",\"\"\n\"a\"\"b\",\"\"\"\",\n\"x,\",\ty,\"\"\n"
+                .getBytes(StandardCharsets.UTF_8));
+        DBTable table = createTable();
+        assertEquals(4, table.load(file, ',', false));
+        assertEquals(Arrays.asList(Arrays.asList("", "", ""), Arrays.asList("", "", ""),
+                Arrays.asList("a\"b", "\"", ""), Arrays.asList("x,", "\ty", "")), rows(table));
+
+        // eine leere Zeile ist ein Datensatz mit einem leeren Wert
+        Path lines = folder.newFile().toPath();
+        Files.write(lines, "a\n\nb".getBytes(StandardCharsets.UTF_8));
+        DBTable single = new DBTable("s", Arrays.asList("v"));
+        assertEquals(3, single.load(lines, ',', false));
+        assertEquals(Arrays.asList(Arrays.asList("a"), Arrays.asList(""), Arrays.asList("b")),
+                rows(single));
+    }
+
+    @Test
+    public void load_errorInLaterBatch_keepsEarlierBatches() throws IOException {
+        List<List<String>> rows = randomRows(CsvLoader.BATCH_ROWS, 4);
+        Path file = write(rows, ',', null);
+        Files.write(file, "1,a\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        DBTable table = createTable();
+        try {
+            table.load(file, ',', false);
+            fail();
+        } catch (IOException expected) {
+            // erwartet
+        }
+        assertEquals(rows, rows(table));
+    }
+
+    @Test
+    public void load_errorNamesLineOfRecord() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "1,\"a\nb\",c\n2,d\n".getBytes(StandardCharsets.UTF_8));
+        try {
+            createTable().load(file, ',', false);
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Zeile 3"));
+        }
+    }
+
+    @Test
+    public void split_quotedValues() {
+        assertEquals(Arrays.asList("a", "b,c", "", "say \"hi\""),
+                CsvLoader.split("a,\"b,c\",,\"say \"\"hi\"\"\"", ',', 4));
+        assertEquals(Arrays.asList("", ""), CsvLoader.split(",", ',', 2));
+        assertEquals(Arrays.asList("x\ny", "z"), CsvLoader.split("\"x\ny\"\tz", '\t', 2));
+    }
+
+    /**
+     * Prüft, dass das Laden der Datei mit dem Inhalt content eine IOException auslöst und die
+     * Tabelle danach leer ist.
+     */
+    private void assertRejected(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        DBTable table = createTable();
+        try {
+            table.load(file, ',', false);
+            fail();
+        } catch (IOException expected) {
+            // erwartet
+        }
+        assertEquals(0, table.getRowCnt());
+    }
+
+    @Test
+    public void load_rejectsInvalidRecords() throws IOException {
+        assertRejected("1,a,2021-01-01\n2,b\n");
+        assertRejected("1,a,2021-01-01\n2,b,2021-01-01,x\n");
+        assertRejected("1,\"a,2021-01-01\n");
+    }
+
+}
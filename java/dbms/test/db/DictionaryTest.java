@@ -0,0 +1,180 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests der Wörterbuchcodierung von Zeichenketten ({@link StringDictionary}): Tabellen mit
+ * codierten Spalten verhalten sich wie Tabellen ohne Codierung, und Wörterbücher halten keine
+ * Werte entfernter Zeilen fest.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class DictionaryTest {
+
+    /**
+     * Typen einer Tabelle mit einer Spalte von Zeichenketten
+     */
+    private static final ColumnType[] STRINGS = {ColumnType.STRING};
+
+    @Test
+    public void changes_matchRowLayout() {
+        DBTable expected = randomTable("t", StorageLayout.ROW, 2000, 100, 1);
+        DBTable actual = randomTable("t", StorageLayout.COLUMN, 2000, 100, 1);
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 100; i++) {
+                List<String> row = randomRow(random, 100);
+                expected.appendRow(row);
+                actual.appendRow(row);
+            }
+            final String name = "n" + random.nextInt(40);
+            expected.removeRows("name", s -> name.equals(s));
+            actual.removeRows("name", s -> name.equals(s));
+            assertEquals(rows(expected), rows(actual));
+            // entfernte Werte werden nicht mehr gefunden
+            assertEquals(0, actual.selectEquals("name", name, "s").getRowCnt());
+            assertEquals(0, actual.select("name", BatchPredicate.equalTo(name), "s")
+                    .getRowCnt());
+            assertEquals(rows(expected.selectEquals("name", "n3", "s")),
+                    rows(actual.selectEquals("name", "n3", "s")));
+            assertEquals(rows(expected.select("name",
+                            BatchPredicate.in(Arrays.asList("n1", "n2", name)), "s")),
+                    rows(actual.select("name",
+                            BatchPredicate.in(Arrays.asList("n1", "n2", name)), "s")));
+        }
+        expected.sort("name", SortDirection.DESC);
+        actual.sort("name", SortDirection.DESC);
+        assertEquals(rows(expected), rows(actual));
+    }
+
+    @Test
+    public void joins_onCodedColumns() {
+        DBTable a = randomTable("a", StorageLayout.COLUMN, 300, 40, 3);
+        DBTable b = randomTable("b", StorageLayout.COLUMN, 200, 40, 4);
+        b.removeRows("name", s -> s != null && s.endsWith("7"));
+        assertEquals(nestedLoopJoin(a, "name", b, "name"),
+                rows(a.equijoin(b, "name", "name", "j")));
+        assertEquals(nestedLoopJoin(b, "name", a, "name"),
+                rows(b.equijoin(a, "name", "name", "j")));
+        DBTable c = randomTable("c", StorageLayout.ROW, 100, 40, 5);
+        assertEquals(nestedLoopJoin(a, "name", c, "name"),
+                rows(a.equijoin(c, "name", "name", "j", true)));
+    }
+
+    @Test
+    public void columnDictionary_survivesChurn() {
+        ColumnStore store = new ColumnStore(STRINGS);
+        // stets höchstens 100 Zeilen, aber viel mehr verschiedene Werte insgesamt
+        for (int i = 0; i < 20 * StringDictionary.LIMIT; i++) {
+            store.append(Arrays.asList("v" + i));
+            if (store.size() > 100) {
+                BitSet first = new BitSet();
+                first.set(0);
+                store.remove(first);
+            }
+        }
+        StringDictionary dictionary = store.dictionary(0);
+        assertNotNull(dictionary);
+        assertTrue(dictionary.size() <= 2 * 100 + 1);
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(store.get(i, 0), dictionary.value(store.code(i, 0)));
+            assertEquals("v" + (20 * StringDictionary.LIMIT - 100 + i), store.get(i, 0));
+        }
+        assertEquals(-1, dictionary.code("v0"));
+    }
+
+    @Test
+    public void columnDictionary_givenUpForManyDistinctValues() {
+        ColumnStore store = new ColumnStore(STRINGS);
+        for (int i = 0; i < 4 * StringDictionary.LIMIT; i++) {
+            store.append(Arrays.asList("v" + i));
+        }
+        assertNull(store.dictionary(0));
+        assertEquals("v17", store.get(17, 0));
+    }
+
+    @Test
+    public void rowStore_internsAfterChurn() {
+        DBTable table = new DBTable("t", Arrays.asList("s"), StorageLayout.ROW);
+        for (int i = 0; i < 20 * StringDictionary.LIMIT; i++) {
+            table.appendRow(Arrays.asList("v" + i));
+            if (table.getRowCnt() > 100) {
+                table.removeRows("s", s -> s.equals(table.getRow(0).get(0)));
+            }
+        }
+        // gleiche Werte werden weiterhin durch dasselbe Objekt ersetzt
+        table.appendRow(Arrays.asList(new String("gleich")));
+        table.appendRow(Arrays.asList(new String("gleich")));
+        int last = table.getRowCnt() - 1;
+        assertSame(table.getRow(last - 1).get(0), table.getRow(last).get(0));
+    }
+
+    @Test
+    public void nullAndEmptyValues_haveOwnCodes() {
+        ColumnStore store = new ColumnStore(STRINGS);
+        for (String value : Arrays.asList(null, "", "a", null, "")) {
+            store.append(Arrays.asList(value));
+        }
+        StringDictionary dictionary = store.dictionary(0);
+        assertEquals(3, dictionary.size());
+        assertEquals(store.code(0, 0), store.code(3, 0));
+        assertEquals(store.code(1, 0), store.code(4, 0));
+        assertTrue(store.code(0, 0) != store.code(1, 0));
+        assertNull(dictionary.value(store.code(0, 0)));
+        assertNull(store.get(3, 0));
+        assertEquals("", store.get(4, 0));
+        assertEquals(-1, dictionary.code("b"));
+    }
+
+    @Test
+    public void isFull_atLimit() {
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < StringDictionary.LIMIT; i++) {
+            dictionary.add("v" + i);
+        }
+        // höchstens LIMIT Werte lohnen sich stets
+        assertFalse(dictionary.isFull(StringDictionary.LIMIT));
+        String last = "v" + (StringDictionary.LIMIT - 1);
+        assertEquals(StringDictionary.LIMIT - 1, dictionary.add(last));
+        dictionary.add("x");
+        assertTrue(dictionary.isFull(StringDictionary.LIMIT + 1));
+        assertTrue(dictionary.isFull(2 * StringDictionary.LIMIT + 1));
+        assertFalse(dictionary.isFull(2 * StringDictionary.LIMIT + 2));
+    }
+
+    @Test
+    public void storesWithoutDictionary_rejectCodes() {
+        ColumnType[] types = {ColumnType.STRING, ColumnType.INT};
+        ColumnStore columns = new ColumnStore(types);
+        RowStore rows = new RowStore(types);
+        columns.append(Arrays.asList("a", "1"));
+        rows.append(Arrays.asList("a", "1"));
+        assertNotNull(columns.dictionary(0));
+        assertNull(columns.dictionary(1));
+        assertNull(rows.dictionary(0));
+        try {
+            rows.code(0, 0);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            // erwartet
+        }
+    }
+
+}
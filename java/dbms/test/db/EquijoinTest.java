@@ -0,0 +1,125 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests des Hash-Joins {@link DBTable#equijoin(DBTable, String, String, String)} gegen einen
+ * Vergleich aller Zeilenpaare.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class EquijoinTest {
+
+    /**
+     * Erzeugt eine Tabelle mit den Spalten k und v und den Zeilen (keys[i], id + i).
+     */
+    private static DBTable keyTable(String id, String... keys) {
+        DBTable result = new DBTable(id, Arrays.asList("k", "v"));
+        for (int i = 0; i < keys.length; i++) {
+            result.appendRow(Arrays.asList(keys[i], id + i));
+        }
+        return result;
+    }
+
+    @Test
+    public void equijoin_smallerLeft_matchesNestedLoop() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 80, 30, 1);
+        DBTable b = randomTable("b", StorageLayout.ROW, 300, 30, 2);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+    }
+
+    @Test
+    public void equijoin_smallerRight_matchesNestedLoop() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 300, 30, 3);
+        DBTable b = randomTable("b", StorageLayout.ROW, 80, 30, 4);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+    }
+
+    @Test
+    public void equijoin_stringColumnWithNulls_matchesNestedLoop() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 150, 10, 5);
+        DBTable b = randomTable("b", StorageLayout.ROW, 120, 10, 6);
+        assertEquals(nestedLoopJoin(a, "name", b, "name"),
+                rows(a.equijoin(b, "name", "name", "j")));
+        assertEquals(nestedLoopJoin(b, "name", a, "name"),
+                rows(b.equijoin(a, "name", "name", "j")));
+    }
+
+    @Test
+    public void equijoin_duplicateKeys_keepOrderOfBothTables() {
+        DBTable a = keyTable("a", "x", "y", "x");
+        DBTable b = keyTable("b", "x", "z", "x", "y");
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("x", "a0", "x", "b0"), Arrays.asList("x", "a0", "x", "b2"),
+                Arrays.asList("y", "a1", "y", "b3"),
+                Arrays.asList("x", "a2", "x", "b0"), Arrays.asList("x", "a2", "x", "b2"));
+        assertEquals(expected, rows(a.equijoin(b, "k", "k", "j")));
+        // gleich viele Zeilen: dieselben Paare, unabhängig von der indizierten Seite
+        DBTable c = keyTable("c", "y", "x", "x");
+        assertEquals(nestedLoopJoin(a, "k", c, "k"), rows(a.equijoin(c, "k", "k", "j")));
+        assertEquals(nestedLoopJoin(c, "k", a, "k"), rows(c.equijoin(a, "k", "k", "j")));
+    }
+
+    @Test
+    public void equijoin_emptyTable_isEmpty() {
+        DBTable a = keyTable("a", "x", "y");
+        DBTable empty = keyTable("e");
+        DBTable j = a.equijoin(empty, "k", "k", "j");
+        assertEquals(0, j.getRowCnt());
+        assertEquals(Arrays.asList("a_k", "a_v", "e_k", "e_v"), j.getColIds());
+        assertEquals(0, empty.equijoin(a, "k", "k", "j").getRowCnt());
+        assertEquals(0, empty.equijoin(keyTable("f"), "k", "k", "j").getRowCnt());
+    }
+
+    @Test
+    public void equijoin_valuesCompareExactly() {
+        DBTable a = keyTable("a", "1", "01", "x ", "X");
+        DBTable b = keyTable("b", "1", "x", "");
+        assertEquals(Arrays.asList(Arrays.asList("1", "a0", "1", "b0")),
+                rows(a.equijoin(b, "k", "k", "j")));
+    }
+
+    @Test
+    public void equijoin_columnIds() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 5, 3, 7);
+        DBTable b = randomTable("b", StorageLayout.ROW, 5, 3, 8);
+        DBTable j = a.equijoin(b, "k", "name", "j");
+        assertEquals(Arrays.asList("a_k", "a_name", "a_amount", "a_day", "a_price",
+                "b_k", "b_name", "b_amount", "b_day", "b_price"), j.getColIds());
+    }
+
+    @Test
+    public void equijoin_nullHasNoPartner() {
+        DBTable a = new DBTable("a", Arrays.asList("k", "v"));
+        a.appendRow(Arrays.asList(null, "a0"));
+        a.appendRow(Arrays.asList("1", "a1"));
+        a.appendRow(Arrays.asList(null, "a2"));
+        DBTable b = new DBTable("b", Arrays.asList("k", "v"));
+        b.appendRow(Arrays.asList(null, "b0"));
+        b.appendRow(Arrays.asList("1", "b1"));
+        // b ist kleiner und wird indiziert, umgekehrt wird a indiziert
+        assertEquals(Arrays.asList(Arrays.asList("1", "a1", "1", "b1")),
+                rows(a.equijoin(b, "k", "k", "j")));
+        assertEquals(Arrays.asList(Arrays.asList("1", "b1", "1", "a1")),
+                rows(b.equijoin(a, "k", "k", "j")));
+        assertEquals(0, a.equijoin(b, "k", "v", "j").getRowCnt());
+    }
+
+    @Test
+    public void equijoin_noMatches_isEmpty() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 50, 10, 15);
+        DBTable b = new DBTable("b", TestTables.COLS, TestTables.TYPES, StorageLayout.ROW);
+        b.appendRow(Arrays.asList("99", null, null, null, null));
+        assertEquals(0, a.equijoin(b, "k", "k", "j").getRowCnt());
+        assertEquals(0, b.equijoin(a, "k", "k", "j").getRowCnt());
+    }
+
+}
@@ -0,0 +1,125 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static db.TestTables.sortedBy;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests von {@link DBTable#sortExternal}: Unabhängig vom Speicherbudget enthält die erzeugte
+ * Tabelle dieselben Zeilen in derselben Reihenfolge wie eine stabile Sortierung im Hauptspeicher,
+ * und es bleiben keine temporären Dateien zurück.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class ExternalSortTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Sortierschlüssel mit gleichen Werten in den ersten Schlüsseln
+     */
+    private static final List<SortKey> KEYS = Arrays.asList(
+            new SortKey("day", SortDirection.DESC), new SortKey("name", SortDirection.ASC));
+
+    /**
+     * Liefert die Namen der Dateien im Verzeichnis dir.
+     */
+    private static List<String> fileNames(Path dir) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                result.add(file.getFileName().toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sortiert table extern mit dem Speicherbudget budget in eine neue Datei und prüft das
+     * Ergebnis gegen eine stabile Sortierung im Hauptspeicher.
+     */
+    private void assertSortsLikeStableSort(DBTable table, List<SortKey> keys, long budget)
+            throws IOException {
+        List<List<String>> before = rows(table);
+        Path dir = folder.newFolder().toPath();
+        DBTable sorted = table.sortExternal(keys, dir.resolve("s.tbl"), budget, "s");
+        assertEquals(sortedBy(table, keys), rows(sorted));
+        assertEquals(table.getColIds(), sorted.getColIds());
+        assertEquals(before, rows(table));
+        assertEquals(Arrays.asList("s.tbl"), fileNames(dir));
+    }
+
+    @Test
+    public void sortExternal_matchesStableSort() throws IOException {
+        DBTable table = randomTable("t", StorageLayout.ROW, 10_000, 1000, 1);
+        for (long budget : new long[]{1 << 16, 1 << 20, Long.MAX_VALUE}) {
+            assertSortsLikeStableSort(table, KEYS, budget);
+        }
+    }
+
+    @Test
+    public void sortExternal_manyRunsMatchSort() throws IOException {
+        // mehr Läufe, als in einem Durchgang zusammengeführt werden
+        DBTable table = randomTable("t", StorageLayout.ROW,
+                ExternalSort.MAX_FAN_IN * ExternalSort.MAX_FAN_IN + 100, 50, 2);
+        assertSortsLikeStableSort(table, Arrays.asList(new SortKey("k", SortDirection.ASC)), 1);
+    }
+
+    @Test
+    public void sortExternal_emptyTable() throws IOException {
+        DBTable table = randomTable("t", StorageLayout.ROW, 0, 1, 3);
+        DBTable sorted = table.sortExternal(KEYS, folder.getRoot().toPath().resolve("s.tbl"), 1,
+                "s");
+        assertEquals(0, sorted.getRowCnt());
+        assertEquals(table.getColIds(), sorted.getColIds());
+    }
+
+    @Test
+    public void sortExternal_nullsAndEqualKeys() throws IOException {
+        DBTable table = new DBTable("t", Arrays.asList("a", "b", "pos"));
+        List<String> values = Arrays.asList("x", null, "", "y", null, "x", "", "y");
+        for (int i = 0; i < 40; i++) {
+            table.appendRow(Arrays.asList(values.get(i % values.size()),
+                    values.get(i * 3 % values.size()), Integer.toString(i)));
+        }
+        for (SortDirection direction : SortDirection.values()) {
+            List<SortKey> keys = Arrays.asList(new SortKey("a", direction),
+                    new SortKey("b", SortDirection.ASC));
+            // jede Zeile in einem eigenen Lauf und alle Zeilen in einem Lauf
+            assertSortsLikeStableSort(table, keys, 1);
+            assertSortsLikeStableSort(table, keys, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void sortExternal_singleRowAndLargeValues() throws IOException {
+        DBTable table = new DBTable("t", Arrays.asList("k", "v"));
+        table.appendRow(Arrays.asList("b", null));
+        assertSortsLikeStableSort(table, Arrays.asList(new SortKey("k", SortDirection.ASC)), 1);
+
+        // Werte größer als das Speicherbudget und größer als eine Seite der Tabellendatei
+        char[] chars = new char[TableFile.PAGE_SIZE + 10];
+        Arrays.fill(chars, 'ä');
+        String large = new String(chars);
+        table.appendRow(Arrays.asList("a", large));
+        table.appendRow(Arrays.asList(large, "c"));
+        assertSortsLikeStableSort(table, Arrays.asList(new SortKey("k", SortDirection.ASC)), 100);
+        assertSortsLikeStableSort(table, Arrays.asList(new SortKey("v", SortDirection.DESC)),
+                100);
+    }
+
+}
@@ -0,0 +1,214 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests von {@link Grouping#aggregate}: Das Ergebnis entspricht einer Gruppierung der Zeilen in
+ * einer Map und der Berechnung der Aggregate über den Werten jeder Gruppe.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class GroupingTest {
+
+    /**
+     * Aggregate über allen Spalten und Funktionen der Tabellen von {@link TestTables#randomTable}
+     */
+    private static final List<Aggregate> AGGREGATES = Arrays.asList(
+            new Aggregate(AggregateFunction.COUNT, null, "cnt"),
+            new Aggregate(AggregateFunction.COUNT, "name", "names"),
+            new Aggregate(AggregateFunction.SUM, "amount", "sumAmount"),
+            new Aggregate(AggregateFunction.SUM, "price", "sumPrice"),
+            new Aggregate(AggregateFunction.AVG, "amount", "avgAmount"),
+            new Aggregate(AggregateFunction.AVG, "price", "avgPrice"),
+            new Aggregate(AggregateFunction.MIN, "name", "minName"),
+            new Aggregate(AggregateFunction.MAX, "day", "maxDay"),
+            new Aggregate(AggregateFunction.MIN, "price", "minPrice"),
+            new Aggregate(AggregateFunction.MAX, "amount", "maxAmount"));
+
+    /**
+     * Berechnet das Aggregat aggregate über den Zeilen rows der Tabelle table.
+     */
+    private static String aggregate(DBTable table, List<List<String>> rows, Aggregate aggregate) {
+        if (aggregate.getColId() == null) {
+            return Long.toString(rows.size());
+        }
+        int col = table.getColIds().indexOf(aggregate.getColId());
+        ColumnType type = table.getColType(aggregate.getColId());
+        List<String> values = new ArrayList<>();
+        for (List<String> row : rows) {
+            if (row.get(col) != null) {
+                values.add(row.get(col));
+            }
+        }
+        if (aggregate.getFunction() == AggregateFunction.COUNT) {
+            return Long.toString(values.size());
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        long longSum = 0;
+        double doubleSum = 0;
+        for (String value : values) {
+            if (type == ColumnType.DOUBLE) {
+                doubleSum += Double.parseDouble(value);
+            } else if (type != ColumnType.STRING && type != ColumnType.DATE) {
+                longSum += Long.parseLong(value);
+            }
+        }
+        switch (aggregate.getFunction()) {
+            case SUM:
+                return type == ColumnType.DOUBLE ? Double.toString(doubleSum)
+                        : Long.toString(longSum);
+            case AVG:
+                double sum = type == ColumnType.DOUBLE ? doubleSum : longSum;
+                return Double.toString(sum / values.size());
+            case MIN:
+                return Collections.min(values, type.comparator());
+            default:
+                return Collections.max(values, type.comparator());
+        }
+    }
+
+    /**
+     * Gruppiert die Zeilen von table in einer Map nach den Spalten groupColIds und berechnet je
+     * Gruppe die Aggregate, die Gruppen in der Reihenfolge ihres ersten Auftretens.
+     */
+    private static List<List<String>> expected(DBTable table, List<String> groupColIds,
+                                               List<Aggregate> aggregates) {
+        Map<List<String>, List<List<String>>> groups = new LinkedHashMap<>();
+        if (groupColIds.isEmpty()) {
+            groups.put(new ArrayList<String>(), new ArrayList<List<String>>());
+        }
+        for (List<String> row : rows(table)) {
+            List<String> key = new ArrayList<>();
+            for (String colId : groupColIds) {
+                key.add(row.get(table.getColIds().indexOf(colId)));
+            }
+            if (!groups.containsKey(key)) {
+                groups.put(key, new ArrayList<List<String>>());
+            }
+            groups.get(key).add(row);
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (Map.Entry<List<String>, List<List<String>>> group : groups.entrySet()) {
+            List<String> row = new ArrayList<>(group.getKey());
+            for (Aggregate aggregate : aggregates) {
+                row.add(aggregate(table, group.getValue(), aggregate));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    @Test
+    public void aggregate_matchesMap() {
+        List<List<String>> groupings = Arrays.asList(Arrays.asList("k"),
+                Arrays.asList("name", "day"), Collections.<String>emptyList());
+        DBTable table = randomTable("t", StorageLayout.ROW, 5000, 30, 1);
+        for (List<String> groupColIds : groupings) {
+            DBTable result = table.groupBy(groupColIds).aggregate(AGGREGATES, "g");
+            assertEquals(expected(table, groupColIds, AGGREGATES), rows(result));
+        }
+    }
+
+    @Test
+    public void aggregate_resultTypes() {
+        DBTable result = randomTable("t", StorageLayout.ROW, 10, 5, 2)
+                .groupBy(Arrays.asList("day")).aggregate(AGGREGATES, "g");
+        assertEquals(Arrays.asList(ColumnType.DATE, ColumnType.LONG, ColumnType.LONG,
+                        ColumnType.LONG, ColumnType.DOUBLE, ColumnType.DOUBLE, ColumnType.DOUBLE,
+                        ColumnType.STRING, ColumnType.DATE, ColumnType.DOUBLE, ColumnType.LONG),
+                Arrays.asList(result.getColType("day"), result.getColType("cnt"),
+                        result.getColType("names"), result.getColType("sumAmount"),
+                        result.getColType("sumPrice"), result.getColType("avgAmount"),
+                        result.getColType("avgPrice"), result.getColType("minName"),
+                        result.getColType("maxDay"), result.getColType("minPrice"),
+                        result.getColType("maxAmount")));
+    }
+
+    @Test
+    public void parallel_matchesSequential() {
+        DBTable sequential = randomTable("t", StorageLayout.ROW, 50_000, 500, 3);
+        DBTable parallel = randomTable("t", StorageLayout.ROW, 50_000, 500, 3);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+        // die Preise sind Vielfache von 1/8, ihre Summen also unabhängig von der Rundung
+        assertEquals(rows(sequential.groupBy(Arrays.asList("k")).aggregate(AGGREGATES, "g")),
+                rows(parallel.groupBy(Arrays.asList("k")).aggregate(AGGREGATES, "g")));
+    }
+
+    @Test
+    public void emptyTable_withoutGroupColumns_hasOneRow() {
+        DBTable table = randomTable("t", StorageLayout.ROW, 0, 1, 4);
+        assertEquals(Arrays.asList(Arrays.asList("0", "0", null, null, null, null, null, null,
+                        null, null)),
+                rows(table.groupBy(Collections.<String>emptyList()).aggregate(AGGREGATES, "g")));
+        assertEquals(0, table.groupBy(Arrays.asList("k")).aggregate(AGGREGATES, "g")
+                .getRowCnt());
+    }
+
+    @Test
+    public void nullGroupsAndNullValues() {
+        DBTable table = new DBTable("t", Arrays.asList("g", "v"),
+                Arrays.asList(ColumnType.STRING, ColumnType.INT), StorageLayout.ROW);
+        table.appendRow(Arrays.asList(null, "4"));
+        table.appendRow(Arrays.asList("a", null));
+        table.appendRow(Arrays.asList("", "1"));
+        table.appendRow(Arrays.asList(null, "-2"));
+        table.appendRow(Arrays.asList("a", null));
+        List<Aggregate> aggregates = Arrays.asList(
+                new Aggregate(AggregateFunction.COUNT, null, "rows"),
+                new Aggregate(AggregateFunction.COUNT, "v", "values"),
+                new Aggregate(AggregateFunction.SUM, "v", "sum"),
+                new Aggregate(AggregateFunction.AVG, "v", "avg"),
+                new Aggregate(AggregateFunction.MIN, "v", "min"));
+        // null bildet eine eigene Gruppe, eine Gruppe nur mit null hat keine Summe
+        assertEquals(Arrays.asList(Arrays.asList(null, "2", "2", "2", "1.0", "-2"),
+                        Arrays.asList("a", "2", "0", null, null, null),
+                        Arrays.asList("", "1", "1", "1", "1.0", "1")),
+                rows(table.groupBy(Arrays.asList("g")).aggregate(aggregates, "s")));
+        for (int threshold : new int[]{1, Integer.MAX_VALUE}) {
+            table.setParallelThreshold(threshold);
+            assertEquals(expected(table, Arrays.asList("g"), aggregates),
+                    rows(table.groupBy(Arrays.asList("g")).aggregate(aggregates, "s")));
+        }
+    }
+
+    @Test
+    public void longSum_reportsOverflow() {
+        DBTable table = new DBTable("t", Arrays.asList("g", "v"),
+                Arrays.asList(ColumnType.INT, ColumnType.LONG), StorageLayout.ROW);
+        table.appendRow(Arrays.asList("1", Long.toString(Long.MAX_VALUE)));
+        table.appendRow(Arrays.asList("1", "-1"));
+        table.appendRow(Arrays.asList("2", Long.toString(Long.MAX_VALUE)));
+        List<Aggregate> sum = Collections.singletonList(
+                new Aggregate(AggregateFunction.SUM, "v", "s"));
+        // bis an die Grenze des Wertebereiches
+        assertEquals(Arrays.asList(Arrays.asList("1", Long.toString(Long.MAX_VALUE - 1)),
+                        Arrays.asList("2", Long.toString(Long.MAX_VALUE))),
+                rows(table.groupBy(Arrays.asList("g")).aggregate(sum, "s")));
+        for (AggregateFunction function : new AggregateFunction[]{AggregateFunction.SUM,
+                AggregateFunction.AVG}) {
+            try {
+                table.groupBy(Collections.<String>emptyList()).aggregate(
+                        Collections.singletonList(new Aggregate(function, "v", "s")), "s");
+                fail(function.toString());
+            } catch (ArithmeticException expected) {
+                // erwartet
+            }
+        }
+    }
+
+}
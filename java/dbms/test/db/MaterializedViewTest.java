@@ -0,0 +1,156 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static db.TestTables.sorted;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests von {@link MaterializedView}: Nach jeder Änderung der beteiligten Tabellen enthält die
+ * Sicht dieselben Zeilen wie eine erneute Ausführung ihrer Anfrage, nach {@link
+ * MaterializedView#refresh()} auch in derselben Reihenfolge.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class MaterializedViewTest {
+
+    /**
+     * Erzeugt eine Datenbank mit den Tabellen a und b.
+     */
+    private static DB createDB(StorageLayout layout) {
+        DB db = new DB("d");
+        db.addTable(randomTable("a", layout, 300, 40, 1));
+        db.addTable(randomTable("b", StorageLayout.ROW, 100, 40, 2));
+        return db;
+    }
+
+    /**
+     * Liefert eine Anfrage über a mit Bedingung, Projektion und Join mit b.
+     */
+    private static Query joinQuery(DB db) {
+        Predicate<String> positive = s -> s != null && !s.startsWith("-");
+        return db.query("a").where("amount", positive)
+                .project(Arrays.asList("k", "name", "amount"))
+                .join(db.query("b").where("name", s -> s != null && s.compareTo("n2") < 0)
+                        .project(Arrays.asList("k", "day")), "k", "k", "ab");
+    }
+
+    /**
+     * Prüft, dass die Sicht dieselben Zeilen wie ihre Anfrage enthält, und nach refresh auch in
+     * derselben Reihenfolge.
+     */
+    private static void assertUpToDate(MaterializedView view) {
+        List<List<String>> expected = rows(view.getQuery().collect("r"));
+        assertEquals(sorted(expected), sorted(rows(view.getTable())));
+        view.refresh();
+        assertEquals(expected, rows(view.getTable()));
+    }
+
+    @Test
+    public void appends_matchQuery() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DB db = createDB(layout);
+            MaterializedView view = db.createView("v", joinQuery(db));
+            assertEquals(rows(joinQuery(db).collect("r")), rows(view.getTable()));
+            Random random = new Random(3);
+            for (int i = 0; i < 200; i++) {
+                db.getTable(i % 3 == 0 ? "b" : "a").appendRow(randomRow(random, 40));
+                if (i % 50 == 0) {
+                    List<List<String>> expected = rows(view.getQuery().collect("r"));
+                    assertEquals(sorted(expected), sorted(rows(view.getTable())));
+                }
+            }
+            assertUpToDate(view);
+        }
+    }
+
+    @Test
+    public void removesAndSorts_matchQuery() {
+        DB db = createDB(StorageLayout.COLUMN);
+        MaterializedView view = db.createView("v", joinQuery(db));
+        Random random = new Random(4);
+        db.getTable("a").removeRows("k", s -> s.endsWith("3"));
+        assertUpToDate(view);
+        db.getTable("b").sort("day", SortDirection.DESC);
+        assertUpToDate(view);
+        db.getTable("a").appendRow(randomRow(random, 40));
+        db.getTable("a").removeRows("amount", s -> s != null && s.length() < 3);
+        assertUpToDate(view);
+        db.getTable("b").removeAllRows();
+        assertEquals(0, view.getTable().getRowCnt());
+        db.getTable("b").appendRow(Arrays.asList("5", "n1", "1", "2020-01-11", "1.0"));
+        assertUpToDate(view);
+    }
+
+    @Test
+    public void singleTableView_matchesQuery() {
+        DB db = createDB(StorageLayout.VERSIONED);
+        Query query = db.query("a").where("name", s -> s != null && s.endsWith("1"))
+                .project(Arrays.asList("name", "price"));
+        MaterializedView view = db.createView("v", query);
+        Random random = new Random(6);
+        for (int i = 0; i < 300; i++) {
+            db.getTable("a").appendRow(randomRow(random, 40));
+        }
+        // ohne Join bleibt die Reihenfolge der angehängten Zeilen erhalten
+        assertEquals(rows(query.collect("r")), rows(view.getTable()));
+    }
+
+    @Test
+    public void emptyTablesAndNullKeys() {
+        DB db = new DB("d");
+        db.addTable(new DBTable("a", Arrays.asList("k", "v")));
+        db.addTable(new DBTable("b", Arrays.asList("k", "w")));
+        MaterializedView view = db.createView("v", db.query("a").join(db.query("b"), "k", "k",
+                "ab"));
+        assertEquals(0, view.getTable().getRowCnt());
+        assertEquals(Arrays.asList("a_k", "a_v", "b_k", "b_w"), view.getTable().getColIds());
+        // null hat keine Partner, weder als neue Zeile von a noch von b
+        db.getTable("a").appendRow(Arrays.asList(null, "1"));
+        db.getTable("b").appendRow(Arrays.asList(null, "2"));
+        assertEquals(0, view.getTable().getRowCnt());
+        // eine neue Zeile von b findet die vorhandenen Partner in a und umgekehrt
+        db.getTable("a").appendRow(Arrays.asList("x", "3"));
+        db.getTable("a").appendRow(Arrays.asList("x", "4"));
+        db.getTable("b").appendRow(Arrays.asList("x", "5"));
+        db.getTable("a").appendRow(Arrays.asList("x", "6"));
+        assertEquals(sorted(Arrays.asList(Arrays.asList("x", "3", "x", "5"),
+                Arrays.asList("x", "4", "x", "5"), Arrays.asList("x", "6", "x", "5"))),
+                sorted(rows(view.getTable())));
+        assertUpToDate(view);
+    }
+
+    @Test
+    public void conditionWithoutMatches_staysEmpty() {
+        DB db = createDB(StorageLayout.ROW);
+        MaterializedView view = db.createView("v", db.query("a").where("k", s -> false));
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            db.getTable("a").appendRow(randomRow(random, 40));
+        }
+        db.getTable("a").sort("k", SortDirection.ASC);
+        assertEquals(0, view.getTable().getRowCnt());
+        assertEquals(db.getTable("a").getColIds(), view.getTable().getColIds());
+    }
+
+    @Test
+    public void dropView_stopsMaintenance() {
+        DB db = createDB(StorageLayout.ROW);
+        MaterializedView view = db.createView("v", joinQuery(db));
+        List<List<String>> before = rows(view.getTable());
+        db.dropView("v");
+        db.getTable("a").removeAllRows();
+        assertEquals(before, rows(view.getTable()));
+        assertNull(db.getView("v"));
+    }
+
+}
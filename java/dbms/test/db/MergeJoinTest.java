@@ -0,0 +1,208 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests von {@link DBTable#mergeJoin} und {@link DBTable#bandJoin} gegen einen Vergleich aller
+ * Zeilenpaare, dessen Ergebnis stabil in die zugesicherte Reihenfolge gebracht wird, sowie der
+ * Angabe der Sortierung ({@link DBTable#getSortOrder()}).
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class MergeJoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Sortiert die Zeilen rows stabil nach der Spalte col gemäß comp.
+     */
+    private static List<List<String>> sortedBy(List<List<String>> rows, final int col,
+                                               final Comparator<String> comp) {
+        List<List<String>> result = new ArrayList<>(rows);
+        Collections.sort(result, (x, y) -> comp.compare(x.get(col), y.get(col)));
+        return result;
+    }
+
+    /**
+     * Liefert den Zahlenwert von value, bei DATE die Tage seit dem 1970-01-01.
+     */
+    private static long number(ColumnType type, String value) {
+        return type == ColumnType.DATE ? LocalDate.parse(value).toEpochDay()
+                : Long.parseLong(value);
+    }
+
+    /**
+     * Verbindet die Zeilen von a und b mit a + lower &lt;= b &lt;= a + upper per Vergleich aller
+     * Paare: aufsteigend nach a, bei gleichem a in der Reihenfolge von a und dann aufsteigend
+     * nach b.
+     */
+    private static List<List<String>> nestedLoopBand(DBTable a, String colA, DBTable b,
+                                                     String colB, long lower, long upper) {
+        int ca = a.getColIds().indexOf(colA);
+        int cb = b.getColIds().indexOf(colB);
+        ColumnType type = a.getColType(colA);
+        List<List<String>> right = sortedBy(rows(b), cb, type.comparator());
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> left : sortedBy(rows(a), ca, type.comparator())) {
+            if (left.get(ca) == null) {
+                continue;
+            }
+            for (List<String> row : right) {
+                if (row.get(cb) == null) {
+                    continue;
+                }
+                long distance = number(type, row.get(cb)) - number(type, left.get(ca));
+                if (lower <= distance && distance <= upper) {
+                    List<String> joined = new ArrayList<>(left);
+                    joined.addAll(row);
+                    result.add(joined);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void mergeJoin_matchesSortedNestedLoop() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable a = randomTable("a", layout, 300, 40, 1);
+            DBTable b = randomTable("b", StorageLayout.ROW, 200, 40, 2);
+            for (String colId : TestTables.COLS) {
+                int col = a.getColIds().indexOf(colId);
+                assertEquals(colId, sortedBy(nestedLoopJoin(a, colId, b, colId), col,
+                                a.getColType(colId).comparator()),
+                        rows(a.mergeJoin(b, colId, colId, "j")));
+            }
+        }
+    }
+
+    @Test
+    public void mergeJoin_usesSortOrder() {
+        DBTable a = randomTable("a", StorageLayout.COLUMN, 300, 40, 3);
+        DBTable b = randomTable("b", StorageLayout.COLUMN, 200, 40, 4);
+        b.sort("day", SortDirection.ASC);
+        int col = a.getColIds().indexOf("day");
+        Comparator<String> comp = ColumnType.DATE.comparator();
+        assertEquals(sortedBy(nestedLoopJoin(a, "day", b, "day"), col, comp),
+                rows(a.mergeJoin(b, "day", "day", "j")));
+
+        // absteigend sortiertes this liefert absteigende Reihenfolge
+        a.sort("day", SortDirection.DESC);
+        assertEquals(sortedBy(nestedLoopJoin(a, "day", b, "day"), col,
+                        Collections.reverseOrder(comp)),
+                rows(a.mergeJoin(b, "day", "day", "j")));
+        assertEquals(rows(a.equijoin(b, "day", "day", "e")).size(),
+                a.mergeJoin(b, "day", "day", "j").getRowCnt());
+    }
+
+    @Test
+    public void bandJoin_matchesNestedLoop() {
+        long[][] bands = {{0, 0}, {-5, 5}, {1, Long.MAX_VALUE}, {Long.MIN_VALUE, -1}, {3, 10}};
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable a = randomTable("a", layout, 150, 40, 5);
+            DBTable b = randomTable("b", StorageLayout.ROW, 120, 40, 6);
+            for (long[] band : bands) {
+                for (String colId : new String[]{"k", "amount", "day"}) {
+                    assertEquals(colId + " " + band[0] + " " + band[1],
+                            nestedLoopBand(a, colId, b, colId, band[0], band[1]),
+                            rows(a.bandJoin(b, colId, colId, band[0], band[1], "j")));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bandJoin_sortedInputs() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 200, 40, 7);
+        DBTable b = randomTable("b", StorageLayout.COLUMN, 200, 40, 8);
+        a.sort("amount", SortDirection.ASC);
+        b.sort("amount", SortDirection.ASC);
+        assertEquals(nestedLoopBand(a, "amount", b, "amount", -20, 20),
+                rows(a.bandJoin(b, "amount", "amount", -20, 20, "j")));
+    }
+
+    @Test
+    public void sortOrder_followsChanges() throws IOException {
+        DBTable table = new DBTable("t", Arrays.asList("a", "b"));
+        assertEquals(Collections.<SortKey>emptyList(), table.getSortOrder());
+        List<SortKey> keys = Arrays.asList(new SortKey("a", SortDirection.ASC),
+                new SortKey("b", SortDirection.DESC));
+        table.sort(keys);
+        assertEquals(keys, table.getSortOrder());
+        // die erste Zeile und Zeilen, die die Sortierung fortsetzen, erhalten sie
+        table.appendRow(Arrays.asList("a", "2"));
+        table.appendRow(Arrays.asList("a", "2"));
+        table.appendRow(Arrays.asList("a", "1"));
+        table.appendRow(Arrays.asList("b", "9"));
+        assertEquals(keys, table.getSortOrder());
+        table.removeRows("b", s -> s.equals("1"));
+        assertEquals(keys, table.getSortOrder());
+        assertEquals(keys, table.sortExternal(keys,
+                folder.getRoot().toPath().resolve("s.tbl"), 1, "s").getSortOrder());
+        table.appendRow(Arrays.asList("b", "91"));
+        assertEquals(Collections.<SortKey>emptyList(), table.getSortOrder());
+
+        table.sort("b", SortDirection.DESC);
+        assertEquals(1, table.getSortOrder().size());
+        assertEquals("b", table.getSortOrder().get(0).getColId());
+        assertEquals(SortDirection.DESC, table.getSortOrder().get(0).getDirection());
+        // null ist kleiner als jeder Wert und setzt die absteigende Sortierung fort
+        table.appendRow(Arrays.asList(null, null));
+        assertEquals(1, table.getSortOrder().size());
+        table.appendRow(Arrays.asList(null, "0"));
+        assertEquals(Collections.<SortKey>emptyList(), table.getSortOrder());
+    }
+
+    @Test
+    public void equijoin_sortedInputs_matchesNestedLoop() {
+        for (SortDirection direction : SortDirection.values()) {
+            DBTable a = randomTable("a", StorageLayout.ROW, 200, 40, 13);
+            DBTable b = randomTable("b", StorageLayout.ROW, 150, 40, 14);
+            a.sort("k", direction);
+            b.sort("k", direction);
+            assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+            assertEquals(nestedLoopJoin(b, "k", a, "k"), rows(b.equijoin(a, "k", "k", "j")));
+        }
+    }
+
+    @Test
+    public void mergeJoin_emptyTablesNullsAndDuplicates() {
+        DBTable a = new DBTable("a", Arrays.asList("k", "v"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), StorageLayout.ROW);
+        DBTable b = new DBTable("b", Arrays.asList("k", "w"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), StorageLayout.ROW);
+        assertEquals(0, a.mergeJoin(b, "k", "k", "j").getRowCnt());
+        assertEquals(0, a.bandJoin(b, "k", "k", -1, 1, "j").getRowCnt());
+        for (String[] row : new String[][]{{"2", "a1"}, {null, "a2"}, {"1", "a3"}, {"2", "a4"}}) {
+            a.appendRow(Arrays.asList(row));
+        }
+        assertEquals(0, a.mergeJoin(b, "k", "k", "j").getRowCnt());
+        for (String[] row : new String[][]{{"2", "b1"}, {null, "b2"}, {"2", "b3"}, {"3", "b4"}}) {
+            b.appendRow(Arrays.asList(row));
+        }
+        // null hat keine Partner, gleiche Schlüssel ergeben alle Paare
+        assertEquals(Arrays.asList(Arrays.asList("2", "a1", "2", "b1"),
+                Arrays.asList("2", "a1", "2", "b3"), Arrays.asList("2", "a4", "2", "b1"),
+                Arrays.asList("2", "a4", "2", "b3")), rows(a.mergeJoin(b, "k", "k", "j")));
+        assertEquals(Arrays.asList(Arrays.asList("1", "a3", "2", "b1"),
+                Arrays.asList("1", "a3", "2", "b3"), Arrays.asList("2", "a1", "3", "b4"),
+                Arrays.asList("2", "a4", "3", "b4")), rows(a.bandJoin(b, "k", "k", 1, 1, "j")));
+    }
+
+}
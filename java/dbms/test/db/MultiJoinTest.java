@@ -0,0 +1,184 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests von {@link MultiJoin}: Unabhängig vom gewählten Plan enthält das Ergebnis dieselben Zeilen
+ * in derselben Reihenfolge wie ein Vergleich aller Kombinationen von Zeilen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class MultiJoinTest {
+
+    /**
+     * Erzeugt eine Tabelle mit den Spalten id und ref, id in [0, idCnt), ref in [0, refCnt).
+     */
+    private static DBTable createTable(String id, int rowCnt, int idCnt, int refCnt, long seed) {
+        DBTable result = new DBTable(id, Arrays.asList("id", "ref"));
+        Random random = new Random(seed);
+        for (int i = 0; i < rowCnt; i++) {
+            result.appendRow(Arrays.asList(Integer.toString(random.nextInt(idCnt)),
+                    Integer.toString(random.nextInt(refCnt))));
+        }
+        return result;
+    }
+
+    /**
+     * Erzeugt eine Datenbank mit den Tabellen a, b und c verschiedener Größe.
+     */
+    private static DB createDB() {
+        DB db = new DB("d");
+        db.addTable(createTable("a", 200, 100, 30, 1));
+        db.addTable(createTable("b", 30, 30, 10, 2));
+        db.addTable(createTable("c", 10, 10, 100, 3));
+        return db;
+    }
+
+    /**
+     * Verbindet a, b und c über a.ref = b.id und b.ref = c.id (und optional a.id = c.ref) per
+     * Vergleich aller Kombinationen in der Reihenfolge der Zeilen von a, b und c.
+     */
+    private static List<List<String>> nestedLoop(DB db, boolean cycle) {
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> a : rows(db.getTable("a"))) {
+            for (List<String> b : rows(db.getTable("b"))) {
+                if (!a.get(1).equals(b.get(0))) {
+                    continue;
+                }
+                for (List<String> c : rows(db.getTable("c"))) {
+                    if (b.get(1).equals(c.get(0)) && (!cycle || a.get(0).equals(c.get(1)))) {
+                        List<String> row = new ArrayList<>(a);
+                        row.addAll(b);
+                        row.addAll(c);
+                        result.add(row);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void chain_matchesNestedLoop() {
+        DB db = createDB();
+        MultiJoin join = db.multiJoin(Arrays.asList("a", "b", "c"))
+                .on("a", "ref", "b", "id").on("c", "id", "b", "ref");
+        DBTable result = join.execute("r");
+        assertEquals(Arrays.asList("a_id", "a_ref", "b_id", "b_ref", "c_id", "c_ref"),
+                result.getColIds());
+        assertEquals(nestedLoop(db, false), rows(result));
+        assertFalse(join.explain().isEmpty());
+        assertTrue(join.getEstimatedRowCnt() > 0);
+    }
+
+    @Test
+    public void cycle_matchesNestedLoop() {
+        DB db = createDB();
+        DBTable result = db.multiJoin(Arrays.asList("a", "b", "c"))
+                .on("a", "ref", "b", "id").on("b", "ref", "c", "id").on("a", "id", "c", "ref")
+                .execute("r");
+        assertEquals(nestedLoop(db, true), rows(result));
+    }
+
+    @Test
+    public void withIndexes_matchesNestedLoop() {
+        DB db = createDB();
+        db.getTable("a").createIndex("ref", IndexType.HASH);
+        db.getTable("b").createIndex("id", IndexType.HASH);
+        db.getTable("c").createIndex("id", IndexType.SORTED);
+        MultiJoin join = db.multiJoin(Arrays.asList("a", "b", "c"))
+                .on("a", "ref", "b", "id").on("b", "ref", "c", "id");
+        assertEquals(nestedLoop(db, false), rows(join.execute("r")));
+    }
+
+    @Test
+    public void tableOrder_determinesColumns() {
+        DB db = createDB();
+        DBTable result = db.multiJoin(Arrays.asList("c", "a", "b"))
+                .on("a", "ref", "b", "id").on("b", "ref", "c", "id").execute("r");
+        List<List<String>> expected = new ArrayList<>();
+        for (List<String> row : nestedLoop(db, false)) {
+            List<String> reordered = new ArrayList<>(row.subList(4, 6));
+            reordered.addAll(row.subList(0, 4));
+            expected.add(reordered);
+        }
+        assertEquals(TestTables.sorted(expected), TestTables.sorted(rows(result)));
+        assertEquals(Arrays.asList("c_id", "c_ref", "a_id", "a_ref", "b_id", "b_ref"),
+                result.getColIds());
+    }
+
+    @Test
+    public void twoTables_matchEquijoin() {
+        DB db = createDB();
+        DBTable a = db.getTable("a");
+        DBTable b = db.getTable("b");
+        assertEquals(rows(a.equijoin(b, "ref", "id", "r")),
+                rows(db.multiJoin(Arrays.asList("a", "b")).on("b", "id", "a", "ref")
+                        .execute("r")));
+    }
+
+    @Test
+    public void emptyTableAndNulls_haveNoPartners() {
+        DB db = new DB("d");
+        DBTable a = new DBTable("a", Arrays.asList("id", "ref"));
+        a.appendRow(Arrays.asList("1", null));
+        a.appendRow(Arrays.asList("2", "x"));
+        a.appendRow(Arrays.asList(null, "x"));
+        DBTable b = new DBTable("b", Arrays.asList("id", "ref"));
+        b.appendRow(Arrays.asList(null, "1"));
+        b.appendRow(Arrays.asList("x", "2"));
+        db.addTable(a);
+        db.addTable(b);
+        db.addTable(new DBTable("e", Arrays.asList("id")));
+        // nur wenige Zeilenpaare: Vergleich aller Paare
+        assertEquals(Arrays.asList(Arrays.asList("2", "x", "x", "2"),
+                Arrays.asList(null, "x", "x", "2")),
+                rows(db.multiJoin(Arrays.asList("a", "b")).on("a", "ref", "b", "id")
+                        .execute("r")));
+        assertEquals(0, db.multiJoin(Arrays.asList("a", "b")).on("a", "id", "b", "id")
+                .execute("r").getRowCnt());
+        DBTable empty = db.multiJoin(Arrays.asList("a", "b", "e")).on("a", "ref", "b", "id")
+                .on("e", "id", "a", "id").execute("r");
+        assertEquals(0, empty.getRowCnt());
+        assertEquals(Arrays.asList("a_id", "a_ref", "b_id", "b_ref", "e_id"),
+                empty.getColIds());
+    }
+
+    @Test
+    public void manyTables_greedyPlanMatchesEquijoinChain() {
+        DB db = new DB("d");
+        List<String> ids = new ArrayList<>();
+        for (int t = 0; t <= MultiJoin.DP_LIMIT; t++) {
+            ids.add("t" + t);
+            // je Schlüssel höchstens ein Partner, einige Zeilen ohne Partner
+            DBTable table = new DBTable("t" + t, Arrays.asList("id", "ref"));
+            for (int i = 0; i < 10; i++) {
+                table.appendRow(Arrays.asList(Integer.toString((i * 7 + t) % 12),
+                        Integer.toString((i * 3 + t) % 10)));
+            }
+            db.addTable(table);
+        }
+        MultiJoin join = db.multiJoin(ids);
+        DBTable chain = db.getTable("t0");
+        String prefix = "t0_";
+        for (int t = 1; t < ids.size(); t++) {
+            join.on(ids.get(t - 1), "ref", ids.get(t), "id");
+            // die Spalten der bisherigen Kette tragen den Präfix der Zwischentabelle
+            chain = chain.equijoin(db.getTable(ids.get(t)), t == 1 ? "ref" : prefix + "ref", "id",
+                    "j" + t);
+            prefix = "t" + t + "_";
+        }
+        assertEquals(rows(chain), rows(join.execute("r")));
+    }
+
+}
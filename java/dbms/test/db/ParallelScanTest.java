@@ -0,0 +1,116 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests der parallelen Ausführung: select, project und removeRows liefern ab der
+ * Parallelisierungsschwelle dieselben Zeilen in derselben Reihenfolge wie sequentiell.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class ParallelScanTest {
+
+    /**
+     * Anzahl der Zeilen, die sich auf mehrere Threads verteilen
+     */
+    private static final int ROWS = 50_000;
+
+    @Test
+    public void select_parallelMatchesSequential() {
+        DBTable sequential = randomTable("t", StorageLayout.ROW, ROWS, 1000, 1);
+        DBTable parallel = randomTable("t", StorageLayout.ROW, ROWS, 1000, 1);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+        assertEquals(rows(sequential.select("k", s -> s.endsWith("7"), "s")),
+                rows(parallel.select("k", s -> s.endsWith("7"), "s")));
+        assertEquals(rows(sequential.select("name", s -> s == null, "s")),
+                rows(parallel.select("name", s -> s == null, "s")));
+    }
+
+    @Test
+    public void project_parallelMatchesSequential() {
+        DBTable sequential = randomTable("t", StorageLayout.ROW, ROWS, 1000, 2);
+        DBTable parallel = randomTable("t", StorageLayout.ROW, ROWS, 1000, 2);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+        DBTable projected = parallel.project(Arrays.asList("day", "k"), "p");
+        assertEquals(rows(sequential.project(Arrays.asList("day", "k"), "p")), rows(projected));
+        assertEquals(1, projected.getParallelThreshold());
+    }
+
+    @Test
+    public void removeRows_parallelMatchesSequential() {
+        DBTable sequential = randomTable("t", StorageLayout.ROW, ROWS, 1000, 3);
+        DBTable parallel = randomTable("t", StorageLayout.ROW, ROWS, 1000, 3);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+        sequential.removeRows("price", s -> s != null && s.contains("5"));
+        parallel.removeRows("price", s -> s != null && s.contains("5"));
+        assertEquals(rows(sequential), rows(parallel));
+        parallel.removeRows("k", s -> true);
+        assertEquals(0, parallel.getRowCnt());
+    }
+
+    @Test
+    public void smallTables_withThresholdOne() {
+        for (int rowCnt : new int[]{0, 1, 3}) {
+            DBTable t = randomTable("t", StorageLayout.ROW, rowCnt, 10, 4);
+            t.setParallelThreshold(1);
+            List<List<String>> all = rows(t);
+            assertEquals(all, rows(t.select("k", s -> true, "s")));
+            assertEquals(0, t.select("k", s -> false, "s").getRowCnt());
+            assertEquals(rowCnt, t.project(Arrays.asList("k"), "p").getRowCnt());
+            t.removeRows("k", s -> false);
+            assertEquals(all, rows(t));
+        }
+    }
+
+    @Test
+    public void filterAndMap_keepOrderAtChunkBoundaries() {
+        for (int rowCnt : new int[]{0, 1, 4095, 4096, 4097, 8192, 40_000}) {
+            for (int threshold : new int[]{0, rowCnt, rowCnt + 1}) {
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < rowCnt; i++) {
+                    if (i % 3 == 0) {
+                        expected.add(i);
+                    }
+                }
+                int[] filtered = ParallelScan.filter(rowCnt, threshold, i -> i % 3 == 0);
+                assertArrayEquals(expected.stream().mapToInt(i -> i).toArray(), filtered);
+                List<Integer> mapped = ParallelScan.map(rowCnt, threshold, i -> i * 2);
+                assertEquals(rowCnt, mapped.size());
+                for (int i = 0; i < rowCnt; i++) {
+                    assertEquals(i * 2, (int) mapped.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void select_parallelPropagatesException() {
+        DBTable t = randomTable("t", StorageLayout.ROW, ROWS, 1000, 5);
+        t.setParallelThreshold(1);
+        try {
+            t.select("k", s -> {
+                if (s.equals("999")) {
+                    throw new IllegalStateException(s);
+                }
+                return true;
+            }, "s");
+            fail();
+        } catch (IllegalStateException expected) {
+            // erwartet
+        }
+    }
+
+}
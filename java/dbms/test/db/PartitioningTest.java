@@ -0,0 +1,443 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.nestedLoopJoin;
+import static db.TestTables.randomTable;
+import static db.TestTables.sorted;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests partitionierter Tabellen: Anfragen, die nur passende Partitionen durchsuchen, Einfügen
+ * mitten in die Tabelle mit Indizes sowie Tabellen, die gespeichert bzw. protokolliert und wieder
+ * geöffnet werden.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class PartitioningTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Erzeugt die Tabelle t mit den Zeilen (i, r{i}) für i = 0 bis 9.
+     * @return Tabelle
+     */
+    private static DBTable createTable() {
+        DBTable t = new DBTable("t", Arrays.asList("k", "v"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), StorageLayout.ROW);
+        for (int i = 0; i < 10; i++) {
+            t.appendRow(Arrays.asList(Integer.toString(i), "r" + i));
+        }
+        return t;
+    }
+
+    /**
+     * Liefert die Zeilen der Tabelle in ihrer Reihenfolge.
+     * @param t Tabelle
+     * @return Zeilen
+     */
+    private static List<List<String>> rows(DBTable t) {
+        List<List<String>> result = new ArrayList<>();
+        for (int i = 0; i < t.getRowCnt(); i++) {
+            result.add(new ArrayList<>(t.getRow(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Ändert die partitionierte Tabelle wie im Fehlerbericht: eine Zeile wird mitten in die
+     * Tabelle (ans Ende von Partition 0) eingefügt, danach wird eine Zeile dahinter entfernt.
+     * @param t Tabelle
+     */
+    private static void modify(DBTable t) {
+        t.partition(Partitioning.range("k", Arrays.asList("3")));
+        t.appendRow(Arrays.asList("1", "new_in_p0"));
+        t.removeRows("v", s -> s.equals("r5"));
+    }
+
+    /**
+     * Prüft, dass reopened dieselben Zeilen und dieselbe Partitionierung wie expected hat.
+     */
+    private static void assertSameTable(DBTable expected, DBTable reopened) {
+        assertEquals(rows(expected), rows(reopened));
+        assertNotNull(reopened.getPartitioning());
+        assertEquals(expected.getPartitioning().toString(), reopened.getPartitioning().toString());
+        for (int p = 0; p < expected.getPartitioning().getPartitionCnt(); p++) {
+            assertEquals(expected.getPartitionRowCnt(p), reopened.getPartitionRowCnt(p));
+        }
+        List<List<String>> values = rows(reopened);
+        assertTrue(values.contains(Arrays.asList("1", "new_in_p0")));
+        assertFalse(values.contains(Arrays.asList("5", "r5")));
+    }
+
+    @Test
+    public void walReplay_partitionedTable() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        DBTable t = createTable();
+        db.addTable(t);
+        modify(t);
+        db.sync();
+        db.close();
+
+        DB reopened = DB.openLogged(dir, "d", 5);
+        assertSameTable(t, reopened.getTable("t"));
+        reopened.close();
+    }
+
+    @Test
+    public void walReplay_tablePartitionedBeforeAdd() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        DBTable t = createTable();
+        t.partition(Partitioning.range("k", Arrays.asList("3")));
+        db.addTable(t);
+        t.appendRow(Arrays.asList("1", "new_in_p0"));
+        t.removeRows("v", s -> s.equals("r5"));
+        db.close();
+
+        DB reopened = DB.openLogged(dir, "d", 5);
+        assertSameTable(t, reopened.getTable("t"));
+        reopened.close();
+    }
+
+    @Test
+    public void walReplay_afterCheckpoint() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        DBTable t = createTable();
+        db.addTable(t);
+        t.partition(Partitioning.hash("k", 3));
+        db.checkpoint();
+        t.appendRow(Arrays.asList("1", "new_in_p0"));
+        t.removeRows("v", s -> s.equals("r5"));
+        db.close();
+
+        DB reopened = DB.openLogged(dir, "d", 5);
+        assertSameTable(t, reopened.getTable("t"));
+        reopened.getTable("t").appendRow(Arrays.asList("2", "again"));
+        reopened.close();
+    }
+
+    @Test
+    public void saveOpen_keepsPartitioning() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = new DB("d");
+        DBTable t = createTable();
+        db.addTable(t);
+        modify(t);
+        db.save(dir);
+
+        DBTable reopened = DB.open(dir).getTable("t");
+        assertSameTable(t, reopened);
+        t.appendRow(Arrays.asList("0", "x"));
+        reopened.appendRow(Arrays.asList("0", "x"));
+        assertEquals(rows(t), rows(reopened));
+    }
+
+    /**
+     * Prüft selectEquals über den Index und selectRange über die Partitionen gegen einen
+     * vollständigen Durchlauf mit select.
+     */
+    private static void assertMatchesScan(DBTable t, int probe) {
+        String key = Integer.toString(probe);
+        assertEquals(rows(t.select("k", s -> s.equals(key), "s")),
+                rows(t.selectEquals("k", key, "s")));
+        String v = Integer.toString(probe * 7);
+        assertEquals(rows(t.select("v", s -> s.equals(v), "s")),
+                rows(t.selectEquals("v", v, "s")));
+        String from = Integer.toString(probe * 5);
+        String to = Integer.toString(probe * 5 + 4000);
+        assertEquals(rows(t.select("n", s -> {
+            long n = Long.parseLong(s);
+            return n >= probe * 5 && n < probe * 5 + 4000;
+        }, "s")), rows(t.selectRange("n", from, to, "s")));
+    }
+
+    @Test
+    public void append_midPartition_indexesMatchScan() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable t = new DBTable("t", Arrays.asList("k", "v", "n"),
+                    Arrays.asList(ColumnType.INT, ColumnType.INT, ColumnType.LONG), layout);
+            t.partition(Partitioning.range("k", Arrays.asList("100", "200", "300")));
+            t.createIndex("k", IndexType.HASH);
+            t.createIndex("v", IndexType.SORTED);
+            Random random = new Random(3);
+            for (int i = 0; i < 20000; i++) {
+                int k = random.nextInt(400);
+                t.appendRow(Arrays.asList(Integer.toString(k),
+                        Integer.toString(random.nextInt(400) * 7), Integer.toString(i * 5)));
+                if (i % 2500 == 0) {
+                    assertMatchesScan(t, random.nextInt(400));
+                }
+            }
+            for (int q = 0; q < 50; q++) {
+                assertMatchesScan(t, random.nextInt(400));
+            }
+            t.dropPartition(1);
+            t.appendRow(Arrays.asList("150", "7", "3"));
+            t.appendRow(Arrays.asList("50", "7", "4"));
+            assertEquals(1, t.getPartitionRowCnt(1));
+            assertEquals(rows(t.select("k", s -> s.equals("150"), "s")),
+                    rows(t.selectEquals("k", "150", "s")));
+            for (int q = 0; q < 50; q++) {
+                assertMatchesScan(t, random.nextInt(400));
+            }
+        }
+    }
+
+    /**
+     * Prüft, dass die Anfragen über der partitionierten Tabelle parted dieselben Zeilen wie über
+     * der nicht partitionierten Tabelle plain liefern und dieselben Zeilen in derselben
+     * Reihenfolge wie ein vollständiger Durchlauf über parted.
+     */
+    private static void assertPrunedMatchesScan(DBTable plain, DBTable parted, String colId,
+                                                String value, String from, String to) {
+        final Comparator<String> comp = parted.getColType(colId).comparator();
+        assertEquals(rows(parted.select(colId, s -> s != null && comp.compare(s, value) == 0,
+                "s")), rows(parted.selectEquals(colId, value, "s")));
+        assertEquals(sorted(rows(plain.selectEquals(colId, value, "s"))),
+                sorted(rows(parted.selectEquals(colId, value, "s"))));
+        assertEquals(rows(parted.select(colId, s -> s != null && comp.compare(s, from) >= 0
+                && comp.compare(s, to) < 0, "s")), rows(parted.selectRange(colId, from, to, "s")));
+        assertEquals(sorted(rows(plain.selectRange(colId, from, to, "s"))),
+                sorted(rows(parted.selectRange(colId, from, to, "s"))));
+        assertEquals(rows(parted.selectRange(colId, from, to, "s")),
+                rows(parted.select(colId, BatchPredicate.range(from, to), "s")));
+        assertEquals(rows(parted.selectEquals(colId, value, "s")),
+                rows(parted.select(colId, BatchPredicate.equalTo(value), "s")));
+    }
+
+    @Test
+    public void pruning_matchesUnpartitionedScan() {
+        List<Partitioning> partitionings = Arrays.asList(Partitioning.hash("k", 5),
+                Partitioning.range("k", Arrays.asList("10", "50", "51", "90")),
+                Partitioning.range("day", Arrays.asList("2020-01-15", "2020-01-20")),
+                Partitioning.hash("name", 3));
+        for (StorageLayout layout : StorageLayout.values()) {
+            for (Partitioning partitioning : partitionings) {
+                DBTable plain = randomTable("t", layout, 3000, 100, 1);
+                DBTable parted = randomTable("t", layout, 3000, 100, 1);
+                parted.partition(partitioning);
+                assertEquals(sorted(rows(plain)), sorted(rows(parted)));
+                int total = 0;
+                for (int p = 0; p < partitioning.getPartitionCnt(); p++) {
+                    total += parted.getPartitionRowCnt(p);
+                }
+                assertEquals(plain.getRowCnt(), total);
+
+                for (int probe = 0; probe < 100; probe += 7) {
+                    assertPrunedMatchesScan(plain, parted, "k", Integer.toString(probe),
+                            Integer.toString(probe), Integer.toString(probe + 30));
+                }
+                assertPrunedMatchesScan(plain, parted, "day", "2020-01-15", "2020-01-12",
+                        "2020-01-20");
+                assertPrunedMatchesScan(plain, parted, "name", "n3", "n1", "n25");
+
+                plain.removeRange("k", "20", "60");
+                parted.removeRange("k", "20", "60");
+                assertEquals(sorted(rows(plain)), sorted(rows(parted)));
+            }
+        }
+    }
+
+    @Test
+    public void removeRange_dropsCoveredPartitionsWhole() {
+        DBTable t = createTable();
+        t.appendRow(Arrays.asList(null, "null"));
+        t.partition(Partitioning.range("k", Arrays.asList("3", "6")));
+        t.createIndex("v", IndexType.HASH);
+        final List<BitSet> removed = new ArrayList<>();
+        t.addListener(new TableListener() {
+            @Override
+            public void rowAppended(DBTable table, List<String> row) {
+            }
+
+            @Override
+            public void rowsRemoved(DBTable table, BitSet rows) {
+                removed.add((BitSet) rows.clone());
+            }
+
+            @Override
+            public void allRowsRemoved(DBTable table) {
+            }
+
+            @Override
+            public void rowsPermuted(DBTable table, int[] order) {
+            }
+        });
+        // Partition 1 = [3, 6) liegt ganz im Bereich, Partition 0 nur mit der Zeile 2
+        t.removeRange("k", "2", "6");
+        assertEquals(2, removed.size());
+        assertEquals(1, removed.get(0).cardinality());
+        assertEquals(3, removed.get(1).cardinality());
+        assertEquals(0, t.getPartitionRowCnt(1));
+        assertEquals(Arrays.asList(Arrays.asList("0", "r0"), Arrays.asList("1", "r1"),
+                Arrays.asList(null, "null"), Arrays.asList("6", "r6"), Arrays.asList("7", "r7"),
+                Arrays.asList("8", "r8"), Arrays.asList("9", "r9")), rows(t));
+        assertEquals(Arrays.asList(Arrays.asList("7", "r7")), rows(t.selectEquals("v", "r7", "s")));
+        assertEquals(Arrays.asList(Arrays.asList("1", "r1")),
+                rows(t.selectRange("k", "1", "2", "s")));
+
+        // ein Bereich ohne Treffer ändert nichts, leere Partitionen werden nicht verworfen
+        removed.clear();
+        t.removeRange("k", "3", "6");
+        t.removeRange("k", "9", "9");
+        assertTrue(removed.isEmpty());
+        assertEquals(7, t.getRowCnt());
+    }
+
+    @Test
+    public void rangePartitions_holdTheirRanges() {
+        DBTable t = randomTable("t", StorageLayout.COLUMN, 3000, 100, 2);
+        t.partition(Partitioning.range("k", Arrays.asList("10", "50")));
+        t.sort("price", SortDirection.DESC);
+        int[] bounds = {Integer.MIN_VALUE, 10, 50, Integer.MAX_VALUE};
+        int row = 0;
+        for (int p = 0; p < 3; p++) {
+            String previous = null;
+            for (int i = 0; i < t.getPartitionRowCnt(p); i++, row++) {
+                int k = Integer.parseInt(t.getRow(row).get(0));
+                assertTrue(bounds[p] <= k && k < bounds[p + 1]);
+                // sortiert wird innerhalb jeder Partition
+                String price = t.getRow(row).get(4);
+                assertTrue(previous == null || price == null
+                        || ColumnType.DOUBLE.comparator().compare(previous, price) >= 0);
+                previous = price == null ? previous : price;
+            }
+        }
+        assertEquals(t.getRowCnt(), row);
+    }
+
+    @Test
+    public void boundsAndNulls_selectTheirPartition() {
+        DBTable t = createTable();
+        t.appendRow(Arrays.asList(null, "null"));
+        t.partition(Partitioning.range("k", Arrays.asList("3", "6")));
+        // null liegt in Partition 0, eine Grenze in der Partition, die mit ihr beginnt
+        assertEquals(4, t.getPartitionRowCnt(0));
+        assertEquals(3, t.getPartitionRowCnt(1));
+        assertEquals(4, t.getPartitionRowCnt(2));
+        assertEquals(Arrays.asList(Arrays.asList("3", "r3")), rows(t.selectEquals("k", "3", "s")));
+        assertEquals(Arrays.asList(Arrays.asList("2", "r2"), Arrays.asList("3", "r3")),
+                rows(t.selectRange("k", "2", "4", "s")));
+        assertEquals(0, t.selectRange("k", "6", "6", "s").getRowCnt());
+        t.appendRow(Arrays.asList(null, "null2"));
+        t.appendRow(Arrays.asList("6", "r6b"));
+        assertEquals(Arrays.asList("r0", "r1", "r2", "null", "null2"), column(t, 0));
+        assertEquals(Arrays.asList("r6", "r7", "r8", "r9", "r6b"), column(t, 2));
+        t.removeRows("k", s -> s == null);
+        assertEquals(3, t.getPartitionRowCnt(0));
+    }
+
+    /**
+     * Liefert die Werte der Spalte v in der Partition partition.
+     */
+    private static List<String> column(DBTable t, int partition) {
+        int start = 0;
+        for (int p = 0; p < partition; p++) {
+            start += t.getPartitionRowCnt(p);
+        }
+        List<String> result = new ArrayList<>();
+        for (int i = start; i < start + t.getPartitionRowCnt(partition); i++) {
+            result.add(t.getRow(i).get(1));
+        }
+        return result;
+    }
+
+    @Test
+    public void emptyTableAndEmptyPartitions() {
+        DBTable t = new DBTable("t", Arrays.asList("k", "v"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), StorageLayout.ROW);
+        t.partition(Partitioning.hash("k", 4));
+        t.createIndex("k", IndexType.HASH);
+        for (int p = 0; p < 4; p++) {
+            assertEquals(0, t.getPartitionRowCnt(p));
+        }
+        assertEquals(0, t.selectEquals("k", "1", "s").getRowCnt());
+        assertEquals(0, t.selectRange("k", "0", "9", "s").getRowCnt());
+        t.dropPartition(2);
+        t.removeRange("k", "0", "9");
+        t.appendRow(Arrays.asList("1", "a"));
+        assertEquals(Arrays.asList(Arrays.asList("1", "a")), rows(t.selectEquals("k", "1", "s")));
+        t.removeAllRows();
+        assertEquals(0, t.getRowCnt());
+        assertEquals(0, t.selectEquals("k", "1", "s").getRowCnt());
+    }
+
+    @Test
+    public void batchPredicates_onPartitionedTables() {
+        DBTable hashed = randomTable("t", StorageLayout.COLUMN, 5000, 100, 20);
+        hashed.partition(Partitioning.hash("name", 3));
+        DBTable ranged = randomTable("t", StorageLayout.ROW, 5000, 100, 21);
+        ranged.partition(Partitioning.range("k", Arrays.asList("10", "50")));
+        for (DBTable t : Arrays.asList(hashed, ranged)) {
+            assertEquals(rows(t.select("k", s -> s.equals("17"), "s")),
+                    rows(t.select("k", BatchPredicate.equalTo("017"), "s")));
+            assertEquals(rows(t.select("k",
+                            s -> Integer.parseInt(s) >= 10 && Integer.parseInt(s) < 60, "s")),
+                    rows(t.select("k", BatchPredicate.range("10", "60"), "s")));
+            assertEquals(rows(t.select("k", s -> s.equals("3") || s.equals("99"), "s")),
+                    rows(t.select("k", BatchPredicate.in(Arrays.asList("3", "99")), "s")));
+            assertEquals(rows(t.select("name", s -> s != null && s.startsWith("n1"), "s")),
+                    rows(t.select("name", BatchPredicate.startsWith("n1"), "s")));
+        }
+    }
+
+    @Test
+    public void equijoin_partitionedWithIndex_matchesNestedLoop() {
+        DBTable a = randomTable("a", StorageLayout.ROW, 100, 25, 11);
+        DBTable b = randomTable("b", StorageLayout.COLUMN, 400, 25, 12);
+        a.partition(Partitioning.hash("k", 4));
+        a.createIndex("k", IndexType.HASH);
+        assertEquals(nestedLoopJoin(a, "k", b, "k"), rows(a.equijoin(b, "k", "k", "j")));
+        assertEquals(nestedLoopJoin(b, "k", a, "k"), rows(b.equijoin(a, "k", "k", "j")));
+    }
+
+    @Test
+    public void snapshot_ofPartitionedTable() {
+        DBTable table = randomTable("t", StorageLayout.VERSIONED, 2000, 100, 3);
+        table.partition(Partitioning.hash("k", 4));
+        List<List<String>> expected = rows(table);
+        DBTable snapshot = table.snapshot();
+        table.appendRow(Arrays.asList("1", null, null, null, null));
+        table.dropPartition(2);
+        assertEquals(expected, rows(snapshot));
+    }
+
+    @Test
+    public void materializedView_overPartitionedTables() {
+        DB db = new DB("d");
+        db.addTable(randomTable("a", StorageLayout.ROW, 300, 40, 1));
+        db.addTable(randomTable("b", StorageLayout.ROW, 100, 40, 2));
+        db.getTable("a").partition(Partitioning.hash("k", 4));
+        Query query = db.query("a").project(Arrays.asList("k", "name"))
+                .join(db.query("b").project(Arrays.asList("k", "day")), "k", "k", "ab");
+        MaterializedView view = db.createView("v", query);
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            db.getTable("a").appendRow(TestTables.randomRow(random, 40));
+        }
+        db.getTable("a").dropPartition(1);
+        assertEquals(sorted(rows(query.collect("r"))), sorted(rows(view.getTable())));
+        db.getTable("b").partition(Partitioning.range("k", Arrays.asList("10", "20")));
+        db.getTable("b").appendRow(Arrays.asList("7", "n1", "1", "2020-01-11", "1.0"));
+        assertEquals(sorted(rows(query.collect("r"))), sorted(rows(view.getTable())));
+    }
+
+}
@@ -0,0 +1,123 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests der Anfragen über {@link DB#query}: Das Ergebnis entspricht der Kette der einzelnen
+ * Operationen von {@link DBTable} mit ihren Zwischentabellen.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class QueryTest {
+
+    /**
+     * Prüft, dass beide Tabellen dieselben Spalten und Zeilen haben.
+     */
+    private static void assertSameTable(DBTable expected, DBTable actual) {
+        assertEquals(expected.getColIds(), actual.getColIds());
+        assertEquals(rows(expected), rows(actual));
+    }
+
+    /**
+     * Erzeugt eine Datenbank mit den Tabellen a, b und c.
+     */
+    private static DB createDB() {
+        DB db = new DB("d");
+        db.addTable(randomTable("a", StorageLayout.ROW, 300, 40, 1));
+        db.addTable(randomTable("b", StorageLayout.ROW, 200, 40, 2));
+        db.addTable(randomTable("c", StorageLayout.ROW, 100, 40, 3));
+        return db;
+    }
+
+    @Test
+    public void whereProject_matchesSelectProject() {
+        DB db = createDB();
+        Predicate<String> positive = s -> s != null && !s.startsWith("-");
+        DBTable expected = db.getTable("a").select("amount", positive, "r")
+                .project(Arrays.asList("name", "k"), "r");
+        DBTable actual = db.query("a").where("amount", positive)
+                .project(Arrays.asList("name", "k")).collect("r");
+        assertSameTable(expected, actual);
+    }
+
+    @Test
+    public void join_matchesEquijoinChain() {
+        DB db = createDB();
+        Predicate<String> small = s -> Integer.parseInt(s) < 20;
+        Predicate<String> named = s -> s != null && s.endsWith("1");
+
+        DBTable a = db.getTable("a").select("k", small, "a")
+                .project(Arrays.asList("k", "name", "amount"), "a");
+        DBTable b = db.getTable("b").select("name", named, "b");
+        DBTable ab = a.equijoin(b, "k", "k", "ab");
+        DBTable expected = ab.equijoin(db.getTable("c"), "a_k", "k", "abc");
+
+        Query qa = db.query("a").where("k", small)
+                .project(Arrays.asList("k", "name", "amount"));
+        Query qb = db.query("b").where("name", named);
+        Query qab = qa.join(qb, "k", "k", "ab");
+        assertEquals("ab", qab.getId());
+        assertSameTable(ab, qab.collect("ab"));
+        assertSameTable(expected, qab.join(db.query("c"), "a_k", "k", "abc").collect("abc"));
+    }
+
+    @Test
+    public void whereAfterJoin_matchesSelectOnJoin() {
+        DB db = createDB();
+        Predicate<String> named = s -> s != null && s.startsWith("n2");
+        Predicate<String> small = s -> Integer.parseInt(s) % 4 == 0;
+        // Bedingungen auf beiden Seiten des Joins und zwei Bedingungen auf derselben Spalte
+        DBTable expected = db.getTable("a").equijoin(db.getTable("b"), "k", "k", "ab")
+                .select("b_name", named, "ab").select("a_k", small, "ab")
+                .select("a_k", s -> !s.equals("8"), "ab");
+        DBTable actual = db.query("a").join(db.query("b"), "k", "k", "ab")
+                .where("b_name", named).where("a_k", small).where("a_k", s -> !s.equals("8"))
+                .collect("ab");
+        assertSameTable(expected, actual);
+    }
+
+    @Test
+    public void emptyResults_keepColumns() {
+        DB db = createDB();
+        db.addTable(new DBTable("e", Arrays.asList("k", "v")));
+        Query none = db.query("a").where("k", s -> false);
+        DBTable result = none.project(Arrays.asList("price", "k")).collect("r");
+        assertEquals(Arrays.asList("price", "k"), result.getColIds());
+        assertEquals(0, result.getRowCnt());
+        assertEquals(0, none.join(db.query("b"), "k", "k", "ab").collect("r").getRowCnt());
+        DBTable joined = db.query("e").join(db.query("a"), "k", "k", "ea").collect("r");
+        assertEquals(0, joined.getRowCnt());
+        assertEquals(db.query("e").join(db.query("a"), "k", "k", "ea").getColIds(),
+                joined.getColIds());
+    }
+
+    @Test
+    public void query_isImmutable() {
+        DB db = createDB();
+        Query all = db.query("c");
+        Query some = all.where("k", s -> s.equals("3"));
+        all.project(Arrays.asList("k"));
+        assertEquals(db.getTable("c").getColIds(), all.getColIds());
+        assertEquals(db.getTable("c").getRowCnt(), all.collect("r").getRowCnt());
+        assertEquals(rows(db.getTable("c").select("k", s -> s.equals("3"), "r")),
+                rows(some.collect("r")));
+    }
+
+    @Test
+    public void query_runsOnCurrentRows() {
+        DB db = createDB();
+        Query query = db.query("c").where("k", s -> s.equals("3"));
+        int before = query.collect("r").getRowCnt();
+        db.getTable("c").appendRow(Arrays.asList("3", null, null, null, null));
+        assertEquals(before + 1, query.collect("r").getRowCnt());
+        assertEquals(db.getTable("c").getColIds(), db.query("c").getColIds());
+    }
+
+}
@@ -0,0 +1,189 @@
+package db;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests der Stringrepräsentation von {@link DBTable} und {@link DB}: Das Schreiben per writeTo
+ * liefert denselben Text wie die Formatierung jeder Zeile per {@link String#format}.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class RenderingTest {
+
+    /**
+     * Formatiert die Zeile line mit den Feldbreiten widths.
+     */
+    private static String format(int[] widths, List<String> line) {
+        StringBuilder sb = new StringBuilder("|");
+        for (int i = 0; i < line.size(); i++) {
+            String value = line.get(i) == null ? "null" : line.get(i);
+            sb.append(String.format(" %-" + widths[i] + "s |",
+                    value.replaceAll("[\n\r\025]", " ")));
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * Formatiert die Spalten cols und die Zeilen rows als Tabelle.
+     */
+    private static String render(List<String> cols, List<List<String>> rows) {
+        int[] widths = new int[cols.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = cols.get(i).length();
+            for (List<String> row : rows) {
+                String value = row.get(i) == null ? "null" : row.get(i);
+                widths[i] = Math.max(widths[i], value.length());
+            }
+        }
+        StringBuilder sb = new StringBuilder(format(widths, cols));
+        sb.append('|');
+        for (int width : widths) {
+            for (int j = 0; j < width + 2; j++) {
+                sb.append('-');
+            }
+            sb.append('|');
+        }
+        sb.append('\n');
+        for (List<String> row : rows) {
+            sb.append(format(widths, row));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit Zeilenumbrüchen und leeren Werten in der Spalte text.
+     */
+    private static DBTable createTable() {
+        DBTable result = new DBTable("t", Arrays.asList("id", "text"));
+        result.appendRow(Arrays.asList("1", "zwei\nZeilen"));
+        result.appendRow(Arrays.asList("22", "dos\r\numbruch"));
+        result.appendRow(Arrays.asList("333", ""));
+        result.appendRow(Arrays.asList("4", null));
+        result.appendRow(Arrays.asList("", "ein etwas längerer Wert"));
+        return result;
+    }
+
+    @Test
+    public void toString_matchesFormat() throws IOException {
+        for (DBTable table : Arrays.asList(createTable(),
+                randomTable("r", StorageLayout.ROW, 500, 1000, 1),
+                randomTable("e", StorageLayout.ROW, 0, 1, 2))) {
+            String expected = render(table.getColIds(), rows(table));
+            assertEquals(expected, table.toString());
+            assertEquals(expected, table.printTable());
+            StringWriter out = new StringWriter();
+            table.writeTo(out);
+            assertEquals(expected, out.toString());
+        }
+    }
+
+    @Test
+    public void writeTo_offsetLimit() throws IOException {
+        DBTable table = randomTable("t", StorageLayout.ROW, 300, 5000, 3);
+        List<List<String>> rows = rows(table);
+        int[][] windows = {{0, 0}, {0, 10}, {17, 40}, {290, 100}, {300, 5}, {1000, 1},
+                {5, Integer.MAX_VALUE}};
+        for (int[] window : windows) {
+            int from = Math.min(window[0], rows.size());
+            int to = (int) Math.min(rows.size(), (long) from + window[1]);
+            StringBuilder out = new StringBuilder();
+            table.writeTo(out, window[0], window[1]);
+            assertEquals(render(table.getColIds(), rows.subList(from, to)), out.toString());
+        }
+    }
+
+    @Test
+    public void specialValues_areEscaped() {
+        DBTable table = new DBTable("t", Arrays.asList("a", "beschreibungstext"));
+        table.appendRow(Arrays.asList(null, "null"));
+        table.appendRow(Arrays.asList("\r", "a\tb\u0015c"));
+        table.appendRow(Arrays.asList("\n\n", "äöü€"));
+        assertEquals("| a    | beschreibungstext |\n"
+                + "|------|-------------------|\n"
+                + "| null | null              |\n"
+                + "|      | a\tb c             |\n"
+                + "|      | äöü€              |\n", table.toString());
+        assertEquals(render(table.getColIds(), rows(table)), table.toString());
+    }
+
+    @Test
+    public void writeTo_emptyTableAndWindow() throws IOException {
+        DBTable table = new DBTable("t", Arrays.asList("id"));
+        String header = "| id |\n|----|\n";
+        assertEquals(header, table.toString());
+        for (int[] window : new int[][]{{0, 0}, {0, 1}, {5, Integer.MAX_VALUE}}) {
+            StringBuilder out = new StringBuilder();
+            table.writeTo(out, window[0], window[1]);
+            assertEquals(header, out.toString());
+        }
+        table.appendRow(Arrays.asList("12345"));
+        table.appendRow(Arrays.asList("1"));
+        // die Feldbreite richtet sich nur nach den geschriebenen Zeilen
+        StringBuilder out = new StringBuilder();
+        table.writeTo(out, 1, 1);
+        assertEquals("| id |\n|----|\n| 1  |\n", out.toString());
+        out = new StringBuilder();
+        table.writeTo(out, 0, 0);
+        assertEquals(header, out.toString());
+    }
+
+    @Test
+    public void writeTo_propagatesIOException() {
+        DBTable table = createTable();
+        Appendable failing = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) throws IOException {
+                throw new IOException("voll");
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                throw new IOException("voll");
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                throw new IOException("voll");
+            }
+        };
+        try {
+            table.writeTo(failing);
+            fail();
+        } catch (IOException expected) {
+            assertEquals("voll", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void printDB_listsTablesInOrder() throws IOException {
+        DB db = new DB("d");
+        DBTable b = randomTable("b", StorageLayout.ROW, 20, 10, 4);
+        DBTable a = createTable();
+        db.addTable(b);
+        db.addTable(a.project(a.getColIds(), "a"));
+        String expected = "Datenbankname: d\n\n"
+                + "Tabellenname: a\n\n" + a.toString() + "\n"
+                + "Tabellenname: b\n\n" + b.toString() + "\n";
+        assertEquals(expected, db.printDB());
+        assertEquals(expected, db.toString());
+
+        StringBuilder limited = new StringBuilder();
+        db.writeTo(limited, 3);
+        assertEquals("Datenbankname: d\n\n"
+                + "Tabellenname: a\n\n" + render(a.getColIds(), rows(a).subList(0, 3)) + "\n"
+                + "Tabellenname: b\n\n" + render(b.getColIds(), rows(b).subList(0, 3)) + "\n",
+                limited.toString());
+        assertEquals("Datenbankname: x\n\n", new DB("x").printDB());
+    }
+
+}
@@ -0,0 +1,226 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests von {@link DBTable#snapshot()} und {@link DB#snapshot()}: Ein Schnappschuss behält die
+ * Zeilen zum Zeitpunkt seiner Erzeugung, lässt sich nicht ändern und ist im Speicherlayout
+ * {@link StorageLayout#VERSIONED} auch bei gleichzeitigen Änderungen in sich stimmig.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class SnapshotTest {
+
+    /**
+     * Speicherlayouts mit kopierendem und mit versioniertem Schnappschuss
+     */
+    private static final List<StorageLayout> LAYOUTS =
+            Arrays.asList(StorageLayout.ROW, StorageLayout.VERSIONED);
+
+    @Test
+    public void snapshot_unaffectedByLaterChanges() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = randomTable("t", layout, 2000, 100, 1);
+            List<List<String>> expected = rows(table);
+            DBTable snapshot = table.snapshot();
+
+            Random random = new Random(2);
+            for (int i = 0; i < 100; i++) {
+                table.appendRow(randomRow(random, 100));
+            }
+            table.removeRows("k", s -> s.endsWith("5"));
+            table.sort("name", SortDirection.DESC);
+            assertEquals(expected, rows(snapshot));
+            table.removeAllRows();
+            assertEquals(expected, rows(snapshot));
+            assertEquals(table.getColIds(), snapshot.getColIds());
+        }
+    }
+
+    @Test
+    public void snapshot_isReadOnly() {
+        for (StorageLayout layout : LAYOUTS) {
+            final DBTable snapshot = randomTable("t", layout, 100, 10, 4).snapshot();
+            List<Runnable> changes = Arrays.<Runnable>asList(
+                    () -> snapshot.appendRow(Arrays.asList("1", null, null, null, null)),
+                    () -> snapshot.removeRows("k", s -> true),
+                    snapshot::removeAllRows,
+                    () -> snapshot.sort("k", SortDirection.DESC));
+            for (Runnable change : changes) {
+                try {
+                    change.run();
+                    fail(layout.toString());
+                } catch (UnsupportedOperationException expected) {
+                    // erwartet
+                }
+            }
+            // lesende Operationen bleiben möglich
+            assertEquals(100, snapshot.getRowCnt());
+            assertEquals(rows(snapshot), rows(snapshot.select("k", s -> true, "s")));
+        }
+    }
+
+    @Test
+    public void snapshot_emptyTableAndAfterRemoveAll() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = new DBTable("t", Arrays.asList("k", "v"), layout);
+            DBTable empty = table.snapshot();
+            table.appendRow(Arrays.asList("1", null));
+            table.appendRow(Arrays.asList(null, ""));
+            DBTable two = table.snapshot();
+            table.removeAllRows();
+            DBTable cleared = table.snapshot();
+            table.appendRow(Arrays.asList("2", "x"));
+
+            assertEquals(0, empty.getRowCnt());
+            assertEquals(Arrays.asList(Arrays.asList("1", null), Arrays.asList(null, "")),
+                    rows(two));
+            assertEquals(0, cleared.getRowCnt());
+            assertEquals(Arrays.asList(Arrays.asList("2", "x")), rows(table));
+        }
+    }
+
+    @Test
+    public void snapshot_ofSnapshot() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = randomTable("t", layout, 50, 10, 8);
+            DBTable snapshot = table.snapshot();
+            DBTable again = snapshot.snapshot();
+            table.removeRows("k", s -> true);
+            assertEquals(rows(snapshot), rows(again));
+            assertEquals(50, again.getRowCnt());
+        }
+    }
+
+    @Test
+    public void dbSnapshot_unaffectedByLaterChanges() {
+        DB db = new DB("d");
+        db.addTable(randomTable("a", StorageLayout.VERSIONED, 100, 10, 5));
+        db.addTable(randomTable("b", StorageLayout.ROW, 100, 10, 6));
+        List<List<String>> a = rows(db.getTable("a"));
+        DB snapshot = db.snapshot();
+        db.removeTable("b");
+        db.addTable(randomTable("c", StorageLayout.ROW, 10, 10, 7));
+        db.getTable("a").removeAllRows();
+
+        assertEquals(Arrays.asList("a", "b"), snapshot.getTableIds());
+        assertEquals(a, rows(snapshot.getTable("a")));
+        assertNull(snapshot.getTable("c"));
+    }
+
+    @Test
+    public void versioned_snapshotsDuringConcurrentWrites() throws InterruptedException {
+        final DBTable table = new DBTable("t", Arrays.asList("k", "v"),
+                Arrays.asList(ColumnType.INT, ColumnType.STRING), StorageLayout.VERSIONED);
+        final int rowCnt = 20_000;
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < rowCnt; i++) {
+                    table.appendRow(Arrays.asList(Integer.toString(i), "v" + i));
+                    if (i % 1000 == 999) {
+                        table.sort("k", i % 2000 == 999 ? SortDirection.DESC : SortDirection.ASC);
+                    }
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                done.set(true);
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    int snapshots = 0;
+                    while (!done.get() || snapshots == 0) {
+                        DBTable snapshot = table.snapshot();
+                        List<List<String>> first = rows(snapshot);
+                        // jeder Schnappschuss enthält genau die Zeilen 0 bis n - 1
+                        BitSet keys = new BitSet();
+                        for (List<String> row : first) {
+                            int k = Integer.parseInt(row.get(0));
+                            assertEquals("v" + k, row.get(1));
+                            assertTrue(!keys.get(k));
+                            keys.set(k);
+                        }
+                        assertEquals(first.size(), keys.cardinality());
+                        assertEquals(first.size(), keys.length());
+                        assertEquals(first, rows(snapshot));
+                        snapshots++;
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(rowCnt, table.snapshot().getRowCnt());
+    }
+
+    @Test
+    public void catalog_concurrentReadsDuringChanges() throws InterruptedException {
+        final DB db = new DB("d");
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (String id : db.getTableIds()) {
+                        DBTable table = db.getTable(id);
+                        assertTrue(table == null || table.getId().equals(id));
+                    }
+                    db.tableExists("t5");
+                    db.getTableNamesBetween("t1", "t3");
+                    // durchläuft die Tabellen wie save
+                    assertTrue(db.toString().startsWith("Datenbankname: d"));
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20_000; i++) {
+            String id = "t" + (i % 50);
+            if (db.tableExists(id)) {
+                db.removeTable(id);
+            } else {
+                db.addTable(new DBTable(id, Arrays.asList("x"), StorageLayout.ROW));
+            }
+        }
+        done.set(true);
+        reader.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(db.getTableCnt(), db.getTableIds().size());
+    }
+
+}
@@ -0,0 +1,124 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static db.TestTables.sortedBy;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests von {@link DBTable#sort(List)}: Die Sortierung nach mehreren Schlüsseln ist stabil,
+ * entspricht einer Sortierung per {@link java.util.Collections#sort} und ist unabhängig von der
+ * Parallelisierungsschwelle.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class SortTest {
+
+    /**
+     * Anzahl der Zeilen, die parallel sortiert werden
+     */
+    private static final int ROWS = 50_000;
+
+    @Test
+    public void multiKey_matchesStableSort() {
+        List<List<SortKey>> keyLists = Arrays.asList(
+                Arrays.asList(new SortKey("name", SortDirection.ASC)),
+                Arrays.asList(new SortKey("price", SortDirection.DESC)),
+                Arrays.asList(new SortKey("day", SortDirection.ASC),
+                        new SortKey("amount", SortDirection.DESC)),
+                Arrays.asList(new SortKey("name", SortDirection.DESC),
+                        new SortKey("day", SortDirection.ASC),
+                        new SortKey("k", SortDirection.ASC)));
+        for (List<SortKey> keys : keyLists) {
+            DBTable table = randomTable("t", StorageLayout.ROW, 3000, 50, 1);
+            List<List<String>> expected = sortedBy(table, keys);
+            table.sort(keys);
+            assertEquals(expected, rows(table));
+        }
+    }
+
+    @Test
+    public void parallel_matchesSequential() {
+        List<SortKey> keys = Arrays.asList(new SortKey("day", SortDirection.DESC),
+                new SortKey("price", SortDirection.ASC));
+        DBTable sequential = randomTable("t", StorageLayout.ROW, ROWS, 1000, 2);
+        DBTable parallel = randomTable("t", StorageLayout.ROW, ROWS, 1000, 2);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(1);
+        List<List<String>> expected = sortedBy(sequential, keys);
+        sequential.sort(keys);
+        parallel.sort(keys);
+        assertEquals(expected, rows(sequential));
+        assertEquals(expected, rows(parallel));
+    }
+
+    @Test
+    public void sortTwice_keepsOrderOfEqualRows() {
+        // zweimal stabil sortiert entspricht einer Sortierung nach beiden Schlüsseln
+        DBTable table = randomTable("t", StorageLayout.ROW, 5000, 20, 3);
+        List<List<String>> expected = sortedBy(table, Arrays.asList(
+                new SortKey("k", SortDirection.ASC), new SortKey("name", SortDirection.DESC)));
+        table.sort("name", SortDirection.DESC);
+        table.sort("k", SortDirection.ASC);
+        assertEquals(expected, rows(table));
+    }
+
+    @Test
+    public void sort_keepsIndexesValid() {
+        DBTable table = randomTable("t", StorageLayout.ROW, 3000, 100, 4);
+        table.createIndex("k", IndexType.HASH);
+        table.createIndex("amount", IndexType.SORTED);
+        table.sort(Arrays.asList(new SortKey("price", SortDirection.ASC),
+                new SortKey("name", SortDirection.DESC)));
+        assertEquals(rows(table.select("k", s -> s.equals("42"), "s")),
+                rows(table.selectEquals("k", "42", "s")));
+        assertEquals(rows(table.select("amount",
+                        s -> s != null && Long.parseLong(s) >= 0 && Long.parseLong(s) < 99,
+                        "s")),
+                rows(table.selectRange("amount", "0", "99", "s")));
+    }
+
+    @Test
+    public void emptyAndSingleRow() {
+        List<SortKey> keys = Arrays.asList(new SortKey("a", SortDirection.DESC),
+                new SortKey("b", SortDirection.ASC));
+        for (int threshold : new int[]{1, Integer.MAX_VALUE}) {
+            DBTable table = new DBTable("t", Arrays.asList("a", "b"));
+            table.setParallelThreshold(threshold);
+            table.sort(keys);
+            assertEquals(0, table.getRowCnt());
+            table.appendRow(Arrays.asList(null, "x"));
+            table.sort(keys);
+            assertEquals(Arrays.asList(Arrays.asList(null, "x")), rows(table));
+        }
+    }
+
+    @Test
+    public void nullsAndEqualKeys_areStable() {
+        List<String> values = Arrays.asList("b", null, "", "a", null, "b", "");
+        for (int threshold : new int[]{1, Integer.MAX_VALUE}) {
+            for (SortDirection direction : SortDirection.values()) {
+                DBTable table = new DBTable("t", Arrays.asList("a", "b", "pos"));
+                table.setParallelThreshold(threshold);
+                for (int i = 0; i < 50; i++) {
+                    table.appendRow(Arrays.asList(values.get(i % values.size()),
+                            values.get(i * 3 % values.size()), Integer.toString(i)));
+                }
+                List<SortKey> keys = Arrays.asList(new SortKey("a", direction),
+                        new SortKey("b", SortDirection.ASC));
+                List<List<String>> expected = sortedBy(table, keys);
+                table.sort(keys);
+                assertEquals(expected, rows(table));
+                // nach identischem Schlüssel bleibt die bisherige Reihenfolge erhalten
+                table.sort(Arrays.asList(new SortKey("a", direction)));
+                assertEquals(expected, rows(table));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests des Speicherns mit {@link DB#save} und Öffnens mit {@link DB#open}: Die geöffnete
+ * Datenbank hat dieselben Tabellen mit denselben Zeilen und lässt sich wie eine Datenbank im
+ * Hauptspeicher ändern.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class StorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Zählt die Tabellendateien im Verzeichnis dir.
+     */
+    private static int tableFileCnt(Path dir) throws IOException {
+        int result = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.tbl")) {
+            for (Path ignored : files) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prüft, dass opened dieselben Tabellen mit denselben Spalten und Zeilen wie db hat.
+     */
+    private static void assertSameDB(DB db, DB opened) {
+        assertEquals(db.getId(), opened.getId());
+        assertEquals(db.getTableIds(), opened.getTableIds());
+        for (String id : db.getTableIds()) {
+            DBTable expected = db.getTable(id);
+            DBTable actual = opened.getTable(id);
+            assertEquals(expected.getColIds(), actual.getColIds());
+            assertEquals(rows(expected), rows(actual));
+        }
+        assertEquals(db.toString(), opened.toString());
+    }
+
+    @Test
+    public void saveOpen_roundTrip() throws IOException {
+        DB db = new DB("d");
+        // mehr als eine Seite
+        db.addTable(randomTable("big", StorageLayout.ROW, 40_000, 100, 1));
+        db.addTable(randomTable("small", StorageLayout.ROW, 5, 100, 2));
+        db.addTable(new DBTable("empty", Arrays.asList("x"), StorageLayout.ROW));
+        Path dir = folder.newFolder("db").toPath();
+        db.save(dir);
+
+        assertSameDB(db, DB.open(dir));
+    }
+
+    @Test
+    public void saveOpen_specialValues() throws IOException {
+        DB db = new DB("d");
+        DBTable t = new DBTable("t", Arrays.asList("a", "b"));
+        t.appendRow(Arrays.asList(null, ""));
+        t.appendRow(Arrays.asList("", null));
+        t.appendRow(Arrays.asList("ä€😀\u0000", "line\nbreak,\"quoted\""));
+        // ein Wert größer als eine Seite
+        char[] large = new char[TableFile.PAGE_SIZE + 10];
+        Arrays.fill(large, 'x');
+        t.appendRow(Arrays.asList(new String(large), "after"));
+        t.appendRow(Arrays.asList("last", null));
+        db.addTable(t);
+        Path dir = folder.newFolder("db").toPath();
+        db.save(dir);
+
+        assertSameDB(db, DB.open(dir));
+    }
+
+    @Test
+    public void saveOpen_emptyDB() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        new DB("d").save(dir);
+        DB opened = DB.open(dir);
+        assertEquals("d", opened.getId());
+        assertEquals(0, opened.getTableCnt());
+    }
+
+    @Test
+    public void openedTable_canBeChanged() throws IOException {
+        DB db = new DB("d");
+        DBTable expected = randomTable("t", StorageLayout.ROW, 3000, 50, 7);
+        db.addTable(expected.project(expected.getColIds(), "t"));
+        Path dir = folder.newFolder().toPath();
+        db.save(dir);
+        DBTable actual = DB.open(dir).getTable("t");
+
+        Random random = new Random(8);
+        for (int i = 0; i < 20; i++) {
+            List<String> row = randomRow(random, 50);
+            expected.appendRow(row);
+            actual.appendRow(row);
+        }
+        expected.removeRows("k", s -> s.endsWith("3"));
+        actual.removeRows("k", s -> s.endsWith("3"));
+        expected.sort("day", SortDirection.ASC);
+        actual.sort("day", SortDirection.ASC);
+        assertEquals(rows(expected), rows(actual));
+    }
+
+    @Test
+    public void saveAgain_replacesPreviousState() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = new DB("d");
+        db.addTable(randomTable("a", StorageLayout.ROW, 10, 5, 1));
+        db.save(dir);
+        DB opened = DB.open(dir);
+        opened.getTable("a").removeRows("k", s -> s.equals("1"));
+        opened.getTable("a").appendRow(Arrays.asList("9", "new", null, null, null));
+        // das geöffnete Verzeichnis wird überschrieben, während seine Dateien eingeblendet sind
+        opened.save(dir);
+        assertSameDB(opened, DB.open(dir));
+    }
+
+    @Test
+    public void save_removesStaleTableFiles() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        DB db = new DB("d");
+        db.addTable(randomTable("a", StorageLayout.ROW, 10, 5, 1));
+        db.addTable(randomTable("b", StorageLayout.ROW, 10, 5, 2));
+        db.save(dir);
+        assertEquals(2, tableFileCnt(dir));
+        db.removeTable("a");
+        db.save(dir);
+        assertEquals(1, tableFileCnt(dir));
+        assertEquals(Arrays.asList("b"), DB.open(dir).getTableIds());
+    }
+
+    @Test
+    public void open_rejectsMissingCatalog() throws IOException {
+        try {
+            DB.open(folder.newFolder("db").toPath());
+            fail();
+        } catch (IOException expected) {
+            // erwartet
+        }
+    }
+
+    @Test
+    public void open_rejectsInvalidCatalog() throws IOException {
+        Path dir = folder.newFolder("db").toPath();
+        Files.write(dir.resolve(DB.CATALOG_FILE), new byte[]{1, 2, 3, 4, 5, 6});
+        try {
+            DB.open(dir);
+            fail();
+        } catch (IOException expected) {
+            // erwartet
+        }
+    }
+
+}
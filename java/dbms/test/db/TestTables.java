@@ -0,0 +1,160 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hilfsmethoden der Tests: Erzeugen zufälliger Tabellen und einfache Referenzimplementierungen,
+ * gegen die die Operationen von {@link DBTable} geprüft werden.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+final class TestTables {
+
+    /**
+     * Spaltenbezeichner der Tabellen von {@link #randomTable}
+     */
+    static final List<String> COLS = Arrays.asList("k", "name", "amount", "day", "price");
+    /**
+     * Spaltentypen der Tabellen von {@link #randomTable}
+     */
+    static final List<ColumnType> TYPES = Arrays.asList(ColumnType.INT, ColumnType.STRING,
+            ColumnType.LONG, ColumnType.DATE, ColumnType.DOUBLE);
+
+    private TestTables() {
+    }
+
+    /**
+     * Erzeugt eine Tabelle mit den Spalten {@link #COLS} und rowCnt zufälligen Zeilen. Die Spalte k
+     * hat Werte in [0, keyCnt), die übrigen Spalten enthalten gelegentlich null.
+     *
+     * @param id     Bezeichner der Tabelle
+     * @param layout Speicherlayout
+     * @param rowCnt Anzahl der Zeilen
+     * @param keyCnt Anzahl verschiedener Werte der Spalte k
+     * @param seed   Startwert der Zufallszahlen
+     * @return Tabelle
+     */
+    static DBTable randomTable(String id, StorageLayout layout, int rowCnt, int keyCnt,
+                               long seed) {
+        DBTable result = new DBTable(id, COLS, TYPES, layout);
+        Random random = new Random(seed);
+        for (int i = 0; i < rowCnt; i++) {
+            result.appendRow(randomRow(random, keyCnt));
+        }
+        return result;
+    }
+
+    /**
+     * Erzeugt eine zufällige Zeile für eine Tabelle von {@link #randomTable}.
+     *
+     * @param random Zufallszahlen
+     * @param keyCnt Anzahl verschiedener Werte der Spalte k
+     * @return Werte der Zeile
+     */
+    static List<String> randomRow(Random random, int keyCnt) {
+        return Arrays.asList(
+                Integer.toString(random.nextInt(keyCnt)),
+                random.nextInt(15) == 0 ? null : "n" + random.nextInt(40),
+                random.nextInt(15) == 0 ? null : Long.toString(random.nextInt(2000) - 1000),
+                random.nextInt(15) == 0 ? null : "2020-01-" + (10 + random.nextInt(20)),
+                random.nextInt(15) == 0 ? null : Double.toString(random.nextInt(800) / 8.0));
+    }
+
+    /**
+     * Liefert die Zeilen der Tabelle in ihrer Reihenfolge.
+     *
+     * @param table Tabelle
+     * @return Zeilen
+     */
+    static List<List<String>> rows(DBTable table) {
+        List<List<String>> result = new ArrayList<>(table.getRowCnt());
+        for (int i = 0; i < table.getRowCnt(); i++) {
+            result.add(new ArrayList<>(table.getRow(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Liefert die Zeilen in einer festen Reihenfolge, um Tabellen unabhängig von der Reihenfolge
+     * ihrer Zeilen zu vergleichen.
+     *
+     * @param rows Zeilen
+     * @return sortierte Kopie
+     */
+    static List<List<String>> sorted(List<List<String>> rows) {
+        List<List<String>> result = new ArrayList<>(rows);
+        Collections.sort(result, new Comparator<List<String>>() {
+            @Override
+            public int compare(List<String> a, List<String> b) {
+                return a.toString().compareTo(b.toString());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sortiert die Zeilen der Tabelle stabil nach den Sortierschlüsseln keys, verglichen gemäß
+     * {@link ColumnType#comparator()} der jeweiligen Spalte.
+     *
+     * @param table Tabelle
+     * @param keys  Sortierschlüssel, der erste entscheidet zuerst
+     * @return sortierte Zeilen
+     */
+    static List<List<String>> sortedBy(DBTable table, final List<SortKey> keys) {
+        final int[] cols = new int[keys.size()];
+        final List<Comparator<String>> comps = new ArrayList<>();
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = table.getColIds().indexOf(keys.get(i).getColId());
+            Comparator<String> comp = table.getColType(keys.get(i).getColId()).comparator();
+            comps.add(keys.get(i).getDirection() == SortDirection.DESC
+                    ? Collections.reverseOrder(comp) : comp);
+        }
+        List<List<String>> result = rows(table);
+        Collections.sort(result, new Comparator<List<String>>() {
+            @Override
+            public int compare(List<String> a, List<String> b) {
+                for (int i = 0; i < cols.length; i++) {
+                    int c = comps.get(i).compare(a.get(cols[i]), b.get(cols[i]));
+                    if (c != 0) {
+                        return c;
+                    }
+                }
+                return 0;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Verbindet die Zeilen von a und b, deren Werte in den Spalten colA und colB gleich und nicht
+     * null sind, per Vergleich aller Paare. Die Paare stehen nach den Zeilen von a und dann nach
+     * denen von b geordnet.
+     *
+     * @param a    erste Tabelle
+     * @param colA Spalte der ersten Tabelle
+     * @param b    zweite Tabelle
+     * @param colB Spalte der zweiten Tabelle
+     * @return verbundene Zeilen
+     */
+    static List<List<String>> nestedLoopJoin(DBTable a, String colA, DBTable b, String colB) {
+        int ca = a.getColIds().indexOf(colA);
+        int cb = b.getColIds().indexOf(colB);
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> left : rows(a)) {
+            for (List<String> right : rows(b)) {
+                if (left.get(ca) != null && left.get(ca).equals(right.get(cb))) {
+                    List<String> row = new ArrayList<>(left);
+                    row.addAll(right);
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+}
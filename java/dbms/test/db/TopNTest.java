@@ -0,0 +1,154 @@
+package db;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static db.TestTables.sortedBy;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests von {@link DBTable#topN}: Das Ergebnis entspricht dem Ausschnitt [offset, offset + limit)
+ * der stabil sortierten Zeilen, unabhängig davon, ob die Tabelle bereits sortiert vorliegt.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class TopNTest {
+
+    /**
+     * Sortierschlüssel, die Gleichstände in den ersten Schlüsseln enthalten
+     */
+    private static final List<List<SortKey>> KEY_LISTS = Arrays.asList(
+            Arrays.asList(new SortKey("price", SortDirection.DESC)),
+            Arrays.asList(new SortKey("k", SortDirection.ASC)),
+            Arrays.asList(new SortKey("name", SortDirection.ASC),
+                    new SortKey("amount", SortDirection.DESC)),
+            Arrays.asList(new SortKey("day", SortDirection.DESC),
+                    new SortKey("k", SortDirection.ASC), new SortKey("price", SortDirection.ASC)));
+
+    /**
+     * Ausschnitte aus offset und limit, auch leer und über das Ende hinaus
+     */
+    private static final int[][] WINDOWS = {{0, 0}, {0, 1}, {0, 10}, {5, 20}, {100, 37},
+            {990, 50}, {1000, 5}, {2000, 1}, {0, 5000}, {3, Integer.MAX_VALUE}};
+
+    /**
+     * Liefert den Ausschnitt [offset, offset + limit) von rows.
+     */
+    private static List<List<String>> window(List<List<String>> rows, int offset, int limit) {
+        int from = Math.min(offset, rows.size());
+        int to = (int) Math.min(rows.size(), (long) from + limit);
+        return rows.subList(from, to);
+    }
+
+    @Test
+    public void topN_matchesSortAndSubList() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = randomTable("t", layout, 1000, 50, 1);
+            List<List<String>> before = rows(table);
+            for (List<SortKey> keys : KEY_LISTS) {
+                List<List<String>> sorted = sortedBy(table, keys);
+                for (int[] window : WINDOWS) {
+                    DBTable top = table.topN(keys, window[0], window[1], "n");
+                    assertEquals(keys + " " + Arrays.toString(window),
+                            window(sorted, window[0], window[1]), rows(top));
+                    assertEquals(keys, top.getSortOrder());
+                }
+            }
+            assertEquals(before, rows(table));
+        }
+    }
+
+    @Test
+    public void topN_singleColumn() {
+        DBTable table = randomTable("t", StorageLayout.COLUMN, 5000, 5000, 2);
+        List<SortKey> keys = Arrays.asList(new SortKey("amount", SortDirection.DESC));
+        assertEquals(sortedBy(table, keys).subList(0, 10),
+                rows(table.topN("amount", SortDirection.DESC, 10, "n")));
+    }
+
+    @Test
+    public void topN_onSortedTable() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = randomTable("t", layout, 1000, 50, 3);
+            for (List<SortKey> keys : KEY_LISTS) {
+                table.sort(keys);
+                List<List<String>> sorted = rows(table);
+                for (int[] window : WINDOWS) {
+                    assertEquals(window(sorted, window[0], window[1]),
+                            rows(table.topN(keys, window[0], window[1], "n")));
+                }
+                // ein Präfix der Sortierschlüssel genügt nicht für weitere Schlüssel
+                List<SortKey> other = Arrays.asList(keys.get(0),
+                        new SortKey("name", SortDirection.DESC));
+                assertEquals(window(sortedBy(table, other), 7, 30),
+                        rows(table.topN(other, 7, 30, "n")));
+            }
+        }
+    }
+
+    @Test
+    public void topN_afterChanges() {
+        DBTable table = randomTable("t", StorageLayout.ROW, 1000, 50, 4);
+        List<SortKey> keys = Arrays.asList(new SortKey("k", SortDirection.DESC));
+        table.sort(keys);
+        table.appendRow(Arrays.asList("25", null, null, null, null));
+        table.removeRows("name", s -> s == null);
+        assertEquals(window(sortedBy(table, keys), 10, 100),
+                rows(table.topN(keys, 10, 100, "n")));
+    }
+
+    @Test
+    public void topN_onPartitionedTable() {
+        List<SortKey> keys = Arrays.asList(new SortKey("k", SortDirection.ASC),
+                new SortKey("price", SortDirection.DESC));
+        for (Partitioning partitioning : Arrays.asList(Partitioning.hash("k", 4),
+                Partitioning.range("k", Arrays.asList("10", "30")))) {
+            DBTable table = randomTable("t", StorageLayout.COLUMN, 1000, 50, 5);
+            table.partition(partitioning);
+            // sortiert wird nur innerhalb der Partitionen
+            table.sort(keys);
+            assertEquals(window(sortedBy(table, keys), 20, 200),
+                    rows(table.topN(keys, 20, 200, "n")));
+        }
+    }
+
+    @Test
+    public void topN_emptyTableAndZeroLimit() {
+        DBTable table = new DBTable("t", Arrays.asList("a", "b"));
+        List<SortKey> keys = Arrays.asList(new SortKey("a", SortDirection.ASC));
+        DBTable top = table.topN(keys, 0, 10, "n");
+        assertEquals(0, top.getRowCnt());
+        assertEquals(table.getColIds(), top.getColIds());
+        table.appendRow(Arrays.asList("x", "1"));
+        assertEquals(0, table.topN("a", SortDirection.DESC, 0, "n").getRowCnt());
+        assertEquals(0, table.topN(keys, 1, 1, "n").getRowCnt());
+        assertEquals(rows(table), rows(table.topN(keys, 0, 1, "n")));
+    }
+
+    @Test
+    public void topN_nullsAndTies_keepStableOrder() {
+        DBTable table = new DBTable("t", Arrays.asList("a", "pos"));
+        List<String> values = Arrays.asList("b", null, "a", "b", "", null, "a");
+        for (int i = 0; i < 70; i++) {
+            table.appendRow(Arrays.asList(values.get(i % values.size()), Integer.toString(i)));
+        }
+        List<List<String>> before = rows(table);
+        for (SortDirection direction : SortDirection.values()) {
+            List<SortKey> keys = Arrays.asList(new SortKey("a", direction));
+            List<List<String>> sorted = sortedBy(table, keys);
+            // Grenzen mitten in einer Gruppe gleicher Werte
+            for (int[] window : new int[][]{{0, 5}, {7, 13}, {19, 1}, {65, 10}}) {
+                assertEquals(window(sorted, window[0], window[1]),
+                        rows(table.topN(keys, window[0], window[1], "n")));
+            }
+            assertEquals(sorted.subList(0, 12), rows(table.topN("a", direction, 12, "n")));
+        }
+        assertEquals(before, rows(table));
+        assertEquals(0, table.getSortOrder().size());
+    }
+
+}
@@ -0,0 +1,227 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests der typisierten Spalten ({@link ColumnType}): Werte werden gemäß ihrem Typ geprüft,
+ * verglichen und gefiltert, unabhängig vom Speicherlayout.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class TypedColumnsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Speicherlayouts mit Werten als Zeichenketten bzw. in primitiven Spalten
+     */
+    private static final List<StorageLayout> LAYOUTS =
+            Arrays.asList(StorageLayout.ROW, StorageLayout.COLUMN);
+
+    @Test
+    public void isValid_respectsValueRange() {
+        assertTrue(ColumnType.INT.isValid("2147483647"));
+        assertFalse(ColumnType.INT.isValid("2147483648"));
+        assertTrue(ColumnType.LONG.isValid("2147483648"));
+        assertFalse(ColumnType.LONG.isValid("9223372036854775808"));
+        assertTrue(ColumnType.DOUBLE.isValid("-1.5e300"));
+        assertFalse(ColumnType.DOUBLE.isValid("eins"));
+        assertFalse(ColumnType.INT.isValid(""));
+        assertTrue(ColumnType.DATE.isValid(null));
+        assertTrue(ColumnType.STRING.isValid("beliebig"));
+    }
+
+    @Test
+    public void isValid_integerBounds() {
+        assertTrue(ColumnType.INT.isValid("-2147483648"));
+        assertFalse(ColumnType.INT.isValid("-2147483649"));
+        assertTrue(ColumnType.LONG.isValid("-9223372036854775808"));
+        assertTrue(ColumnType.LONG.isValid("9223372036854775807"));
+        assertFalse(ColumnType.LONG.isValid("-9223372036854775809"));
+        assertFalse(ColumnType.INT.isValid("1.0"));
+        assertFalse(ColumnType.LONG.isValid("1e3"));
+        assertTrue(ColumnType.INT.isValid(null));
+    }
+
+    @Test
+    public void double_acceptsOnlyFiniteDecimals() {
+        for (String valid : new String[]{"0", "-1.5", "+2", ".5", "5.", "1e3", "1.0E-300",
+                "-0.0"}) {
+            assertTrue(valid, ColumnType.DOUBLE.isValid(valid));
+        }
+        for (String invalid : new String[]{"", "-", ".", "e3", "1e", "1e+", "NaN", "-Infinity",
+                "0x1p3", "1d", "2.5f", " 1", "1 ", "1e400", "1.2.3", "--1"}) {
+            assertFalse(invalid, ColumnType.DOUBLE.isValid(invalid));
+        }
+        assertEquals("1.0E300", ColumnType.DOUBLE.normalize("1e300"));
+        assertTrue(ColumnType.DOUBLE.isValid(ColumnType.DOUBLE.normalize("1e300")));
+    }
+
+    @Test
+    public void date_beyondIntEpochDaysIsInvalid() {
+        String max = LocalDate.ofEpochDay(Integer.MAX_VALUE).toString();
+        String min = LocalDate.ofEpochDay(Integer.MIN_VALUE).toString();
+        assertTrue(ColumnType.DATE.isValid(max));
+        assertTrue(ColumnType.DATE.isValid(min));
+        assertFalse(ColumnType.DATE.isValid(LocalDate.ofEpochDay(Integer.MAX_VALUE + 1L)
+                .toString()));
+        assertFalse(ColumnType.DATE.isValid(LocalDate.ofEpochDay(Integer.MIN_VALUE - 1L)
+                .toString()));
+        assertFalse(ColumnType.DATE.isValid("2021-02-30"));
+        assertFalse(ColumnType.DATE.isValid("+999999999-12-31"));
+
+        // die Grenzen bleiben auch in primitiv gespeicherten Spalten erhalten
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = new DBTable("t", Arrays.asList("day"),
+                    Arrays.asList(ColumnType.DATE), layout);
+            table.appendRow(Arrays.asList(max));
+            table.appendRow(Arrays.asList(min));
+            table.sort("day", SortDirection.ASC);
+            assertEquals(Arrays.asList(Arrays.asList(min), Arrays.asList(max)), rows(table));
+        }
+    }
+
+    @Test
+    public void values_areNormalized() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable t = new DBTable("t", TestTables.COLS, TestTables.TYPES, layout);
+            t.appendRow(Arrays.asList("007", "x", "-0", "2020-01-05", "1.50"));
+            t.appendRow(Arrays.asList(null, null, null, null, null));
+            t.appendRow(Arrays.asList("-2147483648", "", "-9223372036854775808", "2020-01-05",
+                    "-0.0"));
+            assertEquals(Arrays.asList("7", "x", "0", "2020-01-05", "1.5"), t.getRow(0));
+            assertEquals(Arrays.asList(null, null, null, null, null), t.getRow(1));
+            assertEquals(Arrays.asList("-2147483648", "", "-9223372036854775808", "2020-01-05",
+                    "-0.0"), t.getRow(2));
+        }
+    }
+
+    @Test
+    public void selectEqualsWithIndex_normalizesValue() {
+        for (IndexType type : IndexType.values()) {
+            DBTable t = randomTable("t", StorageLayout.ROW, 200, 10, 4);
+            t.createIndex("k", type);
+            assertEquals(rows(t.selectEquals("k", "7", "s")),
+                    rows(t.selectEquals("k", "007", "s")));
+            assertEquals(0, t.selectEquals("k", "x", "s").getRowCnt());
+        }
+    }
+
+    @Test
+    public void load_rejectsValuesOfWrongType() throws IOException {
+        for (String content : Arrays.asList("x,2021-01-01\n", "1,2021-13-01\n", "1,\n",
+                "2147483648,2021-01-01\n")) {
+            Path file = folder.newFile().toPath();
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            DBTable t = new DBTable("t", Arrays.asList("id", "day"),
+                    Arrays.asList(ColumnType.INT, ColumnType.DATE), StorageLayout.ROW);
+            try {
+                t.load(file, ',', false);
+                fail(content);
+            } catch (IOException expected) {
+                // erwartet
+            }
+            assertEquals(0, t.getRowCnt());
+        }
+    }
+
+    @Test
+    public void comparator_ordersByValue() {
+        List<String> ints = new ArrayList<>(Arrays.asList("10", "-3", "9", null, "0", "-20"));
+        Collections.sort(ints, ColumnType.INT.comparator());
+        assertEquals(Arrays.asList(null, "-20", "-3", "0", "9", "10"), ints);
+
+        List<String> doubles = new ArrayList<>(Arrays.asList("2.5", "-0.5", "-10.0", "0.25",
+                "1e3", "-1e-3"));
+        Collections.sort(doubles, ColumnType.DOUBLE.comparator());
+        assertEquals(Arrays.asList("-10.0", "-0.5", "-1e-3", "0.25", "2.5", "1e3"), doubles);
+
+        List<String> dates = new ArrayList<>(Arrays.asList("2021-10-01", "2021-09-30",
+                "1969-12-31", "+10000-01-01"));
+        Collections.sort(dates, ColumnType.DATE.comparator());
+        assertEquals(Arrays.asList("1969-12-31", "2021-09-30", "2021-10-01", "+10000-01-01"),
+                dates);
+    }
+
+    @Test
+    public void sort_numericColumnsByValue() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = randomTable("t", layout, 2000, 300, 1);
+            for (String colId : Arrays.asList("k", "amount", "day", "price")) {
+                List<String> expected = new ArrayList<>();
+                for (List<String> row : rows(table)) {
+                    expected.add(row.get(table.getColIds().indexOf(colId)));
+                }
+                Collections.sort(expected, table.getColType(colId).comparator());
+                table.sort(colId, SortDirection.ASC);
+                List<String> actual = new ArrayList<>();
+                for (List<String> row : rows(table)) {
+                    actual.add(row.get(table.getColIds().indexOf(colId)));
+                }
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void selectLongAndDouble_matchSelect() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = randomTable("t", layout, 3000, 100, 2);
+            assertEquals(rows(table.select("amount",
+                            s -> s != null && Long.parseLong(s) % 7 == 0, "s")),
+                    rows(table.selectLong("amount", v -> v % 7 == 0, "s")));
+            assertEquals(rows(table.select("k", s -> Integer.parseInt(s) < 10, "s")),
+                    rows(table.selectLong("k", v -> v < 10, "s")));
+            final long day = LocalDate.parse("2020-01-20").toEpochDay();
+            assertEquals(rows(table.select("day",
+                            s -> s != null && s.compareTo("2020-01-20") >= 0, "s")),
+                    rows(table.selectLong("day", v -> v >= day, "s")));
+            assertEquals(rows(table.select("price",
+                            s -> s != null && Double.parseDouble(s) > 50.5, "s")),
+                    rows(table.selectDouble("price", v -> v > 50.5, "s")));
+            assertEquals(rows(table.select("amount",
+                            s -> s != null && Long.parseLong(s) < -500, "s")),
+                    rows(table.selectDouble("amount", v -> v < -500, "s")));
+        }
+    }
+
+    @Test
+    public void selectEqualsAndRange_compareValues() {
+        for (StorageLayout layout : LAYOUTS) {
+            DBTable table = randomTable("t", layout, 3000, 100, 3);
+            assertEquals(rows(table.select("k", s -> s.equals("7"), "s")),
+                    rows(table.selectEquals("k", "007", "s")));
+            assertEquals(rows(table.select("price", s -> "12.5".equals(s), "s")),
+                    rows(table.selectEquals("price", "12.50", "s")));
+            assertEquals(0, table.selectEquals("k", "sieben", "s").getRowCnt());
+            assertEquals(rows(table.select("k",
+                            s -> Integer.parseInt(s) >= 9 && Integer.parseInt(s) < 20, "s")),
+                    rows(table.selectRange("k", "9", "20", "s")));
+            assertEquals(rows(table.select("price",
+                            s -> s != null && Double.parseDouble(s) >= 9.5
+                                    && Double.parseDouble(s) < 20, "s")),
+                    rows(table.selectRange("price", "9.5", "20", "s")));
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package db;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests der protokollierten Datenbank ({@link DB#openLogged}): Nach dem erneuten Öffnen hat die
+ * Datenbank denselben Stand, auch nach Checkpoints und mit unvollständigem Protokollende.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Liefert die Protokolldateien im Verzeichnis dir.
+     */
+    private static List<Path> logFiles(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "wal.*")) {
+            for (Path file : files) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prüft, dass die Datenbank im Verzeichnis dir denselben Stand wie expected hat.
+     */
+    private static void assertReopened(DB expected, Path dir) throws IOException {
+        DB reopened = DB.openLogged(dir, "x", 5);
+        try {
+            assertEquals(expected.getId(), reopened.getId());
+            assertEquals(expected.getTableIds(), reopened.getTableIds());
+            for (String id : expected.getTableIds()) {
+                DBTable table = expected.getTable(id);
+                assertEquals(table.getColIds(), reopened.getTable(id).getColIds());
+                assertEquals(rows(table), rows(reopened.getTable(id)));
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void replay_allKindsOfChanges() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.addTable(randomTable("a", StorageLayout.ROW, 200, 20, 1));
+        db.addTable(randomTable("b", StorageLayout.ROW, 50, 20, 2));
+        db.addTable(randomTable("c", StorageLayout.ROW, 10, 20, 3));
+        DBTable a = db.getTable("a");
+        Random random = new Random(4);
+        for (int i = 0; i < 30; i++) {
+            a.appendRow(randomRow(random, 20));
+        }
+        a.removeRows("k", s -> s.endsWith("1"));
+        a.sort("price", SortDirection.DESC);
+        a.removeRows("amount", s -> s == null);
+        db.getTable("b").removeAllRows();
+        db.getTable("b").appendRow(Arrays.asList("1", "", null, "2021-02-03", "0.5"));
+        db.removeTable("c");
+        db.close();
+
+        assertReopened(db, dir);
+    }
+
+    @Test
+    public void replay_emptyDatabase() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB.openLogged(dir, "d", 5).close();
+        // der Bezeichner einer vorhandenen Datenbank bleibt erhalten
+        assertReopened(new DB("d"), dir);
+        DB db = DB.openLogged(dir, "x", 5);
+        db.addTable(new DBTable("e", Arrays.asList("v")));
+        db.getTable("e").removeAllRows();
+        db.getTable("e").removeRows("v", s -> true);
+        db.close();
+        assertReopened(db, dir);
+    }
+
+    @Test
+    public void replay_afterRemoveAllTables() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.addTable(randomTable("a", StorageLayout.ROW, 20, 5, 1));
+        db.removeAllTables();
+        db.addTable(randomTable("b", StorageLayout.ROW, 20, 5, 2));
+        db.close();
+
+        assertReopened(db, dir);
+    }
+
+    @Test
+    public void replay_acrossCheckpoints() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.setCheckpointBytes(4096);
+        db.addTable(randomTable("a", StorageLayout.COLUMN, 10, 20, 1));
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            db.getTable("a").appendRow(randomRow(random, 20));
+            if (i % 500 == 0) {
+                db.getTable("a").removeRows("k", s -> s.equals("3"));
+            }
+        }
+        db.checkpoint();
+        db.getTable("a").appendRow(randomRow(random, 20));
+        db.close();
+
+        assertEquals(1, logFiles(dir).size());
+        assertReopened(db, dir);
+    }
+
+    @Test
+    public void checkpoint_waitsForBulkAppend() throws IOException {
+        Path csv = folder.newFile("rows.csv").toPath();
+        Files.write(csv, Arrays.asList("1,a", "2,b", "3,c", "4,d", "5,e"));
+        // Checkpoints nach dem ersten, zweiten bzw. dritten angehängten Datensatz
+        for (long bytes : new long[]{45, 80, 100}) {
+            Path dir = folder.newFolder().toPath();
+            DB db = DB.openLogged(dir, "d", 5);
+            db.setCheckpointBytes(bytes);
+            db.addTable(new DBTable("a", Arrays.asList("k", "v")));
+            db.getTable("a").load(csv, ',', false);
+            db.close();
+
+            assertEquals(5, db.getTable("a").getRowCnt());
+            assertReopened(db, dir);
+        }
+    }
+
+    @Test
+    public void checkpoint_afterRemoveAllTables() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.setCheckpointBytes(1);
+        db.addTable(randomTable("a", StorageLayout.ROW, 5, 5, 1));
+        db.removeAllTables();
+        db.close();
+
+        assertEquals(0, db.getTableCnt());
+        assertReopened(db, dir);
+    }
+
+    @Test
+    public void replay_dropsIncompleteLastRecord() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.addTable(randomTable("a", StorageLayout.ROW, 10, 20, 1));
+        DB expected = db.snapshot();
+        db.getTable("a").appendRow(Arrays.asList("1", "lost", null, null, null));
+        db.close();
+
+        // Absturz während des Schreibens des letzten Datensatzes
+        Path log = logFiles(dir).get(0);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertReopened(expected, dir);
+
+        // das Protokoll wird hinter dem letzten vollständigen Datensatz fortgesetzt
+        DB reopened = DB.openLogged(dir, "d", 5);
+        reopened.getTable("a").appendRow(Arrays.asList("2", "kept", null, null, null));
+        reopened.close();
+        assertReopened(reopened, dir);
+        assertFalse(rows(reopened.getTable("a")).contains(
+                Arrays.asList("1", "lost", null, null, null)));
+    }
+
+    @Test
+    public void replay_dropsLastRecordCutAnywhere() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.addTable(randomTable("a", StorageLayout.ROW, 3, 5, 1));
+        db.sync();
+        DB expected = db.snapshot();
+        long before = Files.size(logFiles(dir).get(0));
+        db.getTable("a").appendRow(Arrays.asList("1", "lost", null, null, null));
+        db.close();
+        Path log = logFiles(dir).get(0);
+        long after = Files.size(log);
+        byte[] content = Files.readAllBytes(log);
+
+        // jede Länge zwischen dem vorletzten und dem letzten vollständigen Datensatz
+        for (long size = before; size < after; size++) {
+            Files.write(log, content);
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+            assertReopened(expected, dir);
+            assertEquals(Arrays.asList(log), logFiles(dir));
+        }
+    }
+
+    @Test
+    public void changesAfterClose_areNotLogged() throws IOException {
+        Path dir = folder.newFolder().toPath();
+        DB db = DB.openLogged(dir, "d", 5);
+        db.addTable(randomTable("a", StorageLayout.ROW, 10, 20, 1));
+        db.sync();
+        DB expected = db.snapshot();
+        db.close();
+        db.getTable("a").appendRow(Arrays.asList("1", "unlogged", null, null, null));
+
+        assertReopened(expected, dir);
+    }
+
+}
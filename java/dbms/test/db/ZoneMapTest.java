@@ -0,0 +1,283 @@
+package db;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static db.TestTables.randomRow;
+import static db.TestTables.randomTable;
+import static db.TestTables.rows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests der Blockstatistiken ({@link ZoneMap}): {@link DBTable#selectRange} und
+ * {@link DBTable#removeRange} liefern mit eingeschalteten Blockstatistiken dieselben Zeilen in
+ * derselben Reihenfolge wie ein Vergleich aller Zeilen, auch nach Änderungen der Tabelle.
+ *
+ * @author Konstantin Opora inf104952, Lennard Kirchner inf104888
+ */
+public class ZoneMapTest {
+
+    /**
+     * Anzahl der Zeilen der Tabellen: mehrere volle Blöcke und ein angefangener Block
+     */
+    private static final int ROW_CNT = 2 * ZoneMap.BLOCK_ROWS + 500;
+
+    /**
+     * Bereiche je Spalte der Tabellen von {@link TestTables#randomTable}: Spalte, from, to
+     */
+    private static final String[][] RANGES = {
+            {"k", "10", "20"}, {"k", "0", "1000"}, {"k", "25", "25"}, {"k", "-5", "0"},
+            {"name", "n1", "n3"}, {"name", "a", "z"},
+            {"amount", "-100", "300"}, {"amount", "2000", "3000"},
+            {"day", "2020-01-12", "2020-01-15"}, {"day", "2019-01-01", "2020-01-10"},
+            {"price", "10.0", "40.5"}, {"price", "-1", "0.125"}};
+
+    /**
+     * Bereiche der Tabellen von {@link #monotonicTable}: innerhalb eines Blocks, über mehrere
+     * Blöcke, alle Zeilen und keine Zeile
+     */
+    private static final String[][] MONOTONIC_RANGES = {
+            {"ts", "100", "200"}, {"ts", "4000", "9000"}, {"ts", "-1", "100000"},
+            {"ts", "20000", "30000"}, {"ts", "-100", "-1"},
+            {"day", "2000-01-05", "2000-02-10"}, {"day", "1999-01-01", "2000-01-01"},
+            {"v", "v00010", "v00013"}, {"v", "a", "w"}};
+
+    /**
+     * Je Spalte ein Bereich aus {@link #RANGES}, für die Prüfungen nach Änderungen
+     */
+    private static final String[][] SOME_RANGES = {
+            {"k", "10", "20"}, {"name", "n1", "n3"}, {"amount", "-100", "300"},
+            {"day", "2020-01-12", "2020-01-15"}, {"price", "10.0", "40.5"}};
+
+    /**
+     * Je Spalte ein Bereich aus {@link #MONOTONIC_RANGES}, für die Prüfungen nach Änderungen
+     */
+    private static final String[][] SOME_MONOTONIC_RANGES = {
+            {"ts", "4000", "9000"}, {"day", "2000-01-05", "2000-02-10"},
+            {"v", "v00010", "v00013"}};
+
+    /**
+     * Erzeugt eine Tabelle, deren Spalten mit der Zeilennummer etwa steigen, sodass die
+     * Blockstatistiken ganze Blöcke ausschließen. Einzelne Werte weichen ab oder sind null.
+     */
+    private static DBTable monotonicTable(StorageLayout layout, long seed) {
+        DBTable table = new DBTable("m", Arrays.asList("ts", "day", "v"),
+                Arrays.asList(ColumnType.LONG, ColumnType.DATE, ColumnType.STRING), layout);
+        Random random = new Random(seed);
+        LocalDate start = LocalDate.parse("2000-01-01");
+        for (int i = 0; i < ROW_CNT; i++) {
+            table.appendRow(Arrays.asList(
+                    Long.toString(i + random.nextInt(50)),
+                    random.nextInt(100) == 0 ? null : start.plusDays(i / 100).toString(),
+                    String.format("v%05d", i / 1000)));
+        }
+        return table;
+    }
+
+    /**
+     * Liefert die Zeilen all von table, deren Wert in der Spalte colId nicht null ist und in
+     * [from, to) liegt, bzw. bei inside = false die übrigen Zeilen, durch Vergleich aller Zeilen.
+     */
+    private static List<List<String>> scan(DBTable table, List<List<String>> all, String colId,
+                                           String from, String to, boolean inside) {
+        int col = table.getColIds().indexOf(colId);
+        Comparator<String> comp = table.getColType(colId).comparator();
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> row : all) {
+            String value = row.get(col);
+            boolean contained = value != null && comp.compare(from, value) <= 0
+                    && comp.compare(value, to) < 0;
+            if (contained == inside) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prüft selectRange und removeRange für alle Bereiche ranges. removeRange wird auf einer Kopie
+     * der Tabelle ausgeführt.
+     */
+    private static void assertRangesMatchScan(DBTable table, String[][] ranges) {
+        List<List<String>> all = rows(table);
+        for (String[] range : ranges) {
+            String message = table.getLayout() + " " + Arrays.toString(range);
+            assertEquals(message, scan(table, all, range[0], range[1], range[2], true),
+                    rows(table.selectRange(range[0], range[1], range[2], "s")));
+            DBTable copy = copy(table, all);
+            copy.removeRange(range[0], range[1], range[2]);
+            assertEquals(message, scan(table, all, range[0], range[1], range[2], false),
+                    rows(copy));
+        }
+    }
+
+    /**
+     * Liefert eine Kopie von table mit den Zeilen all, derselben Partitionierung und ebenfalls
+     * eingeschalteten Blockstatistiken.
+     */
+    private static DBTable copy(DBTable table, List<List<String>> all) {
+        List<ColumnType> types = new ArrayList<>();
+        for (String colId : table.getColIds()) {
+            types.add(table.getColType(colId));
+        }
+        DBTable result = new DBTable("c", table.getColIds(), types, table.getLayout());
+        result.setZoneMaps(table.hasZoneMaps());
+        if (table.getPartitioning() != null) {
+            result.partition(table.getPartitioning());
+        }
+        for (List<String> row : all) {
+            result.appendRow(row);
+        }
+        return result;
+    }
+
+    @Test
+    public void ranges_matchScan() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = randomTable("t", layout, ROW_CNT, 50, 1);
+            assertFalse(table.hasZoneMaps());
+            table.setZoneMaps(true);
+            assertTrue(table.hasZoneMaps());
+            assertRangesMatchScan(table, RANGES);
+        }
+    }
+
+    @Test
+    public void monotonicRanges_matchScan() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = monotonicTable(layout, 2);
+            table.setZoneMaps(true);
+            assertRangesMatchScan(table, MONOTONIC_RANGES);
+            // Blockstatistiken, die beim Anhängen fortgeschrieben werden
+            DBTable appended = monotonicTable(layout, 2);
+            appended.removeAllRows();
+            appended.setZoneMaps(true);
+            for (List<String> row : rows(table)) {
+                appended.appendRow(row);
+            }
+            assertRangesMatchScan(appended, MONOTONIC_RANGES);
+        }
+    }
+
+    @Test
+    public void changes_matchScan() {
+        for (StorageLayout layout : StorageLayout.values()) {
+            DBTable table = monotonicTable(layout, 3);
+            table.setZoneMaps(true);
+            Random random = new Random(4);
+            table.removeRows("ts", s -> Long.parseLong(s) % 7 == 0);
+            assertRangesMatchScan(table, SOME_MONOTONIC_RANGES);
+            for (int i = 0; i < ZoneMap.BLOCK_ROWS + 10; i++) {
+                table.appendRow(Arrays.asList(Long.toString(random.nextInt(20000)),
+                        "2000-03-0" + (1 + random.nextInt(9)), "v0001" + random.nextInt(5)));
+            }
+            assertRangesMatchScan(table, SOME_MONOTONIC_RANGES);
+            table.removeRange("ts", "1000", "2000");
+            assertRangesMatchScan(table, SOME_MONOTONIC_RANGES);
+            table.sort("v", SortDirection.DESC);
+            assertRangesMatchScan(table, SOME_MONOTONIC_RANGES);
+            table.removeAllRows();
+            assertRangesMatchScan(table, SOME_MONOTONIC_RANGES);
+        }
+    }
+
+    @Test
+    public void toggling_matchesScan() {
+        DBTable table = randomTable("t", StorageLayout.COLUMN, ROW_CNT, 50, 5);
+        table.setZoneMaps(true);
+        table.setZoneMaps(false);
+        assertFalse(table.hasZoneMaps());
+        Random random = new Random(6);
+        // Änderungen ohne Blockstatistiken werden beim Einschalten berücksichtigt
+        for (int i = 0; i < 1000; i++) {
+            table.appendRow(randomRow(random, 50));
+        }
+        table.removeRows("name", s -> "n7".equals(s));
+        table.sort("day", SortDirection.ASC);
+        table.setZoneMaps(true);
+        table.setZoneMaps(true);
+        assertRangesMatchScan(table, RANGES);
+    }
+
+    @Test
+    public void partitionedTable_matchesScan() {
+        for (Partitioning partitioning : Arrays.asList(Partitioning.hash("k", 3),
+                Partitioning.range("day", Arrays.asList("2020-01-15", "2020-01-20")))) {
+            for (StorageLayout layout : StorageLayout.values()) {
+                DBTable table = randomTable("t", layout, ROW_CNT, 50, 7);
+                table.setZoneMaps(true);
+                table.partition(partitioning);
+                assertRangesMatchScan(table, SOME_RANGES);
+                Random random = new Random(8);
+                for (int i = 0; i < 500; i++) {
+                    table.appendRow(randomRow(random, 50));
+                }
+                table.sort("amount", SortDirection.ASC);
+                assertRangesMatchScan(table, SOME_RANGES);
+            }
+        }
+    }
+
+    @Test
+    public void sortedIndex_matchesScan() {
+        DBTable table = monotonicTable(StorageLayout.ROW, 9);
+        table.setZoneMaps(true);
+        table.createIndex("ts", IndexType.SORTED);
+        assertRangesMatchScan(table, MONOTONIC_RANGES);
+    }
+
+    @Test
+    public void append_midPartition_matchesScan() {
+        DBTable table = new DBTable("t", Arrays.asList("k", "n"),
+                Arrays.asList(ColumnType.INT, ColumnType.LONG), StorageLayout.ROW);
+        table.partition(Partitioning.range("k", Arrays.asList("100", "200", "300")));
+        table.setZoneMaps(true);
+        String[][] ranges = {{"n", "0", "4000"}, {"n", "50000", "60000"}, {"k", "150", "250"}};
+        Random random = new Random(3);
+        // jede Zeile landet mitten in der Tabelle, am Ende ihrer Partition
+        for (int i = 0; i < 3 * ZoneMap.BLOCK_ROWS; i++) {
+            table.appendRow(Arrays.asList(Integer.toString(random.nextInt(400)),
+                    Integer.toString(i * 5)));
+            if (i % 2500 == 0) {
+                assertRangesMatchScan(table, ranges);
+            }
+        }
+        assertRangesMatchScan(table, ranges);
+        table.dropPartition(1);
+        table.appendRow(Arrays.asList("150", "3"));
+        table.appendRow(Arrays.asList("50", "4"));
+        assertRangesMatchScan(table, ranges);
+    }
+
+    @Test
+    public void blockBoundariesAndNulls_matchScan() {
+        for (int rowCnt : new int[]{0, 1, ZoneMap.BLOCK_ROWS, ZoneMap.BLOCK_ROWS + 1}) {
+            for (StorageLayout layout : StorageLayout.values()) {
+                DBTable table = new DBTable("t", Arrays.asList("v", "nulls"),
+                        Arrays.asList(ColumnType.LONG, ColumnType.STRING), layout);
+                table.setZoneMaps(true);
+                for (int i = 0; i < rowCnt; i++) {
+                    // der letzte Wert eines Blocks ist dessen Maximum
+                    table.appendRow(Arrays.asList(Integer.toString(i), null));
+                }
+                int last = rowCnt - 1;
+                // Grenzen genau auf dem kleinsten bzw. größten Wert eines Blocks
+                assertRangesMatchScan(table, new String[][]{{"v", "0", "1"},
+                        {"v", Integer.toString(last), Integer.toString(rowCnt)},
+                        {"v", "1", Integer.toString(last)},
+                        {"v", Integer.toString(ZoneMap.BLOCK_ROWS - 1),
+                                Integer.toString(ZoneMap.BLOCK_ROWS + 1)},
+                        {"nulls", "", "zzz"}});
+            }
+        }
+    }
+
+}